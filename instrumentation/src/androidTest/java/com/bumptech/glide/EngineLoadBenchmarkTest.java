@@ -0,0 +1,104 @@
+package com.bumptech.glide;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.bumptech.glide.test.ConcurrencyHelper;
+import com.bumptech.glide.test.GlideApp;
+import com.bumptech.glide.test.ResourceIds.raw;
+import com.bumptech.glide.test.TearDownGlide;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the main thread cost of starting requests that complete from the memory cache, which is
+ * dominated by building and looking up the {@link com.bumptech.glide.load.engine.Engine}'s keys.
+ *
+ * <p>Results are logged with the {@link #TAG} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EngineLoadBenchmarkTest {
+  private static final String TAG = "EngineLoadBenchmark";
+  private static final int SIZE_PIXELS = 100;
+  private static final int WARM_UP_ITERATIONS = 200;
+  private static final int ITERATIONS = 2000;
+
+  @Rule public final TearDownGlide tearDownGlide = new TearDownGlide();
+  private final ConcurrencyHelper concurrency = new ConcurrencyHelper();
+  private Context context;
+
+  @Before
+  public void setUp() {
+    context = ApplicationProvider.getApplicationContext();
+    Glide.init(context, new GlideBuilder().setMemoryCache(new LruResourceCache(10 * 1024 * 1024)));
+    // Load once so that every request in the benchmark completes from memory.
+    concurrency.get(
+        GlideApp.with(context).load(raw.canonical).override(SIZE_PIXELS).centerCrop().submit());
+  }
+
+  @Test
+  public void load_fromMemoryCache_onMainThread() {
+    final CountingTarget target = new CountingTarget();
+    final long[] elapsedNanos = new long[1];
+    concurrency.runOnMainThread(
+        new Runnable() {
+          @Override
+          public void run() {
+            loadAndClear(target, WARM_UP_ITERATIONS);
+            long start = System.nanoTime();
+            loadAndClear(target, ITERATIONS);
+            elapsedNanos[0] = System.nanoTime() - start;
+          }
+        });
+
+    assertThat(target.resourceReadyCount).isEqualTo(WARM_UP_ITERATIONS + ITERATIONS);
+    Log.i(
+        TAG,
+        "Loaded and cleared "
+            + ITERATIONS
+            + " requests from memory in "
+            + elapsedNanos[0] / 1000000
+            + "ms, "
+            + elapsedNanos[0] / ITERATIONS
+            + "ns per request");
+  }
+
+  private void loadAndClear(CountingTarget target, int iterations) {
+    RequestManager requestManager = GlideApp.with(context);
+    for (int i = 0; i < iterations; i++) {
+      // Build new options for every request, like binding a row in a list does.
+      requestManager.load(raw.canonical).override(SIZE_PIXELS).centerCrop().into(target);
+      requestManager.clear(target);
+    }
+  }
+
+  private static final class CountingTarget extends CustomTarget<Drawable> {
+    int resourceReadyCount;
+
+    CountingTarget() {
+      super(SIZE_PIXELS, SIZE_PIXELS);
+    }
+
+    @Override
+    public void onResourceReady(
+        @NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+      resourceReadyCount++;
+    }
+
+    @Override
+    public void onLoadCleared(@Nullable Drawable placeholder) {
+      // Do nothing.
+    }
+  }
+}
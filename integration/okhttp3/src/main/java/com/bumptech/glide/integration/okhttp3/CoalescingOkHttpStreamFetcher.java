@@ -0,0 +1,84 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.integration.okhttp3.OkHttpCallCoalescer.SharedCall;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import java.io.InputStream;
+import java.util.Map;
+import okhttp3.Call;
+import okhttp3.Request;
+
+/**
+ * Fetches an {@link InputStream} using the okhttp library on the thread that calls {@link
+ * #loadData(Priority, DataCallback)}, sharing the call with any concurrent fetches for the same
+ * {@link GlideUrl}.
+ *
+ * <p>Unlike {@link OkHttpStreamFetcher}, calls are not queued in OkHttp's {@link
+ * okhttp3.Dispatcher}, which runs calls in the order they're enqueued and limits the number of
+ * concurrent calls per host. Calls instead run in the order Glide's executors pick them based on
+ * their {@link Priority} and are multiplexed over the host's connection when it uses HTTP/2.
+ */
+final class CoalescingOkHttpStreamFetcher implements DataFetcher<InputStream> {
+  private final Call.Factory client;
+  private final OkHttpCallCoalescer coalescer;
+  private final GlideUrl url;
+  // sharedCall and callback may be accessed on the main thread while the object is in use on other
+  // threads.
+  private volatile SharedCall sharedCall;
+  private volatile DataCallback<? super InputStream> callback;
+
+  CoalescingOkHttpStreamFetcher(Call.Factory client, OkHttpCallCoalescer coalescer, GlideUrl url) {
+    this.client = client;
+    this.coalescer = coalescer;
+    this.url = url;
+  }
+
+  @Override
+  public void loadData(
+      @NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+    this.callback = callback;
+    SharedCall shared = coalescer.join(url, callback);
+    sharedCall = shared;
+    if (!shared.isRunBy(callback)) {
+      return;
+    }
+
+    // OkHttp doesn't send HTTP/2 stream priorities, but the tag allows interceptors to use the
+    // priority, for example to set a header understood by the server.
+    Request.Builder requestBuilder =
+        new Request.Builder().url(url.toStringUrl()).tag(Priority.class, priority);
+    for (Map.Entry<String, String> headerEntry : url.getHeaders().entrySet()) {
+      requestBuilder.addHeader(headerEntry.getKey(), headerEntry.getValue());
+    }
+    coalescer.run(shared, client, requestBuilder.build());
+  }
+
+  @Override
+  public void cleanup() {
+    // Do nothing, the shared response is read into memory and closed before data is delivered.
+  }
+
+  @Override
+  public void cancel() {
+    SharedCall localCall = sharedCall;
+    DataCallback<? super InputStream> localCallback = callback;
+    if (localCall != null && localCallback != null) {
+      coalescer.leave(localCall, localCallback);
+    }
+  }
+
+  @NonNull
+  @Override
+  public Class<InputStream> getDataClass() {
+    return InputStream.class;
+  }
+
+  @NonNull
+  @Override
+  public DataSource getDataSource() {
+    return DataSource.REMOTE;
+  }
+}
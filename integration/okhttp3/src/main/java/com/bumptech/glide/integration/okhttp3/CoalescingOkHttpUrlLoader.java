@@ -0,0 +1,96 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * A model loader for fetching media over http/https using OkHttp that downloads each url only once
+ * when it's loaded concurrently at multiple sizes or with multiple transformations.
+ *
+ * <p>Calls run on Glide's threads in the order of their {@link com.bumptech.glide.Priority} rather
+ * than being queued in OkHttp's dispatcher, see {@link #newClientBuilder(int, long, TimeUnit)} for
+ * a client suited to this loader. Since a single download may be shared by many loads, response
+ * bodies are read fully into memory before they're decoded, so this loader is best suited to
+ * images rather than large videos.
+ *
+ * <p>To use this loader, replace Glide's default loader for {@link GlideUrl}s in an {@link
+ * com.bumptech.glide.module.AppGlideModule}:
+ *
+ * <pre>{@code
+ * registry.replace(
+ *     GlideUrl.class, InputStream.class, new CoalescingOkHttpUrlLoader.Factory(client));
+ * }</pre>
+ */
+public final class CoalescingOkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
+  private final Call.Factory client;
+  private final OkHttpCallCoalescer coalescer;
+
+  CoalescingOkHttpUrlLoader(Call.Factory client, OkHttpCallCoalescer coalescer) {
+    this.client = client;
+    this.coalescer = coalescer;
+  }
+
+  @Override
+  public boolean handles(@NonNull GlideUrl url) {
+    return true;
+  }
+
+  @Override
+  public LoadData<InputStream> buildLoadData(
+      @NonNull GlideUrl model, int width, int height, @NonNull Options options) {
+    return new LoadData<>(model, new CoalescingOkHttpStreamFetcher(client, coalescer, model));
+  }
+
+  /**
+   * Returns a builder for an {@link OkHttpClient} that keeps up to the given number of idle
+   * connections open for the given duration.
+   *
+   * <p>When a host supports HTTP/2, which OkHttp negotiates by default, every concurrent load from
+   * the host shares one connection, so few idle connections are needed. Keeping them alive for
+   * longer avoids repeating the TLS handshake between bursts of loads, for example when a list is
+   * scrolled.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public static OkHttpClient.Builder newClientBuilder(
+      int maxIdleConnections, long keepAliveDuration, @NonNull TimeUnit timeUnit) {
+    return new OkHttpClient.Builder()
+        .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDuration, timeUnit));
+  }
+
+  /** The default factory for {@link CoalescingOkHttpUrlLoader}s. */
+  public static final class Factory implements ModelLoaderFactory<GlideUrl, InputStream> {
+    private final OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer();
+    private final Call.Factory client;
+
+    /**
+     * Constructor for a new Factory that runs requests using given client.
+     *
+     * @param client this is typically an instance of {@code OkHttpClient}.
+     */
+    public Factory(@NonNull Call.Factory client) {
+      this.client = client;
+    }
+
+    @NonNull
+    @Override
+    public ModelLoader<GlideUrl, InputStream> build(MultiModelLoaderFactory multiFactory) {
+      return new CoalescingOkHttpUrlLoader(client, coalescer);
+    }
+
+    @Override
+    public void teardown() {
+      // Do nothing, this instance doesn't own the client.
+    }
+  }
+}
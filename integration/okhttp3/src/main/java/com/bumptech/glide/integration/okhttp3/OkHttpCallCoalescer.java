@@ -0,0 +1,150 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import android.util.Log;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.data.DataFetcher.DataCallback;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.Call;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Shares a single OkHttp {@link Call} between all concurrent fetches for equal {@link GlideUrl}s.
+ *
+ * <p>Glide starts a separate load for every size and transformation of an image, so screens that
+ * show the same image at multiple sizes would otherwise download it once per size. The first fetch
+ * for a url runs the call, fetches for the same url that start before it finishes wait for its
+ * result. Since a response body can only be read once, the body is read fully into memory and each
+ * fetch is given its own stream over the same bytes.
+ */
+final class OkHttpCallCoalescer {
+  private static final String TAG = "OkHttpCoalescer";
+
+  @GuardedBy("this")
+  private final Map<GlideUrl, SharedCall> inFlight = new HashMap<>();
+
+  /**
+   * Adds the given callback to the in progress call for the given url, or to a new call if none is
+   * in progress.
+   *
+   * <p>If the returned {@link SharedCall} {@link SharedCall#isRunBy(DataCallback) is run by} the
+   * given callback, the caller must run it using {@link #run(SharedCall, Call.Factory, Request)}.
+   */
+  @NonNull
+  synchronized SharedCall join(
+      @NonNull GlideUrl url, @NonNull DataCallback<? super InputStream> callback) {
+    SharedCall shared = inFlight.get(url);
+    if (shared == null) {
+      shared = new SharedCall(url, callback);
+      inFlight.put(url, shared);
+    } else if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Joined in progress call for: " + url);
+    }
+    shared.callbacks.add(callback);
+    return shared;
+  }
+
+  /**
+   * Removes the given callback from the given call and cancels the call if no other callbacks are
+   * waiting for it.
+   */
+  synchronized void leave(
+      @NonNull SharedCall shared, @NonNull DataCallback<? super InputStream> callback) {
+    if (!shared.callbacks.remove(callback) || !shared.callbacks.isEmpty()) {
+      return;
+    }
+    removeIfCurrent(shared);
+    shared.isCancelled = true;
+    if (shared.call != null) {
+      shared.call.cancel();
+    }
+  }
+
+  /**
+   * Runs the given call on the current thread and notifies every callback that is still waiting
+   * for it when it completes.
+   */
+  void run(@NonNull SharedCall shared, @NonNull Call.Factory client, @NonNull Request request) {
+    Call call;
+    synchronized (this) {
+      if (shared.isCancelled) {
+        return;
+      }
+      call = client.newCall(request);
+      shared.call = call;
+    }
+
+    byte[] bytes = null;
+    Exception exception = null;
+    Response response = null;
+    try {
+      response = call.execute();
+      if (response.isSuccessful()) {
+        bytes = Preconditions.checkNotNull(response.body()).bytes();
+      } else {
+        exception = new HttpException(response.message(), response.code());
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "OkHttp failed to obtain result", e);
+      }
+      exception = e;
+    } finally {
+      if (response != null) {
+        response.close();
+      }
+    }
+
+    List<DataCallback<? super InputStream>> toNotify;
+    synchronized (this) {
+      removeIfCurrent(shared);
+      toNotify = new ArrayList<>(shared.callbacks);
+      shared.callbacks.clear();
+    }
+    for (DataCallback<? super InputStream> callback : toNotify) {
+      if (bytes != null) {
+        callback.onDataReady(new ByteArrayInputStream(bytes));
+      } else {
+        callback.onLoadFailed(exception);
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private void removeIfCurrent(SharedCall shared) {
+    if (inFlight.get(shared.url) == shared) {
+      inFlight.remove(shared.url);
+    }
+  }
+
+  /** A call and the callbacks waiting for its result. */
+  static final class SharedCall {
+    @Synthetic final GlideUrl url;
+    @Synthetic final List<DataCallback<? super InputStream>> callbacks = new ArrayList<>();
+    private final DataCallback<? super InputStream> runner;
+    @Synthetic Call call;
+    @Synthetic boolean isCancelled;
+
+    @Synthetic
+    SharedCall(GlideUrl url, DataCallback<? super InputStream> runner) {
+      this.url = url;
+      this.runner = runner;
+    }
+
+    /** Returns {@code true} if the fetch with the given callback is responsible for the call. */
+    boolean isRunBy(DataCallback<? super InputStream> callback) {
+      return runner == callback;
+    }
+  }
+}
@@ -12,6 +12,8 @@ import com.bumptech.glide.util.Preconditions;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.CacheControl;
 import okhttp3.Call;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -20,8 +22,12 @@ import okhttp3.ResponseBody;
 /** Fetches an {@link InputStream} using the okhttp library. */
 public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Callback {
   private static final String TAG = "OkHttpFetcher";
+  // Treats any cached response as stale so that OkHttp revalidates it with a conditional request.
+  private static final CacheControl REVALIDATE =
+      new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build();
   private final Call.Factory client;
   private final GlideUrl url;
+  private final boolean revalidate;
   private InputStream stream;
   private ResponseBody responseBody;
   private DataCallback<? super InputStream> callback;
@@ -32,8 +38,23 @@ public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Ca
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public OkHttpStreamFetcher(Call.Factory client, GlideUrl url) {
+    this(client, url, /*revalidate=*/ false);
+  }
+
+  /**
+   * Creates a fetcher that, if {@code revalidate} is {@code true}, asks OkHttp to revalidate any
+   * response in the client's {@link okhttp3.Cache} with a conditional request, so the cached body
+   * is reused if the server responds with {@code 304 Not Modified}.
+   *
+   * <p>Responses are only cached if the client has a {@link okhttp3.Cache}, which stores the
+   * response's validators alongside its body.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public OkHttpStreamFetcher(Call.Factory client, GlideUrl url, boolean revalidate) {
     this.client = client;
     this.url = url;
+    this.revalidate = revalidate;
   }
 
   @Override
@@ -44,6 +65,9 @@ public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Ca
       String key = headerEntry.getKey();
       requestBuilder.addHeader(key, headerEntry.getValue());
     }
+    if (revalidate) {
+      requestBuilder.cacheControl(REVALIDATE);
+    }
     Request request = requestBuilder.build();
     this.callback = callback;
 
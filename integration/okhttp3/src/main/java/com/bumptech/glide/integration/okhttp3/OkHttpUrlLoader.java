@@ -14,11 +14,24 @@ import okhttp3.OkHttpClient;
 public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
 
   private final Call.Factory client;
+  private final boolean revalidate;
 
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public OkHttpUrlLoader(@NonNull Call.Factory client) {
+    this(client, /*revalidate=*/ false);
+  }
+
+  /**
+   * @param revalidate {@code true} to revalidate responses in the client's {@link okhttp3.Cache}
+   *     with conditional requests, see {@link OkHttpStreamFetcher#OkHttpStreamFetcher(Call.Factory,
+   *     GlideUrl, boolean)}.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public OkHttpUrlLoader(@NonNull Call.Factory client, boolean revalidate) {
     this.client = client;
+    this.revalidate = revalidate;
   }
 
   @Override
@@ -29,7 +42,7 @@ public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
   @Override
   public LoadData<InputStream> buildLoadData(
       @NonNull GlideUrl model, int width, int height, @NonNull Options options) {
-    return new LoadData<>(model, new OkHttpStreamFetcher(client, model));
+    return new LoadData<>(model, new OkHttpStreamFetcher(client, model, revalidate));
   }
 
   /** The default factory for {@link OkHttpUrlLoader}s. */
@@ -38,6 +51,7 @@ public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
   public static class Factory implements ModelLoaderFactory<GlideUrl, InputStream> {
     private static volatile Call.Factory internalClient;
     private final Call.Factory client;
+    private final boolean revalidate;
 
     private static Call.Factory getInternalClient() {
       if (internalClient == null) {
@@ -61,13 +75,30 @@ public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
      * @param client this is typically an instance of {@code OkHttpClient}.
      */
     public Factory(@NonNull Call.Factory client) {
+      this(client, /*revalidate=*/ false);
+    }
+
+    /**
+     * Constructor for a new Factory that runs requests using the given client and, if {@code
+     * revalidate} is {@code true}, revalidates responses in the client's cache.
+     *
+     * <p>OkHttp stores the validators of cached responses alongside their bodies and reuses the
+     * cached body if the server responds with {@code 304 Not Modified}. The client must have an
+     * {@link okhttp3.Cache} and, because responses are only revalidated when they're fetched,
+     * loads that should be revalidated need to skip Glide's disk cache for their source data, for
+     * example with {@link com.bumptech.glide.load.engine.DiskCacheStrategy#NONE}.
+     *
+     * @param client this is typically an instance of {@code OkHttpClient}.
+     */
+    public Factory(@NonNull Call.Factory client, boolean revalidate) {
       this.client = client;
+      this.revalidate = revalidate;
     }
 
     @NonNull
     @Override
     public ModelLoader<GlideUrl, InputStream> build(MultiModelLoaderFactory multiFactory) {
-      return new OkHttpUrlLoader(client);
+      return new OkHttpUrlLoader(client, revalidate);
     }
 
     @Override
@@ -0,0 +1,219 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.integration.okhttp3.OkHttpCallCoalescer.SharedCall;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.data.DataFetcher.DataCallback;
+import com.bumptech.glide.load.model.GlideUrl;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class OkHttpCallCoalescerTest {
+  private static final String URL = "http://fake.com/image";
+  private static final byte[] DATA = new byte[] {1, 2, 3, 4, 5};
+
+  private final GlideUrl url = new GlideUrl(URL);
+  private final Request request = new Request.Builder().url(URL).build();
+  private final RecordingCallback runner = new RecordingCallback();
+  private final RecordingCallback joiner = new RecordingCallback();
+  private OkHttpCallCoalescer coalescer;
+  private Call call;
+  private FakeCallFactory factory;
+
+  @Before
+  public void setUp() {
+    coalescer = new OkHttpCallCoalescer();
+    call = mock(Call.class);
+    factory = new FakeCallFactory(call);
+  }
+
+  @Test
+  public void join_withCallInProgress_returnsSameCall() {
+    SharedCall shared = coalescer.join(url, runner);
+
+    assertThat(coalescer.join(url, joiner)).isSameInstanceAs(shared);
+    assertThat(shared.isRunBy(runner)).isTrue();
+    assertThat(shared.isRunBy(joiner)).isFalse();
+  }
+
+  @Test
+  public void run_withJoinedCallback_givesEveryCallbackTheSameBytes() throws IOException {
+    when(call.execute()).thenReturn(newResponse(200));
+    SharedCall shared = coalescer.join(url, runner);
+    coalescer.join(url, joiner);
+
+    coalescer.run(shared, factory, request);
+
+    assertThat(factory.newCallCount).isEqualTo(1);
+    assertArrayEquals(DATA, runner.data);
+    assertArrayEquals(DATA, joiner.data);
+  }
+
+  @Test
+  public void join_afterRun_startsNewCall() throws IOException {
+    when(call.execute()).thenReturn(newResponse(200));
+    SharedCall shared = coalescer.join(url, runner);
+    coalescer.run(shared, factory, request);
+
+    SharedCall next = coalescer.join(url, joiner);
+
+    assertThat(next).isNotSameInstanceAs(shared);
+    assertThat(next.isRunBy(joiner)).isTrue();
+  }
+
+  @Test
+  public void leave_byEveryCallbackBeforeRun_doesNotStartCall() {
+    SharedCall shared = coalescer.join(url, runner);
+    coalescer.join(url, joiner);
+    coalescer.leave(shared, runner);
+    coalescer.leave(shared, joiner);
+
+    coalescer.run(shared, factory, request);
+
+    assertThat(factory.newCallCount).isEqualTo(0);
+  }
+
+  @Test
+  public void leave_byLastCallback_cancelsCall() throws Exception {
+    final CountDownLatch executing = new CountDownLatch(1);
+    final CountDownLatch cancelled = new CountDownLatch(1);
+    when(call.execute())
+        .thenAnswer(
+            new Answer<Response>() {
+              @Override
+              public Response answer(InvocationOnMock invocation) throws Throwable {
+                executing.countDown();
+                assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+                throw new IOException("Canceled");
+              }
+            });
+    final SharedCall shared = coalescer.join(url, runner);
+    coalescer.join(url, joiner);
+    Thread thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                coalescer.run(shared, factory, request);
+              }
+            });
+    thread.start();
+    assertTrue(executing.await(5, TimeUnit.SECONDS));
+
+    coalescer.leave(shared, joiner);
+    verify(call, never()).cancel();
+    coalescer.leave(shared, runner);
+    verify(call).cancel();
+
+    cancelled.countDown();
+    thread.join(TimeUnit.SECONDS.toMillis(5));
+    assertThat(runner.isNotified()).isFalse();
+    assertThat(joiner.isNotified()).isFalse();
+  }
+
+  @Test
+  public void run_withUnsuccessfulResponse_failsEveryCallback() throws IOException {
+    when(call.execute()).thenReturn(newResponse(500));
+    SharedCall shared = coalescer.join(url, runner);
+    coalescer.join(url, joiner);
+
+    coalescer.run(shared, factory, request);
+
+    assertThat(runner.exception).isInstanceOf(HttpException.class);
+    assertThat(((HttpException) runner.exception).getStatusCode()).isEqualTo(500);
+    assertThat(joiner.exception).isSameInstanceAs(runner.exception);
+  }
+
+  @Test
+  public void run_withIoException_failsEveryCallback() throws IOException {
+    IOException expected = new IOException("test");
+    when(call.execute()).thenThrow(expected);
+    SharedCall shared = coalescer.join(url, runner);
+    coalescer.join(url, joiner);
+
+    coalescer.run(shared, factory, request);
+
+    assertThat(runner.exception).isSameInstanceAs(expected);
+    assertThat(joiner.exception).isSameInstanceAs(expected);
+  }
+
+  private Response newResponse(int code) {
+    return new Response.Builder()
+        .request(request)
+        .protocol(Protocol.HTTP_1_1)
+        .code(code)
+        .message("message")
+        .body(ResponseBody.create(MediaType.parse("image/jpeg"), DATA))
+        .build();
+  }
+
+  private static final class FakeCallFactory implements Call.Factory {
+    private final Call call;
+    int newCallCount;
+
+    FakeCallFactory(Call call) {
+      this.call = call;
+    }
+
+    @Override
+    public Call newCall(@NonNull Request request) {
+      newCallCount++;
+      return call;
+    }
+  }
+
+  private static final class RecordingCallback implements DataCallback<InputStream> {
+    byte[] data;
+    Exception exception;
+
+    boolean isNotified() {
+      return data != null || exception != null;
+    }
+
+    @Override
+    public void onDataReady(InputStream stream) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1024];
+      int read;
+      try {
+        while ((read = stream.read(buffer)) != -1) {
+          os.write(buffer, 0, read);
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      data = os.toByteArray();
+    }
+
+    @Override
+    public void onLoadFailed(@NonNull Exception e) {
+      exception = e;
+    }
+  }
+}
@@ -30,7 +30,12 @@ import com.bumptech.glide.load.data.InputStreamRewinder;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.ConcurrentArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.DirectBufferPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.bumptech.glide.load.engine.prefill.AdaptiveBitmapPreFiller;
 import com.bumptech.glide.load.engine.prefill.BitmapPreFiller;
 import com.bumptech.glide.load.engine.prefill.PreFillType;
 import com.bumptech.glide.load.engine.prefill.PreFillType.Builder;
@@ -93,6 +98,7 @@ import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.ImageViewTargetFactory;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.webpdecoder.WebpDecoder;
 
@@ -125,11 +131,15 @@ public class Glide implements ComponentCallbacks2 {
   private final GlideContext glideContext;
   private final Registry registry;
   private final ArrayPool arrayPool;
+  private final DirectBufferPool directBufferPool;
   private final RequestManagerRetriever requestManagerRetriever;
   private final ConnectivityMonitorFactory connectivityMonitorFactory;
   private final List<RequestManager> managers = new ArrayList<>();
   private final RequestOptionsFactory defaultRequestOptionsFactory;
+  @Nullable private final AdaptiveBitmapPreFiller adaptiveBitmapPreFiller;
+  @Nullable private final MemoryBudgetController memoryBudgetController;
   private MemoryCategory memoryCategory = MemoryCategory.NORMAL;
+  private float budgetMultiplier = 1f;
 
   @GuardedBy("this")
   @Nullable
@@ -236,6 +246,9 @@ public class Glide implements ComponentCallbacks2 {
     if (glide != null) {
       glide.getContext().getApplicationContext().unregisterComponentCallbacks(glide);
       glide.engine.shutdown();
+      if (glide.memoryBudgetController != null) {
+        glide.memoryBudgetController.stop();
+      }
     }
     glide = null;
   }
@@ -359,6 +372,9 @@ public class Glide implements ComponentCallbacks2 {
       @NonNull MemoryCache memoryCache,
       @NonNull BitmapPool bitmapPool,
       @NonNull ArrayPool arrayPool,
+      @NonNull DirectBufferPool directBufferPool,
+      @Nullable AdaptiveBitmapPreFiller adaptiveBitmapPreFiller,
+      @Nullable MemoryBudgetController memoryBudgetController,
       @NonNull RequestManagerRetriever requestManagerRetriever,
       @NonNull ConnectivityMonitorFactory connectivityMonitorFactory,
       int logLevel,
@@ -372,6 +388,9 @@ public class Glide implements ComponentCallbacks2 {
     this.engine = engine;
     this.bitmapPool = bitmapPool;
     this.arrayPool = arrayPool;
+    this.directBufferPool = directBufferPool;
+    this.adaptiveBitmapPreFiller = adaptiveBitmapPreFiller;
+    this.memoryBudgetController = memoryBudgetController;
     this.memoryCache = memoryCache;
     this.requestManagerRetriever = requestManagerRetriever;
     this.connectivityMonitorFactory = connectivityMonitorFactory;
@@ -390,7 +409,8 @@ public class Glide implements ComponentCallbacks2 {
     List<ImageHeaderParser> imageHeaderParsers = registry.getImageHeaderParsers();
 
     ByteBufferWebpDecoder byteBufferWebpDecoder =
-        new ByteBufferWebpDecoder(context, registry.getImageHeaderParsers(), bitmapPool, arrayPool);
+        new ByteBufferWebpDecoder(
+            context, registry.getImageHeaderParsers(), bitmapPool, arrayPool, directBufferPool);
 
     ByteBufferGifDecoder byteBufferGifDecoder =
         new ByteBufferGifDecoder(context, imageHeaderParsers, bitmapPool, arrayPool);
@@ -576,6 +596,19 @@ public class Glide implements ComponentCallbacks2 {
             engine,
             isLoggingRequestOriginsEnabled,
             logLevel);
+
+    if (adaptiveBitmapPreFiller != null) {
+      adaptiveBitmapPreFiller.preFillFromHistory(getBitmapPreFiller());
+    }
+    if (memoryBudgetController != null) {
+      memoryBudgetController.start(
+          new MemoryBudgetController.Listener() {
+            @Override
+            public void onSizeMultiplierChanged(float sizeMultiplier) {
+              setBudgetMultiplier(sizeMultiplier);
+            }
+          });
+    }
   }
 
   /**
@@ -606,6 +639,15 @@ public class Glide implements ComponentCallbacks2 {
     return arrayPool;
   }
 
+  /**
+   * Returns the {@link DirectBufferPool} used for scratch pixel buffers that are reused across
+   * decoders, for example while compositing animated image frames.
+   */
+  @NonNull
+  public DirectBufferPool getDirectBufferPool() {
+    return directBufferPool;
+  }
+
   /** @return The context associated with this instance. */
   @NonNull
   public Context getContext() {
@@ -644,13 +686,16 @@ public class Glide implements ComponentCallbacks2 {
   @SuppressWarnings("unused") // Public API
   public synchronized void preFillBitmapPool(
       @NonNull PreFillType.Builder... bitmapAttributeBuilders) {
+    getBitmapPreFiller().preFill(bitmapAttributeBuilders);
+  }
+
+  private synchronized BitmapPreFiller getBitmapPreFiller() {
     if (bitmapPreFiller == null) {
       DecodeFormat decodeFormat =
           defaultRequestOptionsFactory.build().getOptions().get(Downsampler.DECODE_FORMAT);
       bitmapPreFiller = new BitmapPreFiller(memoryCache, bitmapPool, decodeFormat);
     }
-
-    bitmapPreFiller.preFill(bitmapAttributeBuilders);
+    return bitmapPreFiller;
   }
 
   /**
@@ -666,6 +711,8 @@ public class Glide implements ComponentCallbacks2 {
     memoryCache.clearMemory();
     bitmapPool.clearMemory();
     arrayPool.clearMemory();
+    directBufferPool.clearMemory();
+    engine.clearDiskCacheMemory();
   }
 
   /**
@@ -685,6 +732,16 @@ public class Glide implements ComponentCallbacks2 {
     memoryCache.trimMemory(level);
     bitmapPool.trimMemory(level);
     arrayPool.trimMemory(level);
+    directBufferPool.trimMemory(level);
+    engine.trimDiskCacheMemory(level);
+    // Save the sizes requested in this session while the app is in the background, since the
+    // process may be killed without further notice.
+    if (adaptiveBitmapPreFiller != null && level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      adaptiveBitmapPreFiller.save();
+    }
+    if (memoryBudgetController != null) {
+      memoryBudgetController.onTrimMemory(level);
+    }
   }
 
   /**
@@ -722,14 +779,36 @@ public class Glide implements ComponentCallbacks2 {
   public MemoryCategory setMemoryCategory(@NonNull MemoryCategory memoryCategory) {
     // Engine asserts this anyway when removing resources, fail faster and consistently
     Util.assertMainThread();
-    // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
-    memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
-    bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
     MemoryCategory oldCategory = this.memoryCategory;
     this.memoryCategory = memoryCategory;
+    applySizeMultipliers();
     return oldCategory;
   }
 
+  @Synthetic
+  void setBudgetMultiplier(float budgetMultiplier) {
+    this.budgetMultiplier = budgetMultiplier;
+    applySizeMultipliers();
+  }
+
+  private void applySizeMultipliers() {
+    // A grown budget and MemoryCategory.HIGH each allow one and a half times the calculator's
+    // sizes, but they mustn't compound beyond that.
+    float multiplier =
+        Math.min(
+            memoryCategory.getMultiplier() * budgetMultiplier, MemoryCategory.HIGH.getMultiplier());
+    // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
+    memoryCache.setSizeMultiplier(multiplier);
+    bitmapPool.setSizeMultiplier(multiplier);
+    // MemoryCategory has never applied to the ArrayPool and the ArrayPool interface has no size
+    // multiplier, so only the budget is applied and only to the pools Glide provides.
+    if (arrayPool instanceof LruArrayPool) {
+      ((LruArrayPool) arrayPool).setSizeMultiplier(budgetMultiplier);
+    } else if (arrayPool instanceof ConcurrentArrayPool) {
+      ((ConcurrentArrayPool) arrayPool).setSizeMultiplier(budgetMultiplier);
+    }
+  }
+
   @NonNull
   private static RequestManagerRetriever getRetriever(@Nullable Context context) {
     // Context could be null for other reasons (ie the user passes in null), but in practice it will
@@ -879,6 +958,13 @@ public class Glide implements ComponentCallbacks2 {
     }
   }
 
+  /** Called on the main thread when a {@link RequestManager}'s lifecycle is started. */
+  void onRequestManagerStarted() {
+    if (memoryBudgetController != null) {
+      memoryBudgetController.onForeground();
+    }
+  }
+
   void unregisterRequestManager(RequestManager requestManager) {
     synchronized (managers) {
       if (!managers.contains(requestManager)) {
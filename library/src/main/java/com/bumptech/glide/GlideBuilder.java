@@ -14,14 +14,21 @@ import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.DirectBufferPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.load.engine.cache.MemoryTierDiskCacheFactory;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.engine.prefill.AdaptiveBitmapPreFiller;
+import com.bumptech.glide.load.engine.prefill.BitmapSizeHistogram;
+import com.bumptech.glide.load.engine.prefill.PreFillType;
+import com.bumptech.glide.load.engine.prefill.RecordingBitmapPool;
 import com.bumptech.glide.load.resource.bitmap.HardwareConfigState;
 import com.bumptech.glide.manager.ConnectivityMonitorFactory;
 import com.bumptech.glide.manager.DefaultConnectivityMonitorFactory;
@@ -32,6 +39,7 @@ import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.util.Preconditions;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -44,8 +52,10 @@ public final class GlideBuilder {
   private Engine engine;
   private BitmapPool bitmapPool;
   private ArrayPool arrayPool;
+  private DirectBufferPool directBufferPool;
   private MemoryCache memoryCache;
   private GlideExecutor sourceExecutor;
+  @Nullable private GlideExecutor sourceFetchExecutor;
   private GlideExecutor diskCacheExecutor;
   private DiskCache.Factory diskCacheFactory;
   private MemorySizeCalculator memorySizeCalculator;
@@ -66,6 +76,8 @@ public final class GlideBuilder {
   private boolean isLoggingRequestOriginsEnabled;
 
   private boolean isImageDecoderEnabledForBitmaps;
+  private boolean isAdaptiveBitmapPreFillEnabled;
+  private boolean isMemoryBudgetControllerEnabled;
 
   private int hardwareBitmapFdLimit = HardwareConfigState.DEFAULT_MAXIMUM_FDS_FOR_HARDWARE_CONFIGS;
   private int minHardwareDimension = HardwareConfigState.DEFAULT_MIN_HARDWARE_DIMENSION;
@@ -74,6 +86,10 @@ public final class GlideBuilder {
    * Sets the {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool} implementation to use
    * to store and retrieve reused {@link android.graphics.Bitmap}s.
    *
+   * <p>Defaults to a {@link LruBitmapPool}. Apps that decode, transform and animate many images at
+   * once can use a {@link com.bumptech.glide.load.engine.bitmap_recycle.ShardedBitmapPool} to
+   * reduce lock contention between them.
+   *
    * @param bitmapPool The pool to use.
    * @return This builder.
    */
@@ -87,6 +103,10 @@ public final class GlideBuilder {
    * Sets the {@link ArrayPool} implementation to allow variable sized arrays to be stored and
    * retrieved as needed.
    *
+   * <p>Defaults to a {@link LruArrayPool}. Apps that decode on many threads at once can use a
+   * {@link com.bumptech.glide.load.engine.bitmap_recycle.ConcurrentArrayPool} to reduce lock
+   * contention between decodes.
+   *
    * @param arrayPool The pool to use.
    * @return This builder.
    */
@@ -96,10 +116,36 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets the {@link DirectBufferPool} used for scratch pixel buffers that are reused across
+   * decoders, for example while compositing animated WebP frames.
+   *
+   * <p>Defaults to a pool of {@link MemorySizeCalculator#getDirectBufferPoolSizeInBytes()} bytes,
+   * which the {@link MemorySizeCalculator} takes out of the memory cache and bitmap pool's budget.
+   * Direct buffers are allocated on the Java heap on ART, so a custom pool's size should be taken
+   * into account when sizing the memory cache and pools.
+   *
+   * @param directBufferPool The pool to use.
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setDirectBufferPool(@Nullable DirectBufferPool directBufferPool) {
+    this.directBufferPool = directBufferPool;
+    return this;
+  }
+
   /**
    * Sets the {@link com.bumptech.glide.load.engine.cache.MemoryCache} implementation to store
    * {@link com.bumptech.glide.load.engine.Resource}s that are not currently in use.
    *
+   * <p>Defaults to a {@link com.bumptech.glide.load.engine.cache.LruResourceCache}. Apps that start
+   * and finish many loads at once can use a {@link
+   * com.bumptech.glide.load.engine.cache.SegmentedLruResourceCache} to reduce lock contention on the
+   * main thread. Apps that show a few images repeatedly among many that are shown once can use a
+   * {@link com.bumptech.glide.load.engine.cache.TinyLfuResourceCache} to keep the repeated images.
+   *
    * @param memoryCache The cache to use.
    * @return This builder.
    */
@@ -116,6 +162,9 @@ public final class GlideBuilder {
    * to construct the {@link com.bumptech.glide.load.engine.cache.DiskCache} to use to store {@link
    * com.bumptech.glide.load.engine.Resource} data on disk.
    *
+   * <p>Apps on devices with slow storage can wrap a factory in a {@link MemoryTierDiskCacheFactory}
+   * to keep recently read data in memory.
+   *
    * @param diskCacheFactory The disk cache factory to use.
    * @return This builder.
    */
@@ -171,6 +220,36 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets the {@link GlideExecutor} to use to fetch data that isn't already in the cache from remote
+   * sources, like the network.
+   *
+   * <p>By default data is fetched and decoded on the source executor, which has at most 4 threads,
+   * so a few slow responses can stop all other images from decoding. If set, data from remote
+   * sources is fetched on this executor instead and decoding is handed back to the source executor
+   * once the data is available. Data from local sources is still fetched on the source executor.
+   *
+   * <p>Loads that use {@link
+   * com.bumptech.glide.request.RequestOptions#useUnlimitedSourceGeneratorsPool(boolean)} or {@link
+   * com.bumptech.glide.request.RequestOptions#useAnimationPool(boolean)} don't use this executor.
+   *
+   * <p>Use {@link GlideExecutor#newSourceFetchExecutor()} to create an executor with a reasonable
+   * default number of threads, or the {@link GlideExecutor#newSourceFetchBuilder()} to customize
+   * one.
+   *
+   * @param service The {@link GlideExecutor} to use, or {@code null} to fetch and decode on the
+   *     source executor.
+   * @return This builder.
+   * @see #setSourceExecutor(GlideExecutor)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setSourceFetchExecutor(@Nullable GlideExecutor service) {
+    this.sourceFetchExecutor = service;
+    return this;
+  }
+
   /**
    * Sets the {@link GlideExecutor} to use when retrieving {@link
    * com.bumptech.glide.load.engine.Resource}s that are currently in Glide's disk caches.
@@ -491,6 +570,59 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Set to {@code true} to make Glide record the sizes of the {@link Bitmap}s requested from the
+   * {@link BitmapPool} and pre-fill the pool with the most common sizes on the next launch.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>The sizes are saved to a small file in the app's cache directory when the app's UI is
+   * hidden. When Glide is next initialized, the file is read on the disk cache executor and the
+   * most common sizes are pre-filled as if they were passed to {@link
+   * Glide#preFillBitmapPool(PreFillType.Builder...)} once the main thread is idle. This avoids
+   * allocating {@link Bitmap}s for the first loads on screens that show similar images each
+   * launch, like feeds, without knowing their sizes up front.
+   *
+   * <p>Calls to {@link Glide#preFillBitmapPool(PreFillType.Builder...)} cancel any pre-fill
+   * started by this option and vice versa.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setAdaptiveBitmapPreFillEnabled(boolean isEnabled) {
+    isAdaptiveBitmapPreFillEnabled = isEnabled;
+    return this;
+  }
+
+  /**
+   * Set to {@code true} to make Glide periodically sample the app's memory usage and resize the
+   * memory cache and pools in response.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>When enabled, a {@link MemoryBudgetController} shrinks the memory cache, {@link BitmapPool}
+   * and {@link ArrayPool} as soon as the Java heap, the system's available memory or garbage
+   * collections indicate high memory pressure, and slowly grows them to up to one and a half times
+   * the sizes from the {@link MemorySizeCalculator} while pressure stays low. The resulting
+   * multiplier is combined with the one from {@link Glide#setMemoryCategory(MemoryCategory)}, and
+   * the combination never exceeds the one and a half times allowed by {@link
+   * MemoryCategory#HIGH}.
+   *
+   * <p>Custom {@link MemoryCache} and {@link BitmapPool} implementations are resized with their
+   * {@code setSizeMultiplier} methods. Custom {@link ArrayPool} implementations aren't resized.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setMemoryBudgetControllerEnabled(boolean isEnabled) {
+    isMemoryBudgetControllerEnabled = isEnabled;
+    return this;
+  }
+
   void setRequestManagerFactory(@Nullable RequestManagerFactory factory) {
     this.requestManagerFactory = factory;
   }
@@ -516,7 +648,13 @@ public final class GlideBuilder {
     }
 
     if (memorySizeCalculator == null) {
-      memorySizeCalculator = new MemorySizeCalculator.Builder(context).build();
+      MemorySizeCalculator.Builder calculatorBuilder = new MemorySizeCalculator.Builder(context);
+      if (diskCacheFactory instanceof MemoryTierDiskCacheFactory) {
+        long diskCacheMemorySize = ((MemoryTierDiskCacheFactory) diskCacheFactory).getMemorySize();
+        calculatorBuilder.setDiskCacheMemorySize(
+            (int) Math.min(Integer.MAX_VALUE, diskCacheMemorySize));
+      }
+      memorySizeCalculator = calculatorBuilder.build();
     }
 
     if (connectivityMonitorFactory == null) {
@@ -536,10 +674,32 @@ public final class GlideBuilder {
       arrayPool = new LruArrayPool(memorySizeCalculator.getArrayPoolSizeInBytes());
     }
 
+    if (directBufferPool == null) {
+      directBufferPool =
+          new DirectBufferPool(memorySizeCalculator.getDirectBufferPoolSizeInBytes());
+    }
+
+    BitmapPool pool = bitmapPool;
+    AdaptiveBitmapPreFiller adaptiveBitmapPreFiller = null;
+    if (isAdaptiveBitmapPreFillEnabled) {
+      BitmapSizeHistogram histogram = new BitmapSizeHistogram();
+      pool = new RecordingBitmapPool(bitmapPool, histogram);
+      adaptiveBitmapPreFiller =
+          new AdaptiveBitmapPreFiller(
+              histogram,
+              new File(context.getCacheDir(), AdaptiveBitmapPreFiller.DEFAULT_FILE_NAME),
+              diskCacheExecutor);
+    }
+
     if (memoryCache == null) {
       memoryCache = new LruResourceCache(memorySizeCalculator.getMemoryCacheSize());
     }
 
+    MemoryBudgetController memoryBudgetController = null;
+    if (isMemoryBudgetControllerEnabled) {
+      memoryBudgetController = new MemoryBudgetController(context, diskCacheExecutor);
+    }
+
     if (diskCacheFactory == null) {
       diskCacheFactory = new InternalCacheDiskCacheFactory(context);
     }
@@ -553,6 +713,7 @@ public final class GlideBuilder {
               sourceExecutor,
               GlideExecutor.newUnlimitedSourceExecutor(),
               animationExecutor,
+              sourceFetchExecutor,
               isActiveResourceRetentionAllowed);
     }
 
@@ -569,8 +730,11 @@ public final class GlideBuilder {
         context,
         engine,
         memoryCache,
-        bitmapPool,
+        pool,
         arrayPool,
+        directBufferPool,
+        adaptiveBitmapPreFiller,
+        memoryBudgetController,
         requestManagerRetriever,
         connectivityMonitorFactory,
         logLevel,
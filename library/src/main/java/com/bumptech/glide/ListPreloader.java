@@ -24,6 +24,11 @@ import java.util.Queue;
  * corresponding methods called from another {@link android.widget.AbsListView.OnScrollListener} to
  * function.
  *
+ * <p>Preloads are started with the priority of the {@link RequestBuilder} they're given and are
+ * then lowered to {@link Priority#LOW} so that they don't delay loads for views that are already
+ * visible. If a view then starts a load for the same resource, the preload is promoted to the
+ * view's priority.
+ *
  * @param <T> The type of the model being displayed in the list.
  */
 public class ListPreloader<T> implements AbsListView.OnScrollListener {
@@ -171,16 +176,22 @@ public class ListPreloader<T> implements AbsListView.OnScrollListener {
     end = Math.min(totalItemCount, end);
     start = Math.min(totalItemCount, Math.max(0, start));
 
-    if (from < to) {
-      // Increasing
-      for (int i = start; i < end; i++) {
-        preloadAdapterPosition(preloadModelProvider.getPreloadItems(i), i, true);
-      }
-    } else {
-      // Decreasing
-      for (int i = end - 1; i >= start; i--) {
-        preloadAdapterPosition(preloadModelProvider.getPreloadItems(i), i, false);
+    // Start the loads for every item together so that they're ordered as a group.
+    requestManager.beginBatch();
+    try {
+      if (from < to) {
+        // Increasing
+        for (int i = start; i < end; i++) {
+          preloadAdapterPosition(preloadModelProvider.getPreloadItems(i), i, true);
+        }
+      } else {
+        // Decreasing
+        for (int i = end - 1; i >= start; i--) {
+          preloadAdapterPosition(preloadModelProvider.getPreloadItems(i), i, false);
+        }
       }
+    } finally {
+      requestManager.endBatch();
     }
 
     lastStart = start;
@@ -215,7 +226,9 @@ public class ListPreloader<T> implements AbsListView.OnScrollListener {
       return;
     }
 
-    preloadRequestBuilder.into(preloadTargetQueue.next(dimensions[0], dimensions[1]));
+    PreloadTarget target = preloadTargetQueue.next(dimensions[0], dimensions[1]);
+    preloadRequestBuilder.into(target);
+    requestManager.setPriority(target, Priority.LOW);
   }
 
   private void cancelAll() {
@@ -790,6 +790,58 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
     return preload(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL);
   }
 
+  /**
+   * Preloads the resources for each of the given models into the cache using the options in this
+   * builder and the given width and height.
+   *
+   * <p>Equivalent to calling {@link #load(Object)} and {@link #preload(int, int)} for each model,
+   * except that a single copy of this builder's options is shared by every load and that the loads
+   * are started in one batch. Models whose resources are in memory are resolved immediately.
+   * The remaining loads are started together once every model has been checked, with loads that
+   * can be decoded from the disk cache started first, so that Glide's executors order them by
+   * priority as a group.
+   *
+   * <p>This builder is not modified and can continue to be used after this method returns.
+   *
+   * @param models The models to preload.
+   * @param width The desired width in pixels, or {@link Target#SIZE_ORIGINAL}.
+   * @param height The desired height in pixels, or {@link Target#SIZE_ORIGINAL}.
+   * @return A {@link Target} for each model, in the same order as the given models, that can be
+   *     used to cancel the load via {@link RequestManager#clear(Target)}.
+   * @see #preload(int, int)
+   * @see com.bumptech.glide.load.engine.Engine#beginBatch()
+   */
+  @NonNull
+  public List<Target<TranscodeType>> preloadAll(@NonNull List<?> models, int width, int height) {
+    // Requests keep a reference to the options they were started with, so loading each model with
+    // a private copy lets every request share the same options, and their cached hash codes,
+    // without any later changes to this builder affecting them.
+    RequestBuilder<TranscodeType> shared = clone();
+    List<Target<TranscodeType>> result = new ArrayList<>(models.size());
+    requestManager.beginBatch();
+    try {
+      for (int i = 0, size = models.size(); i < size; i++) {
+        result.add(shared.load(models.get(i)).preload(width, height));
+      }
+    } finally {
+      requestManager.endBatch();
+    }
+    return result;
+  }
+
+  /**
+   * Preloads the resources for each of the given models into the cache using {@link
+   * Target#SIZE_ORIGINAL} as the target width and height.
+   *
+   * @see #preloadAll(List, int, int)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public List<Target<TranscodeType>> preloadAll(@NonNull List<?> models) {
+    return preloadAll(models, Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL);
+  }
+
   /**
    * Loads the original unmodified data into the cache and calls the given Target with the cache
    * File.
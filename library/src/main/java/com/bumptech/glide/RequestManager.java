@@ -32,6 +32,7 @@ import com.bumptech.glide.manager.RequestManagerTreeNode;
 import com.bumptech.glide.manager.RequestTracker;
 import com.bumptech.glide.manager.TargetTracker;
 import com.bumptech.glide.request.BaseRequestOptions;
+import com.bumptech.glide.request.Reprioritizable;
 import com.bumptech.glide.request.Request;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.RequestOptions;
@@ -353,6 +354,7 @@ public class RequestManager
   public synchronized void onStart() {
     resumeRequests();
     targetTracker.onStart();
+    glide.onRequestManagerStarted();
   }
 
   /**
@@ -618,6 +620,56 @@ public class RequestManager
     return new RequestBuilder<>(glide, this, resourceClass, context);
   }
 
+  /**
+   * Changes the {@link Priority} of any load Glide has started but not yet finished for the view.
+   *
+   * <p>Note that this will only work if {@link View#setTag(Object)} is not called on this view
+   * outside of Glide.
+   *
+   * @param view The view whose load should be reprioritized.
+   * @param priority The new priority.
+   * @see #setPriority(Target, Priority)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public void setPriority(@NonNull View view, @NonNull Priority priority) {
+    setPriority(new ClearTarget(view), priority);
+  }
+
+  /**
+   * Changes the {@link Priority} of any load Glide has started but not yet finished for the target.
+   *
+   * <p>Loads waiting to run are re-ordered in Glide's executors, so this can be used as a
+   * visibility hint. For example, lists can lower the priority of loads for views as they scroll
+   * off screen and raise it again if they scroll back on, so that loads for visible views run first
+   * during a fling. Loads shared with other targets that need the same resource are only ever
+   * promoted.
+   *
+   * @param target The target whose load should be reprioritized.
+   * @param priority The new priority.
+   */
+  public void setPriority(@NonNull Target<?> target, @NonNull Priority priority) {
+    Request request = target.getRequest();
+    if (request instanceof Reprioritizable) {
+      ((Reprioritizable) request).setPriority(priority);
+    }
+  }
+
+  /**
+   * Defers starting loads that miss the memory cache on the current thread until {@link
+   * #endBatch()} is called so that they're started as a group.
+   *
+   * @see com.bumptech.glide.load.engine.Engine#beginBatch()
+   */
+  void beginBatch() {
+    glide.getGlideContext().getEngine().beginBatch();
+  }
+
+  /** Starts any loads deferred since the matching call to {@link #beginBatch()}. */
+  void endBatch() {
+    glide.getGlideContext().getEngine().endBatch();
+  }
+
   /**
    * Cancel any pending loads Glide may have for the view and free any resources that may have been
    * loaded for the view.
@@ -0,0 +1,319 @@
+package com.bumptech.glide.load.data;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.disklrucache.DiskLruCache;
+import com.bumptech.glide.load.engine.cache.SafeKeyGenerator;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.util.Synthetic;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stores http response bodies along with their {@code ETag} and {@code Last-Modified} validators
+ * so that {@link HttpUrlFetcher} can revalidate them with conditional requests and reuse the stored
+ * body when the server responds with {@code 304 Not Modified}.
+ *
+ * <p>Glide's disk cache has no notion of http freshness, data in it is used until it's evicted.
+ * Loads that should be revalidated every time they're fetched should skip the disk cache for their
+ * source data, for example with {@link
+ * com.bumptech.glide.load.engine.DiskCacheStrategy#NONE}, in which case this cache takes its place.
+ *
+ * <p>Entries are kept in a {@link DiskLruCache} in the given directory, which should not be used
+ * for anything else. Only one instance should be created for each directory.
+ */
+public final class HttpRevalidationCache {
+  private static final String TAG = "HttpRevalidationCache";
+  private static final int APP_VERSION = 1;
+  private static final int VALUE_COUNT = 2;
+  private static final int METADATA_INDEX = 0;
+  private static final int BODY_INDEX = 1;
+  private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+  private final SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator();
+  private final File directory;
+  private final long maxSizeBytes;
+  private DiskLruCache diskLruCache;
+
+  /**
+   * @param directory The directory to store responses in, typically a sibling of Glide's disk cache
+   *     directory.
+   * @param maxSizeBytes The maximum total size of the responses to keep.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public HttpRevalidationCache(@NonNull File directory, long maxSizeBytes) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  private synchronized DiskLruCache getDiskCache() throws IOException {
+    if (diskLruCache == null) {
+      diskLruCache = DiskLruCache.open(directory, APP_VERSION, VALUE_COUNT, maxSizeBytes);
+    }
+    return diskLruCache;
+  }
+
+  /** Returns the stored response for the given url, or {@code null} if there isn't one. */
+  @Nullable
+  CachedResponse get(@NonNull GlideUrl url) {
+    DataInputStream metadata = null;
+    try {
+      DiskLruCache.Value value = getDiskCache().get(safeKeyGenerator.getSafeKey(url));
+      if (value == null) {
+        return null;
+      }
+      metadata = new DataInputStream(new FileInputStream(value.getFile(METADATA_INDEX)));
+      String etag = metadata.readUTF();
+      String lastModified = metadata.readUTF();
+      // Open the body now so that it can still be read if the entry is evicted in the meantime.
+      InputStream body = new FileInputStream(value.getFile(BODY_INDEX));
+      return new CachedResponse(emptyToNull(etag), emptyToNull(lastModified), body);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to read cached response", e);
+      }
+      return null;
+    } finally {
+      closeQuietly(metadata);
+    }
+  }
+
+  /**
+   * Returns a stream that reads the given body and stores it along with the given validators once
+   * the whole body has been read, or the given body if it can't be stored.
+   *
+   * @param contentLength The length of the body in bytes, or -1 if it's unknown. Bodies with a
+   *     known length are stored as soon as that many bytes are read, even if the reader never reads
+   *     to the end of the stream.
+   */
+  @NonNull
+  InputStream record(
+      @NonNull GlideUrl url,
+      @Nullable String etag,
+      @Nullable String lastModified,
+      long contentLength,
+      @NonNull InputStream body) {
+    DiskLruCache.Editor editor = null;
+    DataOutputStream metadata = null;
+    try {
+      editor = getDiskCache().edit(safeKeyGenerator.getSafeKey(url));
+      if (editor == null) {
+        // The same url is being recorded by another fetcher.
+        return body;
+      }
+      metadata = new DataOutputStream(new FileOutputStream(editor.getFile(METADATA_INDEX)));
+      metadata.writeUTF(etag != null ? etag : "");
+      metadata.writeUTF(lastModified != null ? lastModified : "");
+      metadata.close();
+      metadata = null;
+      OutputStream output = new FileOutputStream(editor.getFile(BODY_INDEX));
+      return new RecordingInputStream(body, output, editor, contentLength);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to start recording response", e);
+      }
+      closeQuietly(metadata);
+      if (editor != null) {
+        editor.abortUnlessCommitted();
+      }
+      return body;
+    }
+  }
+
+  /** Removes the stored response for the given url, for example if the server no longer has it. */
+  void remove(@NonNull GlideUrl url) {
+    try {
+      getDiskCache().remove(safeKeyGenerator.getSafeKey(url));
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to remove cached response", e);
+      }
+    }
+  }
+
+  @Nullable
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+
+  @Synthetic
+  static void closeQuietly(@Nullable Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+  }
+
+  /** A stored response body and the validators to send to check whether it's still current. */
+  static final class CachedResponse {
+    @Nullable private final String etag;
+    @Nullable private final String lastModified;
+    private final InputStream body;
+
+    CachedResponse(@Nullable String etag, @Nullable String lastModified, InputStream body) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.body = body;
+    }
+
+    /** Returns the value to send in an {@code If-None-Match} header, if any. */
+    @Nullable
+    String getEtag() {
+      return etag;
+    }
+
+    /** Returns the value to send in an {@code If-Modified-Since} header, if any. */
+    @Nullable
+    String getLastModified() {
+      return lastModified;
+    }
+
+    /** Returns the stored body, which is closed by {@link #close()}. */
+    @NonNull
+    InputStream getBody() {
+      return body;
+    }
+
+    void close() {
+      closeQuietly(body);
+    }
+  }
+
+  /**
+   * Copies the bytes read from a response body into a {@link DiskLruCache.Editor}, committing the
+   * edit once the whole body has been read and aborting it otherwise.
+   *
+   * <p>Decoders often stop reading once they've seen the end of the image, so bodies with a known
+   * length are committed as soon as that many bytes are read rather than at the end of the stream.
+   */
+  private static final class RecordingInputStream extends FilterInputStream {
+    private final DiskLruCache.Editor editor;
+    private final long contentLength;
+    @Nullable private OutputStream output;
+    private long bytesRead;
+    private boolean isFinished;
+
+    RecordingInputStream(
+        InputStream body, OutputStream output, DiskLruCache.Editor editor, long contentLength) {
+      super(body);
+      this.output = output;
+      this.editor = editor;
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int result = super.read();
+      if (result == -1) {
+        commit();
+      } else if (output != null) {
+        try {
+          output.write(result);
+          onBytesRecorded(1);
+        } catch (IOException e) {
+          abort(e);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int count) throws IOException {
+      int read = super.read(buffer, offset, count);
+      if (read == -1) {
+        commit();
+      } else if (output != null) {
+        try {
+          output.write(buffer, offset, read);
+          onBytesRecorded(read);
+        } catch (IOException e) {
+          abort(e);
+        }
+      }
+      return read;
+    }
+
+    private void onBytesRecorded(int count) {
+      bytesRead += count;
+      if (contentLength >= 0 && bytesRead >= contentLength) {
+        commit();
+      }
+    }
+
+    @Override
+    public long skip(long byteCount) throws IOException {
+      if (byteCount <= 0) {
+        return 0;
+      }
+      // Read rather than skip the bytes so that they're recorded.
+      byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, byteCount)];
+      long skipped = 0;
+      while (skipped < byteCount) {
+        int read = read(buffer, 0, (int) Math.min(buffer.length, byteCount - skipped));
+        if (read == -1) {
+          break;
+        }
+        skipped += read;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        // Bodies that weren't read to the end or to their length may be incomplete.
+        abort(/*e=*/ null);
+      }
+    }
+
+    private void commit() {
+      if (isFinished) {
+        return;
+      }
+      try {
+        output.close();
+        output = null;
+        isFinished = true;
+        editor.commit();
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to store response", e);
+        }
+        editor.abortUnlessCommitted();
+      }
+    }
+
+    private void abort(@Nullable IOException e) {
+      if (isFinished) {
+        return;
+      }
+      if (e != null && Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to record response", e);
+      }
+      closeQuietly(output);
+      output = null;
+      isFinished = true;
+      editor.abortUnlessCommitted();
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.bumptech.glide.load.data;
 import android.text.TextUtils;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
@@ -11,8 +12,11 @@ import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.util.ContentLengthInputStream;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -22,36 +26,98 @@ import java.util.Map;
 public class HttpUrlFetcher implements DataFetcher<InputStream> {
   private static final String TAG = "HttpUrlFetcher";
   private static final int MAXIMUM_REDIRECTS = 5;
+  private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+  private static final String CONTENT_RANGE_PREFIX = "bytes ";
 
   @VisibleForTesting
   static final HttpUrlConnectionFactory DEFAULT_CONNECTION_FACTORY =
       new DefaultHttpUrlConnectionFactory();
   /** Returned when a connection error prevented us from receiving an http error. */
   private static final int INVALID_STATUS_CODE = -1;
+  /** Returned when the range of a resumed download is invalid. */
+  private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
 
   private final GlideUrl glideUrl;
   private final int timeout;
   private final HttpUrlConnectionFactory connectionFactory;
+  @Nullable private final PartialDownloadStore partialDownloadStore;
+  @Nullable private final HttpRevalidationCache revalidationCache;
 
   private HttpURLConnection urlConnection;
   private InputStream stream;
+  private PartialDownloadStore.Entry partialDownload;
+  private HttpRevalidationCache.CachedResponse cachedResponse;
   private volatile boolean isCancelled;
 
   public HttpUrlFetcher(GlideUrl glideUrl, int timeout) {
     this(glideUrl, timeout, DEFAULT_CONNECTION_FACTORY);
   }
 
+  /**
+   * Creates a fetcher that, if the given {@link PartialDownloadStore} is not {@code null}, records
+   * its download as it's read and resumes a previous incomplete download of the same url.
+   */
+  public HttpUrlFetcher(
+      GlideUrl glideUrl, int timeout, @Nullable PartialDownloadStore partialDownloadStore) {
+    this(glideUrl, timeout, partialDownloadStore, /*revalidationCache=*/ null);
+  }
+
+  /**
+   * Creates a fetcher that, if the given {@link HttpRevalidationCache} is not {@code null}, sends
+   * a conditional request for a previously stored response and reuses the stored body if the
+   * server responds with {@code 304 Not Modified}.
+   */
+  public HttpUrlFetcher(
+      GlideUrl glideUrl,
+      int timeout,
+      @Nullable PartialDownloadStore partialDownloadStore,
+      @Nullable HttpRevalidationCache revalidationCache) {
+    this(glideUrl, timeout, DEFAULT_CONNECTION_FACTORY, partialDownloadStore, revalidationCache);
+  }
+
   @VisibleForTesting
   HttpUrlFetcher(GlideUrl glideUrl, int timeout, HttpUrlConnectionFactory connectionFactory) {
+    this(glideUrl, timeout, connectionFactory, /*partialDownloadStore=*/ null);
+  }
+
+  @VisibleForTesting
+  HttpUrlFetcher(
+      GlideUrl glideUrl,
+      int timeout,
+      HttpUrlConnectionFactory connectionFactory,
+      @Nullable PartialDownloadStore partialDownloadStore) {
+    this(
+        glideUrl,
+        timeout,
+        connectionFactory,
+        partialDownloadStore,
+        /*revalidationCache=*/ null);
+  }
+
+  @VisibleForTesting
+  HttpUrlFetcher(
+      GlideUrl glideUrl,
+      int timeout,
+      HttpUrlConnectionFactory connectionFactory,
+      @Nullable PartialDownloadStore partialDownloadStore,
+      @Nullable HttpRevalidationCache revalidationCache) {
     this.glideUrl = glideUrl;
     this.timeout = timeout;
     this.connectionFactory = connectionFactory;
+    this.partialDownloadStore = partialDownloadStore;
+    this.revalidationCache = revalidationCache;
   }
 
   @Override
   public void loadData(
       @NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
     long startTime = LogTime.getLogTime();
+    if (partialDownloadStore != null) {
+      partialDownload = partialDownloadStore.open(glideUrl);
+    }
+    if (revalidationCache != null) {
+      cachedResponse = revalidationCache.get(glideUrl);
+    }
     try {
       InputStream result = loadDataWithRedirects(glideUrl.toURL(), 0, null, glideUrl.getHeaders());
       callback.onDataReady(result);
@@ -87,6 +153,12 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
     for (Map.Entry<String, String> headerEntry : headers.entrySet()) {
       urlConnection.addRequestProperty(headerEntry.getKey(), headerEntry.getValue());
     }
+    if (partialDownload != null) {
+      addPartialDownloadHeaders(urlConnection, headers);
+    }
+    if (cachedResponse != null) {
+      addConditionalHeaders(urlConnection);
+    }
     urlConnection.setConnectTimeout(timeout);
     urlConnection.setReadTimeout(timeout);
     urlConnection.setUseCaches(false);
@@ -98,27 +170,41 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
 
     // Connect explicitly to avoid errors in decoders if connection fails.
     urlConnection.connect();
-    // Set the stream so that it's closed in cleanup to avoid resource leaks. See #2352.
-    stream = urlConnection.getInputStream();
     if (isCancelled) {
       return null;
     }
+    // Read the status before the body, getInputStream() throws for error responses.
     final int statusCode = urlConnection.getResponseCode();
     if (isHttpOk(statusCode)) {
-      return getStreamForSuccessfulRequest(urlConnection);
+      return getStreamForSuccessfulRequest(urlConnection, statusCode);
+    } else if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedResponse != null) {
+      return getStreamForNotModifiedRequest();
     } else if (isHttpRedirect(statusCode)) {
       String redirectUrlString = urlConnection.getHeaderField("Location");
       if (TextUtils.isEmpty(redirectUrlString)) {
         throw new HttpException("Received empty or null redirect url");
       }
       URL redirectUrl = new URL(url, redirectUrlString);
+      // Set the stream so that it's closed along with the connection. See #2352.
+      stream = urlConnection.getInputStream();
       // Closing the stream specifically is required to avoid leaking ResponseBodys in addition
       // to disconnecting the url connection below. See #2352.
-      cleanup();
+      closeConnection();
       return loadDataWithRedirects(redirectUrl, redirects + 1, url, headers);
     } else if (statusCode == INVALID_STATUS_CODE) {
       throw new HttpException(statusCode);
     } else {
+      // Set the stream so that it's closed in cleanup to avoid resource leaks. See #2352.
+      stream = urlConnection.getErrorStream();
+      if (statusCode == HTTP_RANGE_NOT_SATISFIABLE && partialDownload != null) {
+        // Start again from the first byte next time.
+        partialDownload.delete();
+      }
+      if (cachedResponse != null
+          && (statusCode == HttpURLConnection.HTTP_NOT_FOUND
+              || statusCode == HttpURLConnection.HTTP_GONE)) {
+        revalidationCache.remove(glideUrl);
+      }
       throw new HttpException(urlConnection.getResponseMessage(), statusCode);
     }
   }
@@ -133,10 +219,12 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
     return statusCode / 100 == 3;
   }
 
-  private InputStream getStreamForSuccessfulRequest(HttpURLConnection urlConnection)
-      throws IOException {
+  private InputStream getStreamForSuccessfulRequest(
+      HttpURLConnection urlConnection, int statusCode) throws IOException {
+    // The length of the decoded body is only known if it isn't encoded.
+    long contentLength = -1;
     if (TextUtils.isEmpty(urlConnection.getContentEncoding())) {
-      int contentLength = urlConnection.getContentLength();
+      contentLength = urlConnection.getContentLength();
       stream = ContentLengthInputStream.obtain(urlConnection.getInputStream(), contentLength);
     } else {
       if (Log.isLoggable(TAG, Log.DEBUG)) {
@@ -144,11 +232,137 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
       }
       stream = urlConnection.getInputStream();
     }
+    if (partialDownload != null) {
+      stream = getStreamForPartialDownload(urlConnection, statusCode, stream);
+    }
+    if (revalidationCache != null && statusCode == HttpURLConnection.HTTP_OK) {
+      String etag = urlConnection.getHeaderField("ETag");
+      String lastModified = urlConnection.getHeaderField("Last-Modified");
+      if (!TextUtils.isEmpty(etag) || !TextUtils.isEmpty(lastModified)) {
+        stream = revalidationCache.record(glideUrl, etag, lastModified, contentLength, stream);
+      }
+    }
+    return stream;
+  }
+
+  private void addConditionalHeaders(HttpURLConnection urlConnection) {
+    String etag = cachedResponse.getEtag();
+    if (etag != null) {
+      urlConnection.setRequestProperty("If-None-Match", etag);
+    }
+    String lastModified = cachedResponse.getLastModified();
+    if (lastModified != null) {
+      urlConnection.setRequestProperty("If-Modified-Since", lastModified);
+    }
+  }
+
+  private InputStream getStreamForNotModifiedRequest() {
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Reusing cached response for " + glideUrl);
+    }
+    // The response has no body, close it and return the stored body instead.
+    closeConnection();
+    stream = cachedResponse.getBody();
+    // The stream now owns the stored body and closes it when it's closed.
+    cachedResponse = null;
     return stream;
   }
 
+  private void addPartialDownloadHeaders(
+      HttpURLConnection urlConnection, Map<String, String> headers) {
+    if (!headers.containsKey(ACCEPT_ENCODING_HEADER)) {
+      // Ranges refer to the encoded body, avoid transparent compression so they match what's read.
+      urlConnection.setRequestProperty(ACCEPT_ENCODING_HEADER, "identity");
+    }
+    String validator = partialDownload.getValidator();
+    if (validator != null) {
+      urlConnection.setRequestProperty(
+          "Range", "bytes=" + partialDownload.getDownloadedLength() + "-");
+      // Only send the rest of the body if it's the same version of the resource.
+      urlConnection.setRequestProperty("If-Range", validator);
+    }
+  }
+
+  private InputStream getStreamForPartialDownload(
+      HttpURLConnection urlConnection, int statusCode, InputStream body) throws IOException {
+    PartialDownloadStore.Entry entry = partialDownload;
+    // The stream now owns the entry and releases it when it's closed.
+    partialDownload = null;
+    if (statusCode == HttpURLConnection.HTTP_PARTIAL && entry.getValidator() != null) {
+      long downloadedLength = entry.getDownloadedLength();
+      if (getContentRangeStart(urlConnection) != downloadedLength) {
+        entry.delete();
+        entry.close();
+        throw new HttpException(
+            "Unexpected Content-Range: " + urlConnection.getHeaderField("Content-Range"),
+            statusCode);
+      }
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Resuming download of " + glideUrl + " from byte " + downloadedLength);
+      }
+      InputStream downloaded = new FileInputStream(entry.getBodyFile());
+      return new SequenceInputStream(
+          downloaded, new PartialDownloadInputStream(body, entry.resumeRecording(), entry));
+    }
+
+    // The whole body was sent, either because there was nothing to resume or because the resource
+    // has changed since it was partially downloaded.
+    String validator = getValidator(urlConnection);
+    long contentLength = urlConnection.getContentLength();
+    OutputStream output = null;
+    if (statusCode == HttpURLConnection.HTTP_OK
+        && validator != null
+        && contentLength > 0
+        && TextUtils.isEmpty(urlConnection.getContentEncoding())) {
+      output = entry.startRecording(validator, contentLength);
+    } else {
+      entry.delete();
+    }
+    return new PartialDownloadInputStream(body, output, entry);
+  }
+
+  @Nullable
+  private static String getValidator(HttpURLConnection urlConnection) {
+    String etag = urlConnection.getHeaderField("ETag");
+    // If-Range only accepts strong validators.
+    if (!TextUtils.isEmpty(etag) && !etag.startsWith("W/")) {
+      return etag;
+    }
+    String lastModified = urlConnection.getHeaderField("Last-Modified");
+    return TextUtils.isEmpty(lastModified) ? null : lastModified;
+  }
+
+  private static long getContentRangeStart(HttpURLConnection urlConnection) {
+    // For example "bytes 100-199/200".
+    String contentRange = urlConnection.getHeaderField("Content-Range");
+    if (contentRange == null || !contentRange.startsWith(CONTENT_RANGE_PREFIX)) {
+      return -1;
+    }
+    int end = contentRange.indexOf('-', CONTENT_RANGE_PREFIX.length());
+    if (end == -1) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentRange.substring(CONTENT_RANGE_PREFIX.length(), end).trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
   @Override
   public void cleanup() {
+    closeConnection();
+    if (partialDownload != null) {
+      partialDownload.close();
+      partialDownload = null;
+    }
+    if (cachedResponse != null) {
+      cachedResponse.close();
+      cachedResponse = null;
+    }
+  }
+
+  private void closeConnection() {
     if (stream != null) {
       try {
         stream.close();
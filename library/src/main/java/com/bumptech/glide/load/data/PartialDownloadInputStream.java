@@ -0,0 +1,125 @@
+package com.bumptech.glide.load.data;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Copies the bytes read from an http response body into a {@link PartialDownloadStore.Entry} so
+ * that the download can be resumed if it doesn't complete.
+ *
+ * <p>The entry is deleted once the whole body has been read and released when this stream is
+ * closed.
+ */
+final class PartialDownloadInputStream extends FilterInputStream {
+  private static final String TAG = "PartialDownloadStream";
+  private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+  private final PartialDownloadStore.Entry entry;
+  @Nullable private OutputStream output;
+
+  PartialDownloadInputStream(
+      @NonNull InputStream body,
+      @Nullable OutputStream output,
+      @NonNull PartialDownloadStore.Entry entry) {
+    super(body);
+    this.output = output;
+    this.entry = entry;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int result = super.read();
+    if (result == -1) {
+      onEndOfStream();
+    } else if (output != null) {
+      try {
+        output.write(result);
+      } catch (IOException e) {
+        stopRecording(e);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int read(@NonNull byte[] buffer, int offset, int count) throws IOException {
+    int read = super.read(buffer, offset, count);
+    if (read == -1) {
+      onEndOfStream();
+    } else if (output != null) {
+      try {
+        output.write(buffer, offset, read);
+      } catch (IOException e) {
+        stopRecording(e);
+      }
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long byteCount) throws IOException {
+    if (byteCount <= 0) {
+      return 0;
+    }
+    // Read rather than skip the bytes so that they're recorded.
+    byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, byteCount)];
+    long skipped = 0;
+    while (skipped < byteCount) {
+      int read = read(buffer, 0, (int) Math.min(buffer.length, byteCount - skipped));
+      if (read == -1) {
+        break;
+      }
+      skipped += read;
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      closeOutput();
+      entry.close();
+    }
+  }
+
+  private void onEndOfStream() {
+    boolean isRecording = output != null;
+    closeOutput();
+    // Responses may end early if the connection is interrupted, so only delete the partial body if
+    // it's complete.
+    if (isRecording && entry.getDownloadedLength() >= entry.getContentLength()) {
+      entry.delete();
+    }
+  }
+
+  private void stopRecording(IOException e) {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "Failed to record partial download", e);
+    }
+    closeOutput();
+    entry.delete();
+  }
+
+  private void closeOutput() {
+    if (output != null) {
+      try {
+        output.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+      output = null;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package com.bumptech.glide.load.data;
+
+import android.util.Log;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stores the partially downloaded bodies of http responses so that {@link HttpUrlFetcher} can
+ * resume downloads that are cancelled or fail part way through using range requests rather than
+ * starting again from the first byte.
+ *
+ * <p>Partial bodies are only kept for responses with an {@code ETag} or {@code Last-Modified}
+ * validator, which is sent back in an {@code If-Range} header when resuming so that a partial body
+ * is never combined with the rest of a different version of the resource. Once a download
+ * completes, its partial body is deleted, the complete data is written to Glide's disk cache as
+ * usual.
+ *
+ * <p>Each url only records a single download at a time, concurrent downloads of the same url are
+ * neither resumed nor recorded.
+ *
+ * <p>Recording isn't free: every body with a validator is written to this store as it's read, in
+ * addition to the copy later written to Glide's disk cache, so downloads cost roughly twice as
+ * many disk writes. The store is only trimmed to its maximum size when a download is left
+ * incomplete, which lists and sorts every file in the directory, so the directory should be kept
+ * small.
+ */
+public final class PartialDownloadStore {
+  private static final String TAG = "PartialDownloadStore";
+  private static final String BODY_SUFFIX = ".partial";
+  private static final String METADATA_SUFFIX = ".meta";
+
+  @Synthetic final File directory;
+  private final long maxSizeBytes;
+
+  @GuardedBy("this")
+  private final Set<String> keysInUse = new HashSet<>();
+
+  /**
+   * @param directory The directory to store partial downloads in, typically a sibling of Glide's
+   *     disk cache directory. The directory should not be used for anything else.
+   * @param maxSizeBytes The maximum total size of the partial downloads to keep. The least recently
+   *     modified partial downloads are deleted to keep the store below this size.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public PartialDownloadStore(@NonNull File directory, long maxSizeBytes) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Reserves the given url for the calling fetcher and returns its partial download, if any.
+   *
+   * @return {@code null} if another fetcher is downloading the same url, in which case the caller
+   *     should neither resume nor record its download.
+   */
+  @Nullable
+  Entry open(@NonNull GlideUrl url) {
+    String key = getKey(url);
+    synchronized (this) {
+      if (!keysInUse.add(key)) {
+        return null;
+      }
+    }
+    Entry entry = new Entry(this, key);
+    entry.readMetadata();
+    return entry;
+  }
+
+  @Synthetic
+  synchronized void release(String key) {
+    keysInUse.remove(key);
+  }
+
+  @Synthetic
+  File getBodyFile(String key) {
+    return new File(directory, key + BODY_SUFFIX);
+  }
+
+  @Synthetic
+  File getMetadataFile(String key) {
+    return new File(directory, key + METADATA_SUFFIX);
+  }
+
+  @Synthetic
+  void trimToSize() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    long size = 0;
+    for (File file : files) {
+      size += file.length();
+    }
+    if (size <= maxSizeBytes) {
+      return;
+    }
+    Arrays.sort(
+        files,
+        new Comparator<File>() {
+          @Override
+          public int compare(File first, File second) {
+            long firstModified = first.lastModified();
+            long secondModified = second.lastModified();
+            return firstModified < secondModified ? -1 : (firstModified == secondModified ? 0 : 1);
+          }
+        });
+    for (int i = 0; i < files.length && size > maxSizeBytes; i++) {
+      File file = files[i];
+      String name = file.getName();
+      String key = name.substring(0, Math.max(0, name.lastIndexOf('.')));
+      synchronized (this) {
+        if (keysInUse.contains(key)) {
+          continue;
+        }
+      }
+      long length = file.length();
+      if (file.delete()) {
+        size -= length;
+      }
+    }
+  }
+
+  private static String getKey(GlideUrl url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Util.sha256BytesToHex(digest.digest(url.getCacheKey().getBytes("UTF-8")));
+    } catch (NoSuchAlgorithmException | IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** The partial download of a single url, reserved by a single fetcher until it's closed. */
+  static final class Entry {
+    private final PartialDownloadStore store;
+    private final String key;
+    @Nullable private String validator;
+    private long contentLength;
+    private boolean isClosed;
+
+    @Synthetic
+    Entry(PartialDownloadStore store, String key) {
+      this.store = store;
+      this.key = key;
+    }
+
+    /**
+     * Returns the validator of the partial download, or {@code null} if there isn't a partial
+     * download that can be resumed.
+     */
+    @Nullable
+    String getValidator() {
+      return validator;
+    }
+
+    /** Returns the total length of the response being downloaded. */
+    long getContentLength() {
+      return contentLength;
+    }
+
+    /** Returns the number of bytes of the body that have been downloaded so far. */
+    long getDownloadedLength() {
+      return validator != null ? store.getBodyFile(key).length() : 0;
+    }
+
+    @NonNull
+    File getBodyFile() {
+      return store.getBodyFile(key);
+    }
+
+    /**
+     * Deletes any previous partial download and starts recording a new one.
+     *
+     * @return A stream to write the body to, or {@code null} if the body can't be recorded.
+     */
+    @Nullable
+    OutputStream startRecording(@NonNull String validator, long contentLength) {
+      delete();
+      if (!store.directory.mkdirs() && !store.directory.isDirectory()) {
+        return null;
+      }
+      DataOutputStream metadata = null;
+      try {
+        metadata = new DataOutputStream(new FileOutputStream(store.getMetadataFile(key)));
+        metadata.writeUTF(validator);
+        metadata.writeLong(contentLength);
+        metadata.close();
+        metadata = null;
+        this.validator = validator;
+        this.contentLength = contentLength;
+        return new FileOutputStream(getBodyFile());
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to start recording partial download", e);
+        }
+        closeQuietly(metadata);
+        delete();
+        return null;
+      }
+    }
+
+    /** Returns a stream to append the rest of the partially downloaded body to. */
+    @Nullable
+    OutputStream resumeRecording() {
+      try {
+        return new FileOutputStream(getBodyFile(), /*append=*/ true);
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to resume recording partial download", e);
+        }
+        delete();
+        return null;
+      }
+    }
+
+    /** Deletes the partial download, for example once it's complete. */
+    void delete() {
+      validator = null;
+      contentLength = 0;
+      //noinspection ResultOfMethodCallIgnored
+      store.getBodyFile(key).delete();
+      //noinspection ResultOfMethodCallIgnored
+      store.getMetadataFile(key).delete();
+    }
+
+    /**
+     * Releases the url so that it can be downloaded by another fetcher, trimming the store if the
+     * download was left incomplete.
+     */
+    void close() {
+      if (!isClosed) {
+        isClosed = true;
+        store.release(key);
+        // Complete downloads are deleted, so only incomplete ones can grow the store.
+        if (validator != null) {
+          store.trimToSize();
+        }
+      }
+    }
+
+    @Synthetic
+    void readMetadata() {
+      File metadataFile = store.getMetadataFile(key);
+      if (!metadataFile.exists()) {
+        return;
+      }
+      DataInputStream metadata = null;
+      try {
+        metadata = new DataInputStream(new FileInputStream(metadataFile));
+        validator = metadata.readUTF();
+        contentLength = metadata.readLong();
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to read partial download metadata", e);
+        }
+        delete();
+      } finally {
+        closeQuietly(metadata);
+      }
+      long downloadedLength = getDownloadedLength();
+      if (downloadedLength == 0 || downloadedLength >= contentLength) {
+        delete();
+      }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+      if (closeable != null) {
+        try {
+          closeable.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+}
@@ -11,19 +11,31 @@ import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
 
+/**
+ * Tracks resources that are in use by at least one request.
+ *
+ * <p>Resources are looked up on the main thread each time a load starts and are removed on
+ * background threads when they're released, so this class doesn't lock. Each change to the map of
+ * active resources is a single atomic operation on a {@link ConcurrentHashMap}, and a reference
+ * that was replaced or removed is never cleaned up twice because only the thread that removes a
+ * reference from the map may notify the listener about it.
+ */
 final class ActiveResources {
   private final boolean isActiveResourceRetentionAllowed;
   private final Executor monitorClearedResourcesExecutor;
-  @VisibleForTesting final Map<Key, ResourceWeakReference> activeEngineResources = new HashMap<>();
+
+  @VisibleForTesting
+  final Map<Key, ResourceWeakReference> activeEngineResources = new ConcurrentHashMap<>();
+
   private final ReferenceQueue<EngineResource<?>> resourceReferenceQueue = new ReferenceQueue<>();
 
-  private ResourceListener listener;
+  private volatile ResourceListener listener;
 
   private volatile boolean isShutdown;
   @Nullable private volatile DequeuedResourceCallback cb;
@@ -64,14 +76,10 @@ final class ActiveResources {
   }
 
   void setListener(ResourceListener listener) {
-    synchronized (listener) {
-      synchronized (this) {
-        this.listener = listener;
-      }
-    }
+    this.listener = listener;
   }
 
-  synchronized void activate(Key key, EngineResource<?> resource) {
+  void activate(Key key, EngineResource<?> resource) {
     ResourceWeakReference toPut =
         new ResourceWeakReference(
             key, resource, resourceReferenceQueue, isActiveResourceRetentionAllowed);
@@ -82,7 +90,7 @@ final class ActiveResources {
     }
   }
 
-  synchronized void deactivate(Key key) {
+  void deactivate(Key key) {
     ResourceWeakReference removed = activeEngineResources.remove(key);
     if (removed != null) {
       removed.reset();
@@ -90,7 +98,7 @@ final class ActiveResources {
   }
 
   @Nullable
-  synchronized EngineResource<?> get(Key key) {
+  EngineResource<?> get(Key key) {
     ResourceWeakReference activeRef = activeEngineResources.get(key);
     if (activeRef == null) {
       return null;
@@ -103,15 +111,16 @@ final class ActiveResources {
     return active;
   }
 
-  @SuppressWarnings({"WeakerAccess", "SynchronizeOnNonFinalField"})
+  @SuppressWarnings("WeakerAccess")
   @Synthetic
   void cleanupActiveReference(@NonNull ResourceWeakReference ref) {
-    synchronized (this) {
-      activeEngineResources.remove(ref.key);
-
-      if (!ref.isCacheable || ref.resource == null) {
-        return;
-      }
+    // If the reference is no longer in the map, it was either deactivated or replaced, and whoever
+    // removed it has already reset it, or it was cleaned up by an earlier call.
+    if (!activeEngineResources.remove(ref.key, ref)) {
+      return;
+    }
+    if (!ref.isCacheable || ref.resource == null) {
+      return;
     }
 
     EngineResource<?> newResource =
@@ -125,15 +134,21 @@ final class ActiveResources {
   void cleanReferenceQueue() {
     while (!isShutdown) {
       try {
+        // Block until at least one reference is cleared, then drain every other reference that's
+        // already queued so that references cleared by the same GC are handled in one batch.
         ResourceWeakReference ref = (ResourceWeakReference) resourceReferenceQueue.remove();
-        cleanupActiveReference(ref);
+        while (ref != null) {
+          cleanupActiveReference(ref);
+
+          // This section for testing only.
+          DequeuedResourceCallback current = cb;
+          if (current != null) {
+            current.onResourceDequeued();
+          }
+          // End for testing only.
 
-        // This section for testing only.
-        DequeuedResourceCallback current = cb;
-        if (current != null) {
-          current.onResourceDequeued();
+          ref = (ResourceWeakReference) resourceReferenceQueue.poll();
         }
-        // End for testing only.
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
       }
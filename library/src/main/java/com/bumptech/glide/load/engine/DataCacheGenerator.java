@@ -1,12 +1,14 @@
 package com.bumptech.glide.load.engine;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -28,6 +30,9 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
   // multiple calls to startNext.
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
+  // Set after data is loaded from a ByteBuffer so that the next call to startNext can fall back to
+  // the File for the same key if none of the ByteBuffer decoders were able to decode the data.
+  @Nullable private Key bufferCacheKey;
 
   DataCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this(helper.getCacheKeys(), helper, cb);
@@ -43,6 +48,14 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
 
   @Override
   public boolean startNext() {
+    if (bufferCacheKey != null) {
+      cacheFile = helper.getDiskCache().get(bufferCacheKey);
+      bufferCacheKey = null;
+      if (cacheFile != null) {
+        modelLoaders = helper.getModelLoaders(cacheFile);
+        modelLoaderIndex = 0;
+      }
+    }
     while (modelLoaders == null || !hasNextModelLoader()) {
       sourceIdIndex++;
       if (sourceIdIndex >= cacheKeys.size()) {
@@ -54,6 +67,21 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
       // and the actions it performs are much more expensive than a single allocation.
       @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
       Key originalKey = new DataCacheKey(sourceId, helper.getSignature());
+      if (helper.isDiskCacheBufferAvailable()) {
+        ByteBuffer cacheBuffer = helper.getDiskCacheBuffer(originalKey);
+        if (cacheBuffer != null) {
+          sourceKey = sourceId;
+          bufferCacheKey = originalKey;
+          modelLoaders = null;
+          loadData =
+              new LoadData<>(
+                  originalKey, new DiskCacheBufferFetcher(cacheBuffer, DataSource.DATA_DISK_CACHE));
+          loadData.fetcher.loadData(helper.getPriority(), this);
+          return true;
+        }
+        // Every entry in the cache is returned as a buffer, so this is a miss.
+        continue;
+      }
       cacheFile = helper.getDiskCache().get(originalKey);
       if (cacheFile != null) {
         this.sourceKey = sourceId;
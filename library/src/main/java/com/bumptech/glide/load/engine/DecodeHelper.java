@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine;
 
+import androidx.annotation.Nullable;
 import com.bumptech.glide.GlideContext;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.Registry;
@@ -10,11 +11,13 @@ import com.bumptech.glide.load.ResourceEncoder;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.DecodeJob.DiskCacheProvider;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.load.resource.UnitTransformation;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +40,7 @@ final class DecodeHelper<Transcode> {
   private boolean isLoadDataSet;
   private boolean isCacheKeysSet;
   private Key signature;
-  private Priority priority;
+  private volatile Priority priority;
   private DiskCacheStrategy diskCacheStrategy;
   private boolean isTransformationRequired;
   private boolean isScaleOnlyOrNoTransform;
@@ -95,10 +98,33 @@ final class DecodeHelper<Transcode> {
     return diskCacheProvider.getDiskCache();
   }
 
+  /**
+   * Returns {@code true} if the disk cache can return data as {@link ByteBuffer}s and the data can
+   * be decoded from a {@link ByteBuffer}, in which case the disk cache should be read with {@link
+   * #getDiskCacheBuffer(Key)} only.
+   */
+  boolean isDiskCacheBufferAvailable() {
+    return getDiskCache() instanceof ByteBufferDiskCache && hasLoadPath(ByteBuffer.class);
+  }
+
+  /**
+   * Returns the data for the given key, or {@code null} if it isn't in the disk cache.
+   *
+   * <p>Must only be called if {@link #isDiskCacheBufferAvailable()} returns {@code true}.
+   */
+  @Nullable
+  ByteBuffer getDiskCacheBuffer(Key key) {
+    return ((ByteBufferDiskCache) getDiskCache()).getBuffer(key);
+  }
+
   DiskCacheStrategy getDiskCacheStrategy() {
     return diskCacheStrategy;
   }
 
+  void setPriority(Priority priority) {
+    this.priority = priority;
+  }
+
   Priority getPriority() {
     return priority;
   }
@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine;
 
+import android.graphics.Bitmap;
 import android.os.Build;
 import android.util.Log;
 import androidx.annotation.NonNull;
@@ -16,7 +17,11 @@ import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.data.DataRewinder;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.load.resource.bitmap.ProgressiveJpegPreviewStream;
+import com.bumptech.glide.util.Executors;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.pool.FactoryPools.Poolable;
@@ -39,6 +44,8 @@ class DecodeJob<R>
     implements DataFetcherGenerator.FetcherReadyCallback,
         Runnable,
         Comparable<DecodeJob<?>>,
+        GlideExecutor.OrderedTask,
+        ProgressiveJpegPreviewStream.PreviewListener,
         Poolable {
   private static final String TAG = "DecodeJob";
 
@@ -46,13 +53,21 @@ class DecodeJob<R>
   private final List<Throwable> throwables = new ArrayList<>();
   private final StateVerifier stateVerifier = StateVerifier.newInstance();
   private final DiskCacheProvider diskCacheProvider;
+  private final SourceFetchRegistry sourceFetchRegistry;
   private final Pools.Pool<DecodeJob<?>> pool;
+  private final Runnable notifyDropped =
+      new Runnable() {
+        @Override
+        public void run() {
+          notifyFailed();
+        }
+      };
   private final DeferredEncodeManager<?> deferredEncodeManager = new DeferredEncodeManager<>();
   private final ReleaseManager releaseManager = new ReleaseManager();
 
   private GlideContext glideContext;
   private Key signature;
-  private Priority priority;
+  private volatile Priority priority;
   private EngineKey loadKey;
   private int width;
   private int height;
@@ -66,7 +81,12 @@ class DecodeJob<R>
   private boolean onlyRetrieveFromCache;
   private Object model;
 
-  private Thread currentThread;
+  // The thread currently inside run(), or null. Executor threads are reused across jobs, so
+  // callbacks delivered on a thread that once ran this job must not be treated as inline.
+  private volatile Thread currentThread;
+  // Whether fetching from source has already been moved to the source fetch executor.
+  private boolean isSourceFetchRescheduled;
+  private boolean isRunningOnSourceFetchExecutor;
   private Key currentSourceKey;
   private Key currentAttemptingKey;
   private Object currentData;
@@ -77,8 +97,12 @@ class DecodeJob<R>
   private volatile boolean isCallbackNotified;
   private volatile boolean isCancelled;
 
-  DecodeJob(DiskCacheProvider diskCacheProvider, Pools.Pool<DecodeJob<?>> pool) {
+  DecodeJob(
+      DiskCacheProvider diskCacheProvider,
+      SourceFetchRegistry sourceFetchRegistry,
+      Pools.Pool<DecodeJob<?>> pool) {
     this.diskCacheProvider = diskCacheProvider;
+    this.sourceFetchRegistry = sourceFetchRegistry;
     this.pool = pool;
   }
 
@@ -183,6 +207,8 @@ class DecodeJob<R>
     stage = null;
     currentGenerator = null;
     currentThread = null;
+    isSourceFetchRescheduled = false;
+    isRunningOnSourceFetchExecutor = false;
     currentSourceKey = null;
     currentData = null;
     currentDataSource = null;
@@ -203,10 +229,39 @@ class DecodeJob<R>
     return result;
   }
 
-  private int getPriority() {
+  @Override
+  public int getPriority() {
     return priority.ordinal();
   }
 
+  @Override
+  public int getOrder() {
+    return order;
+  }
+
+  @Override
+  public boolean isStarted() {
+    // Jobs that have started may have fetched data or have open streams that shouldn't be dropped.
+    return runReason != RunReason.INITIALIZE;
+  }
+
+  /**
+   * Changes the priority used to order this job in its executor's queue and to start any fetches
+   * that haven't started yet.
+   *
+   * <p>Changing the priority of a job that's in a queue breaks the queue's ordering, so the job
+   * must be removed from its queue first.
+   */
+  void setPriority(Priority priority) {
+    this.priority = priority;
+    decodeHelper.setPriority(priority);
+  }
+
+  /** Returns {@code true} if this job's priority is lower than the given priority. */
+  boolean isLowerPriorityThan(Priority priority) {
+    return getPriority() > priority.ordinal();
+  }
+
   public void cancel() {
     isCancelled = true;
     DataFetcherGenerator local = currentGenerator;
@@ -215,6 +270,23 @@ class DecodeJob<R>
     }
   }
 
+  @Override
+  public void onPreviewReady(@NonNull Bitmap preview) {
+    if (!isCancelled) {
+      callback.onPreviewReady(preview);
+    }
+  }
+
+  @Override
+  public void onDropped() {
+    throwables.add(new GlideException("Dropped from a full executor queue"));
+    cancel();
+    // Fail the load on the main thread rather than on the thread that submitted the newer job,
+    // which may hold an EngineJob's lock. Only jobs that haven't started are dropped, so there's
+    // no fetcher to clean up, which would otherwise block the main thread on I/O.
+    Executors.mainThreadExecutor().execute(notifyDropped);
+  }
+
   // We need to rethrow only CallbackException, but not other types of Throwables.
   @SuppressWarnings("PMD.AvoidRethrowingException")
   @Override
@@ -264,11 +336,16 @@ class DecodeJob<R>
       if (localFetcher != null) {
         localFetcher.cleanup();
       }
+      // The job may already be running on another thread after being rescheduled.
+      if (currentThread == Thread.currentThread()) {
+        currentThread = null;
+      }
       GlideTrace.endSection();
     }
   }
 
   private void runWrapped() {
+    isRunningOnSourceFetchExecutor = runReason == RunReason.SWITCH_TO_SOURCE_FETCH_SERVICE;
     switch (runReason) {
       case INITIALIZE:
         stage = getNextStage(Stage.INITIALIZE);
@@ -276,6 +353,7 @@ class DecodeJob<R>
         runGenerators();
         break;
       case SWITCH_TO_SOURCE_SERVICE:
+      case SWITCH_TO_SOURCE_FETCH_SERVICE:
         runGenerators();
         break;
       case DECODE_DATA:
@@ -293,7 +371,11 @@ class DecodeJob<R>
       case DATA_CACHE:
         return new DataCacheGenerator(decodeHelper, this);
       case SOURCE:
-        return new SourceGenerator(decodeHelper, this);
+        return new SourceGenerator(
+            decodeHelper,
+            sourceFetchRegistry,
+            this,
+            /*previewListener=*/ callback.isPreviewRequested() ? this : null);
       case FINISHED:
         return null;
       default:
@@ -304,6 +386,9 @@ class DecodeJob<R>
   private void runGenerators() {
     currentThread = Thread.currentThread();
     startFetchTime = LogTime.getLogTime();
+    if (rescheduleSourceFetchIfNeeded()) {
+      return;
+    }
     boolean isStarted = false;
     while (!isCancelled
         && currentGenerator != null
@@ -312,7 +397,9 @@ class DecodeJob<R>
       currentGenerator = getNextGenerator();
 
       if (stage == Stage.SOURCE) {
-        reschedule();
+        if (!rescheduleSourceFetchIfNeeded()) {
+          reschedule();
+        }
         return;
       }
     }
@@ -325,7 +412,35 @@ class DecodeJob<R>
     // onDataFetcherReady.
   }
 
-  private void notifyFailed() {
+  /**
+   * Moves the job to the source fetch executor, if there is one, before fetching data from a
+   * remote source so that blocking network I/O doesn't occupy the threads we decode on. The job
+   * moves at most once, returning to the source executor when the data is ready.
+   *
+   * @return true if the job was rescheduled and the current thread should stop running it.
+   */
+  private boolean rescheduleSourceFetchIfNeeded() {
+    if (stage != Stage.SOURCE || isSourceFetchRescheduled || isCancelled || !hasRemoteSource()) {
+      return false;
+    }
+    isSourceFetchRescheduled = true;
+    runReason = RunReason.SWITCH_TO_SOURCE_FETCH_SERVICE;
+    return callback.rescheduleSourceFetch(this);
+  }
+
+  private boolean hasRemoteSource() {
+    List<LoadData<?>> loadData = decodeHelper.getLoadData();
+    //noinspection ForLoopReplaceableByForEach to improve perf
+    for (int i = 0, size = loadData.size(); i < size; i++) {
+      if (loadData.get(i).fetcher.getDataSource() == DataSource.REMOTE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Synthetic
+  void notifyFailed() {
     setNotifiedOrThrow();
     GlideException e = new GlideException("Failed to load resource", new ArrayList<>(throwables));
     callback.onLoadFailed(e);
@@ -369,6 +484,19 @@ class DecodeJob<R>
 
   @Override
   public void reschedule() {
+    if (isRunningOnSourceFetchExecutor) {
+      // Write fetched data to the disk cache on the source fetch executor rather than the source
+      // executor, which is left for decoding. onDataFetcherReady moves the job back to the source
+      // executor once the data is ready to decode.
+      if (Thread.currentThread() == currentThread) {
+        runGenerators();
+        return;
+      }
+      runReason = RunReason.SWITCH_TO_SOURCE_FETCH_SERVICE;
+      if (callback.rescheduleSourceFetch(this)) {
+        return;
+      }
+    }
     runReason = RunReason.SWITCH_TO_SOURCE_SERVICE;
     callback.reschedule(this);
   }
@@ -381,7 +509,7 @@ class DecodeJob<R>
     this.currentFetcher = fetcher;
     this.currentDataSource = dataSource;
     this.currentAttemptingKey = attemptedKey;
-    if (Thread.currentThread() != currentThread) {
+    if (Thread.currentThread() != currentThread || isRunningOnSourceFetchExecutor) {
       runReason = RunReason.DECODE_DATA;
       callback.reschedule(this);
     } else {
@@ -715,6 +843,18 @@ class DecodeJob<R>
     void onLoadFailed(GlideException e);
 
     void reschedule(DecodeJob<?> job);
+
+    /**
+     * Schedules the job to run on an executor used only for fetching data from remote sources, or
+     * returns false without scheduling it if there isn't one.
+     */
+    boolean rescheduleSourceFetch(DecodeJob<?> job);
+
+    /** Returns {@code true} if any of the requests waiting for the resource want previews. */
+    boolean isPreviewRequested();
+
+    /** Called with each preview decoded from progressive source data before it's decoded. */
+    void onPreviewReady(Bitmap preview);
   }
 
   interface DiskCacheProvider {
@@ -727,6 +867,8 @@ class DecodeJob<R>
     INITIALIZE,
     /** We want to switch from the disk cache service to the source executor. */
     SWITCH_TO_SOURCE_SERVICE,
+    /** We want to switch to the source fetch executor to wait on blocking network I/O. */
+    SWITCH_TO_SOURCE_FETCH_SERVICE,
     /**
      * We retrieved some data on a thread we don't own and want to switch back to our thread to
      * process the data.
@@ -15,6 +15,7 @@ import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCacheAdapter;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.bumptech.glide.load.engine.cache.MemoryTierDiskCache;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Executors;
@@ -22,6 +23,8 @@ import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.pool.FactoryPools;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
@@ -41,6 +44,7 @@ public class Engine
   private final LazyDiskCacheProvider diskCacheProvider;
   private final DecodeJobFactory decodeJobFactory;
   private final ActiveResources activeResources;
+  private final ThreadLocal<Batch> batches = new ThreadLocal<>();
 
   public Engine(
       MemoryCache memoryCache,
@@ -57,6 +61,32 @@ public class Engine
         sourceExecutor,
         sourceUnlimitedExecutor,
         animationExecutor,
+        /*sourceFetchExecutor=*/ null,
+        isActiveResourceRetentionAllowed);
+  }
+
+  /**
+   * Creates an Engine that fetches data from remote sources on the given {@code
+   * sourceFetchExecutor} and decodes it on the {@code sourceExecutor}, or that fetches and decodes
+   * on the {@code sourceExecutor} if {@code sourceFetchExecutor} is {@code null}.
+   */
+  public Engine(
+      MemoryCache memoryCache,
+      DiskCache.Factory diskCacheFactory,
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      @Nullable GlideExecutor sourceFetchExecutor,
+      boolean isActiveResourceRetentionAllowed) {
+    this(
+        memoryCache,
+        diskCacheFactory,
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        sourceFetchExecutor,
         /*jobs=*/ null,
         /*keyFactory=*/ null,
         /*activeResources=*/ null,
@@ -74,6 +104,7 @@ public class Engine
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable GlideExecutor sourceFetchExecutor,
       Jobs jobs,
       EngineKeyFactory keyFactory,
       ActiveResources activeResources,
@@ -107,6 +138,7 @@ public class Engine
               sourceExecutor,
               sourceUnlimitedExecutor,
               animationExecutor,
+              sourceFetchExecutor,
               /*engineJobListener=*/ this,
               /*resourceListener=*/ this);
     }
@@ -247,6 +279,8 @@ public class Engine
     EngineJob<?> current = jobs.get(key, onlyRetrieveFromCache);
     if (current != null) {
       current.addCallback(cb, callbackExecutor);
+      // A request for a visible view may join a load started by a lower priority preload.
+      current.setPriority(priority);
       if (VERBOSE_IS_LOGGABLE) {
         logWithTimeAndKey("Added to existing load", startTime, key);
       }
@@ -283,10 +317,18 @@ public class Engine
     jobs.put(key, engineJob);
 
     engineJob.addCallback(cb, callbackExecutor);
-    engineJob.start(decodeJob);
-
-    if (VERBOSE_IS_LOGGABLE) {
-      logWithTimeAndKey("Started new load", startTime, key);
+    Batch batch = batches.get();
+    if (batch != null && batch.depth > 0) {
+      engineJob.prepare(decodeJob);
+      batch.pending.add(new PendingStart<>(engineJob, decodeJob));
+      if (VERBOSE_IS_LOGGABLE) {
+        logWithTimeAndKey("Deferred new load", startTime, key);
+      }
+    } else {
+      engineJob.start(decodeJob);
+      if (VERBOSE_IS_LOGGABLE) {
+        logWithTimeAndKey("Started new load", startTime, key);
+      }
     }
     return new LoadStatus(cb, engineJob);
   }
@@ -397,10 +439,70 @@ public class Engine
     }
   }
 
+  /**
+   * Defers starting new loads on the current thread until a matching call to {@link #endBatch()}.
+   *
+   * <p>Loads that complete from memory or that join an existing load are unaffected. Every other
+   * load started in the batch is submitted at once when the batch ends, with loads that can be
+   * decoded from the disk cache submitted before those that need to go to the source. Submitting
+   * the loads together lets each executor order the whole batch by {@link Priority} rather than
+   * running whichever load happened to be started first.
+   *
+   * <p>Batches may be nested, loads are only started when the outermost batch ends.
+   */
+  public void beginBatch() {
+    Batch batch = batches.get();
+    if (batch == null) {
+      batch = new Batch();
+      batches.set(batch);
+    }
+    batch.depth++;
+  }
+
+  /**
+   * Ends a batch started by {@link #beginBatch()} on the current thread and starts any loads that
+   * were deferred if this is the outermost batch.
+   *
+   * @throws IllegalStateException if no batch was started on the current thread.
+   */
+  public void endBatch() {
+    Batch batch = batches.get();
+    if (batch == null || batch.depth == 0) {
+      throw new IllegalStateException("endBatch() called without a matching beginBatch()");
+    }
+    if (--batch.depth == 0) {
+      batch.startAll();
+    }
+  }
+
   public void clearDiskCache() {
     diskCacheProvider.getDiskCache().clear();
   }
 
+  /**
+   * Evicts any disk cache data held in memory by a {@link MemoryTierDiskCache}, without creating
+   * the disk cache if it hasn't been used yet.
+   */
+  public void clearDiskCacheMemory() {
+    DiskCache diskCache = diskCacheProvider.getDiskCacheIfCreated();
+    if (diskCache instanceof MemoryTierDiskCache) {
+      ((MemoryTierDiskCache) diskCache).clearMemory();
+    }
+  }
+
+  /**
+   * Evicts some or all of the disk cache data held in memory by a {@link MemoryTierDiskCache}
+   * depending on the given level, without creating the disk cache if it hasn't been used yet.
+   *
+   * @see android.content.ComponentCallbacks2#onTrimMemory(int)
+   */
+  public void trimDiskCacheMemory(int level) {
+    DiskCache diskCache = diskCacheProvider.getDiskCacheIfCreated();
+    if (diskCache instanceof MemoryTierDiskCache) {
+      ((MemoryTierDiskCache) diskCache).trimMemory(level);
+    }
+  }
+
   @VisibleForTesting
   public void shutdown() {
     engineJobFactory.shutdown();
@@ -431,6 +533,63 @@ public class Engine
         engineJob.removeCallback(cb);
       }
     }
+
+    /**
+     * Changes the priority of the load if it hasn't finished yet.
+     *
+     * <p>Loads shared with other requests are only ever promoted.
+     */
+    public void setPriority(@NonNull Priority priority) {
+      engineJob.setPriority(priority);
+    }
+  }
+
+  /** Loads deferred by {@link #beginBatch()} on a single thread. */
+  private static final class Batch {
+    @Synthetic final List<PendingStart<?>> pending = new ArrayList<>();
+    @Synthetic int depth;
+
+    @Synthetic
+    Batch() {}
+
+    void startAll() {
+      int size = pending.size();
+      boolean[] fromCache = new boolean[size];
+      for (int i = 0; i < size; i++) {
+        PendingStart<?> pendingStart = pending.get(i);
+        fromCache[i] = pendingStart.decodeJob.willDecodeFromCache();
+        if (fromCache[i]) {
+          pendingStart.start();
+        }
+      }
+      for (int i = 0; i < size; i++) {
+        if (!fromCache[i]) {
+          pending.get(i).start();
+        }
+      }
+      pending.clear();
+    }
+  }
+
+  /**
+   * A new load whose {@link DecodeJob} has yet to be started.
+   *
+   * <p>Loads that are cancelled before they're started are still started so that the {@link
+   * DecodeJob} notices the cancellation and both jobs are released normally.
+   */
+  private static final class PendingStart<R> {
+    private final EngineJob<R> engineJob;
+    @Synthetic final DecodeJob<R> decodeJob;
+
+    @Synthetic
+    PendingStart(EngineJob<R> engineJob, DecodeJob<R> decodeJob) {
+      this.engineJob = engineJob;
+      this.decodeJob = decodeJob;
+    }
+
+    void start() {
+      engineJob.start(decodeJob);
+    }
   }
 
   private static class LazyDiskCacheProvider implements DecodeJob.DiskCacheProvider {
@@ -450,6 +609,11 @@ public class Engine
       diskCache.clear();
     }
 
+    @Nullable
+    DiskCache getDiskCacheIfCreated() {
+      return diskCache;
+    }
+
     @Override
     public DiskCache getDiskCache() {
       if (diskCache == null) {
@@ -469,6 +633,7 @@ public class Engine
   @VisibleForTesting
   static class DecodeJobFactory {
     @Synthetic final DecodeJob.DiskCacheProvider diskCacheProvider;
+    @Synthetic final SourceFetchRegistry sourceFetchRegistry = new SourceFetchRegistry();
 
     @Synthetic
     final Pools.Pool<DecodeJob<?>> pool =
@@ -477,7 +642,7 @@ public class Engine
             new FactoryPools.Factory<DecodeJob<?>>() {
               @Override
               public DecodeJob<?> create() {
-                return new DecodeJob<>(diskCacheProvider, pool);
+                return new DecodeJob<>(diskCacheProvider, sourceFetchRegistry, pool);
               }
             });
 
@@ -533,6 +698,7 @@ public class Engine
     @Synthetic final GlideExecutor sourceExecutor;
     @Synthetic final GlideExecutor sourceUnlimitedExecutor;
     @Synthetic final GlideExecutor animationExecutor;
+    @Synthetic @Nullable final GlideExecutor sourceFetchExecutor;
     @Synthetic final EngineJobListener engineJobListener;
     @Synthetic final ResourceListener resourceListener;
 
@@ -548,6 +714,7 @@ public class Engine
                     sourceExecutor,
                     sourceUnlimitedExecutor,
                     animationExecutor,
+                    sourceFetchExecutor,
                     engineJobListener,
                     resourceListener,
                     pool);
@@ -559,12 +726,14 @@ public class Engine
         GlideExecutor sourceExecutor,
         GlideExecutor sourceUnlimitedExecutor,
         GlideExecutor animationExecutor,
+        @Nullable GlideExecutor sourceFetchExecutor,
         EngineJobListener engineJobListener,
         ResourceListener resourceListener) {
       this.diskCacheExecutor = diskCacheExecutor;
       this.sourceExecutor = sourceExecutor;
       this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
       this.animationExecutor = animationExecutor;
+      this.sourceFetchExecutor = sourceFetchExecutor;
       this.engineJobListener = engineJobListener;
       this.resourceListener = resourceListener;
     }
@@ -575,6 +744,9 @@ public class Engine
       Executors.shutdownAndAwaitTermination(sourceExecutor);
       Executors.shutdownAndAwaitTermination(sourceUnlimitedExecutor);
       Executors.shutdownAndAwaitTermination(animationExecutor);
+      if (sourceFetchExecutor != null) {
+        Executors.shutdownAndAwaitTermination(sourceFetchExecutor);
+      }
     }
 
     @SuppressWarnings("unchecked")
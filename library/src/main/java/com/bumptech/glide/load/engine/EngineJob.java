@@ -1,13 +1,17 @@
 package com.bumptech.glide.load.engine;
 
+import android.graphics.Bitmap;
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.request.ProgressiveResourceCallback;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Executors;
 import com.bumptech.glide.util.Preconditions;
@@ -40,6 +44,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   private final GlideExecutor sourceExecutor;
   private final GlideExecutor sourceUnlimitedExecutor;
   private final GlideExecutor animationExecutor;
+  @Nullable private final GlideExecutor sourceFetchExecutor;
   private final AtomicInteger pendingCallbacks = new AtomicInteger();
 
   private Key key;
@@ -67,6 +72,12 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
 
   private DecodeJob<R> decodeJob;
 
+  // Set when the priority changes while the DecodeJob is running, and applied the next time the
+  // job is queued.
+  @GuardedBy("this")
+  @Nullable
+  private Priority pendingPriority;
+
   // Checked primarily on the main thread, but also on other threads in reschedule.
   private volatile boolean isCancelled;
 
@@ -75,6 +86,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable GlideExecutor sourceFetchExecutor,
       EngineJobListener engineJobListener,
       ResourceListener resourceListener,
       Pools.Pool<EngineJob<?>> pool) {
@@ -83,6 +95,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
         sourceExecutor,
         sourceUnlimitedExecutor,
         animationExecutor,
+        sourceFetchExecutor,
         engineJobListener,
         resourceListener,
         pool,
@@ -95,6 +108,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable GlideExecutor sourceFetchExecutor,
       EngineJobListener engineJobListener,
       ResourceListener resourceListener,
       Pools.Pool<EngineJob<?>> pool,
@@ -103,6 +117,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     this.sourceExecutor = sourceExecutor;
     this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
     this.animationExecutor = animationExecutor;
+    this.sourceFetchExecutor = sourceFetchExecutor;
     this.engineJobListener = engineJobListener;
     this.resourceListener = resourceListener;
     this.pool = pool;
@@ -124,8 +139,18 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     return this;
   }
 
+  /**
+   * Associates the given job with this one without running it, so that this job can be cancelled
+   * or reprioritized before {@link #start(DecodeJob)} is called.
+   */
+  synchronized void prepare(DecodeJob<R> decodeJob) {
+    this.decodeJob = decodeJob;
+  }
+
   public synchronized void start(DecodeJob<R> decodeJob) {
     this.decodeJob = decodeJob;
+    // Apply any priority set after prepare(DecodeJob), the job was never queued to change it.
+    applyPendingPriority(decodeJob);
     GlideExecutor executor =
         decodeJob.willDecodeFromCache() ? diskCacheExecutor : getActiveSourceExecutor();
     executor.execute(decodeJob);
@@ -191,6 +216,65 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     return onlyRetrieveFromCache;
   }
 
+  /**
+   * Changes the priority of the {@link DecodeJob}, moving it within its executor's queue if it
+   * hasn't started running yet, or the next time it's rescheduled if it's running.
+   *
+   * <p>Jobs shared by more than one request are only ever promoted so that a request whose target
+   * is no longer visible can't delay a request for the same resource whose target is.
+   */
+  synchronized void setPriority(Priority priority) {
+    if (decodeJob == null || isDone()) {
+      return;
+    }
+    if (cbs.size() > 1 && !isLowerPriorityThan(priority)) {
+      return;
+    }
+    GlideExecutor executor = removeFromQueue(decodeJob);
+    if (executor == null) {
+      // The job may be about to be queued by the thread running it, and changing the priority of
+      // a queued job breaks its queue's ordering.
+      pendingPriority = priority;
+      return;
+    }
+    pendingPriority = null;
+    decodeJob.setPriority(priority);
+    executor.execute(decodeJob);
+  }
+
+  @GuardedBy("this")
+  private boolean isLowerPriorityThan(Priority priority) {
+    return pendingPriority != null
+        ? pendingPriority.ordinal() > priority.ordinal()
+        : decodeJob.isLowerPriorityThan(priority);
+  }
+
+  /** Applies any priority set while the job was running, before the job is queued again. */
+  @GuardedBy("this")
+  private void applyPendingPriority(DecodeJob<?> job) {
+    if (pendingPriority != null) {
+      job.setPriority(pendingPriority);
+      pendingPriority = null;
+    }
+  }
+
+  /**
+   * Returns the executor whose queue the given job was removed from, or {@code null} if the job
+   * wasn't queued, usually because it's running.
+   */
+  @Nullable
+  private GlideExecutor removeFromQueue(DecodeJob<R> job) {
+    GlideExecutor activeSourceExecutor = getActiveSourceExecutor();
+    if (activeSourceExecutor.remove(job)) {
+      return activeSourceExecutor;
+    } else if (sourceFetchExecutor != null && sourceFetchExecutor.remove(job)) {
+      return sourceFetchExecutor;
+    } else if (diskCacheExecutor.remove(job)) {
+      return diskCacheExecutor;
+    }
+    return null;
+  }
+
   private GlideExecutor getActiveSourceExecutor() {
     return useUnlimitedSourceGeneratorPool
         ? sourceUnlimitedExecutor
@@ -306,6 +390,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     hasResource = false;
     decodeJob.release(/*isRemovedFromQueue=*/ false);
     decodeJob = null;
+    pendingPriority = null;
     exception = null;
     dataSource = null;
     pool.release(this);
@@ -329,12 +414,52 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   }
 
   @Override
-  public void reschedule(DecodeJob<?> job) {
+  public synchronized void reschedule(DecodeJob<?> job) {
+    applyPendingPriority(job);
     // Even if the job is cancelled here, it still needs to be scheduled so that it can clean itself
     // up.
     getActiveSourceExecutor().execute(job);
   }
 
+  @Override
+  public synchronized boolean rescheduleSourceFetch(DecodeJob<?> job) {
+    // Loads that asked for the unlimited or animation pools keep using them for everything.
+    if (sourceFetchExecutor == null || useUnlimitedSourceGeneratorPool || useAnimationPool) {
+      return false;
+    }
+    applyPendingPriority(job);
+    sourceFetchExecutor.execute(job);
+    return true;
+  }
+
+  @Override
+  public synchronized boolean isPreviewRequested() {
+    for (ResourceCallbackAndExecutor entry : cbs) {
+      if (entry.cb instanceof ProgressiveResourceCallback
+          && ((ProgressiveResourceCallback) entry.cb).isPreviewRequested()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void onPreviewReady(Bitmap preview) {
+    ResourceCallbacksAndExecutors copy;
+    synchronized (this) {
+      if (isCancelled || hasResource || hasLoadFailed) {
+        return;
+      }
+      copy = cbs.copy();
+    }
+    for (ResourceCallbackAndExecutor entry : copy) {
+      if (entry.cb instanceof ProgressiveResourceCallback) {
+        entry.executor.execute(
+            new CallPreviewReady((ProgressiveResourceCallback) entry.cb, preview));
+      }
+    }
+  }
+
   // We have to post Runnables in a loop. Typically there will be very few callbacks. Acessor method
   // warning seems to be false positive.
   @SuppressWarnings({
@@ -430,6 +555,32 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     }
   }
 
+  private class CallPreviewReady implements Runnable {
+
+    private final ProgressiveResourceCallback cb;
+    private final Bitmap preview;
+
+    CallPreviewReady(ProgressiveResourceCallback cb, Bitmap preview) {
+      this.cb = cb;
+      this.preview = preview;
+    }
+
+    @Override
+    public void run() {
+      // Make sure we always acquire the request lock, then the EngineJob lock to avoid deadlock
+      // (b/136032534).
+      synchronized (cb.getLock()) {
+        synchronized (EngineJob.this) {
+          // The resource may have been delivered while this preview was posted, in which case the
+          // preview would replace the full image.
+          if (cbs.contains(cb) && !hasResource && !hasLoadFailed) {
+            cb.onPreviewReady(preview);
+          }
+        }
+      }
+    }
+  }
+
   static final class ResourceCallbacksAndExecutors
       implements Iterable<ResourceCallbackAndExecutor> {
     private final List<ResourceCallbackAndExecutor> callbacksAndExecutors;
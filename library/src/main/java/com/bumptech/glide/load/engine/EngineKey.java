@@ -45,10 +45,12 @@ class EngineKey implements Key {
   public boolean equals(Object o) {
     if (o instanceof EngineKey) {
       EngineKey other = (EngineKey) o;
-      return model.equals(other.model)
-          && signature.equals(other.signature)
+      // Compare the cheapest fields first, keys with different cached hashCodes can't be equal.
+      return hashCode() == other.hashCode()
           && height == other.height
           && width == other.width
+          && model.equals(other.model)
+          && signature.equals(other.signature)
           && transformations.equals(other.transformations)
           && resourceClass.equals(other.resourceClass)
           && transcodeClass.equals(other.transcodeClass)
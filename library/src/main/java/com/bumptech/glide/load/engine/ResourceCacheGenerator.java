@@ -1,6 +1,7 @@
 package com.bumptech.glide.load.engine;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Transformation;
@@ -8,6 +9,7 @@ import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -29,6 +31,9 @@ class ResourceCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCa
   // multiple calls to startNext.
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
+  // Set after data is loaded from a ByteBuffer so that the next call to startNext can fall back to
+  // the File for the same key if none of the ByteBuffer decoders were able to decode the data.
+  @Nullable private Key bufferCacheKey;
 
   private ResourceCacheKey currentKey;
 
@@ -56,6 +61,14 @@ class ResourceCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCa
               + " to "
               + helper.getTranscodeClass());
     }
+    if (bufferCacheKey != null) {
+      cacheFile = helper.getDiskCache().get(bufferCacheKey);
+      bufferCacheKey = null;
+      if (cacheFile != null) {
+        modelLoaders = helper.getModelLoaders(cacheFile);
+        modelLoaderIndex = 0;
+      }
+    }
     while (modelLoaders == null || !hasNextModelLoader()) {
       resourceClassIndex++;
       if (resourceClassIndex >= resourceClasses.size()) {
@@ -82,6 +95,22 @@ class ResourceCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCa
               transformation,
               resourceClass,
               helper.getOptions());
+      if (helper.isDiskCacheBufferAvailable()) {
+        ByteBuffer cacheBuffer = helper.getDiskCacheBuffer(currentKey);
+        if (cacheBuffer != null) {
+          sourceKey = sourceId;
+          bufferCacheKey = currentKey;
+          modelLoaders = null;
+          loadData =
+              new LoadData<>(
+                  currentKey,
+                  new DiskCacheBufferFetcher(cacheBuffer, DataSource.RESOURCE_DISK_CACHE));
+          loadData.fetcher.loadData(helper.getPriority(), this);
+          return true;
+        }
+        // Every entry in the cache is returned as a buffer, so this is a miss.
+        continue;
+      }
       cacheFile = helper.getDiskCache().get(currentKey);
       if (cacheFile != null) {
         sourceKey = sourceId;
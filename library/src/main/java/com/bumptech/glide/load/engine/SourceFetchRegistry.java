@@ -0,0 +1,80 @@
+package com.bumptech.glide.load.engine;
+
+import android.util.Log;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the source data being fetched by running {@link DecodeJob}s so that jobs for different
+ * sizes or transformations of the same source data share a single fetch.
+ *
+ * <p>{@link Jobs} only shares loads with identical {@link EngineKey}s, so without this a screen
+ * showing a thumbnail and a full size version of an image would download the image twice. Instead,
+ * the first job to fetch data that will be written to the disk cache does so and any other jobs
+ * that need the same data wait until it's finished and then decode the data from the disk cache.
+ */
+final class SourceFetchRegistry {
+  private static final String TAG = "SourceFetchRegistry";
+
+  /** Notified when a fetch being waited on has finished, successfully or otherwise. */
+  interface Waiter {
+    void onSourceFetchFinished();
+  }
+
+  @GuardedBy("this")
+  private final Map<Key, List<Waiter>> fetches = new HashMap<>();
+
+  /**
+   * Returns {@code true} if data for the given key is already being fetched, in which case the
+   * given waiter will be notified when the fetch finishes, or {@code false} if the caller should
+   * fetch the data itself and call {@link #finish(Key)} when it's done.
+   */
+  synchronized boolean waitOrStart(@NonNull Key dataCacheKey, @NonNull Waiter waiter) {
+    List<Waiter> waiters = fetches.get(dataCacheKey);
+    if (waiters == null) {
+      fetches.put(dataCacheKey, new ArrayList<Waiter>());
+      return false;
+    }
+    waiters.add(waiter);
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Waiting for in progress fetch, key: " + dataCacheKey);
+    }
+    return true;
+  }
+
+  /**
+   * Stops notifying the given waiter when the fetch for the given key finishes.
+   *
+   * @return {@code true} if the waiter was removed, or {@code false} if the fetch has already
+   *     finished and the waiter has been or is about to be notified.
+   */
+  synchronized boolean stopWaiting(@NonNull Key dataCacheKey, @NonNull Waiter waiter) {
+    List<Waiter> waiters = fetches.get(dataCacheKey);
+    return waiters != null && waiters.remove(waiter);
+  }
+
+  /**
+   * Marks the fetch for the given key as finished and notifies any waiters.
+   *
+   * <p>Must only be called once by the caller that was told to fetch the data by {@link
+   * #waitOrStart(Key, Waiter)}, after the data has been written to the disk cache or the fetch has
+   * failed or been cancelled.
+   */
+  void finish(@NonNull Key dataCacheKey) {
+    List<Waiter> waiters;
+    synchronized (this) {
+      waiters = fetches.remove(dataCacheKey);
+    }
+    if (waiters == null) {
+      return;
+    }
+    for (int i = 0, size = waiters.size(); i < size; i++) {
+      waiters.get(i).onSourceFetchFinished();
+    }
+  }
+}
@@ -2,13 +2,16 @@ package com.bumptech.glide.load.engine;
 
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Encoder;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
+import com.bumptech.glide.load.resource.bitmap.ProgressiveJpegPreviewStream;
 import com.bumptech.glide.util.LogTime;
+import java.io.InputStream;
 import java.util.Collections;
 
 /**
@@ -18,25 +21,47 @@ import java.util.Collections;
  *
  * <p>Depending on the disk cache strategy, source data may first be written to disk and then loaded
  * from the cache file rather than returned directly.
+ *
+ * <p>If source data that will be written to disk is already being fetched by another job, this
+ * generator waits for that fetch to finish and then loads the data from the cache file, see {@link
+ * SourceFetchRegistry}.
+ *
+ * <p>If a preview listener is given, remote streams are wrapped in a {@link
+ * ProgressiveJpegPreviewStream} so that previews of progressive JPEGs are decoded while the stream
+ * is written to the cache or decoded.
  */
 class SourceGenerator
     implements DataFetcherGenerator,
         DataFetcher.DataCallback<Object>,
-        DataFetcherGenerator.FetcherReadyCallback {
+        DataFetcherGenerator.FetcherReadyCallback,
+        SourceFetchRegistry.Waiter {
   private static final String TAG = "SourceGenerator";
 
   private final DecodeHelper<?> helper;
+  private final SourceFetchRegistry sourceFetchRegistry;
   private final FetcherReadyCallback cb;
+  @Nullable private final ProgressiveJpegPreviewStream.PreviewListener previewListener;
 
   private int loadDataListIndex;
   private DataCacheGenerator sourceCacheGenerator;
   private Object dataToCache;
   private volatile ModelLoader.LoadData<?> loadData;
   private DataCacheKey originalKey;
-
-  SourceGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
+  // The key of the data this generator is fetching that other jobs may be waiting for.
+  private volatile DataCacheKey fetchingKey;
+  // The key of the data another job is fetching that this generator is waiting for.
+  private volatile DataCacheKey waitingKey;
+  private boolean hasWaited;
+
+  SourceGenerator(
+      DecodeHelper<?> helper,
+      SourceFetchRegistry sourceFetchRegistry,
+      FetcherReadyCallback cb,
+      @Nullable ProgressiveJpegPreviewStream.PreviewListener previewListener) {
     this.helper = helper;
+    this.sourceFetchRegistry = sourceFetchRegistry;
     this.cb = cb;
+    this.previewListener = previewListener;
   }
 
   @Override
@@ -47,6 +72,13 @@ class SourceGenerator
       cacheData(data);
     }
 
+    if (waitingKey != null) {
+      // The fetch we were waiting for has finished, try to load its data from the cache.
+      waitingKey = null;
+      sourceCacheGenerator =
+          new DataCacheGenerator(Collections.singletonList(loadData.sourceKey), helper, this);
+    }
+
     if (sourceCacheGenerator != null && sourceCacheGenerator.startNext()) {
       return true;
     }
@@ -60,12 +92,58 @@ class SourceGenerator
           && (helper.getDiskCacheStrategy().isDataCacheable(loadData.fetcher.getDataSource())
               || helper.hasLoadPath(loadData.fetcher.getDataClass()))) {
         started = true;
-        loadData.fetcher.loadData(helper.getPriority(), this);
+        if (waitForFetchInProgress()) {
+          // Try this ModelLoader again if the data isn't in the cache once the other fetch is done.
+          loadDataListIndex--;
+        } else {
+          startFetch();
+        }
       }
     }
     return started;
   }
 
+  private boolean waitForFetchInProgress() {
+    if (hasWaited
+        || !helper.getDiskCacheStrategy().isDataCacheable(loadData.fetcher.getDataSource())) {
+      return false;
+    }
+    DataCacheKey key = new DataCacheKey(loadData.sourceKey, helper.getSignature());
+    // Set before registering because the other fetch may finish on another thread at any time.
+    waitingKey = key;
+    if (sourceFetchRegistry.waitOrStart(key, this)) {
+      hasWaited = true;
+      return true;
+    }
+    waitingKey = null;
+    fetchingKey = key;
+    return false;
+  }
+
+  private void startFetch() {
+    try {
+      loadData.fetcher.loadData(helper.getPriority(), this);
+    } catch (RuntimeException e) {
+      finishFetch();
+      throw e;
+    }
+  }
+
+  private void finishFetch() {
+    DataCacheKey key = fetchingKey;
+    if (key != null) {
+      fetchingKey = null;
+      sourceFetchRegistry.finish(key);
+    }
+  }
+
+  @Override
+  public void onSourceFetchFinished() {
+    // We're being called back on the thread of the job that fetched the data, reschedule to get
+    // back onto Glide's thread before loading the data from the cache.
+    cb.reschedule();
+  }
+
   private boolean hasNextModelLoader() {
     return loadDataListIndex < helper.getLoadData().size();
   }
@@ -93,6 +171,7 @@ class SourceGenerator
       }
     } finally {
       loadData.fetcher.cleanup();
+      finishFetch();
     }
 
     sourceCacheGenerator =
@@ -101,14 +180,27 @@ class SourceGenerator
 
   @Override
   public void cancel() {
+    DataCacheKey localWaitingKey = waitingKey;
+    if (localWaitingKey != null && sourceFetchRegistry.stopWaiting(localWaitingKey, this)) {
+      // Run the job again so that it notices it's been cancelled and is released.
+      cb.reschedule();
+    }
     LoadData<?> local = loadData;
     if (local != null) {
       local.fetcher.cancel();
     }
+    finishFetch();
   }
 
   @Override
   public void onDataReady(Object data) {
+    if (previewListener != null
+        && data instanceof InputStream
+        && loadData.fetcher.getDataSource() == DataSource.REMOTE) {
+      data =
+          new ProgressiveJpegPreviewStream(
+              (InputStream) data, helper.getWidth(), helper.getHeight(), previewListener);
+    }
     DiskCacheStrategy diskCacheStrategy = helper.getDiskCacheStrategy();
     if (data != null && diskCacheStrategy.isDataCacheable(loadData.fetcher.getDataSource())) {
       dataToCache = data;
@@ -116,6 +208,7 @@ class SourceGenerator
       // reschedule to get back onto Glide's thread.
       cb.reschedule();
     } else {
+      finishFetch();
       cb.onDataFetcherReady(
           loadData.sourceKey,
           data,
@@ -127,6 +220,7 @@ class SourceGenerator
 
   @Override
   public void onLoadFailed(@NonNull Exception e) {
+    finishFetch();
     cb.onDataFetcherFailed(originalKey, e, loadData.fetcher, loadData.fetcher.getDataSource());
   }
 
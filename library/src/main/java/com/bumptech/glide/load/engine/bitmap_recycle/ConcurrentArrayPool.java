@@ -0,0 +1,286 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Synthetic;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An {@link ArrayPool} for apps that decode on many threads at once that avoids making every
+ * thread wait for a single lock.
+ *
+ * <p>Arrays are pooled in two tiers. Each thread has a small magazine of recently returned arrays
+ * no larger than {@link ArrayPool#STANDARD_BUFFER_SIZE_BYTES}, which covers the buffers used for
+ * every decode. Arrays are taken from and returned to the calling thread's magazine first, which
+ * only contends with {@link #clearMemory()} and {@link #trimMemory(int)}. Arrays that don't fit
+ * in the magazine are pooled in one of several {@link LruArrayPool} stripes, chosen by the
+ * array's power of two size class, so threads using arrays of different sizes use different locks.
+ * Like {@link LruArrayPool}, requests may be filled by arrays up to 8 times larger, which are
+ * looked for in the stripes of the next few size classes up.
+ *
+ * <p>The size given to the constructor is split evenly between the stripes, and arrays larger than
+ * half of a stripe's share are never pooled. The largest pooled array is therefore a fraction of
+ * the largest array an {@link LruArrayPool} of the same size would pool, one half with the default
+ * of {@link #DEFAULT_STRIPE_COUNT} stripes. Apps that reuse large arrays, for example to decode
+ * large GIFs, should use a larger size or fewer stripes.
+ *
+ * <p>Magazines hold at most {@link #MAGAZINE_SIZE} arrays per thread in addition to the arrays held
+ * by the stripes. When the size is changed with {@link #setSizeMultiplier(float)}, the arrays in
+ * every magazine are moved into the stripes so that they count against, and are evicted to fit,
+ * the new size.
+ */
+public final class ConcurrentArrayPool implements ArrayPool {
+  /**
+   * The default number of stripes. Most arrays are taken from the magazines, so two stripes are
+   * enough to make contention between decode threads unlikely without shrinking the largest pooled
+   * array too much.
+   */
+  public static final int DEFAULT_STRIPE_COUNT = 2;
+  /** The maximum number of arrays held in each thread's magazine. */
+  @VisibleForTesting static final int MAGAZINE_SIZE = 2;
+  /** The number of larger size classes that may hold arrays that can fill a request. */
+  private static final int MAX_OVER_SIZE_CLASSES =
+      Integer.numberOfTrailingZeros(LruArrayPool.MAX_OVER_SIZE_MULTIPLE);
+
+  private final LruArrayPool[] stripes;
+  private final ConcurrentLinkedQueue<Magazine> magazines = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<Magazine> threadMagazine =
+      new ThreadLocal<Magazine>() {
+        @Override
+        protected Magazine initialValue() {
+          return newMagazine();
+        }
+      };
+
+  /**
+   * Constructor for a new pool with {@link #DEFAULT_STRIPE_COUNT} stripes.
+   *
+   * @param maxSize The maximum size in bytes of the arrays held by the stripes.
+   */
+  public ConcurrentArrayPool(int maxSize) {
+    this(maxSize, DEFAULT_STRIPE_COUNT);
+  }
+
+  /**
+   * Constructor for a new pool.
+   *
+   * @param maxSize The maximum size in bytes of the arrays held by the stripes.
+   * @param stripeCount The number of stripes to split arrays between.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public ConcurrentArrayPool(int maxSize, int stripeCount) {
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("stripeCount must be > 0: " + stripeCount);
+    }
+    stripes = new LruArrayPool[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new LruArrayPool(maxSize / stripeCount);
+    }
+  }
+
+  @Deprecated
+  @Override
+  public <T> void put(T array, Class<T> arrayClass) {
+    put(array);
+  }
+
+  @Override
+  public <T> void put(T array) {
+    if (getByteSize(array) > STANDARD_BUFFER_SIZE_BYTES || !threadMagazine.get().offer(array)) {
+      stripeFor(getLength(array)).put(array);
+    }
+  }
+
+  @Override
+  public <T> T get(int size, Class<T> arrayClass) {
+    T result = threadMagazine.get().poll(size, arrayClass, /*exact=*/ false);
+    if (result != null) {
+      return result;
+    }
+    int sizeClass = getSizeClass(size);
+    int maxSizeClass = sizeClass + Math.min(MAX_OVER_SIZE_CLASSES, stripes.length - 1);
+    for (int i = sizeClass; i <= maxSizeClass; i++) {
+      result = stripes[i % stripes.length].getIfPresent(size, arrayClass);
+      if (result != null) {
+        return result;
+      }
+    }
+    return stripeFor(size).get(size, arrayClass);
+  }
+
+  @Override
+  public <T> T getExact(int size, Class<T> arrayClass) {
+    T result = threadMagazine.get().poll(size, arrayClass, /*exact=*/ true);
+    return result != null ? result : stripeFor(size).getExact(size, arrayClass);
+  }
+
+  /**
+   * Multiplies the initial size of each stripe by the given multiplier and moves the arrays held
+   * by each thread's magazine into the stripes.
+   *
+   * @see LruArrayPool#setSizeMultiplier(float)
+   */
+  public void setSizeMultiplier(float sizeMultiplier) {
+    for (LruArrayPool stripe : stripes) {
+      stripe.setSizeMultiplier(sizeMultiplier);
+    }
+    drainMagazines();
+  }
+
+  @Override
+  public void clearMemory() {
+    clearMagazines();
+    for (LruArrayPool stripe : stripes) {
+      stripe.clearMemory();
+    }
+  }
+
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      clearMagazines();
+    }
+    for (LruArrayPool stripe : stripes) {
+      stripe.trimMemory(level);
+    }
+  }
+
+  // VisibleForTesting
+  int getCurrentSize() {
+    int currentSize = 0;
+    for (LruArrayPool stripe : stripes) {
+      currentSize += stripe.getCurrentSize();
+    }
+    return currentSize;
+  }
+
+  @Synthetic
+  Magazine newMagazine() {
+    // Drop the magazines of threads that have finished so they don't hold on to arrays.
+    Iterator<Magazine> iterator = magazines.iterator();
+    while (iterator.hasNext()) {
+      if (!iterator.next().isOwnerAlive()) {
+        iterator.remove();
+      }
+    }
+    Magazine result = new Magazine(Thread.currentThread());
+    magazines.add(result);
+    return result;
+  }
+
+  private void drainMagazines() {
+    Iterator<Magazine> iterator = magazines.iterator();
+    while (iterator.hasNext()) {
+      Magazine magazine = iterator.next();
+      Object array;
+      while ((array = magazine.poll()) != null) {
+        stripeFor(getLength(array)).put(array);
+      }
+      if (!magazine.isOwnerAlive()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private void clearMagazines() {
+    Iterator<Magazine> iterator = magazines.iterator();
+    while (iterator.hasNext()) {
+      Magazine magazine = iterator.next();
+      magazine.clear();
+      if (!magazine.isOwnerAlive()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private LruArrayPool stripeFor(int length) {
+    return stripes[getSizeClass(length) % stripes.length];
+  }
+
+  private static int getSizeClass(int length) {
+    // The exponent of the smallest power of two that's at least the given length.
+    return 32 - Integer.numberOfLeadingZeros(Math.max(length - 1, 0));
+  }
+
+  @Synthetic
+  static int getLength(Object array) {
+    if (array instanceof byte[]) {
+      return ((byte[]) array).length;
+    } else if (array instanceof int[]) {
+      return ((int[]) array).length;
+    }
+    throw new IllegalArgumentException(
+        "No array pool found for: " + array.getClass().getSimpleName());
+  }
+
+  private static int getByteSize(Object array) {
+    return array instanceof int[] ? getLength(array) * 4 : getLength(array);
+  }
+
+  /** A small cache of arrays owned by a single thread. */
+  private static final class Magazine {
+    private final WeakReference<Thread> owner;
+    private final Object[] arrays = new Object[MAGAZINE_SIZE];
+
+    @Synthetic
+    Magazine(Thread owner) {
+      this.owner = new WeakReference<>(owner);
+    }
+
+    boolean isOwnerAlive() {
+      Thread thread = owner.get();
+      return thread != null && thread.isAlive();
+    }
+
+    synchronized boolean offer(Object array) {
+      for (int i = 0; i < arrays.length; i++) {
+        if (arrays[i] == null) {
+          arrays[i] = array;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    synchronized <T> T poll(int size, Class<T> arrayClass, boolean exact) {
+      for (int i = 0; i < arrays.length; i++) {
+        Object array = arrays[i];
+        if (array == null || array.getClass() != arrayClass) {
+          continue;
+        }
+        int length = getLength(array);
+        if (exact
+            ? length == size
+            : length >= size && length <= LruArrayPool.MAX_OVER_SIZE_MULTIPLE * size) {
+          arrays[i] = null;
+          return (T) array;
+        }
+      }
+      return null;
+    }
+
+    @Nullable
+    synchronized Object poll() {
+      for (int i = 0; i < arrays.length; i++) {
+        Object array = arrays[i];
+        if (array != null) {
+          arrays[i] = null;
+          return array;
+        }
+      }
+      return null;
+    }
+
+    synchronized void clear() {
+      for (int i = 0; i < arrays.length; i++) {
+        arrays[i] = null;
+      }
+    }
+  }
+}
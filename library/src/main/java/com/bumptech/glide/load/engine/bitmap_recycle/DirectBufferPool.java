@@ -0,0 +1,130 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A fixed size pool of direct {@link ByteBuffer}s used as scratch space for pixels, for example
+ * while compositing the frames of animated images.
+ *
+ * <p>On ART direct {@link ByteBuffer}s are backed by non-movable arrays on the Java heap, so they
+ * count against the app's heap limit like the {@code int[]} pixel arrays from the {@link
+ * ArrayPool}, and the pool's maximum size is part of the budget calculated by {@link
+ * com.bumptech.glide.load.engine.cache.MemorySizeCalculator}. Allocating direct buffers is
+ * relatively expensive, so buffers are kept for reuse by other decoders until the pool exceeds its
+ * maximum size, at which point the largest buffers are released first.
+ */
+public final class DirectBufferPool {
+  private static final String TAG = "DirectBufferPool";
+  /**
+   * The maximum number of times larger a pooled buffer may be than the requested size to be
+   * returned for the request.
+   */
+  private static final int MAX_OVER_SIZE_MULTIPLE = 2;
+  /** Used to calculate the maximum % of the total pool size a single buffer may consume. */
+  private static final int SINGLE_BUFFER_MAX_SIZE_DIVISOR = 2;
+
+  private final TreeMap<Integer, ArrayDeque<ByteBuffer>> buffers = new TreeMap<>();
+  private final int maxSize;
+  private int currentSize;
+
+  /**
+   * Constructor for a new pool.
+   *
+   * @param maxSize The maximum size in bytes of the buffers held by the pool.
+   */
+  public DirectBufferPool(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns a direct buffer with at least {@code size} bytes remaining, either from the pool or
+   * newly allocated.
+   *
+   * <p>The returned buffer's position is zero and its limit is its capacity, which may be larger
+   * than {@code size}.
+   */
+  @NonNull
+  public synchronized ByteBuffer get(int size) {
+    Map.Entry<Integer, ArrayDeque<ByteBuffer>> entry = buffers.ceilingEntry(size);
+    if (entry != null && entry.getKey() <= (long) size * MAX_OVER_SIZE_MULTIPLE) {
+      ByteBuffer result = entry.getValue().poll();
+      if (entry.getValue().isEmpty()) {
+        buffers.remove(entry.getKey());
+      }
+      currentSize -= result.capacity();
+      result.clear();
+      return result;
+    }
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Allocated " + size + " bytes");
+    }
+    return ByteBuffer.allocateDirect(size);
+  }
+
+  /**
+   * Returns the given buffer to the pool. The buffer must not be used by the caller after it's
+   * returned.
+   */
+  public synchronized void put(@NonNull ByteBuffer buffer) {
+    int size = buffer.capacity();
+    if (!buffer.isDirect() || size > maxSize / SINGLE_BUFFER_MAX_SIZE_DIVISOR) {
+      return;
+    }
+    ArrayDeque<ByteBuffer> buffersOfSize = buffers.get(size);
+    if (buffersOfSize == null) {
+      buffersOfSize = new ArrayDeque<>();
+      buffers.put(size, buffersOfSize);
+    }
+    buffersOfSize.add(buffer);
+    currentSize += size;
+    evictToSize(maxSize);
+  }
+
+  /** Returns the maximum size in bytes of the buffers held by the pool. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Returns the size in bytes of the buffers currently held by the pool. */
+  public synchronized int getCurrentSize() {
+    return currentSize;
+  }
+
+  /** Releases all buffers held by the pool. */
+  public synchronized void clearMemory() {
+    evictToSize(0);
+  }
+
+  /**
+   * Releases some or all buffers held by the pool depending on the given level.
+   *
+   * @see android.content.ComponentCallbacks2#onTrimMemory(int)
+   */
+  public synchronized void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      evictToSize(maxSize / 2);
+    }
+  }
+
+  private void evictToSize(int size) {
+    while (currentSize > size) {
+      Map.Entry<Integer, ArrayDeque<ByteBuffer>> largest = buffers.lastEntry();
+      largest.getValue().poll();
+      if (largest.getValue().isEmpty()) {
+        buffers.remove(largest.getKey());
+      }
+      currentSize -= largest.getKey();
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "evicted: " + largest.getKey());
+      }
+    }
+  }
+}
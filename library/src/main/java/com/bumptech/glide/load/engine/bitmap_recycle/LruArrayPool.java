@@ -30,12 +30,13 @@ public final class LruArrayPool implements ArrayPool {
   private final KeyPool keyPool = new KeyPool();
   private final Map<Class<?>, NavigableMap<Integer, Integer>> sortedSizes = new HashMap<>();
   private final Map<Class<?>, ArrayAdapterInterface<?>> adapters = new HashMap<>();
-  private final int maxSize;
+  private final int initialMaxSize;
+  private int maxSize;
   private int currentSize;
 
   @VisibleForTesting
   public LruArrayPool() {
-    maxSize = DEFAULT_SIZE;
+    this(DEFAULT_SIZE);
   }
 
   /**
@@ -44,9 +45,24 @@ public final class LruArrayPool implements ArrayPool {
    * @param maxSize The maximum size in integers of the pool.
    */
   public LruArrayPool(int maxSize) {
+    this.initialMaxSize = maxSize;
     this.maxSize = maxSize;
   }
 
+  /**
+   * Multiplies the initial size of the pool by the given multiplier to dynamically and
+   * synchronously allow users to adjust the size of the pool.
+   *
+   * <p>If the current total size of the pool is larger than the max size after the given multiplier
+   * is applied, arrays will be evicted until the pool is smaller than the new max size.
+   *
+   * @param sizeMultiplier A size multiplier >= 0.
+   */
+  public synchronized void setSizeMultiplier(float sizeMultiplier) {
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    evict();
+  }
+
   @Deprecated
   @Override
   public <T> void put(T array, Class<T> arrayClass) {
@@ -92,6 +108,20 @@ public final class LruArrayPool implements ArrayPool {
     return getForKey(key, arrayClass);
   }
 
+  /**
+   * Returns a pooled array at least as large as the given size and no more than {@link
+   * #MAX_OVER_SIZE_MULTIPLE} times larger, or {@code null} rather than a new array if there isn't
+   * one.
+   */
+  @Nullable
+  synchronized <T> T getIfPresent(int size, Class<T> arrayClass) {
+    Integer possibleSize = getSizesForAdapter(arrayClass).ceilingKey(size);
+    if (possibleSize == null || possibleSize > MAX_OVER_SIZE_MULTIPLE * size) {
+      return null;
+    }
+    return getForKey(keyPool.get(possibleSize, arrayClass), arrayClass);
+  }
+
   private <T> T getForKey(Key key, Class<T> arrayClass) {
     ArrayAdapterInterface<T> arrayAdapter = getAdapterFromType(arrayClass);
     T result = getArrayForKey(key);
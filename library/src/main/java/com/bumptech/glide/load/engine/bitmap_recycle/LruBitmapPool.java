@@ -171,12 +171,12 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   @NonNull
-  private static Bitmap createBitmap(int width, int height, @Nullable Bitmap.Config config) {
+  static Bitmap createBitmap(int width, int height, @Nullable Bitmap.Config config) {
     return Bitmap.createBitmap(width, height, config != null ? config : DEFAULT_CONFIG);
   }
 
   @TargetApi(Build.VERSION_CODES.O)
-  private static void assertNotHardwareConfig(Bitmap.Config config) {
+  static void assertNotHardwareConfig(Bitmap.Config config) {
     // Avoid short circuiting on sdk int since it breaks on some versions of Android.
     if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
       return;
@@ -219,7 +219,7 @@ public class LruBitmapPool implements BitmapPool {
 
   // Setting these two values provides Bitmaps that are essentially equivalent to those returned
   // from Bitmap.createBitmap.
-  private static void normalize(Bitmap bitmap) {
+  static void normalize(Bitmap bitmap) {
     bitmap.setHasAlpha(true);
     maybeSetPreMultiplied(bitmap);
   }
@@ -303,7 +303,7 @@ public class LruBitmapPool implements BitmapPool {
             + strategy);
   }
 
-  private static LruPoolStrategy getDefaultStrategy() {
+  static LruPoolStrategy getDefaultStrategy() {
     final LruPoolStrategy strategy;
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
       strategy = new SizeConfigStrategy();
@@ -314,7 +314,7 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   @TargetApi(Build.VERSION_CODES.O)
-  private static Set<Bitmap.Config> getDefaultAllowedConfigs() {
+  static Set<Bitmap.Config> getDefaultAllowedConfigs() {
     Set<Bitmap.Config> configs = new HashSet<>(Arrays.asList(Bitmap.Config.values()));
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
       // GIFs, among other types, end up with a native Bitmap config that doesn't map to a java
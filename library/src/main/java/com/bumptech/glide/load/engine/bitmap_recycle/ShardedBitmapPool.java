@@ -0,0 +1,329 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BitmapPool} that splits its {@link Bitmap}s in to shards that are each guarded by their
+ * own lock.
+ *
+ * <p>{@link LruBitmapPool} guards all of its {@link Bitmap}s with a single lock, so decodes,
+ * transformations and animations that get and put {@link Bitmap}s at the same time wait for each
+ * other. This pool puts each {@link Bitmap} in a shard chosen by its {@link Bitmap.Config} and the
+ * power of two size class of its size in bytes, and each shard has its own {@link
+ * LruPoolStrategy}. Requests for {@link Bitmap}s of different sizes therefore rarely contend.
+ *
+ * <p>The maximum size is shared by all shards and the current size is kept in an {@link
+ * AtomicLong}. When the pool is too large, {@link Bitmap}s are evicted from the shard that was
+ * least recently used, in the order that shard's {@link LruPoolStrategy} evicts them.
+ */
+public class ShardedBitmapPool implements BitmapPool {
+  private static final String TAG = "ShardedBitmapPool";
+  private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
+  /** The default number of shards, enough to make contention between loads unlikely. */
+  public static final int DEFAULT_SHARD_COUNT = 16;
+  /**
+   * The number of larger size classes to check for a {@link Bitmap} to reuse, matching the largest
+   * multiple of the requested size that {@link SizeConfigStrategy} allows.
+   */
+  private static final int MAX_SIZE_CLASS_STEPS = 3;
+
+  private final Shard[] shards;
+  private final int shardMask;
+  private final Set<Bitmap.Config> allowedConfigs;
+  private final long initialMaxSize;
+  private final AtomicLong currentSize = new AtomicLong();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  // Only one thread evicts at a time so that concurrent puts don't evict more than required.
+  private final Object evictionLock = new Object();
+  private volatile long maxSize;
+
+  /**
+   * Constructor for ShardedBitmapPool with {@link #DEFAULT_SHARD_COUNT} shards.
+   *
+   * @param maxSize The initial maximum size of the pool in bytes.
+   */
+  public ShardedBitmapPool(long maxSize) {
+    this(maxSize, DEFAULT_SHARD_COUNT, LruBitmapPool.getDefaultAllowedConfigs());
+  }
+
+  /**
+   * Constructor for ShardedBitmapPool.
+   *
+   * @param maxSize The initial maximum size of the pool in bytes.
+   * @param shardCount The number of shards, rounded up to the nearest power of two.
+   * @param allowedConfigs The {@link android.graphics.Bitmap.Config}s that are allowed to be put
+   *     into the pool. Bitmaps with other configs will be rejected.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public ShardedBitmapPool(long maxSize, int shardCount, Set<Bitmap.Config> allowedConfigs) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("shardCount must be > 0: " + shardCount);
+    }
+    int count = 1;
+    while (count < shardCount) {
+      count <<= 1;
+    }
+    shards = new Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(LruBitmapPool.getDefaultStrategy());
+    }
+    shardMask = count - 1;
+    this.initialMaxSize = maxSize;
+    this.maxSize = maxSize;
+    this.allowedConfigs = allowedConfigs;
+  }
+
+  /** Returns the number of cache hits for bitmaps in the pool. */
+  public long hitCount() {
+    return hits.get();
+  }
+
+  /** Returns the number of cache misses for bitmaps in the pool. */
+  public long missCount() {
+    return misses.get();
+  }
+
+  /** Returns the number of bitmaps that have been evicted from the pool. */
+  public long evictionCount() {
+    return evictions.get();
+  }
+
+  /** Returns the current size of the pool in bytes. */
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void setSizeMultiplier(float sizeMultiplier) {
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    trimToSize(maxSize);
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    if (bitmap == null) {
+      throw new NullPointerException("Bitmap must not be null");
+    }
+    if (bitmap.isRecycled()) {
+      throw new IllegalStateException("Cannot pool recycled bitmap");
+    }
+    if (!bitmap.isMutable()
+        || Util.getBitmapByteSize(bitmap) > maxSize
+        || !allowedConfigs.contains(bitmap.getConfig())) {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(
+            TAG,
+            "Reject bitmap from pool"
+                + ", bitmap: "
+                + bitmap
+                + ", is mutable: "
+                + bitmap.isMutable()
+                + ", is allowed config: "
+                + allowedConfigs.contains(bitmap.getConfig()));
+      }
+      bitmap.recycle();
+      return;
+    }
+
+    Shard shard = shardFor(Util.getBitmapByteSize(bitmap), bitmap.getConfig(), /*step=*/ 0);
+    int size;
+    synchronized (shard) {
+      size = shard.strategy.getSize(bitmap);
+      shard.strategy.put(bitmap);
+      shard.size += size;
+      shard.stamp = clock.incrementAndGet();
+    }
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Put bitmap in pool=" + bitmap);
+    }
+    if (currentSize.addAndGet(size) > maxSize) {
+      trimToSize(maxSize);
+    }
+  }
+
+  @Override
+  @NonNull
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result != null) {
+      // Bitmaps in the pool contain random data that in some cases must be cleared for an image
+      // to be rendered correctly. See LruBitmapPool#get.
+      result.eraseColor(Color.TRANSPARENT);
+    } else {
+      result = LruBitmapPool.createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @NonNull
+  @Override
+  public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result == null) {
+      result = LruBitmapPool.createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @Nullable
+  private Bitmap getDirtyOrNull(int width, int height, @Nullable Bitmap.Config config) {
+    LruBitmapPool.assertNotHardwareConfig(config);
+    // Config will be null for non public config types, which can lead to transformations naively
+    // passing in null as the requested config here. See issue #194.
+    Bitmap.Config requestedConfig = config != null ? config : DEFAULT_CONFIG;
+    int requestedSize = Util.getBitmapByteSize(width, height, requestedConfig);
+
+    // Bitmaps that are somewhat larger than requested can be reused, and those may be in the
+    // shards for larger size classes.
+    Shard previous = null;
+    for (int step = 0; step <= MAX_SIZE_CLASS_STEPS; step++) {
+      Shard shard = shardFor(requestedSize, requestedConfig, step);
+      if (shard == previous) {
+        continue;
+      }
+      previous = shard;
+      Bitmap result;
+      synchronized (shard) {
+        result = shard.strategy.get(width, height, requestedConfig);
+        if (result != null) {
+          int size = shard.strategy.getSize(result);
+          shard.size -= size;
+          shard.stamp = clock.incrementAndGet();
+          currentSize.addAndGet(-size);
+        }
+      }
+      if (result != null) {
+        hits.incrementAndGet();
+        LruBitmapPool.normalize(result);
+        return result;
+      }
+    }
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "Missing bitmap=" + width + "x" + height + ", config=" + config);
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  @Override
+  public void clearMemory() {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "clearMemory");
+    }
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "trimMemory, level=" + level);
+    }
+    if ((level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+        || ((Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+            && (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN))) {
+      clearMemory();
+    } else if ((level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+        || (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)) {
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  /**
+   * Evicts {@link Bitmap}s from the least recently used shards until the current size is less
+   * than the given size.
+   */
+  private void trimToSize(long size) {
+    synchronized (evictionLock) {
+      while (currentSize.get() > size) {
+        Shard oldestShard = null;
+        long oldestStamp = Long.MAX_VALUE;
+        for (Shard shard : shards) {
+          synchronized (shard) {
+            if (shard.size > 0 && shard.stamp < oldestStamp) {
+              oldestStamp = shard.stamp;
+              oldestShard = shard;
+            }
+          }
+        }
+        if (oldestShard == null) {
+          return;
+        }
+        Bitmap removed;
+        synchronized (oldestShard) {
+          removed = oldestShard.strategy.removeLast();
+          if (removed == null) {
+            // The shard's size doesn't match its strategy, see LruBitmapPool#trimToSize.
+            if (Log.isLoggable(TAG, Log.WARN)) {
+              Log.w(TAG, "Size mismatch, resetting shard");
+            }
+            currentSize.addAndGet(-oldestShard.size);
+            oldestShard.size = 0;
+            continue;
+          }
+          int removedSize = oldestShard.strategy.getSize(removed);
+          oldestShard.size -= removedSize;
+          currentSize.addAndGet(-removedSize);
+        }
+        evictions.incrementAndGet();
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Evicting bitmap=" + removed);
+        }
+        removed.recycle();
+      }
+    }
+  }
+
+  private Shard shardFor(int size, @Nullable Bitmap.Config config, int step) {
+    int sizeClass = 32 - Integer.numberOfLeadingZeros(Math.max(size - 1, 0)) + step;
+    // Size classes use the low bits so that they're spread across shards even when there are only
+    // a few shards.
+    return shards[(sizeClass + (getConfigGroup(config) << 3)) & shardMask];
+  }
+
+  /**
+   * Returns the same value for every {@link Bitmap.Config} that {@link SizeConfigStrategy} allows
+   * to be reused for another, so that they're put in the same shards.
+   */
+  private static int getConfigGroup(@Nullable Bitmap.Config config) {
+    if (config == Bitmap.Config.RGB_565) {
+      return 1;
+    } else if (config == Bitmap.Config.ARGB_4444) {
+      return 2;
+    } else if (config == Bitmap.Config.ALPHA_8) {
+      return 3;
+    }
+    return 0;
+  }
+
+  private static final class Shard {
+    @Synthetic final LruPoolStrategy strategy;
+    @Synthetic long size;
+    @Synthetic long stamp;
+
+    @Synthetic
+    Shard(LruPoolStrategy strategy) {
+      this.strategy = strategy;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.bumptech.glide.load.engine.cache;
+
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DiskCache} that can return cached data as a {@link ByteBuffer} rather than as a {@link
+ * java.io.File}.
+ *
+ * <p>Glide's disk cache generators use {@link #getBuffer(Key)} instead of {@link #get(Key)} when
+ * data can be decoded from a {@link ByteBuffer}, which allows implementations to avoid opening
+ * files and copying data for cache hits. Since misses are not looked up again with {@link
+ * #get(Key)}, implementations must return every entry they have from {@link #getBuffer(Key)}.
+ */
+public interface ByteBufferDiskCache extends DiskCache {
+
+  /**
+   * Returns a read only view of the data at the given key, or {@code null} if the key isn't in the
+   * cache or its data can't be read.
+   *
+   * @param key The key in the cache.
+   */
+  @Nullable
+  ByteBuffer getBuffer(Key key);
+}
@@ -14,6 +14,9 @@ import java.io.File;
 public class DiskLruCacheFactory implements DiskCache.Factory {
   private final long diskCacheSize;
   private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final boolean useBinaryJournal;
+  private final boolean openInBackground;
+  private final boolean useAdmissionFilter;
 
   /** Interface called out of UI thread to get the cache folder. */
   public interface CacheDirectoryGetter {
@@ -53,8 +56,80 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public DiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this(cacheDirectoryGetter, diskCacheSize, /*useBinaryJournal=*/ false);
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize Desired max bytes size for the LRU disk cache.
+   * @param useBinaryJournal {@code true} to store the cache's journal in a compact binary format
+   *     that is faster to open, see {@link DiskLruCacheWrapper#create(File, long, boolean)}.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize, boolean useBinaryJournal) {
+    this(cacheDirectoryGetter, diskCacheSize, useBinaryJournal, /*openInBackground=*/ false);
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize Desired max bytes size for the LRU disk cache.
+   * @param useBinaryJournal {@code true} to store the cache's journal in a compact binary format
+   *     that is faster to open, see {@link DiskLruCacheWrapper#create(File, long, boolean)}.
+   * @param openInBackground {@code true} to open the cache on a background thread so that the first
+   *     load doesn't wait for the cache's journal to be read, see {@link
+   *     DiskLruCacheWrapper#create(File, long, boolean, boolean)}.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter,
+      long diskCacheSize,
+      boolean useBinaryJournal,
+      boolean openInBackground) {
+    this(
+        cacheDirectoryGetter,
+        diskCacheSize,
+        useBinaryJournal,
+        openInBackground,
+        /*useAdmissionFilter=*/ false);
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize Desired max bytes size for the LRU disk cache.
+   * @param useBinaryJournal {@code true} to store the cache's journal in a compact binary format
+   *     that is faster to open, see {@link DiskLruCacheWrapper#create(File, long, boolean)}.
+   * @param openInBackground {@code true} to open the cache on a background thread so that the first
+   *     load doesn't wait for the cache's journal to be read, see {@link
+   *     DiskLruCacheWrapper#create(File, long, boolean, boolean)}.
+   * @param useAdmissionFilter {@code true} to keep new entries that are only requested once from
+   *     evicting entries that are requested frequently, see {@link
+   *     DiskLruCacheWrapper#create(File, long, boolean, boolean, boolean)}.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter,
+      long diskCacheSize,
+      boolean useBinaryJournal,
+      boolean openInBackground,
+      boolean useAdmissionFilter) {
     this.diskCacheSize = diskCacheSize;
     this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.useBinaryJournal = useBinaryJournal;
+    this.openInBackground = openInBackground;
+    this.useAdmissionFilter = useAdmissionFilter;
   }
 
   @Override
@@ -69,6 +144,7 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
       return null;
     }
 
-    return DiskLruCacheWrapper.create(cacheDir, diskCacheSize);
+    return DiskLruCacheWrapper.create(
+        cacheDir, diskCacheSize, useBinaryJournal, openInBackground, useAdmissionFilter);
   }
 }
@@ -4,31 +4,85 @@
 
 package com.bumptech.glide.load.engine.cache;
 
+import android.os.Process;
 import android.util.Log;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import com.bumptech.glide.disklrucache.DiskLruCache;
-import com.bumptech.glide.disklrucache.DiskLruCache.Value;
 import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.Synthetic;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The default DiskCache implementation. There must be no more than one active instance for a given
  * directory at a time.
  *
+ * <p>Entries are returned from {@link #getBuffer(Key)} as read only memory mapped views of the
+ * entry's file, so data can be decoded from the cache without being copied onto the heap.
+ *
  * @see #get(java.io.File, long)
  */
-public class DiskLruCacheWrapper implements DiskCache {
+public class DiskLruCacheWrapper implements ByteBufferDiskCache {
   private static final String TAG = "DiskLruCacheWrapper";
 
   private static final int APP_VERSION = 1;
   private static final int VALUE_COUNT = 1;
+  private static final String PENDING_DIRECTORY_SUFFIX = "-pending";
+  private static final String OPEN_THREAD_NAME = "glide-disk-cache-open-thread";
+  private static final Executor OPEN_THREAD_EXECUTOR =
+      new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+          Thread thread =
+              new Thread(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                      command.run();
+                    }
+                  },
+                  OPEN_THREAD_NAME);
+          thread.start();
+        }
+      };
   private static DiskLruCacheWrapper wrapper;
 
   private final SafeKeyGenerator safeKeyGenerator;
   private final File directory;
   private final long maxSize;
+  private final boolean useBinaryJournal;
+  private final boolean useAdmissionFilter;
   private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
-  private DiskLruCache diskLruCache;
+  @Nullable private final Executor openExecutor;
+  private final File pendingDirectory;
+  private final String pendingFilePrefix;
+  private final AtomicBoolean isOpenStarted = new AtomicBoolean();
+
+  @GuardedBy("pendingWrites")
+  private final Map<String, File> pendingWrites = new HashMap<>();
+
+  @GuardedBy("pendingWrites")
+  private final List<String> pendingDeletes = new ArrayList<>();
+
+  @GuardedBy("pendingWrites")
+  private boolean isClearPending;
+
+  @GuardedBy("pendingWrites")
+  private boolean arePendingWritesCommitted;
+
+  private volatile DiskLruCache diskLruCache;
 
   /**
    * Get a DiskCache in the given directory and size. If a disk cache has already been created with
@@ -63,35 +117,350 @@ public class DiskLruCacheWrapper implements DiskCache {
     return new DiskLruCacheWrapper(directory, maxSize);
   }
 
+  /**
+   * Create a new DiskCache in the given directory with a specified max size, optionally storing the
+   * cache's journal in a compact binary format.
+   *
+   * <p>Binary journals are replayed in a single pass over a memory mapped file and are
+   * significantly faster to open than the default text journal for caches with many entries. An
+   * existing journal in the other format is migrated the first time the cache is opened.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize The max size for the disk cache
+   * @param useBinaryJournal {@code true} to use a binary journal.
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(File directory, long maxSize, boolean useBinaryJournal) {
+    return new DiskLruCacheWrapper(
+        directory,
+        maxSize,
+        useBinaryJournal,
+        /*useAdmissionFilter=*/ false,
+        /*openExecutor=*/ null);
+  }
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size, optionally opening the
+   * cache on a background thread.
+   *
+   * <p>Opening the cache requires the cache's journal to be read in its entirety. By default that
+   * happens synchronously the first time the cache is used, which blocks the first load that uses
+   * the disk cache. If {@code openInBackground} is {@code true}, the first use of the cache
+   * starts opening it on a background thread instead. Until the cache is open, {@link #get(Key)}
+   * returns {@code null} for any key that wasn't written in the mean time, {@link #put(Key,
+   * Writer)} writes to a staging directory and {@link #delete(Key)} and {@link #clear()} are
+   * queued. Queued deletes and staged writes are applied, and the cache's size is enforced, once
+   * the cache is open. Staged files are copied in to the cache rather than moved so that files
+   * already returned from {@link #get(Key)} remain readable, the staged copies are removed the
+   * next time the cache is opened.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize The max size for the disk cache
+   * @param useBinaryJournal {@code true} to use a binary journal, see {@link #create(File, long,
+   *     boolean)}.
+   * @param openInBackground {@code true} to open the cache on a background thread.
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(
+      File directory, long maxSize, boolean useBinaryJournal, boolean openInBackground) {
+    return create(
+        directory, maxSize, useBinaryJournal, openInBackground, /*useAdmissionFilter=*/ false);
+  }
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size, optionally filtering
+   * which new entries are kept when the cache is full by how often they're requested.
+   *
+   * <p>By default the least recently used entries are evicted whenever the cache is full, so
+   * loading many images that are only shown once, like those in a long scrolling feed, evicts
+   * the images that are used frequently. If {@code useAdmissionFilter} is {@code true}, a new
+   * entry only displaces older entries once it has been requested more often than they have, see
+   * {@link DiskLruCache#setAdmissionFilterEnabled(boolean)}.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize The max size for the disk cache
+   * @param useBinaryJournal {@code true} to use a binary journal, see {@link #create(File, long,
+   *     boolean)}.
+   * @param openInBackground {@code true} to open the cache on a background thread, see {@link
+   *     #create(File, long, boolean, boolean)}.
+   * @param useAdmissionFilter {@code true} to filter new entries by how often they're requested.
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(
+      File directory,
+      long maxSize,
+      boolean useBinaryJournal,
+      boolean openInBackground,
+      boolean useAdmissionFilter) {
+    return new DiskLruCacheWrapper(
+        directory,
+        maxSize,
+        useBinaryJournal,
+        useAdmissionFilter,
+        openInBackground ? OPEN_THREAD_EXECUTOR : null);
+  }
+
   /** @deprecated Do not extend this class. */
   @Deprecated
   // Deprecated public API.
   @SuppressWarnings({"WeakerAccess", "DeprecatedIsStillUsed"})
   protected DiskLruCacheWrapper(File directory, long maxSize) {
+    this(
+        directory,
+        maxSize,
+        /*useBinaryJournal=*/ false,
+        /*useAdmissionFilter=*/ false,
+        /*openExecutor=*/ null);
+  }
+
+  @VisibleForTesting
+  DiskLruCacheWrapper(
+      File directory,
+      long maxSize,
+      boolean useBinaryJournal,
+      boolean useAdmissionFilter,
+      @Nullable Executor openExecutor) {
     this.directory = directory;
     this.maxSize = maxSize;
+    this.useBinaryJournal = useBinaryJournal;
+    this.useAdmissionFilter = useAdmissionFilter;
+    this.openExecutor = openExecutor;
     this.safeKeyGenerator = new SafeKeyGenerator();
+    pendingDirectory = new File(directory.getPath() + PENDING_DIRECTORY_SUFFIX);
+    // Identifies the writes staged by this instance so that stale writes from previous instances
+    // can be removed without racing with writes in progress.
+    pendingFilePrefix = Long.toHexString(System.currentTimeMillis()) + "-";
   }
 
   private synchronized DiskLruCache getDiskCache() throws IOException {
     if (diskLruCache == null) {
-      diskLruCache = DiskLruCache.open(directory, APP_VERSION, VALUE_COUNT, maxSize);
+      DiskLruCache result =
+          DiskLruCache.open(directory, APP_VERSION, VALUE_COUNT, maxSize, useBinaryJournal);
+      result.setAdmissionFilterEnabled(useAdmissionFilter);
+      diskLruCache = result;
     }
     return diskLruCache;
   }
 
+  /**
+   * Returns the open cache, or {@code null} if the cache is being opened in the background, in
+   * which case opening the cache is started if it hasn't been already.
+   */
+  @Nullable
+  private DiskLruCache getDiskCacheIfOpen() throws IOException {
+    if (openExecutor == null) {
+      return getDiskCache();
+    }
+    DiskLruCache result = diskLruCache;
+    if (result == null && isOpenStarted.compareAndSet(false, true)) {
+      openExecutor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              openInBackground();
+            }
+          });
+    }
+    return result;
+  }
+
+  @Synthetic
+  void openInBackground() {
+    try {
+      DiskLruCache diskCache = getDiskCache();
+      commitPendingOperations(diskCache);
+    } catch (IOException e) {
+      // Allow the next get or put to try again.
+      isOpenStarted.set(false);
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to open disk cache in the background", e);
+      }
+    }
+    deleteStalePendingWrites();
+  }
+
+  /** Applies the clears, deletes and writes queued while the cache was being opened, in order. */
+  private void commitPendingOperations(DiskLruCache diskCache) throws IOException {
+    while (true) {
+      boolean isClear;
+      String deletedKey = null;
+      String safeKey = null;
+      synchronized (pendingWrites) {
+        isClear = isClearPending;
+        isClearPending = false;
+        if (!isClear) {
+          if (!pendingDeletes.isEmpty()) {
+            deletedKey = pendingDeletes.remove(pendingDeletes.size() - 1);
+          } else if (!pendingWrites.isEmpty()) {
+            safeKey = pendingWrites.keySet().iterator().next();
+          } else {
+            arePendingWritesCommitted = true;
+            return;
+          }
+        }
+      }
+      if (isClear) {
+        try {
+          diskCache = clearAndReopen(diskCache);
+        } catch (IOException e) {
+          synchronized (pendingWrites) {
+            // Try again the next time the cache is opened.
+            isClearPending = true;
+          }
+          throw e;
+        }
+        continue;
+      } else if (deletedKey != null) {
+        try {
+          diskCache.remove(deletedKey);
+        } catch (IOException e) {
+          synchronized (pendingWrites) {
+            pendingDeletes.add(deletedKey);
+          }
+          throw e;
+        }
+        continue;
+      }
+      writeLocker.acquire(safeKey);
+      try {
+        File pendingFile;
+        synchronized (pendingWrites) {
+          pendingFile = pendingWrites.remove(safeKey);
+        }
+        if (pendingFile != null) {
+          commitPendingWrite(diskCache, safeKey, pendingFile);
+        }
+      } finally {
+        writeLocker.release(safeKey);
+      }
+    }
+  }
+
+  private synchronized DiskLruCache clearAndReopen(DiskLruCache diskCache) throws IOException {
+    diskLruCache = null;
+    diskCache.delete();
+    return getDiskCache();
+  }
+
+  /**
+   * Copies a staged write in to the cache, must be called with the write lock for the key held.
+   *
+   * <p>The staged file is left in place because it may have been returned from {@link #get(Key)}
+   * and not read yet, it's removed the next time the cache is opened.
+   */
+  private void commitPendingWrite(DiskLruCache diskCache, String safeKey, File pendingFile) {
+    try {
+      if (diskCache.contains(safeKey)) {
+        return;
+      }
+      DiskLruCache.Editor editor = diskCache.edit(safeKey);
+      if (editor == null) {
+        return;
+      }
+      try {
+        ByteBufferUtil.toFile(ByteBufferUtil.fromFile(pendingFile), editor.getFile(0));
+        editor.commit();
+      } finally {
+        editor.abortUnlessCommitted();
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to copy staged write in to disk cache", e);
+      }
+    }
+  }
+
+  private void deleteStalePendingWrites() {
+    File[] files = pendingDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (!file.getName().startsWith(pendingFilePrefix)) {
+        deleteIfExists(file);
+      }
+    }
+  }
+
+  private boolean isDeletePending(String safeKey) {
+    if (openExecutor == null) {
+      return false;
+    }
+    synchronized (pendingWrites) {
+      return isClearPending || pendingDeletes.contains(safeKey);
+    }
+  }
+
+  @Nullable
+  private File getPendingWrite(String safeKey) {
+    if (openExecutor == null) {
+      return null;
+    }
+    synchronized (pendingWrites) {
+      return pendingWrites.get(safeKey);
+    }
+  }
+
+  /**
+   * Stages a write while the cache is being opened, must be called with the write lock for the key
+   * held.
+   */
+  private void putPending(String safeKey, Writer writer) {
+    if (getPendingWrite(safeKey) != null) {
+      return;
+    }
+    if (!pendingDirectory.exists() && !pendingDirectory.mkdirs()) {
+      return;
+    }
+    File pendingFile = new File(pendingDirectory, pendingFilePrefix + safeKey);
+    boolean isStaged = false;
+    try {
+      if (!writer.write(pendingFile)) {
+        return;
+      }
+      DiskLruCache diskCache;
+      synchronized (pendingWrites) {
+        diskCache = arePendingWritesCommitted ? diskLruCache : null;
+        if (diskCache == null) {
+          pendingWrites.put(safeKey, pendingFile);
+          isStaged = true;
+        }
+      }
+      if (diskCache != null) {
+        // The cache finished opening while we were writing.
+        commitPendingWrite(diskCache, safeKey, pendingFile);
+      }
+    } finally {
+      if (!isStaged) {
+        deleteIfExists(pendingFile);
+      }
+    }
+  }
+
+  private static void deleteIfExists(File file) {
+    if (file.exists() && !file.delete() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Unable to delete: " + file);
+    }
+  }
+
   @Override
   public File get(Key key) {
     String safeKey = safeKeyGenerator.getSafeKey(key);
     if (Log.isLoggable(TAG, Log.VERBOSE)) {
       Log.v(TAG, "Get: Obtained: " + safeKey + " for for Key: " + key);
     }
-    File result = null;
+    File result = getPendingWrite(safeKey);
+    if (result != null) {
+      return result;
+    } else if (isDeletePending(safeKey)) {
+      return null;
+    }
     try {
       // It is possible that the there will be a put in between these two gets. If so that shouldn't
       // be a problem because we will always put the same value at the same key so our input streams
       // will still represent the same data.
-      final DiskLruCache.Value value = getDiskCache().get(safeKey);
+      DiskLruCache diskCache = getDiskCacheIfOpen();
+      final DiskLruCache.Value value = diskCache != null ? diskCache.get(safeKey) : null;
       if (value != null) {
         result = value.getFile(0);
       }
@@ -103,6 +472,23 @@ public class DiskLruCacheWrapper implements DiskCache {
     return result;
   }
 
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    File file = get(key);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile(file).asReadOnlyBuffer();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from disk cache", e);
+      }
+    }
+    return null;
+  }
+
   @Override
   public void put(Key key, Writer writer) {
     // We want to make sure that puts block so that data is available when put completes. We may
@@ -116,9 +502,12 @@ public class DiskLruCacheWrapper implements DiskCache {
       try {
         // We assume we only need to put once, so if data was written while we were trying to get
         // the lock, we can simply abort.
-        DiskLruCache diskCache = getDiskCache();
-        Value current = diskCache.get(safeKey);
-        if (current != null) {
+        DiskLruCache diskCache = getDiskCacheIfOpen();
+        if (diskCache == null) {
+          putPending(safeKey, writer);
+          return;
+        }
+        if (diskCache.contains(safeKey)) {
           return;
         }
 
@@ -147,6 +536,25 @@ public class DiskLruCacheWrapper implements DiskCache {
   @Override
   public void delete(Key key) {
     String safeKey = safeKeyGenerator.getSafeKey(key);
+    if (openExecutor != null) {
+      File pendingFile;
+      boolean isQueued = false;
+      synchronized (pendingWrites) {
+        pendingFile = pendingWrites.remove(safeKey);
+        if (!arePendingWritesCommitted) {
+          // Don't wait for the cache to open, remove the entry once it's open.
+          pendingDeletes.add(safeKey);
+          isQueued = true;
+        }
+      }
+      if (pendingFile != null) {
+        deleteIfExists(pendingFile);
+      }
+      if (isQueued) {
+        startOpenIfNeeded();
+        return;
+      }
+    }
     try {
       getDiskCache().remove(safeKey);
     } catch (IOException e) {
@@ -157,7 +565,40 @@ public class DiskLruCacheWrapper implements DiskCache {
   }
 
   @Override
-  public synchronized void clear() {
+  public void clear() {
+    if (openExecutor != null) {
+      List<File> pendingFiles;
+      synchronized (pendingWrites) {
+        if (arePendingWritesCommitted) {
+          pendingFiles = null;
+        } else {
+          // Don't wait for the cache to open, clear it once it's open.
+          pendingFiles = new ArrayList<>(pendingWrites.values());
+          pendingWrites.clear();
+          pendingDeletes.clear();
+          isClearPending = true;
+        }
+      }
+      if (pendingFiles != null) {
+        for (File pendingFile : pendingFiles) {
+          deleteIfExists(pendingFile);
+        }
+        startOpenIfNeeded();
+        return;
+      }
+    }
+    clearOpenDiskCache();
+  }
+
+  private void startOpenIfNeeded() {
+    try {
+      getDiskCacheIfOpen();
+    } catch (IOException e) {
+      // Not thrown when opening in the background.
+    }
+  }
+
+  private synchronized void clearOpenDiskCache() {
     try {
       getDiskCache().delete();
     } catch (IOException e) {
@@ -174,5 +615,17 @@ public class DiskLruCacheWrapper implements DiskCache {
 
   private synchronized void resetDiskCache() {
     diskLruCache = null;
+    if (openExecutor != null) {
+      synchronized (pendingWrites) {
+        for (File pendingFile : pendingWrites.values()) {
+          deleteIfExists(pendingFile);
+        }
+        pendingWrites.clear();
+        pendingDeletes.clear();
+        isClearPending = false;
+        arePendingWritesCommitted = false;
+      }
+      isOpenStarted.set(false);
+    }
   }
 }
@@ -0,0 +1,295 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.concurrent.Executor;
+
+/**
+ * Periodically samples how much memory the app is using and adjusts a size multiplier for Glide's
+ * memory cache and pools in response.
+ *
+ * <p>{@link MemorySizeCalculator} picks the sizes of the memory cache and pools once, when Glide
+ * is created, and {@link ComponentCallbacks2#onTrimMemory(int)} is only called once the system is
+ * already low on memory. This controller instead samples memory pressure every {@link
+ * #SAMPLE_INTERVAL_MS} and:
+ *
+ * <ul>
+ *   <li>Shrinks the multiplier as soon as a sample shows high pressure, so that Glide gives up
+ *       memory before the system starts killing processes.
+ *   <li>Grows the multiplier slowly, and only after several consecutive samples show low pressure,
+ *       so that apps on devices with lots of free memory can cache more while idle.
+ * </ul>
+ *
+ * <p>The gap between the thresholds used to shrink and grow and the number of samples required to
+ * grow keep the multiplier from oscillating when pressure is close to a threshold.
+ *
+ * <p>Pressure is the largest of the fraction of the Java heap in use, how close the system's
+ * available memory is to the threshold at which it considers itself low on memory, which reflects
+ * native allocations like {@link android.graphics.Bitmap} pixels on Android O and above, and
+ * whether blocking garbage collections have occurred since the last sample.
+ *
+ * <p>Samples are taken on the given {@link Executor} because reading the system's memory state
+ * requires an IPC. The multiplier is changed and the {@link Listener} is called on the main thread.
+ *
+ * <p>Sampling is paused when the app's UI is hidden, so that the controller doesn't wake the app
+ * up every {@link #SAMPLE_INTERVAL_MS} while it's in the background, and resumed by {@link
+ * #onForeground()}.
+ */
+public final class MemoryBudgetController {
+  private static final String TAG = "MemoryBudget";
+
+  /** The time in milliseconds between samples. */
+  @VisibleForTesting static final long SAMPLE_INTERVAL_MS = 5000;
+  /** The pressure at or above which the multiplier is reduced. */
+  @VisibleForTesting static final float SHRINK_PRESSURE = 0.85f;
+  /** The pressure at or below which the multiplier may be increased. */
+  @VisibleForTesting static final float GROW_PRESSURE = 0.5f;
+  /** The number of consecutive low pressure samples required to increase the multiplier. */
+  @VisibleForTesting static final int SAMPLES_TO_GROW = 3;
+  /** The factor the multiplier is multiplied by when it's reduced. */
+  @VisibleForTesting static final float SHRINK_FACTOR = 0.75f;
+  /** The amount the multiplier is increased by when it's increased. */
+  @VisibleForTesting static final float GROW_STEP = 0.1f;
+  /** The smallest multiplier, a quarter of the sizes from {@link MemorySizeCalculator}. */
+  @VisibleForTesting static final float MIN_MULTIPLIER = 0.25f;
+  /** The largest multiplier, matching {@link com.bumptech.glide.MemoryCategory#HIGH}. */
+  @VisibleForTesting static final float MAX_MULTIPLIER = 1.5f;
+
+  private final MemorySampler sampler;
+  private final Executor sampleExecutor;
+  private final Handler mainHandler;
+  private final Runnable sampleOnExecutor =
+      new Runnable() {
+        @Override
+        public void run() {
+          final float pressure = sampler.getPressure();
+          mainHandler.post(
+              new Runnable() {
+                @Override
+                public void run() {
+                  onSample(pressure);
+                }
+              });
+        }
+      };
+  private final Runnable startSample =
+      new Runnable() {
+        @Override
+        public void run() {
+          sampleExecutor.execute(sampleOnExecutor);
+        }
+      };
+
+  @Nullable private volatile Listener listener;
+  private float multiplier = 1f;
+  private int lowPressureSamples;
+  private boolean isPaused;
+
+  /**
+   * Constructor for MemoryBudgetController.
+   *
+   * @param context A context.
+   * @param sampleExecutor The {@link Executor} to sample memory pressure on.
+   */
+  public MemoryBudgetController(@NonNull Context context, @NonNull Executor sampleExecutor) {
+    this(
+        new DefaultMemorySampler(
+            (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE)),
+        sampleExecutor,
+        new Handler(Looper.getMainLooper()));
+  }
+
+  @VisibleForTesting
+  MemoryBudgetController(MemorySampler sampler, Executor sampleExecutor, Handler mainHandler) {
+    this.sampler = sampler;
+    this.sampleExecutor = sampleExecutor;
+    this.mainHandler = mainHandler;
+  }
+
+  /**
+   * Starts sampling and notifies the given {@link Listener} on the main thread each time the
+   * multiplier changes.
+   */
+  public void start(@NonNull Listener listener) {
+    this.listener = Preconditions.checkNotNull(listener);
+    isPaused = false;
+    scheduleSample();
+  }
+
+  /** Stops sampling. The multiplier is left at its current value. */
+  public void stop() {
+    listener = null;
+    mainHandler.removeCallbacks(startSample);
+  }
+
+  /** Returns the current size multiplier. */
+  public float getSizeMultiplier() {
+    return multiplier;
+  }
+
+  /**
+   * Treats trim levels that indicate the system is low on memory as high pressure, so that the
+   * multiplier isn't increased again right after Glide's caches and pools are trimmed, and pauses
+   * sampling once the app's UI is hidden.
+   */
+  public void onTrimMemory(int level) {
+    Util.assertMainThread();
+    if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+        || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+        || level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      updateMultiplier(/*pressure=*/ 1f);
+    }
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN && !isPaused) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Pausing sampling, trim level: " + level);
+      }
+      isPaused = true;
+      mainHandler.removeCallbacks(startSample);
+    }
+  }
+
+  /**
+   * Resumes sampling if it was paused when the app's UI was hidden. Called on the main thread when
+   * an {@link android.app.Activity} or {@link androidx.fragment.app.Fragment} that loads images is
+   * started.
+   */
+  public void onForeground() {
+    Util.assertMainThread();
+    if (!isPaused || listener == null) {
+      return;
+    }
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "Resuming sampling");
+    }
+    isPaused = false;
+    // Samples taken before the app was in the background say little about memory now.
+    lowPressureSamples = 0;
+    scheduleSample();
+  }
+
+  @VisibleForTesting
+  boolean isPaused() {
+    return isPaused;
+  }
+
+  @VisibleForTesting
+  @Synthetic
+  void onSample(float pressure) {
+    // Drops samples that were in flight when sampling was stopped or paused.
+    if (listener == null || isPaused) {
+      return;
+    }
+    updateMultiplier(pressure);
+    scheduleSample();
+  }
+
+  private void scheduleSample() {
+    mainHandler.removeCallbacks(startSample);
+    mainHandler.postDelayed(startSample, SAMPLE_INTERVAL_MS);
+  }
+
+  private void updateMultiplier(float pressure) {
+    float previous = multiplier;
+    if (pressure >= SHRINK_PRESSURE) {
+      lowPressureSamples = 0;
+      multiplier = Math.max(MIN_MULTIPLIER, multiplier * SHRINK_FACTOR);
+    } else if (pressure <= GROW_PRESSURE) {
+      if (++lowPressureSamples >= SAMPLES_TO_GROW) {
+        lowPressureSamples = 0;
+        multiplier = Math.min(MAX_MULTIPLIER, multiplier + GROW_STEP);
+      }
+    } else {
+      lowPressureSamples = 0;
+    }
+
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Sampled pressure: " + pressure + ", multiplier: " + multiplier);
+    }
+    Listener current = listener;
+    if (multiplier != previous && current != null) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Changed multiplier from: " + previous + " to: " + multiplier);
+      }
+      current.onSizeMultiplierChanged(multiplier);
+    }
+  }
+
+  /** Notified on the main thread when the size multiplier changes. */
+  public interface Listener {
+    void onSizeMultiplierChanged(float sizeMultiplier);
+  }
+
+  @VisibleForTesting
+  interface MemorySampler {
+    /**
+     * Returns a value from 0 to 1 indicating how close the app is to running out of memory. Called
+     * on a background thread.
+     */
+    float getPressure();
+  }
+
+  private static final class DefaultMemorySampler implements MemorySampler {
+    /** The number of blocking garbage collections in one interval that indicates high pressure. */
+    private static final int BLOCKING_GCS_FOR_HIGH_PRESSURE = 2;
+    private static final String BLOCKING_GC_COUNT_STAT = "art.gc.blocking-gc-count";
+
+    private final ActivityManager activityManager;
+    private final ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+    private long lastBlockingGcCount = -1;
+
+    @Synthetic
+    DefaultMemorySampler(ActivityManager activityManager) {
+      this.activityManager = activityManager;
+    }
+
+    @Override
+    public float getPressure() {
+      Runtime runtime = Runtime.getRuntime();
+      long javaUsed = runtime.totalMemory() - runtime.freeMemory();
+      float pressure = javaUsed / (float) runtime.maxMemory();
+
+      activityManager.getMemoryInfo(memoryInfo);
+      if (memoryInfo.lowMemory) {
+        pressure = 1f;
+      } else if (memoryInfo.availMem > 0) {
+        pressure = Math.max(pressure, memoryInfo.threshold / (float) memoryInfo.availMem);
+      }
+
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+          && getBlockingGcsSinceLastSample() >= BLOCKING_GCS_FOR_HIGH_PRESSURE) {
+        pressure = 1f;
+      }
+      return Math.min(pressure, 1f);
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private long getBlockingGcsSinceLastSample() {
+      String stat = Debug.getRuntimeStat(BLOCKING_GC_COUNT_STAT);
+      if (stat == null) {
+        return 0;
+      }
+      long count;
+      try {
+        count = Long.parseLong(stat);
+      } catch (NumberFormatException e) {
+        return 0;
+      }
+      long result = lastBlockingGcCount >= 0 ? count - lastBlockingGcCount : 0;
+      lastBlockingGcCount = count;
+      return result;
+    }
+  }
+}
@@ -24,6 +24,7 @@ public final class MemorySizeCalculator {
   private final int memoryCacheSize;
   private final Context context;
   private final int arrayPoolSize;
+  private final int directBufferPoolSize;
 
   interface ScreenDimensions {
     int getWidthPixels();
@@ -47,10 +48,38 @@ public final class MemorySizeCalculator {
     int heightPixels = builder.screenDimensions.getHeightPixels();
     int screenSize = widthPixels * heightPixels * BYTES_PER_ARGB_8888_PIXEL;
 
+    // On ART direct buffers are backed by non-movable arrays on the Java heap, so the direct buffer
+    // pool takes part of the same budget as the memory cache and the other pools.
+    boolean isDirectBufferPoolSizeSet =
+        builder.directBufferPoolSizeBytes != Builder.DIRECT_BUFFER_POOL_SIZE_FROM_SCREEN;
+    int directBufferPoolSizeBytes =
+        isDirectBufferPoolSizeSet
+            ? builder.directBufferPoolSizeBytes
+            : Builder.DIRECT_BUFFER_POOL_SIZE_BYTES;
+    if (isLowMemoryDevice(builder.activityManager)) {
+      directBufferPoolSizeBytes /= LOW_MEMORY_BYTE_ARRAY_POOL_DIVISOR;
+    }
+    if (!isDirectBufferPoolSizeSet) {
+      // The largest scratch buffers are full canvases, which are usually at most the size of the
+      // screen, and the pool only keeps buffers of up to half of its size.
+      directBufferPoolSizeBytes =
+          Math.max(
+              directBufferPoolSizeBytes, screenSize * Builder.DIRECT_BUFFER_POOL_TARGET_SCREENS);
+      // Leave at least as much of the budget for the memory cache and bitmap pool.
+      directBufferPoolSizeBytes =
+          Math.min(
+              directBufferPoolSizeBytes,
+              Math.max(0, maxSize - arrayPoolSize - builder.diskCacheMemorySizeBytes) / 2);
+    }
+    directBufferPoolSize = directBufferPoolSizeBytes;
+
     int targetBitmapPoolSize = Math.round(screenSize * builder.bitmapPoolScreens);
 
     int targetMemoryCacheSize = Math.round(screenSize * builder.memoryCacheScreens);
-    int availableSize = maxSize - arrayPoolSize;
+    int availableSize =
+        Math.max(
+            0,
+            maxSize - arrayPoolSize - directBufferPoolSize - builder.diskCacheMemorySizeBytes);
 
     if (targetMemoryCacheSize + targetBitmapPoolSize <= availableSize) {
       memoryCacheSize = targetMemoryCacheSize;
@@ -71,6 +100,10 @@ public final class MemorySizeCalculator {
               + toMb(bitmapPoolSize)
               + ", byte array size: "
               + toMb(arrayPoolSize)
+              + ", direct buffer pool size: "
+              + toMb(directBufferPoolSize)
+              + ", disk cache memory size: "
+              + toMb(builder.diskCacheMemorySizeBytes)
               + ", memory class limited? "
               + (targetMemoryCacheSize + targetBitmapPoolSize > maxSize)
               + ", max size: "
@@ -97,6 +130,17 @@ public final class MemorySizeCalculator {
     return arrayPoolSize;
   }
 
+  /**
+   * Returns the recommended size in bytes of the {@link
+   * com.bumptech.glide.load.engine.bitmap_recycle.DirectBufferPool} for the device it is run on.
+   *
+   * <p>On ART direct buffers are allocated on the Java heap, so this size is taken out of the same
+   * budget as the sizes of the memory cache and bitmap pool returned by the other methods.
+   */
+  public int getDirectBufferPoolSizeInBytes() {
+    return directBufferPoolSize;
+  }
+
   private static int getMaxSize(
       ActivityManager activityManager, float maxSizeMultiplier, float lowMemoryMaxSizeMultiplier) {
     final int memoryClassBytes = activityManager.getMemoryClass() * 1024 * 1024;
@@ -143,6 +187,10 @@ public final class MemorySizeCalculator {
     static final float LOW_MEMORY_MAX_SIZE_MULTIPLIER = 0.33f;
     // 4MB.
     static final int ARRAY_POOL_SIZE_BYTES = 4 * 1024 * 1024;
+    // 4MB.
+    static final int DIRECT_BUFFER_POOL_SIZE_BYTES = 4 * 1024 * 1024;
+    static final int DIRECT_BUFFER_POOL_TARGET_SCREENS = 2;
+    static final int DIRECT_BUFFER_POOL_SIZE_FROM_SCREEN = -1;
 
     @Synthetic final Context context;
 
@@ -155,6 +203,8 @@ public final class MemorySizeCalculator {
     @Synthetic float maxSizeMultiplier = MAX_SIZE_MULTIPLIER;
     @Synthetic float lowMemoryMaxSizeMultiplier = LOW_MEMORY_MAX_SIZE_MULTIPLIER;
     @Synthetic int arrayPoolSizeBytes = ARRAY_POOL_SIZE_BYTES;
+    @Synthetic int directBufferPoolSizeBytes = DIRECT_BUFFER_POOL_SIZE_FROM_SCREEN;
+    @Synthetic int diskCacheMemorySizeBytes;
 
     public Builder(Context context) {
       this.context = context;
@@ -237,6 +287,42 @@ public final class MemorySizeCalculator {
       return this;
     }
 
+    /**
+     * Sets the size in bytes of the {@link
+     * com.bumptech.glide.load.engine.bitmap_recycle.DirectBufferPool} to use to store scratch
+     * pixel buffers while decoding animations and returns this builder.
+     *
+     * <p>This number will be halved on low memory devices that return {@code true} from {@link
+     * ActivityManager#isLowRamDevice()}. The pool only keeps buffers of up to half of its size, so
+     * by default it's sized to keep the buffers for a screen sized canvas, and at least 4MB, but
+     * never more than half of the budget left after the array pool.
+     *
+     * <p>On ART direct buffers are allocated on the Java heap, so the pool's size is subtracted
+     * from the budget shared by the {@link com.bumptech.glide.load.engine.cache.MemoryCache} and
+     * {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool}.
+     */
+    public Builder setDirectBufferPoolSize(int directBufferPoolSizeBytes) {
+      this.directBufferPoolSizeBytes = directBufferPoolSizeBytes;
+      return this;
+    }
+
+    /**
+     * Sets the size in bytes of the disk cache data held in memory by a {@link
+     * com.bumptech.glide.load.engine.cache.MemoryTierDiskCache}, which is subtracted from the
+     * budget shared by the {@link com.bumptech.glide.load.engine.cache.MemoryCache} and {@link
+     * com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool}, and returns this builder.
+     *
+     * <p>Defaults to 0. Glide sets it when it creates the calculator for a {@link
+     * com.bumptech.glide.load.engine.cache.MemoryTierDiskCacheFactory}.
+     */
+    public Builder setDiskCacheMemorySize(int diskCacheMemorySizeBytes) {
+      Preconditions.checkArgument(
+          diskCacheMemorySizeBytes >= 0,
+          "Disk cache memory size must be greater than or equal to 0");
+      this.diskCacheMemorySizeBytes = diskCacheMemorySizeBytes;
+      return this;
+    }
+
     @VisibleForTesting
     Builder setActivityManager(ActivityManager activityManager) {
       this.activityManager = activityManager;
@@ -0,0 +1,192 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link ByteBufferDiskCache} that keeps the encoded data of recently read entries of another
+ * {@link DiskCache} in memory.
+ *
+ * <p>When a resource is evicted from the {@link MemoryCache}, loading it again requires reading its
+ * data from the disk cache and decoding it. On devices with slow storage reading the data is often
+ * more expensive than decoding it. This cache copies the data of each entry read using {@link
+ * #getBuffer(Key)} into a direct {@link ByteBuffer}, which decoders can read without copying it
+ * again, and returns the copy for later reads until it's evicted. Data is kept in the form it's
+ * stored on disk, which for images is usually a compressed format like JPEG or WebP and is much
+ * smaller than the decoded resource.
+ *
+ * <p>On ART direct buffers are allocated on the Java heap, so the data held in memory counts
+ * against the app's heap limit. When this cache is created by a {@link MemoryTierDiskCacheFactory}
+ * given to Glide, its maximum size is taken out of the budget for the memory cache and bitmap pool
+ * calculated by {@link MemorySizeCalculator} and it's trimmed along with them in {@link
+ * com.bumptech.glide.Glide#trimMemory(int)} and {@link com.bumptech.glide.Glide#clearMemory()}.
+ *
+ * <p>Entries are evicted in least recently used order when the total size of the data in memory
+ * exceeds the maximum size. Entries larger than the maximum entry size are never held in memory.
+ * {@link #get(Key)} always returns the {@link File} from the wrapped cache, so the memory tier is
+ * only used by callers that can decode from a {@link ByteBuffer}.
+ */
+public class MemoryTierDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "MemoryTierDiskCache";
+
+  /** The default maximum size in bytes of the data of a single entry held in memory. */
+  public static final int DEFAULT_MAX_ENTRY_SIZE = 512 * 1024;
+
+  private final DiskCache diskCache;
+  private final long maxSize;
+  private final int maxEntrySize;
+  // Access ordered so that the eldest entry is the least recently used.
+  private final LinkedHashMap<Key, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * Constructor for MemoryTierDiskCache that holds entries up to {@link #DEFAULT_MAX_ENTRY_SIZE}
+   * in memory.
+   *
+   * @param diskCache The cache to read data from on a miss and to write data to.
+   * @param maxSize The maximum size in bytes of the data held in memory.
+   */
+  public MemoryTierDiskCache(@NonNull DiskCache diskCache, long maxSize) {
+    this(diskCache, maxSize, DEFAULT_MAX_ENTRY_SIZE);
+  }
+
+  /**
+   * Constructor for MemoryTierDiskCache.
+   *
+   * @param diskCache The cache to read data from on a miss and to write data to.
+   * @param maxSize The maximum size in bytes of the data held in memory.
+   * @param maxEntrySize The maximum size in bytes of the data of a single entry held in memory.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public MemoryTierDiskCache(@NonNull DiskCache diskCache, long maxSize, int maxEntrySize) {
+    this.diskCache = diskCache;
+    this.maxSize = maxSize;
+    this.maxEntrySize = maxEntrySize;
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    return diskCache.get(key);
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    ByteBuffer result;
+    synchronized (this) {
+      result = entries.get(key);
+    }
+    if (result != null) {
+      return result.duplicate();
+    }
+
+    ByteBuffer data = readFromDiskCache(key);
+    if (data == null || data.remaining() > maxEntrySize || data.remaining() > maxSize) {
+      return data;
+    }
+    result = ByteBuffer.allocateDirect(data.remaining());
+    result.put(data);
+    result.flip();
+    result = result.asReadOnlyBuffer();
+    synchronized (this) {
+      ByteBuffer previous = entries.put(key, result);
+      if (previous != null) {
+        size -= previous.capacity();
+      }
+      size += result.capacity();
+      trimToSize(maxSize);
+    }
+    return result.duplicate();
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    diskCache.put(key, writer);
+    // Drop any data in memory so that the next read sees what's in the wrapped cache.
+    removeFromMemory(key);
+  }
+
+  @Override
+  public void delete(Key key) {
+    removeFromMemory(key);
+    diskCache.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    clearMemory();
+    diskCache.clear();
+  }
+
+  /** Evicts all of the data held in memory, leaving the wrapped cache unchanged. */
+  public synchronized void clearMemory() {
+    trimToSize(0);
+  }
+
+  /**
+   * Evicts some or all of the data held in memory depending on the given level, leaving the
+   * wrapped cache unchanged.
+   *
+   * @see android.content.ComponentCallbacks2#onTrimMemory(int)
+   */
+  public synchronized void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      trimToSize(0);
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimToSize(maxSize / 2);
+    }
+  }
+
+  /** Returns the total size in bytes of the data held in memory. */
+  @VisibleForTesting
+  synchronized long getMemorySize() {
+    return size;
+  }
+
+  @Nullable
+  private ByteBuffer readFromDiskCache(Key key) {
+    if (diskCache instanceof ByteBufferDiskCache) {
+      return ((ByteBufferDiskCache) diskCache).getBuffer(key);
+    }
+    File file = diskCache.get(key);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile(file).asReadOnlyBuffer();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from disk cache", e);
+      }
+    }
+    return null;
+  }
+
+  private synchronized void removeFromMemory(Key key) {
+    ByteBuffer removed = entries.remove(key);
+    if (removed != null) {
+      size -= removed.capacity();
+    }
+  }
+
+  private void trimToSize(long targetSize) {
+    Iterator<Map.Entry<Key, ByteBuffer>> iterator = entries.entrySet().iterator();
+    while (size > targetSize && iterator.hasNext()) {
+      size -= iterator.next().getValue().capacity();
+      iterator.remove();
+    }
+  }
+}
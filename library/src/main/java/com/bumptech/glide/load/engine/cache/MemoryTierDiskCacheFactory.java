@@ -0,0 +1,45 @@
+package com.bumptech.glide.load.engine.cache;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Wraps the {@link DiskCache} created by another {@link DiskCache.Factory} in a {@link
+ * MemoryTierDiskCache} so that recently read data is held in memory.
+ *
+ * <p>Useful on devices with slow storage, where reading data for resources that were evicted from
+ * the memory cache is more expensive than decoding it again.
+ *
+ * <p>When given to {@link com.bumptech.glide.GlideBuilder#setDiskCache(DiskCache.Factory)} without
+ * a custom {@link MemorySizeCalculator}, the memory size is taken out of the budget for Glide's
+ * default memory cache and bitmap pool. Apps that set their own calculator should account for it
+ * with {@link MemorySizeCalculator.Builder#setDiskCacheMemorySize(int)}.
+ */
+// Public API.
+@SuppressWarnings("unused")
+public class MemoryTierDiskCacheFactory implements DiskCache.Factory {
+  private final DiskCache.Factory diskCacheFactory;
+  private final long memorySize;
+
+  /**
+   * @param diskCacheFactory The factory for the disk cache to wrap.
+   * @param memorySize The maximum size in bytes of the data held in memory.
+   */
+  public MemoryTierDiskCacheFactory(@NonNull DiskCache.Factory diskCacheFactory, long memorySize) {
+    this.diskCacheFactory = diskCacheFactory;
+    this.memorySize = memorySize;
+  }
+
+  /** Returns the maximum size in bytes of the data held in memory. */
+  public long getMemorySize() {
+    return memorySize;
+  }
+
+  @Override
+  public DiskCache build() {
+    DiskCache diskCache = diskCacheFactory.build();
+    if (diskCache == null) {
+      return null;
+    }
+    return new MemoryTierDiskCache(diskCache, memorySize);
+  }
+}
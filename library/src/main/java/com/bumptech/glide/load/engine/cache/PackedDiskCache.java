@@ -0,0 +1,741 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ByteBufferDiskCache} that packs small entries into a small number of large segment files
+ * rather than storing each entry in its own file.
+ *
+ * <p>Caches of many small entries, like thumbnails or avatars, are dominated by file system
+ * overhead when each entry is its own file. This cache appends entries up to a maximum size to
+ * segment files and keeps an index from keys to segment offsets in memory. Hits are returned from
+ * {@link #getBuffer(Key)} as memory mapped views of the segment, so reading an entry doesn't
+ * require opening or closing a file. Entries larger than the maximum size are passed to an
+ * optional second {@link DiskCache}.
+ *
+ * <p>Segments are append only. Each record contains the entry's key and data, or a tombstone
+ * written when an entry is removed, so the index is rebuilt by scanning the segments when the
+ * cache is first used. Least recently used entries are evicted when the entries and tombstones
+ * exceed the cache's maximum size. Space in the oldest segment is reclaimed once at least half of
+ * it is no longer used by copying its remaining entries to a new file, without blocking reads and
+ * writes, which then replaces the oldest segment. The LRU order is not persisted, so after the
+ * cache is reopened entries are evicted in the order they were written.
+ *
+ * <p>{@link #get(Key)} is supported for callers that require a {@link File}, but each packed
+ * entry must be copied to its own file, so {@link #getBuffer(Key)} should be preferred.
+ */
+public class PackedDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "PackedDiskCache";
+
+  /** The default maximum size in bytes of entries that are packed into segments. */
+  public static final int DEFAULT_MAX_ENTRY_SIZE = 64 * 1024;
+  /** The default size in bytes after which a new segment is started. */
+  public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+  private static final String SEGMENT_FILE_PREFIX = "segment.";
+  private static final String TEMP_DIRECTORY = "tmp";
+  private static final String MATERIALIZED_DIRECTORY = "files";
+  private static final String COMPACTING_SUFFIX = ".compacting";
+  private static final int RECORD_MAGIC = 0x474c5052;
+  private static final int TOMBSTONE_LENGTH = -1;
+  private static final Charset KEY_CHARSET = Charset.forName("US-ASCII");
+
+  private final File directory;
+  private final File tempDirectory;
+  private final File materializedDirectory;
+  private final long maxSize;
+  private final int maxEntrySize;
+  private final int segmentSize;
+  @Nullable private final DiskCache largeEntryCache;
+  private final SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator();
+  private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  // Access ordered so that the eldest entry is the least recently used.
+  private final LinkedHashMap<String, Location> index = new LinkedHashMap<>(16, 0.75f, true);
+  private final List<Segment> segments = new ArrayList<>();
+  private long size;
+  private long tombstoneSize;
+  private boolean isOpen;
+  private boolean isCompacting;
+
+  /**
+   * Creates a new cache with the default maximum entry and segment sizes.
+   *
+   * @param directory The directory for the cache, which must be exclusive to this cache.
+   * @param maxSize The max size in bytes of the packed entries.
+   * @param largeEntryCache An optional cache for entries larger than {@link
+   *     #DEFAULT_MAX_ENTRY_SIZE}, or {@code null} to skip caching large entries.
+   */
+  public static PackedDiskCache create(
+      File directory, long maxSize, @Nullable DiskCache largeEntryCache) {
+    return new PackedDiskCache(
+        directory, maxSize, DEFAULT_MAX_ENTRY_SIZE, DEFAULT_SEGMENT_SIZE, largeEntryCache);
+  }
+
+  /**
+   * @param directory The directory for the cache, which must be exclusive to this cache.
+   * @param maxSize The max size in bytes of the packed entries.
+   * @param maxEntrySize The max size in bytes of an entry that will be packed into a segment.
+   * @param segmentSize The size in bytes after which a new segment is started.
+   * @param largeEntryCache An optional cache for entries larger than {@code maxEntrySize}, or
+   *     {@code null} to skip caching large entries.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public PackedDiskCache(
+      File directory,
+      long maxSize,
+      int maxEntrySize,
+      int segmentSize,
+      @Nullable DiskCache largeEntryCache) {
+    if (maxEntrySize <= 0 || segmentSize < maxEntrySize) {
+      throw new IllegalArgumentException(
+          "Invalid sizes, maxEntrySize: " + maxEntrySize + ", segmentSize: " + segmentSize);
+    }
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.maxEntrySize = maxEntrySize;
+    this.segmentSize = segmentSize;
+    this.largeEntryCache = largeEntryCache;
+    tempDirectory = new File(directory, TEMP_DIRECTORY);
+    materializedDirectory = new File(directory, MATERIALIZED_DIRECTORY);
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    try {
+      synchronized (this) {
+        open();
+        Location location = index.get(safeKey);
+        if (location != null) {
+          return location.segment.channel
+              .map(FileChannel.MapMode.READ_ONLY, location.offset, location.length)
+              .asReadOnlyBuffer();
+        }
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to get buffer from disk cache", e);
+      }
+    }
+    if (largeEntryCache instanceof ByteBufferDiskCache) {
+      return ((ByteBufferDiskCache) largeEntryCache).getBuffer(key);
+    }
+    File file = largeEntryCache != null ? largeEntryCache.get(key) : null;
+    if (file == null) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile(file).asReadOnlyBuffer();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from large entry cache", e);
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    try {
+      synchronized (this) {
+        open();
+        Location location = index.get(safeKey);
+        if (location != null) {
+          return materialize(safeKey, location);
+        }
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to get from disk cache", e);
+      }
+    }
+    return largeEntryCache != null ? largeEntryCache.get(key) : null;
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    writeLocker.acquire(safeKey);
+    try {
+      synchronized (this) {
+        open();
+        if (index.containsKey(safeKey)) {
+          return;
+        }
+      }
+      if (!tempDirectory.exists() && !tempDirectory.mkdirs()) {
+        throw new IOException("Unable to create temp directory: " + tempDirectory);
+      }
+      final File tempFile = new File(tempDirectory, safeKey);
+      try {
+        if (!writer.write(tempFile)) {
+          return;
+        }
+        long length = tempFile.length();
+        if (length == 0) {
+          return;
+        }
+        if (length <= maxEntrySize) {
+          synchronized (this) {
+            append(safeKey, tempFile, (int) length);
+            trimToSize();
+          }
+          compactIfNeeded();
+        } else if (largeEntryCache != null) {
+          largeEntryCache.put(
+              key,
+              new Writer() {
+                @Override
+                public boolean write(@NonNull File file) {
+                  return tempFile.renameTo(file);
+                }
+              });
+        }
+      } finally {
+        deleteIfExists(tempFile);
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to put to disk cache", e);
+      }
+    } finally {
+      writeLocker.release(safeKey);
+    }
+  }
+
+  @Override
+  public void delete(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    try {
+      synchronized (this) {
+        open();
+        remove(safeKey);
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to delete from disk cache", e);
+      }
+    }
+    if (largeEntryCache != null) {
+      largeEntryCache.delete(key);
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (this) {
+      closeSegments();
+      index.clear();
+      size = 0;
+      tombstoneSize = 0;
+      deleteContents(directory);
+      // Allow the cache to be opened again if the directory was removed by someone else.
+      isOpen = false;
+    }
+    if (largeEntryCache != null) {
+      largeEntryCache.clear();
+    }
+  }
+
+  /** Returns the number of bytes in packed entries. */
+  @VisibleForTesting
+  synchronized long getSize() {
+    return size;
+  }
+
+  /** Returns the number of bytes in tombstones that haven't been compacted yet. */
+  @VisibleForTesting
+  synchronized long getTombstoneSize() {
+    return tombstoneSize;
+  }
+
+  /** Returns the number of segment files. */
+  @VisibleForTesting
+  synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  private void open() throws IOException {
+    if (isOpen) {
+      return;
+    }
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Unable to create cache directory: " + directory);
+    }
+    // Temporary and materialized files are only valid while the cache is open.
+    deleteContents(tempDirectory);
+    deleteContents(materializedDirectory);
+
+    File[] segmentFiles = directory.listFiles();
+    List<Segment> found = new ArrayList<>();
+    if (segmentFiles != null) {
+      for (File file : segmentFiles) {
+        String name = file.getName();
+        if (name.startsWith(SEGMENT_FILE_PREFIX)) {
+          try {
+            int id = Integer.parseInt(name.substring(SEGMENT_FILE_PREFIX.length()));
+            found.add(new Segment(id, file));
+          } catch (NumberFormatException e) {
+            deleteIfExists(file);
+          }
+        }
+      }
+    }
+    Segment[] sorted = found.toArray(new Segment[0]);
+    Arrays.sort(
+        sorted,
+        new Comparator<Segment>() {
+          @Override
+          public int compare(Segment o1, Segment o2) {
+            return o1.id < o2.id ? -1 : (o1.id == o2.id ? 0 : 1);
+          }
+        });
+    try {
+      for (Segment segment : sorted) {
+        segment.open();
+        segments.add(segment);
+        readSegment(segment);
+      }
+    } catch (IOException e) {
+      closeSegments();
+      index.clear();
+      size = 0;
+      tombstoneSize = 0;
+      throw e;
+    }
+    isOpen = true;
+  }
+
+  /** Adds the records in a segment to the index and truncates any partially written record. */
+  private void readSegment(Segment segment) throws IOException {
+    long fileLength = segment.channel.size();
+    ByteBuffer buffer = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+    long position = 0;
+    while (buffer.remaining() >= headerSize(0)) {
+      int magic = buffer.getInt();
+      int keyLength = buffer.getShort();
+      if (magic != RECORD_MAGIC || keyLength <= 0 || buffer.remaining() < keyLength + 4) {
+        break;
+      }
+      byte[] keyBytes = new byte[keyLength];
+      buffer.get(keyBytes);
+      int length = buffer.getInt();
+      if (length > buffer.remaining()) {
+        break;
+      }
+      String safeKey = new String(keyBytes, KEY_CHARSET);
+      if (length == TOMBSTONE_LENGTH) {
+        removeFromIndex(safeKey);
+        addTombstone(segment, headerSize(keyLength));
+      } else if (length >= 0) {
+        removeFromIndex(safeKey);
+        addToIndex(safeKey, new Location(segment, buffer.position(), length));
+        buffer.position(buffer.position() + length);
+      } else {
+        break;
+      }
+      position = buffer.position();
+    }
+    segment.length = position;
+    if (position != fileLength) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Truncating partially written segment: " + segment.file);
+      }
+      segment.channel.truncate(position);
+    }
+  }
+
+  private void append(String safeKey, File source, int length) throws IOException {
+    byte[] keyBytes = safeKey.getBytes(KEY_CHARSET);
+    Segment segment = getWritableSegment(headerSize(keyBytes.length) + length);
+    FileInputStream is = new FileInputStream(source);
+    try {
+      long dataOffset = writeHeader(segment, keyBytes, length);
+      transferFully(is.getChannel(), 0, length, segment.channel, dataOffset);
+      segment.length = dataOffset + length;
+      removeFromIndex(safeKey);
+      addToIndex(safeKey, new Location(segment, dataOffset, length));
+    } finally {
+      is.close();
+    }
+  }
+
+  private void remove(String safeKey) throws IOException {
+    if (removeFromIndex(safeKey) == null) {
+      return;
+    }
+    byte[] keyBytes = safeKey.getBytes(KEY_CHARSET);
+    Segment segment = getWritableSegment(headerSize(keyBytes.length));
+    segment.length = writeHeader(segment, keyBytes, TOMBSTONE_LENGTH);
+    addTombstone(segment, headerSize(keyBytes.length));
+    deleteIfExists(new File(materializedDirectory, safeKey));
+  }
+
+  private void addTombstone(Segment segment, int recordSize) {
+    segment.tombstoneSize += recordSize;
+    tombstoneSize += recordSize;
+  }
+
+  private void trimToSize() throws IOException {
+    // Tombstones take up space until their segment is compacted, so they count towards the limit.
+    while (size + tombstoneSize > maxSize && !index.isEmpty()) {
+      Map.Entry<String, Location> eldest = index.entrySet().iterator().next();
+      remove(eldest.getKey());
+    }
+  }
+
+  /**
+   * Replaces the oldest segments with a single copy of their remaining entries once at least half
+   * of the bytes of each of them are no longer used.
+   *
+   * <p>Only the oldest segments are compacted so that tombstones are never dropped while an older
+   * segment may still contain a record they apply to. The copy takes the id of the newest segment
+   * it replaces, so records for the same keys written while the copy is made still take precedence
+   * when the segments are read. Entries are copied without holding the cache's lock, which is only
+   * held to choose the entries to copy and to swap the copy in.
+   */
+  private void compactIfNeeded() throws IOException {
+    while (true) {
+      List<Segment> compacting = new ArrayList<>();
+      List<String> keys = new ArrayList<>();
+      List<Location> locations = new ArrayList<>();
+      synchronized (this) {
+        if (isCompacting) {
+          return;
+        }
+        long liveBytes = 0;
+        // The newest segment is still being written to.
+        for (int i = 0; i < segments.size() - 1; i++) {
+          Segment segment = segments.get(i);
+          if (segment.liveBytes * 2 > segment.length
+              || (!compacting.isEmpty() && liveBytes + segment.liveBytes > segmentSize)) {
+            break;
+          }
+          compacting.add(segment);
+          liveBytes += segment.liveBytes;
+        }
+        if (compacting.isEmpty()) {
+          return;
+        }
+        isCompacting = true;
+        for (Segment segment : compacting) {
+          for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (entry.getValue().segment == segment) {
+              keys.add(entry.getKey());
+              locations.add(entry.getValue());
+            }
+          }
+        }
+      }
+      try {
+        Segment compacted = copyEntries(compacting, keys, locations);
+        synchronized (this) {
+          replaceOldestSegments(compacting, compacted, locations);
+        }
+      } finally {
+        synchronized (this) {
+          isCompacting = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies the given entries to a new file and returns a segment for it with the id of the last of
+   * the given segments, replacing the given locations with the locations of the copies.
+   */
+  private Segment copyEntries(List<Segment> from, List<String> keys, List<Location> locations)
+      throws IOException {
+    int id = from.get(from.size() - 1).id;
+    File file = new File(directory, SEGMENT_FILE_PREFIX + id + COMPACTING_SUFFIX);
+    deleteIfExists(file);
+    Segment compacted = new Segment(id, file);
+    try {
+      compacted.open();
+      for (int i = 0; i < keys.size(); i++) {
+        Location location = locations.get(i);
+        byte[] keyBytes = keys.get(i).getBytes(KEY_CHARSET);
+        long dataOffset = writeHeader(compacted, keyBytes, location.length);
+        transferFully(
+            location.segment.channel,
+            location.offset,
+            location.length,
+            compacted.channel,
+            dataOffset);
+        compacted.length = dataOffset + location.length;
+        // Keep the original location alongside the copy to check if it's still current later.
+        locations.set(i, new Location(compacted, dataOffset, location.length, location));
+      }
+      return compacted;
+    } catch (IOException e) {
+      compacted.close();
+      deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  private void replaceOldestSegments(
+      List<Segment> replaced, Segment compacted, List<Location> copies) throws IOException {
+    if (!segments.subList(0, Math.min(replaced.size(), segments.size())).equals(replaced)) {
+      // The cache was cleared while the entries were being copied.
+      compacted.close();
+      deleteIfExists(compacted.file);
+      return;
+    }
+    Map<Location, Location> copiesByOriginal = new IdentityHashMap<>();
+    for (Location copy : copies) {
+      copiesByOriginal.put(copy.original, copy);
+    }
+    // Entries that were removed or replaced while they were being copied are left out of the index,
+    // their copies are unused space in the new segment.
+    List<Map.Entry<String, Location>> copied = new ArrayList<>();
+    for (Map.Entry<String, Location> entry : index.entrySet()) {
+      if (copiesByOriginal.containsKey(entry.getValue())) {
+        copied.add(entry);
+      }
+    }
+    Segment last = replaced.get(replaced.size() - 1);
+    // Delete the older segments, oldest first, before replacing the last one. Tombstones only apply
+    // to records written before them, so stopping part way through can only lose entries. Replacing
+    // the last segment first would drop its tombstones while the records they remove still exist.
+    List<Segment> older = replaced.subList(0, replaced.size() - 1);
+    for (Segment segment : older) {
+      deleteIfExists(segment.file);
+    }
+    onOlderSegmentsDeleted();
+    if (copied.isEmpty()) {
+      compacted.close();
+      deleteIfExists(compacted.file);
+      deleteIfExists(last.file);
+    } else {
+      if (!compacted.file.renameTo(last.file)) {
+        compacted.close();
+        deleteIfExists(compacted.file);
+        dropSegments(older);
+        throw new IOException("Unable to replace segment: " + last.file);
+      }
+      compacted.file = last.file;
+      for (Map.Entry<String, Location> entry : copied) {
+        Location copy = copiesByOriginal.get(entry.getValue());
+        // Updating the value of an existing key doesn't change the access order.
+        entry.setValue(new Location(copy.segment, copy.offset, copy.length));
+        compacted.liveBytes += copy.length;
+      }
+    }
+    segments.subList(0, replaced.size()).clear();
+    if (!copied.isEmpty()) {
+      segments.add(0, compacted);
+    }
+    for (Segment segment : replaced) {
+      tombstoneSize -= segment.tombstoneSize;
+      segment.close();
+    }
+  }
+
+  /** Called after the older segments being compacted are deleted, before the last is replaced. */
+  @VisibleForTesting
+  void onOlderSegmentsDeleted() {
+    // Do nothing.
+  }
+
+  /** Removes the given segments, whose files have been deleted, and their entries. */
+  private void dropSegments(List<Segment> dropped) {
+    for (Iterator<Map.Entry<String, Location>> iterator = index.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Map.Entry<String, Location> entry = iterator.next();
+      Location location = entry.getValue();
+      if (dropped.contains(location.segment)) {
+        iterator.remove();
+        location.segment.liveBytes -= location.length;
+        size -= location.length;
+        deleteIfExists(new File(materializedDirectory, entry.getKey()));
+      }
+    }
+    for (Segment segment : dropped) {
+      tombstoneSize -= segment.tombstoneSize;
+      segment.close();
+    }
+    segments.removeAll(dropped);
+  }
+
+  private Segment getWritableSegment(int recordSize) throws IOException {
+    Segment newest = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    if (newest == null || (newest.length > 0 && newest.length + recordSize > segmentSize)) {
+      int id = newest == null ? 0 : newest.id + 1;
+      newest = new Segment(id, new File(directory, SEGMENT_FILE_PREFIX + id));
+      newest.open();
+      segments.add(newest);
+    }
+    return newest;
+  }
+
+  /** Writes a record header at the end of the segment and returns the offset of the data. */
+  private static long writeHeader(Segment segment, byte[] keyBytes, int length)
+      throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(headerSize(keyBytes.length));
+    header.putInt(RECORD_MAGIC);
+    header.putShort((short) keyBytes.length);
+    header.put(keyBytes);
+    header.putInt(length);
+    header.flip();
+    long position = segment.length;
+    while (header.hasRemaining()) {
+      position += segment.channel.write(header, position);
+    }
+    return position;
+  }
+
+  private static void transferFully(
+      FileChannel from, long fromPosition, int length, FileChannel to, long toPosition)
+      throws IOException {
+    long transferred = 0;
+    while (transferred < length) {
+      to.position(toPosition + transferred);
+      long count = from.transferTo(fromPosition + transferred, length - transferred, to);
+      if (count <= 0) {
+        throw new IOException("Unable to copy entry, copied " + transferred + " of " + length);
+      }
+      transferred += count;
+    }
+  }
+
+  private File materialize(String safeKey, Location location) throws IOException {
+    File file = new File(materializedDirectory, safeKey);
+    if (file.exists()) {
+      return file;
+    }
+    if (!materializedDirectory.exists() && !materializedDirectory.mkdirs()) {
+      throw new IOException("Unable to create directory: " + materializedDirectory);
+    }
+    FileOutputStream os = new FileOutputStream(file);
+    try {
+      transferFully(location.segment.channel, location.offset, location.length, os.getChannel(), 0);
+    } finally {
+      os.close();
+    }
+    return file;
+  }
+
+  private void addToIndex(String safeKey, Location location) {
+    index.put(safeKey, location);
+    location.segment.liveBytes += location.length;
+    size += location.length;
+  }
+
+  @Nullable
+  private Location removeFromIndex(String safeKey) {
+    Location location = index.remove(safeKey);
+    if (location != null) {
+      location.segment.liveBytes -= location.length;
+      size -= location.length;
+    }
+    return location;
+  }
+
+  private void closeSegments() {
+    for (Iterator<Segment> iterator = segments.iterator(); iterator.hasNext(); ) {
+      iterator.next().close();
+      iterator.remove();
+    }
+  }
+
+  private static int headerSize(int keyLength) {
+    // magic, key length, key, data length.
+    return 4 + 2 + keyLength + 4;
+  }
+
+  private static void deleteContents(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isDirectory()) {
+        deleteContents(file);
+      }
+      deleteIfExists(file);
+    }
+  }
+
+  private static void deleteIfExists(File file) {
+    if (file.exists() && !file.delete() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Unable to delete: " + file);
+    }
+  }
+
+  private static final class Segment {
+    @Synthetic final int id;
+    @Synthetic File file;
+    @Synthetic FileChannel channel;
+    private RandomAccessFile randomAccessFile;
+    /** The offset at which the next record will be written. */
+    @Synthetic long length;
+    /** The number of bytes of entries in this segment that are still in the index. */
+    @Synthetic long liveBytes;
+    /** The number of bytes of tombstones in this segment. */
+    @Synthetic long tombstoneSize;
+
+    Segment(int id, File file) {
+      this.id = id;
+      this.file = file;
+    }
+
+    void open() throws IOException {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      channel = randomAccessFile.getChannel();
+    }
+
+    void close() {
+      try {
+        randomAccessFile.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+  }
+
+  private static final class Location {
+    @Synthetic final Segment segment;
+    @Synthetic final long offset;
+    @Synthetic final int length;
+    /** The location this entry was copied from while compacting, if any. */
+    @Nullable @Synthetic final Location original;
+
+    Location(Segment segment, long offset, int length) {
+      this(segment, offset, length, /*original=*/ null);
+    }
+
+    Location(Segment segment, long offset, int length, @Nullable Location original) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+      this.original = original;
+    }
+  }
+}
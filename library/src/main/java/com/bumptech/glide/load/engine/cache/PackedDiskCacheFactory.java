@@ -0,0 +1,65 @@
+package com.bumptech.glide.load.engine.cache;
+
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory.CacheDirectoryGetter;
+import java.io.File;
+
+/**
+ * Creates a {@link PackedDiskCache} in the specified disk cache directory that stores entries
+ * larger than {@link PackedDiskCache#DEFAULT_MAX_ENTRY_SIZE} in a {@link
+ * com.bumptech.glide.disklrucache.DiskLruCache} based disk cache.
+ *
+ * <p>Useful for apps that primarily load many small images, like thumbnails or avatars, where
+ * storing each entry in its own file makes writing and reading the cache expensive.
+ */
+// Public API.
+@SuppressWarnings("unused")
+public class PackedDiskCacheFactory implements DiskCache.Factory {
+  private static final String PACKED_DIRECTORY = "packed";
+  private static final String LARGE_ENTRY_DIRECTORY = "large";
+
+  private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final long packedCacheSize;
+  private final long largeEntryCacheSize;
+
+  /**
+   * {@link CacheDirectoryGetter#getCacheDirectory()} will be called out of UI thread, allowing to
+   * do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param packedCacheSize Desired max bytes size of the entries packed into segments.
+   * @param largeEntryCacheSize Desired max bytes size of the LRU disk cache for large entries, or
+   *     0 to skip caching large entries.
+   */
+  public PackedDiskCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter, long packedCacheSize, long largeEntryCacheSize) {
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.packedCacheSize = packedCacheSize;
+    this.largeEntryCacheSize = largeEntryCacheSize;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (!cacheDir.mkdirs() && (!cacheDir.exists() || !cacheDir.isDirectory())) {
+      return null;
+    }
+
+    // The two caches use sibling directories because clearing either cache deletes everything in
+    // its directory.
+    DiskCache largeEntryCache = null;
+    if (largeEntryCacheSize > 0) {
+      largeEntryCache =
+          DiskLruCacheWrapper.create(
+              new File(cacheDir, LARGE_ENTRY_DIRECTORY),
+              largeEntryCacheSize,
+              /*useBinaryJournal=*/ true);
+    }
+    return PackedDiskCache.create(
+        new File(cacheDir, PACKED_DIRECTORY), packedCacheSize, largeEntryCache);
+  }
+}
@@ -0,0 +1,264 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Synthetic;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that splits its contents
+ * in to segments that are each guarded by their own lock.
+ *
+ * <p>{@link LruResourceCache} guards all of its contents with a single lock, so every lookup made
+ * when a load starts on the main thread waits for any resources being put by loads that finish at
+ * the same time. This cache only locks the segment that contains a given key, so operations on
+ * different keys rarely contend.
+ *
+ * <p>Sizes are measured in bytes using {@link Resource#getSize()} and are limited across the whole
+ * cache rather than per segment, so this cache can hold the same resources as an {@link
+ * LruResourceCache} of the same size. Each entry records when it was last put, and eviction
+ * removes the oldest entry among the least recently used entries of each segment, which is the
+ * same order {@link LruResourceCache} evicts in.
+ *
+ * <p>Use {@link com.bumptech.glide.GlideBuilder#setMemoryCache(MemoryCache)} to use this cache
+ * instead of the default {@link LruResourceCache}.
+ */
+public class SegmentedLruResourceCache implements MemoryCache {
+  /** The default number of segments, enough to make contention between loads unlikely. */
+  public static final int DEFAULT_SEGMENT_COUNT = 8;
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final long initialMaxSize;
+  private final AtomicLong currentSize = new AtomicLong();
+  private final AtomicLong clock = new AtomicLong();
+  // Only one thread evicts at a time so that concurrent puts don't evict more than required.
+  private final Object evictionLock = new Object();
+  private volatile long maxSize;
+  @Nullable private volatile ResourceRemovedListener listener;
+
+  /**
+   * Constructor for SegmentedLruResourceCache with {@link #DEFAULT_SEGMENT_COUNT} segments.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public SegmentedLruResourceCache(long size) {
+    this(size, DEFAULT_SEGMENT_COUNT);
+  }
+
+  /**
+   * Constructor for SegmentedLruResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   * @param segmentCount The number of segments, rounded up to the nearest power of two.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public SegmentedLruResourceCache(long size, int segmentCount) {
+    if (segmentCount <= 0) {
+      throw new IllegalArgumentException("segmentCount must be > 0: " + segmentCount);
+    }
+    int count = 1;
+    while (count < segmentCount) {
+      count <<= 1;
+    }
+    segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment();
+    }
+    segmentMask = count - 1;
+    initialMaxSize = size;
+    maxSize = size;
+  }
+
+  @Override
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * multiplier);
+    trimToSize(maxSize);
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> remove(@NonNull Key key) {
+    Segment segment = segmentFor(key);
+    Entry removed;
+    synchronized (segment) {
+      removed = segment.entries.remove(key);
+    }
+    if (removed == null) {
+      return null;
+    }
+    currentSize.addAndGet(-removed.size);
+    return removed.resource;
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    int size = resource == null ? 0 : resource.getSize();
+    if (size >= maxSize) {
+      onItemEvicted(resource);
+      return null;
+    }
+
+    Segment segment = segmentFor(key);
+    Entry old;
+    synchronized (segment) {
+      old = segment.entries.put(key, new Entry(resource, size, clock.incrementAndGet()));
+    }
+    currentSize.addAndGet(size);
+    Resource<?> oldResource = null;
+    if (old != null) {
+      oldResource = old.resource;
+      currentSize.addAndGet(-old.size);
+      if (oldResource != null && !oldResource.equals(resource)) {
+        onItemEvicted(oldResource);
+      }
+    }
+    if (currentSize.get() > maxSize) {
+      trimToSize(maxSize);
+    }
+    return oldResource;
+  }
+
+  @Override
+  public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void clearMemory() {
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Entering list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      // The app's UI is no longer visible, or app is in the foreground but system is running
+      // critically low on memory
+      // Evict oldest half of our bitmap cache
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  /** Returns true if there is a value for the given key in the cache. */
+  @VisibleForTesting
+  boolean contains(@NonNull Key key) {
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.entries.containsKey(key);
+    }
+  }
+
+  /**
+   * Removes the least recently put items from the cache until the current size is less than the
+   * given size.
+   */
+  private void trimToSize(long size) {
+    synchronized (evictionLock) {
+      while (currentSize.get() > size) {
+        Segment oldestSegment = null;
+        long oldestStamp = Long.MAX_VALUE;
+        for (Segment segment : segments) {
+          synchronized (segment) {
+            Entry eldest = segment.eldest();
+            if (eldest != null && eldest.stamp < oldestStamp) {
+              oldestStamp = eldest.stamp;
+              oldestSegment = segment;
+            }
+          }
+        }
+        if (oldestSegment == null) {
+          return;
+        }
+        Entry evicted;
+        synchronized (oldestSegment) {
+          evicted = oldestSegment.removeEldest();
+        }
+        if (evicted != null) {
+          currentSize.addAndGet(-evicted.size);
+          onItemEvicted(evicted.resource);
+        }
+      }
+    }
+  }
+
+  private void onItemEvicted(@Nullable Resource<?> resource) {
+    ResourceRemovedListener listener = this.listener;
+    if (listener != null && resource != null) {
+      listener.onResourceRemoved(resource);
+    }
+  }
+
+  private Segment segmentFor(Key key) {
+    int hash = key.hashCode();
+    // Spread the higher bits down so that keys with poorly distributed hash codes still use every
+    // segment.
+    hash ^= (hash >>> 16);
+    hash ^= (hash >>> 8);
+    return segments[hash & segmentMask];
+  }
+
+  private static final class Segment {
+    // Access ordered so that the eldest entry is the least recently put.
+    @Synthetic final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Synthetic
+    Segment() {}
+
+    @Nullable
+    Entry eldest() {
+      Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+      return iterator.hasNext() ? iterator.next().getValue() : null;
+    }
+
+    @Nullable
+    Entry removeEldest() {
+      Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      Entry result = iterator.next().getValue();
+      iterator.remove();
+      return result;
+    }
+  }
+
+  private static final class Entry {
+    @Synthetic final Resource<?> resource;
+    @Synthetic final int size;
+    @Synthetic final long stamp;
+
+    Entry(Resource<?> resource, int size, long stamp) {
+      this.resource = resource;
+      this.size = size;
+      this.stamp = stamp;
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.FrequencySketch;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that evicts using the
+ * W-TinyLFU policy, which keeps frequently used resources when many resources are used only once.
+ *
+ * <p>{@link LruResourceCache} evicts the least recently used resources, so flinging through a long
+ * list evicts resources that are shown over and over again, like avatars, in favor of resources
+ * that are never shown again. This cache puts new resources in a small window first. The window
+ * holds one percent of the cache, but always at least the newest resource and a resource of the
+ * average size, so that new resources have a chance to be requested again. When a resource falls
+ * out of the window, it's compared with the least recently used resource in the rest of the cache
+ * and whichever has been requested less often recently is evicted. How often each key has been
+ * requested, including misses, is estimated with a {@link FrequencySketch}.
+ *
+ * <p>Sizes are measured in bytes using {@link Resource#getSize()}, the same as {@link
+ * LruResourceCache}. Hit and miss counts are available from {@link #getHitCount()}, {@link
+ * #getMissCount()} and {@link #getHitRate()}.
+ *
+ * <p>Use {@link com.bumptech.glide.GlideBuilder#setMemoryCache(MemoryCache)} to use this cache
+ * instead of the default {@link LruResourceCache}.
+ */
+public class TinyLfuResourceCache implements MemoryCache {
+  /** The share of the cache's max size used for the window of newly added resources. */
+  private static final int WINDOW_PERCENT = 1;
+
+  // Access ordered so that the eldest entry is the least recently used.
+  private final LinkedHashMap<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<Key, Entry> main = new LinkedHashMap<>(100, 0.75f, true);
+  private final FrequencySketch sketch = new FrequencySketch(/*expectedEntries=*/ 0);
+  private final long initialMaxSize;
+  private long maxSize;
+  private long currentSize;
+  private long windowSize;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  @Nullable private ResourceRemovedListener listener;
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public TinyLfuResourceCache(long size) {
+    initialMaxSize = size;
+    maxSize = size;
+  }
+
+  @Override
+  public synchronized long getCurrentSize() {
+    return currentSize;
+  }
+
+  @Override
+  public synchronized long getMaxSize() {
+    return maxSize;
+  }
+
+  /** Returns the number of calls to {@link #remove(Key)} that returned a resource. */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /** Returns the number of calls to {@link #remove(Key)} that didn't return a resource. */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /** Returns the number of resources evicted because the cache was full or was trimmed. */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Returns the ratio of hits to requests, between 0 and 1, or 0 if there haven't been any
+   * requests.
+   */
+  public synchronized double getHitRate() {
+    long requestCount = hitCount + missCount;
+    return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+  }
+
+  @Override
+  public void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    List<Resource<?>> evicted;
+    synchronized (this) {
+      maxSize = Math.round(initialMaxSize * multiplier);
+      evicted = trimToSize(maxSize);
+    }
+    notifyRemoved(evicted);
+  }
+
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    sketch.increment(key);
+    Entry entry = removeEntry(key);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.resource;
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    int size = resource == null ? 0 : resource.getSize();
+    Resource<?> oldResource = null;
+    List<Resource<?>> evicted = new ArrayList<>();
+    synchronized (this) {
+      if (size >= maxSize) {
+        evicted.add(resource);
+      } else {
+        Entry old = removeEntry(key);
+        if (old != null) {
+          oldResource = old.resource;
+          if (oldResource != null && !oldResource.equals(resource)) {
+            evicted.add(oldResource);
+          }
+        }
+        window.put(key, new Entry(resource, size));
+        windowSize += size;
+        currentSize += size;
+        sketch.ensureCapacity(window.size() + main.size());
+        evicted.addAll(trimToSize(maxSize));
+      }
+    }
+    notifyRemoved(evicted);
+    return oldResource;
+  }
+
+  @Override
+  public synchronized void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void clearMemory() {
+    List<Resource<?>> evicted;
+    synchronized (this) {
+      evicted = trimToSize(0);
+    }
+    notifyRemoved(evicted);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Entering list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      // The app's UI is no longer visible, or app is in the foreground but system is running
+      // critically low on memory
+      // Evict half of our bitmap cache
+      List<Resource<?>> evicted;
+      synchronized (this) {
+        evicted = trimToSize(maxSize / 2);
+      }
+      notifyRemoved(evicted);
+    }
+  }
+
+  /** Returns true if there is a value for the given key in the cache. */
+  @VisibleForTesting
+  synchronized boolean contains(@NonNull Key key) {
+    return window.containsKey(key) || main.containsKey(key);
+  }
+
+  @Nullable
+  private Entry removeEntry(Key key) {
+    Entry entry = window.remove(key);
+    if (entry != null) {
+      windowSize -= entry.size;
+    } else {
+      entry = main.remove(key);
+    }
+    if (entry != null) {
+      currentSize -= entry.size;
+    }
+    return entry;
+  }
+
+  /**
+   * Moves resources out of the window until the window is within its share of {@code size}, then
+   * evicts the least recently used resources until the cache is within {@code size}.
+   *
+   * <p>Each resource moved out of the window is a candidate for the rest of the cache. While the
+   * cache is too large, the candidate is compared with the least recently used resource outside of
+   * the window. If the candidate has been requested more often, that resource is evicted, otherwise
+   * the candidate is.
+   */
+  private List<Resource<?>> trimToSize(long size) {
+    List<Resource<?>> evicted = new ArrayList<>();
+    int count = window.size() + main.size();
+    long averageSize = count == 0 ? 0 : currentSize / count;
+    long maxWindowSize = Math.max(size * WINDOW_PERCENT / 100, averageSize);
+    while (windowSize > maxWindowSize && window.size() > 1) {
+      Map.Entry<Key, Entry> candidate = removeEldest(window);
+      windowSize -= candidate.getValue().size;
+      main.put(candidate.getKey(), candidate.getValue());
+
+      int candidateFrequency = sketch.frequency(candidate.getKey());
+      while (currentSize > size) {
+        Map.Entry<Key, Entry> victim = main.entrySet().iterator().next();
+        if (victim.getKey().equals(candidate.getKey())
+            || sketch.frequency(victim.getKey()) >= candidateFrequency) {
+          main.remove(candidate.getKey());
+          evict(candidate.getValue(), evicted);
+          break;
+        }
+        removeEldest(main);
+        evict(victim.getValue(), evicted);
+      }
+    }
+    // Only reached when most of the cache is in the window, for example when size is 0.
+    while (currentSize > size) {
+      Entry eldest;
+      if (!main.isEmpty()) {
+        eldest = removeEldest(main).getValue();
+      } else {
+        eldest = removeEldest(window).getValue();
+        windowSize -= eldest.size;
+      }
+      evict(eldest, evicted);
+    }
+    return evicted;
+  }
+
+  private void evict(Entry entry, List<Resource<?>> evicted) {
+    currentSize -= entry.size;
+    evictionCount++;
+    evicted.add(entry.resource);
+  }
+
+  private static Map.Entry<Key, Entry> removeEldest(LinkedHashMap<Key, Entry> map) {
+    Iterator<Map.Entry<Key, Entry>> iterator = map.entrySet().iterator();
+    Map.Entry<Key, Entry> result = iterator.next();
+    iterator.remove();
+    return result;
+  }
+
+  private void notifyRemoved(List<Resource<?>> removed) {
+    ResourceRemovedListener listener;
+    synchronized (this) {
+      listener = this.listener;
+    }
+    if (listener == null) {
+      return;
+    }
+    for (Resource<?> resource : removed) {
+      if (resource != null) {
+        listener.onResourceRemoved(resource);
+      }
+    }
+  }
+
+  private static final class Entry {
+    @Synthetic final Resource<?> resource;
+    @Synthetic final int size;
+
+    Entry(Resource<?> resource, int size) {
+      this.resource = resource;
+      this.size = size;
+    }
+  }
+}
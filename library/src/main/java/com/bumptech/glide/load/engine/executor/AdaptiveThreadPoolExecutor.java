@@ -0,0 +1,126 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.GuardedBy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ThreadPoolExecutor} that measures the tasks it runs and uses a {@link ThreadCountTuner}
+ * to grow or shrink the number of threads it uses while it runs.
+ *
+ * <p>Statistics are gathered on the threads that run tasks and the thread count is updated at most
+ * once every {@link #WINDOW_MS}, after a task finishes, so no additional thread is needed.
+ */
+final class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+  private static final String TAG = "GlideExecutor";
+  private static final long WINDOW_MS = 1000;
+
+  private final ThreadLocal<long[]> taskStartTimes = new ThreadLocal<>();
+  private final Object statsLock = new Object();
+
+  @GuardedBy("statsLock")
+  private final ThreadCountTuner tuner;
+
+  @GuardedBy("statsLock")
+  private long windowStartMs = SystemClock.uptimeMillis();
+
+  @GuardedBy("statsLock")
+  private int completedTasks;
+
+  @GuardedBy("statsLock")
+  private long taskCpuMs;
+
+  @GuardedBy("statsLock")
+  private long taskWallMs;
+
+  AdaptiveThreadPoolExecutor(
+      ThreadCountTuner tuner,
+      long keepAliveTime,
+      TimeUnit unit,
+      BlockingQueue<Runnable> workQueue,
+      ThreadFactory threadFactory) {
+    super(
+        tuner.getThreadCount(),
+        tuner.getThreadCount(),
+        keepAliveTime,
+        unit,
+        workQueue,
+        threadFactory);
+    this.tuner = tuner;
+  }
+
+  @Override
+  protected void beforeExecute(Thread t, Runnable r) {
+    super.beforeExecute(t, r);
+    long[] startTimes = taskStartTimes.get();
+    if (startTimes == null) {
+      startTimes = new long[2];
+      taskStartTimes.set(startTimes);
+    }
+    startTimes[0] = SystemClock.uptimeMillis();
+    startTimes[1] = SystemClock.currentThreadTimeMillis();
+  }
+
+  @Override
+  protected void afterExecute(Runnable r, Throwable t) {
+    super.afterExecute(r, t);
+    long[] startTimes = taskStartTimes.get();
+    long now = SystemClock.uptimeMillis();
+    long wallMs = now - startTimes[0];
+    long cpuMs = SystemClock.currentThreadTimeMillis() - startTimes[1];
+
+    int threadCount;
+    synchronized (statsLock) {
+      completedTasks++;
+      taskWallMs += wallMs;
+      taskCpuMs += cpuMs;
+      long elapsedMs = now - windowStartMs;
+      if (elapsedMs < WINDOW_MS) {
+        return;
+      }
+      threadCount =
+          tuner.onWindow(
+              completedTasks,
+              elapsedMs,
+              taskCpuMs,
+              taskWallMs,
+              getQueue().size(),
+              // Includes the thread running this method.
+              getActiveCount());
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(
+            TAG,
+            "Completed "
+                + completedTasks
+                + " tasks in "
+                + elapsedMs
+                + "ms using "
+                + taskCpuMs
+                + "ms of CPU time and "
+                + taskWallMs
+                + "ms of wall time, thread count: "
+                + threadCount);
+      }
+      windowStartMs = now;
+      completedTasks = 0;
+      taskCpuMs = 0;
+      taskWallMs = 0;
+    }
+    setThreadCount(threadCount);
+  }
+
+  private void setThreadCount(int threadCount) {
+    // The core pool size can never be larger than the maximum pool size.
+    if (threadCount > getMaximumPoolSize()) {
+      setMaximumPoolSize(threadCount);
+      setCorePoolSize(threadCount);
+    } else if (threadCount < getCorePoolSize()) {
+      setCorePoolSize(threadCount);
+      setMaximumPoolSize(threadCount);
+    }
+  }
+}
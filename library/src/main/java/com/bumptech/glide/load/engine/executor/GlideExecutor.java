@@ -6,10 +6,13 @@ import android.text.TextUtils;
 import android.util.Log;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.bumptech.glide.util.Synthetic;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -51,6 +54,18 @@ public final class GlideExecutor implements ExecutorService {
 
   private static final String DEFAULT_ANIMATION_EXECUTOR_NAME = "animation";
 
+  /**
+   * The default thread name prefix for executors used to fetch data not found in cache from remote
+   * sources.
+   */
+  private static final String DEFAULT_SOURCE_FETCH_EXECUTOR_NAME = "source-fetch";
+
+  /**
+   * The default thread count for executors used to fetch data not found in cache from remote
+   * sources.
+   */
+  private static final int DEFAULT_SOURCE_FETCH_EXECUTOR_THREADS = 16;
+
   /** The default keep alive time for threads in our cached thread pools in milliseconds. */
   private static final long KEEP_ALIVE_TIME_MS = TimeUnit.SECONDS.toMillis(10);
 
@@ -62,6 +77,7 @@ public final class GlideExecutor implements ExecutorService {
   private static volatile int bestThreadCount;
 
   private final ExecutorService delegate;
+  private final int maxQueueSize;
 
   /**
    * Returns a new {@link Builder} with the {@link #DEFAULT_DISK_CACHE_EXECUTOR_THREADS} threads,
@@ -173,6 +189,32 @@ public final class GlideExecutor implements ExecutorService {
                 DEFAULT_SOURCE_UNLIMITED_EXECUTOR_NAME, UncaughtThrowableStrategy.DEFAULT, false)));
   }
 
+  /**
+   * Returns a new {@link Builder} with {@link #DEFAULT_SOURCE_FETCH_EXECUTOR_THREADS} threads that
+   * time out after {@link #KEEP_ALIVE_TIME_MS} without work, the {@link
+   * #DEFAULT_SOURCE_FETCH_EXECUTOR_NAME} thread name prefix and the {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * <p>Source fetch executors are only used to wait on blocking network I/O, so they have many more
+   * threads than source executors, which are sized for decoding.
+   *
+   * <p>Source fetch executors allow network operations on their threads.
+   *
+   * @see com.bumptech.glide.GlideBuilder#setSourceFetchExecutor(GlideExecutor)
+   */
+  public static GlideExecutor.Builder newSourceFetchBuilder() {
+    return new GlideExecutor.Builder(/*preventNetworkOperations=*/ false)
+        .setThreadCount(DEFAULT_SOURCE_FETCH_EXECUTOR_THREADS)
+        .setThreadTimeoutMillis(KEEP_ALIVE_TIME_MS)
+        .setName(DEFAULT_SOURCE_FETCH_EXECUTOR_NAME);
+  }
+
+  /** Shortcut for calling {@link Builder#build()} on {@link #newSourceFetchBuilder()}. */
+  public static GlideExecutor newSourceFetchExecutor() {
+    return newSourceFetchBuilder().build();
+  }
+
   /**
    * Returns a new fixed thread pool that defaults to either one or two threads depending on the
    * number of available cores to use when loading frames of animations.
@@ -212,12 +254,65 @@ public final class GlideExecutor implements ExecutorService {
 
   @VisibleForTesting
   GlideExecutor(ExecutorService delegate) {
+    this(delegate, Builder.UNLIMITED_QUEUE_SIZE);
+  }
+
+  private GlideExecutor(ExecutorService delegate, int maxQueueSize) {
     this.delegate = delegate;
+    this.maxQueueSize = maxQueueSize;
   }
 
   @Override
   public void execute(@NonNull Runnable command) {
     delegate.execute(command);
+    if (maxQueueSize != Builder.UNLIMITED_QUEUE_SIZE) {
+      dropExcessTasks();
+    }
+  }
+
+  private void dropExcessTasks() {
+    BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) delegate).getQueue();
+    while (queue.size() > maxQueueSize) {
+      OrderedTask last = findLastOrderedTask(queue);
+      // If another thread removed the task first, the queue has already shrunk.
+      if (last == null || !queue.remove(last)) {
+        return;
+      }
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Dropped task from full queue: " + last);
+      }
+      last.onDropped();
+    }
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static OrderedTask findLastOrderedTask(BlockingQueue<Runnable> queue) {
+    Comparator<? super Runnable> comparator =
+        ((PriorityBlockingQueue<Runnable>) queue).comparator();
+    Runnable last = null;
+    for (Runnable task : queue) {
+      if (!(task instanceof OrderedTask) || ((OrderedTask) task).isStarted()) {
+        continue;
+      }
+      if (last == null
+          || (comparator != null
+                  ? comparator.compare(task, last)
+                  : ((Comparable<Runnable>) task).compareTo(last))
+              > 0) {
+        last = task;
+      }
+    }
+    return (OrderedTask) last;
+  }
+
+  /**
+   * Removes the given task from this executor's queue if it hasn't started running yet.
+   *
+   * @return {@code true} if the task was removed and so won't run unless it's submitted again.
+   */
+  public boolean remove(@NonNull Runnable task) {
+    return delegate instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) delegate).remove(task);
   }
 
   @NonNull
@@ -353,6 +448,61 @@ public final class GlideExecutor implements ExecutorService {
     void handle(Throwable t);
   }
 
+  /**
+   * A task with a priority and a creation order that can be run out of order by {@link
+   * GlideExecutor}s built with {@link Builder#setLastInFirstOut(boolean)} or dropped by those built
+   * with {@link Builder#setMaxQueueSize(int)}.
+   */
+  public interface OrderedTask extends Runnable {
+    /** Returns the priority of the task, where tasks with lower values run first. */
+    int getPriority();
+
+    /** Returns a value that's larger for tasks that were created later. */
+    int getOrder();
+
+    /**
+     * Returns {@code true} if the task has already run and was submitted again to continue, for
+     * example once the data it was waiting for is ready.
+     *
+     * <p>Started tasks may hold resources like open streams, so they're never dropped and, with
+     * {@link Builder#setLastInFirstOut(boolean)}, run before tasks with the same priority that
+     * haven't started.
+     */
+    boolean isStarted();
+
+    /**
+     * Called on the thread that submitted a newer task when this task is removed from a full queue
+     * instead of being run.
+     *
+     * <p>Implementations must not block and must release anything the task holds.
+     */
+    void onDropped();
+  }
+
+  /**
+   * Orders {@link OrderedTask}s by priority, then started tasks before those that haven't started
+   * and then from newest to oldest, and any other tasks by their natural ordering.
+   */
+  private static final class LastInFirstOutComparator implements Comparator<Runnable> {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compare(Runnable lhs, Runnable rhs) {
+      if (lhs instanceof OrderedTask && rhs instanceof OrderedTask) {
+        OrderedTask left = (OrderedTask) lhs;
+        OrderedTask right = (OrderedTask) rhs;
+        int result = left.getPriority() - right.getPriority();
+        if (result != 0) {
+          return result;
+        } else if (left.isStarted() != right.isStarted()) {
+          return left.isStarted() ? -1 : 1;
+        }
+        return right.getOrder() - left.getOrder();
+      }
+      return ((Comparable<Runnable>) lhs).compareTo(rhs);
+    }
+  }
+
   /**
    * A {@link java.util.concurrent.ThreadFactory} that builds threads slightly above priority {@link
    * android.os.Process#THREAD_PRIORITY_BACKGROUND}.
@@ -409,6 +559,12 @@ public final class GlideExecutor implements ExecutorService {
      */
     public static final long NO_THREAD_TIMEOUT = 0L;
 
+    /** Allows any number of tasks to wait to run if provided to {@link #setMaxQueueSize(int)}. */
+    public static final int UNLIMITED_QUEUE_SIZE = 0;
+
+    // Matches PriorityBlockingQueue's default.
+    private static final int INITIAL_QUEUE_CAPACITY = 11;
+
     private final boolean preventNetworkOperations;
 
     private int corePoolSize;
@@ -419,6 +575,10 @@ public final class GlideExecutor implements ExecutorService {
 
     private String name;
     private long threadTimeoutMillis;
+    private boolean isLastInFirstOut;
+    private int minAdaptiveThreadCount;
+    private int maxAdaptiveThreadCount;
+    private int maxQueueSize = UNLIMITED_QUEUE_SIZE;
 
     @Synthetic
     Builder(boolean preventNetworkOperations) {
@@ -443,6 +603,34 @@ public final class GlideExecutor implements ExecutorService {
       return this;
     }
 
+    /**
+     * Lets the executor grow and shrink the number of threads it uses between the given bounds
+     * while it runs, starting from the count given to {@link #setThreadCount(int)}.
+     *
+     * <p>{@link GlideExecutor#calculateBestThreadCount()} picks a thread count once, based only on
+     * the number of cores, which underuses devices with many fast cores, particularly when tasks
+     * are waiting on the network, and overloads devices with a few slow cores. Adaptive executors
+     * instead measure throughput, the number of waiting tasks and how much of each task's time is
+     * spent on the CPU once a second. They add a thread while tasks are waiting and either tasks
+     * are mostly blocked or there are spare cores, remove it again if throughput drops as a result,
+     * for example because of slow cores or thermal throttling, and remove threads that are idle.
+     *
+     * @param minThreadCount The minimum number of threads to use.
+     * @param maxThreadCount The maximum number of threads to use.
+     */
+    // Public API.
+    @SuppressWarnings("unused")
+    public Builder setAdaptiveThreadCount(
+        @IntRange(from = 1) int minThreadCount, @IntRange(from = 1) int maxThreadCount) {
+      if (minThreadCount < 1 || maxThreadCount < minThreadCount) {
+        throw new IllegalArgumentException(
+            "Invalid thread counts, min: " + minThreadCount + ", max: " + maxThreadCount);
+      }
+      minAdaptiveThreadCount = minThreadCount;
+      maxAdaptiveThreadCount = maxThreadCount;
+      return this;
+    }
+
     /**
      * Sets the {@link UncaughtThrowableStrategy} to use for unexpected exceptions thrown by tasks
      * on {@link GlideExecutor}s built by this {@code Builder}.
@@ -461,26 +649,79 @@ public final class GlideExecutor implements ExecutorService {
       return this;
     }
 
+    /**
+     * Runs {@link OrderedTask}s with the same priority, like Glide's loads, starting with the most
+     * recently created rather than the oldest.
+     *
+     * <p>Useful for source executors in apps with long lists, where the most recently requested
+     * images are the ones that are on screen after a fast scroll.
+     */
+    // Public API.
+    @SuppressWarnings("unused")
+    public Builder setLastInFirstOut(boolean isLastInFirstOut) {
+      this.isLastInFirstOut = isLastInFirstOut;
+      return this;
+    }
+
+    /**
+     * Limits the number of tasks that can wait to run.
+     *
+     * <p>When more tasks are waiting, the {@link OrderedTask} that hasn't started and would run
+     * last is removed from the queue and {@link OrderedTask#onDropped()} is called on it. When used
+     * with {@link #setLastInFirstOut(boolean)}, that's the oldest task with the lowest priority.
+     * Glide's loads fail when they're dropped. Other tasks and {@link OrderedTask#isStarted()
+     * started} tasks are never dropped, so the queue may exceed the limit.
+     *
+     * <p>Use {@link #UNLIMITED_QUEUE_SIZE} to remove a previously set limit.
+     */
+    // Public API.
+    @SuppressWarnings("unused")
+    public Builder setMaxQueueSize(@IntRange(from = 0) int maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+      return this;
+    }
+
     /** Builds a new {@link GlideExecutor} with any previously specified options. */
     public GlideExecutor build() {
       if (TextUtils.isEmpty(name)) {
         throw new IllegalArgumentException(
             "Name must be non-null and non-empty, but given: " + name);
       }
-      ThreadPoolExecutor executor =
-          new ThreadPoolExecutor(
-              corePoolSize,
-              maximumPoolSize,
-              /*keepAliveTime=*/ threadTimeoutMillis,
-              TimeUnit.MILLISECONDS,
-              new PriorityBlockingQueue<Runnable>(),
-              new DefaultThreadFactory(name, uncaughtThrowableStrategy, preventNetworkOperations));
+      PriorityBlockingQueue<Runnable> queue =
+          isLastInFirstOut
+              ? new PriorityBlockingQueue<>(INITIAL_QUEUE_CAPACITY, new LastInFirstOutComparator())
+              : new PriorityBlockingQueue<Runnable>();
+      ThreadFactory threadFactory =
+          new DefaultThreadFactory(name, uncaughtThrowableStrategy, preventNetworkOperations);
+      ThreadPoolExecutor executor;
+      if (maxAdaptiveThreadCount > 0) {
+        executor =
+            new AdaptiveThreadPoolExecutor(
+                new ThreadCountTuner(
+                    minAdaptiveThreadCount,
+                    maxAdaptiveThreadCount,
+                    RuntimeCompat.availableProcessors(),
+                    /*threadCount=*/ corePoolSize),
+                /*keepAliveTime=*/ threadTimeoutMillis,
+                TimeUnit.MILLISECONDS,
+                queue,
+                threadFactory);
+      } else {
+        executor =
+            new ThreadPoolExecutor(
+                corePoolSize,
+                maximumPoolSize,
+                /*keepAliveTime=*/ threadTimeoutMillis,
+                TimeUnit.MILLISECONDS,
+                queue,
+                threadFactory);
+      }
 
       if (threadTimeoutMillis != NO_THREAD_TIMEOUT) {
         executor.allowCoreThreadTimeOut(true);
       }
 
-      return new GlideExecutor(executor);
+      return new GlideExecutor(executor, maxQueueSize);
     }
   }
 }
@@ -0,0 +1,94 @@
+package com.bumptech.glide.load.engine.executor;
+
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Picks the number of threads for an {@link AdaptiveThreadPoolExecutor} from statistics about the
+ * tasks it ran in each window of time.
+ *
+ * <p>The thread count is only ever changed by one thread per window:
+ *
+ * <ul>
+ *   <li>If the previous window added a thread and throughput dropped, the thread is removed again
+ *       and the count is held for a while. Adding threads doesn't help when the extra threads run
+ *       on slow cores, when the device is thermally throttled, or when tasks contend with each
+ *       other.
+ *   <li>If tasks are waiting, a thread is added when tasks spend most of their time blocked,
+ *       typically on I/O, or when there are fewer threads than cores.
+ *   <li>If no tasks are waiting and some threads are idle, a thread is removed.
+ * </ul>
+ */
+final class ThreadCountTuner {
+  /** The fraction of wall time spent on the CPU below which tasks are considered I/O bound. */
+  @VisibleForTesting static final float IO_BOUND_CPU_RATIO = 0.5f;
+  /** The fraction by which throughput has to drop after adding a thread to remove it again. */
+  @VisibleForTesting static final float THROUGHPUT_TOLERANCE = 0.1f;
+  /** The number of windows in which no threads are added after removing an unhelpful thread. */
+  @VisibleForTesting static final int WINDOWS_TO_HOLD = 10;
+
+  private final int minThreadCount;
+  private final int maxThreadCount;
+  private final int coreCount;
+
+  private int threadCount;
+  private int lastChange;
+  private float lastThroughput;
+  private int windowsToHold;
+
+  ThreadCountTuner(int minThreadCount, int maxThreadCount, int coreCount, int threadCount) {
+    this.minThreadCount = minThreadCount;
+    this.maxThreadCount = maxThreadCount;
+    this.coreCount = coreCount;
+    this.threadCount = clamp(threadCount);
+  }
+
+  int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Returns the number of threads to use in the next window.
+   *
+   * @param completedTasks The number of tasks that finished in the window.
+   * @param elapsedMs The length of the window.
+   * @param taskCpuMs The total CPU time used by the tasks that finished in the window.
+   * @param taskWallMs The total wall time taken by the tasks that finished in the window.
+   * @param queueSize The number of tasks waiting to run at the end of the window.
+   * @param activeCount The number of threads running tasks at the end of the window.
+   */
+  int onWindow(
+      int completedTasks,
+      long elapsedMs,
+      long taskCpuMs,
+      long taskWallMs,
+      int queueSize,
+      int activeCount) {
+    float throughput = elapsedMs > 0 ? completedTasks * 1000f / elapsedMs : 0f;
+    float cpuRatio = taskWallMs > 0 ? taskCpuMs / (float) taskWallMs : 1f;
+    if (windowsToHold > 0) {
+      windowsToHold--;
+    }
+
+    int change = 0;
+    if (lastChange > 0 && throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+      change = -1;
+      windowsToHold = WINDOWS_TO_HOLD;
+    } else if (queueSize > 0
+        && windowsToHold == 0
+        && (cpuRatio < IO_BOUND_CPU_RATIO || threadCount < coreCount)) {
+      change = 1;
+    } else if (queueSize == 0 && activeCount < threadCount) {
+      change = -1;
+    }
+
+    int next = clamp(threadCount + change);
+    lastChange = next - threadCount;
+    lastThroughput = throughput;
+    threadCount = next;
+    return next;
+  }
+
+  private int clamp(int count) {
+    return Math.max(minThreadCount, Math.min(maxThreadCount, count));
+  }
+}
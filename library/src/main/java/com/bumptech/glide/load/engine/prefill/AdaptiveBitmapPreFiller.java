@@ -0,0 +1,166 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue.IdleHandler;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Synthetic;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Pre-fills the {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool} with the sizes of
+ * {@link android.graphics.Bitmap}s that were most commonly requested in previous sessions.
+ *
+ * <p>Unlike {@link com.bumptech.glide.Glide#preFillBitmapPool(PreFillType.Builder...)}, callers
+ * don't need to know the sizes to pre-fill up front. Requests are counted by a {@link
+ * BitmapSizeHistogram}, which is written to a file by {@link #save()}, typically when the app's UI
+ * is hidden. On the next launch {@link #preFillFromHistory(BitmapPreFiller)} reads the file on a
+ * background thread and pre-fills the most common types the next time the main thread is idle, so
+ * that the first loads after launch reuse {@link android.graphics.Bitmap}s rather than allocate
+ * them.
+ */
+public final class AdaptiveBitmapPreFiller {
+  private static final String TAG = "AdaptivePreFiller";
+  /** The name of the file in the app's cache directory used by default to store counts. */
+  public static final String DEFAULT_FILE_NAME = "glide_bitmap_size_histogram";
+  /** The maximum number of distinct sizes and configs to pre-fill. */
+  @VisibleForTesting static final int MAX_PRE_FILL_TYPES = 4;
+  /**
+   * The minimum count a type must have to be pre-filled.
+   *
+   * <p>Pre-filling requests one {@link android.graphics.Bitmap} of each type from the pool and
+   * counts are halved each session, so types requested only by pre-filling settle at a count of
+   * two and stop being pre-filled.
+   */
+  @VisibleForTesting static final int MIN_REQUESTS_TO_PRE_FILL = 3;
+
+  private final BitmapSizeHistogram histogram;
+  private final File file;
+  private final Executor executor;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  /**
+   * Constructor for AdaptiveBitmapPreFiller.
+   *
+   * @param histogram The histogram that's counting requests in this session.
+   * @param file The file to read counts from previous sessions from and to write counts to.
+   * @param executor The {@link Executor} to read and write the file on.
+   */
+  public AdaptiveBitmapPreFiller(
+      @NonNull BitmapSizeHistogram histogram, @NonNull File file, @NonNull Executor executor) {
+    this.histogram = histogram;
+    this.file = file;
+    this.executor = executor;
+  }
+
+  /**
+   * Adds the counts saved by previous sessions to the histogram and uses the given {@link
+   * BitmapPreFiller} to pre-fill the most common types once the main thread is idle.
+   */
+  public void preFillFromHistory(@NonNull final BitmapPreFiller preFiller) {
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            read();
+            List<PreFillType.Builder> types =
+                histogram.getMostCommon(MAX_PRE_FILL_TYPES, MIN_REQUESTS_TO_PRE_FILL);
+            if (types.isEmpty()) {
+              return;
+            }
+            final PreFillType.Builder[] toPreFill = types.toArray(new PreFillType.Builder[0]);
+            mainHandler.post(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    Looper.myQueue()
+                        .addIdleHandler(
+                            new IdleHandler() {
+                              @Override
+                              public boolean queueIdle() {
+                                preFiller.preFill(toPreFill);
+                                return false;
+                              }
+                            });
+                  }
+                });
+          }
+        });
+  }
+
+  /** Writes the counts in the histogram to the file in the background. */
+  public void save() {
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            write();
+          }
+        });
+  }
+
+  @Synthetic
+  void read() {
+    if (!file.exists()) {
+      return;
+    }
+    InputStream is = null;
+    try {
+      is = new BufferedInputStream(new FileInputStream(file));
+      histogram.readFrom(is);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to read bitmap size histogram", e);
+      }
+    } finally {
+      if (is != null) {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  @Synthetic
+  void write() {
+    // Write to a temporary file first so that a partially written file is never read.
+    File temp = new File(file.getPath() + ".tmp");
+    OutputStream os = null;
+    boolean success = false;
+    try {
+      os = new BufferedOutputStream(new FileOutputStream(temp));
+      histogram.writeTo(os);
+      success = true;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to write bitmap size histogram", e);
+      }
+    } finally {
+      if (os != null) {
+        try {
+          os.close();
+        } catch (IOException e) {
+          success = false;
+        }
+      }
+    }
+    if (!success || !temp.renameTo(file)) {
+      if (!temp.delete() && Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to delete temporary file: " + temp);
+      }
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Synthetic;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the number of times {@link Bitmap}s of each size and {@link Bitmap.Config} are requested
+ * so that the most common types can be pre-filled in a later session.
+ *
+ * <p>Requests are recorded on every {@link Bitmap} pool get, so they're first counted in one of
+ * several stripes chosen by the recording thread, each guarded by its own lock. The stripes are
+ * merged in to the histogram before it's read or written, or when a stripe holds {@link
+ * #MAX_TYPES} types.
+ *
+ * <p>At most {@link #MAX_TYPES} types are tracked. When a new type is merged and the histogram is
+ * full, it replaces the least commonly requested type and starts from that type's count, so a type
+ * that's requested often enough is always tracked, even if it's new. Counts read from a previous
+ * session are halved so that types that were common a long time ago are eventually forgotten.
+ */
+public final class BitmapSizeHistogram {
+  /** The maximum number of distinct sizes and configs that are tracked. */
+  @VisibleForTesting static final int MAX_TYPES = 64;
+  /** The number of stripes, enough to make contention between decode threads unlikely. */
+  private static final int STRIPE_COUNT = 8;
+
+  private static final int VERSION = 1;
+
+  private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+  // Guarded by this.
+  private final Map<Type, Integer> counts = new HashMap<>();
+
+  public BitmapSizeHistogram() {
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /** Records a request for a {@link Bitmap} with the given size and config. */
+  public void record(int width, int height, @Nullable Bitmap.Config config) {
+    if (width <= 0 || height <= 0) {
+      return;
+    }
+    Type type = new Type(width, height, config);
+    Stripe stripe = stripes[(int) (Thread.currentThread().getId() % STRIPE_COUNT)];
+    boolean isStripeFull;
+    synchronized (stripe) {
+      Integer count = stripe.counts.get(type);
+      stripe.counts.put(type, count != null ? count + 1 : 1);
+      isStripeFull = stripe.counts.size() >= MAX_TYPES;
+    }
+    if (isStripeFull) {
+      synchronized (this) {
+        merge(stripe);
+      }
+    }
+  }
+
+  /**
+   * Returns {@link PreFillType.Builder}s for up to {@code maxTypes} of the most commonly requested
+   * types that were requested at least {@code minCount} times, weighted by their counts.
+   */
+  @NonNull
+  public synchronized List<PreFillType.Builder> getMostCommon(int maxTypes, int minCount) {
+    mergeStripes();
+    List<Map.Entry<Type, Integer>> entries = new ArrayList<>(counts.entrySet());
+    Collections.sort(
+        entries,
+        new Comparator<Map.Entry<Type, Integer>>() {
+          @Override
+          public int compare(Map.Entry<Type, Integer> o1, Map.Entry<Type, Integer> o2) {
+            return o2.getValue().compareTo(o1.getValue());
+          }
+        });
+    List<PreFillType.Builder> result = new ArrayList<>();
+    for (Map.Entry<Type, Integer> entry : entries) {
+      if (result.size() >= maxTypes || entry.getValue() < minCount) {
+        break;
+      }
+      Type type = entry.getKey();
+      result.add(
+          new PreFillType.Builder(type.width, type.height)
+              .setConfig(type.config)
+              .setWeight(entry.getValue()));
+    }
+    return result;
+  }
+
+  /** Writes the counts to the given stream, which isn't closed. */
+  public synchronized void writeTo(@NonNull OutputStream os) throws IOException {
+    mergeStripes();
+    DataOutputStream out = new DataOutputStream(os);
+    out.writeInt(VERSION);
+    out.writeInt(counts.size());
+    for (Map.Entry<Type, Integer> entry : counts.entrySet()) {
+      Type type = entry.getKey();
+      out.writeInt(type.width);
+      out.writeInt(type.height);
+      out.writeUTF(type.config != null ? type.config.name() : "");
+      out.writeInt(entry.getValue());
+    }
+    out.flush();
+  }
+
+  /**
+   * Adds half of each of the counts written to the given stream by {@link #writeTo(OutputStream)}
+   * to the counts in this histogram.
+   */
+  public synchronized void readFrom(@NonNull InputStream is) throws IOException {
+    DataInputStream in = new DataInputStream(is);
+    if (in.readInt() != VERSION) {
+      return;
+    }
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      int width = in.readInt();
+      int height = in.readInt();
+      String configName = in.readUTF();
+      int count = in.readInt() / 2;
+      Bitmap.Config config = null;
+      if (!configName.isEmpty()) {
+        try {
+          config = Bitmap.Config.valueOf(configName);
+        } catch (IllegalArgumentException e) {
+          // Written by a version of Android with configs this one doesn't have.
+          continue;
+        }
+      }
+      if (count <= 0 || width <= 0 || height <= 0) {
+        continue;
+      }
+      Type type = new Type(width, height, config);
+      Integer current = counts.get(type);
+      if (current == null && counts.size() >= MAX_TYPES) {
+        continue;
+      }
+      counts.put(type, current != null ? current + count : count);
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int getCount(int width, int height, @Nullable Bitmap.Config config) {
+    mergeStripes();
+    Integer count = counts.get(new Type(width, height, config));
+    return count != null ? count : 0;
+  }
+
+  private void mergeStripes() {
+    for (Stripe stripe : stripes) {
+      merge(stripe);
+    }
+  }
+
+  private void merge(Stripe stripe) {
+    Map<Type, Integer> stripeCounts;
+    synchronized (stripe) {
+      if (stripe.counts.isEmpty()) {
+        return;
+      }
+      stripeCounts = stripe.counts;
+      stripe.counts = new HashMap<>();
+    }
+    for (Map.Entry<Type, Integer> entry : stripeCounts.entrySet()) {
+      Type type = entry.getKey();
+      Integer count = counts.get(type);
+      if (count == null && counts.size() >= MAX_TYPES) {
+        Map.Entry<Type, Integer> leastCommon = null;
+        for (Map.Entry<Type, Integer> candidate : counts.entrySet()) {
+          if (leastCommon == null || candidate.getValue() < leastCommon.getValue()) {
+            leastCommon = candidate;
+          }
+        }
+        count = leastCommon.getValue();
+        counts.remove(leastCommon.getKey());
+      }
+      counts.put(type, count != null ? count + entry.getValue() : entry.getValue());
+    }
+  }
+
+  private static final class Stripe {
+    // Guarded by this.
+    @Synthetic Map<Type, Integer> counts = new HashMap<>();
+  }
+
+  private static final class Type {
+    @Synthetic final int width;
+    @Synthetic final int height;
+    @Synthetic @Nullable final Bitmap.Config config;
+
+    @Synthetic
+    Type(int width, int height, @Nullable Bitmap.Config config) {
+      this.width = width;
+      this.height = height;
+      this.config = config;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Type) {
+        Type other = (Type) o;
+        return width == other.width && height == other.height && config == other.config;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = width;
+      result = 31 * result + height;
+      result = 31 * result + (config != null ? config.hashCode() : 0);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+
+/**
+ * A {@link BitmapPool} that records the size and config of every {@link Bitmap} requested from
+ * another {@link BitmapPool} in a {@link BitmapSizeHistogram}.
+ */
+public final class RecordingBitmapPool implements BitmapPool {
+  private final BitmapPool wrapped;
+  private final BitmapSizeHistogram histogram;
+
+  public RecordingBitmapPool(
+      @NonNull BitmapPool wrapped, @NonNull BitmapSizeHistogram histogram) {
+    this.wrapped = wrapped;
+    this.histogram = histogram;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return wrapped.getMaxSize();
+  }
+
+  @Override
+  public void setSizeMultiplier(float sizeMultiplier) {
+    wrapped.setSizeMultiplier(sizeMultiplier);
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    wrapped.put(bitmap);
+  }
+
+  @NonNull
+  @Override
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    histogram.record(width, height, config);
+    return wrapped.get(width, height, config);
+  }
+
+  @NonNull
+  @Override
+  public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+    histogram.record(width, height, config);
+    return wrapped.getDirty(width, height, config);
+  }
+
+  @Override
+  public void clearMemory() {
+    wrapped.clearMemory();
+  }
+
+  @Override
+  public void trimMemory(int level) {
+    wrapped.trimMemory(level);
+  }
+}
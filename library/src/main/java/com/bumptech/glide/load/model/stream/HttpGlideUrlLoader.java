@@ -4,7 +4,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.HttpRevalidationCache;
 import com.bumptech.glide.load.data.HttpUrlFetcher;
+import com.bumptech.glide.load.data.PartialDownloadStore;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.ModelCache;
 import com.bumptech.glide.load.model.ModelLoader;
@@ -29,13 +31,40 @@ public class HttpGlideUrlLoader implements ModelLoader<GlideUrl, InputStream> {
       Option.memory("com.bumptech.glide.load.model.stream.HttpGlideUrlLoader.Timeout", 2500);
 
   @Nullable private final ModelCache<GlideUrl, GlideUrl> modelCache;
+  @Nullable private final PartialDownloadStore partialDownloadStore;
+  @Nullable private final HttpRevalidationCache revalidationCache;
 
   public HttpGlideUrlLoader() {
     this(null);
   }
 
   public HttpGlideUrlLoader(@Nullable ModelCache<GlideUrl, GlideUrl> modelCache) {
+    this(modelCache, /*partialDownloadStore=*/ null);
+  }
+
+  /**
+   * @param partialDownloadStore If not {@code null}, where incomplete downloads are kept so that
+   *     they can be resumed rather than restarted.
+   */
+  public HttpGlideUrlLoader(
+      @Nullable ModelCache<GlideUrl, GlideUrl> modelCache,
+      @Nullable PartialDownloadStore partialDownloadStore) {
+    this(modelCache, partialDownloadStore, /*revalidationCache=*/ null);
+  }
+
+  /**
+   * @param partialDownloadStore If not {@code null}, where incomplete downloads are kept so that
+   *     they can be resumed rather than restarted.
+   * @param revalidationCache If not {@code null}, where responses are kept so that they can be
+   *     revalidated with conditional requests rather than downloaded again.
+   */
+  public HttpGlideUrlLoader(
+      @Nullable ModelCache<GlideUrl, GlideUrl> modelCache,
+      @Nullable PartialDownloadStore partialDownloadStore,
+      @Nullable HttpRevalidationCache revalidationCache) {
     this.modelCache = modelCache;
+    this.partialDownloadStore = partialDownloadStore;
+    this.revalidationCache = revalidationCache;
   }
 
   @Override
@@ -52,7 +81,8 @@ public class HttpGlideUrlLoader implements ModelLoader<GlideUrl, InputStream> {
       }
     }
     int timeout = options.get(TIMEOUT);
-    return new LoadData<>(url, new HttpUrlFetcher(url, timeout));
+    return new LoadData<>(
+        url, new HttpUrlFetcher(url, timeout, partialDownloadStore, revalidationCache));
   }
 
   @Override
@@ -63,11 +93,68 @@ public class HttpGlideUrlLoader implements ModelLoader<GlideUrl, InputStream> {
   /** The default factory for {@link HttpGlideUrlLoader}s. */
   public static class Factory implements ModelLoaderFactory<GlideUrl, InputStream> {
     private final ModelCache<GlideUrl, GlideUrl> modelCache = new ModelCache<>(500);
+    @Nullable private final PartialDownloadStore partialDownloadStore;
+    @Nullable private final HttpRevalidationCache revalidationCache;
+
+    public Factory() {
+      this(/*partialDownloadStore=*/ null);
+    }
+
+    /**
+     * Creates a factory for loaders that resume incomplete downloads using range requests.
+     *
+     * <p>For example, to resume downloads that are cancelled or fail part way through, replace
+     * Glide's default factory in an {@link com.bumptech.glide.module.AppGlideModule}:
+     *
+     * <pre>{@code
+     * registry.replace(
+     *     GlideUrl.class,
+     *     InputStream.class,
+     *     new HttpGlideUrlLoader.Factory(
+     *         new PartialDownloadStore(new File(context.getCacheDir(), "partial"), maxSize)));
+     * }</pre>
+     *
+     * @param partialDownloadStore If not {@code null}, where incomplete downloads are kept.
+     */
+    public Factory(@Nullable PartialDownloadStore partialDownloadStore) {
+      this(partialDownloadStore, /*revalidationCache=*/ null);
+    }
+
+    /**
+     * Creates a factory for loaders that revalidate previously downloaded responses with
+     * conditional requests and reuse them if the server responds with {@code 304 Not Modified}.
+     *
+     * <p>Responses are only revalidated when they're fetched, so loads that should be revalidated
+     * need to skip Glide's disk cache for their source data, for example:
+     *
+     * <pre>{@code
+     * registry.replace(
+     *     GlideUrl.class,
+     *     InputStream.class,
+     *     new HttpGlideUrlLoader.Factory(
+     *         null,
+     *         new HttpRevalidationCache(new File(context.getCacheDir(), "http"), maxSize)));
+     *
+     * Glide.with(fragment)
+     *     .load(url)
+     *     .diskCacheStrategy(DiskCacheStrategy.NONE)
+     *     .into(imageView);
+     * }</pre>
+     *
+     * @param partialDownloadStore If not {@code null}, where incomplete downloads are kept.
+     * @param revalidationCache If not {@code null}, where responses are kept for revalidation.
+     */
+    public Factory(
+        @Nullable PartialDownloadStore partialDownloadStore,
+        @Nullable HttpRevalidationCache revalidationCache) {
+      this.partialDownloadStore = partialDownloadStore;
+      this.revalidationCache = revalidationCache;
+    }
 
     @NonNull
     @Override
     public ModelLoader<GlideUrl, InputStream> build(MultiModelLoaderFactory multiFactory) {
-      return new HttpGlideUrlLoader(modelCache);
+      return new HttpGlideUrlLoader(modelCache, partialDownloadStore, revalidationCache);
     }
 
     @Override
@@ -0,0 +1,200 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+/**
+ * Incrementally parses a JPEG one byte at a time to find the offsets at which each scan of a
+ * progressive JPEG ends.
+ *
+ * <p>Progressive JPEGs store the image as a series of scans, each of which refines the image
+ * produced by the previous scans. Decoding the bytes up to the end of any scan produces a complete,
+ * if low quality, image.
+ */
+final class ProgressiveJpegParser {
+  private static final int MARKER_FIRST_BYTE = 0xFF;
+  private static final int SOI = 0xD8;
+  private static final int EOI = 0xD9;
+  private static final int SOS = 0xDA;
+  private static final int TEM = 0x01;
+  private static final int RST0 = 0xD0;
+  private static final int RST7 = 0xD7;
+  private static final int SOF0 = 0xC0;
+  private static final int SOF15 = 0xCF;
+  private static final int DHT = 0xC4;
+  private static final int JPG = 0xC8;
+  private static final int DAC = 0xCC;
+  private static final int SOF2 = 0xC2;
+  private static final int SOF6 = 0xC6;
+  private static final int SOF10 = 0xCA;
+  private static final int SOF14 = 0xCE;
+  // The offsets of the height and width in a start of frame segment.
+  private static final int SOF_HEIGHT_OFFSET = 1;
+  private static final int SOF_WIDTH_OFFSET = 3;
+
+  private enum State {
+    READ_SOI_FIRST_BYTE,
+    READ_SOI_SECOND_BYTE,
+    READ_MARKER_FIRST_BYTE,
+    READ_MARKER_SECOND_BYTE,
+    READ_SEGMENT_LENGTH_FIRST_BYTE,
+    READ_SEGMENT_LENGTH_SECOND_BYTE,
+    SKIP_SEGMENT,
+    READ_SCAN_DATA,
+    READ_SCAN_DATA_MARKER,
+    DONE
+  }
+
+  private State state = State.READ_SOI_FIRST_BYTE;
+  private boolean isJpeg = true;
+  private boolean isProgressive;
+  private boolean hasFrame;
+  private int marker;
+  private int segmentLength;
+  private int segmentOffset;
+  private int width;
+  private int height;
+  private int scanCount;
+
+  /**
+   * Parses the next byte and returns {@code true} if it ends a scan that's followed by another
+   * scan.
+   *
+   * <p>When this method returns {@code true}, the given byte is the second byte of the marker that
+   * follows the scan, the first byte of which is the {@code 0xFF} preceding the given byte.
+   */
+  boolean parse(int b) {
+    switch (state) {
+      case READ_SOI_FIRST_BYTE:
+        return expect(b == MARKER_FIRST_BYTE, State.READ_SOI_SECOND_BYTE);
+      case READ_SOI_SECOND_BYTE:
+        return expect(b == SOI, State.READ_MARKER_FIRST_BYTE);
+      case READ_MARKER_FIRST_BYTE:
+        return expect(b == MARKER_FIRST_BYTE, State.READ_MARKER_SECOND_BYTE);
+      case READ_MARKER_SECOND_BYTE:
+        onMarker(b);
+        return false;
+      case READ_SEGMENT_LENGTH_FIRST_BYTE:
+        segmentLength = b << 8;
+        state = State.READ_SEGMENT_LENGTH_SECOND_BYTE;
+        return false;
+      case READ_SEGMENT_LENGTH_SECOND_BYTE:
+        // The length includes the two bytes of the length itself.
+        segmentLength = (segmentLength | b) - 2;
+        segmentOffset = 0;
+        onSegmentByte(-1);
+        return false;
+      case SKIP_SEGMENT:
+        onSegmentByte(b);
+        return false;
+      case READ_SCAN_DATA:
+        if (b == MARKER_FIRST_BYTE) {
+          state = State.READ_SCAN_DATA_MARKER;
+        }
+        return false;
+      case READ_SCAN_DATA_MARKER:
+        return onScanDataMarker(b);
+      case DONE:
+        return false;
+      default:
+        throw new IllegalStateException("Unrecognized state: " + state);
+    }
+  }
+
+  /** Returns {@code true} if the data may still turn out to be a progressive JPEG. */
+  boolean isPotentiallyProgressive() {
+    return isJpeg && (!hasFrame || isProgressive);
+  }
+
+  /** Returns {@code true} once the end of the image has been reached or the data isn't a JPEG. */
+  boolean isDone() {
+    return state == State.DONE;
+  }
+
+  /** Returns the number of scans that have ended so far. */
+  int getScanCount() {
+    return scanCount;
+  }
+
+  /** Returns the width of the image, or {@code 0} if it hasn't been parsed yet. */
+  int getWidth() {
+    return width;
+  }
+
+  /** Returns the height of the image, or {@code 0} if it hasn't been parsed yet. */
+  int getHeight() {
+    return height;
+  }
+
+  private boolean expect(boolean isExpected, State next) {
+    if (isExpected) {
+      state = next;
+    } else {
+      isJpeg = false;
+      state = State.DONE;
+    }
+    return false;
+  }
+
+  private void onMarker(int b) {
+    marker = b;
+    if (b == MARKER_FIRST_BYTE) {
+      // Fill byte, the marker follows.
+      return;
+    } else if (b == EOI) {
+      state = State.DONE;
+    } else if (b == SOI || b == TEM || (b >= RST0 && b <= RST7)) {
+      // Markers without a segment.
+      state = State.READ_MARKER_FIRST_BYTE;
+    } else {
+      if (isStartOfFrame(b)) {
+        hasFrame = true;
+        isProgressive = b == SOF2 || b == SOF6 || b == SOF10 || b == SOF14;
+      }
+      state = State.READ_SEGMENT_LENGTH_FIRST_BYTE;
+    }
+  }
+
+  private void onSegmentByte(int b) {
+    if (b != -1) {
+      if (isStartOfFrame(marker)) {
+        readFrameDimension(b);
+      }
+      segmentOffset++;
+    }
+    if (segmentOffset < segmentLength) {
+      state = State.SKIP_SEGMENT;
+    } else if (marker == SOS) {
+      state = State.READ_SCAN_DATA;
+    } else {
+      state = State.READ_MARKER_FIRST_BYTE;
+    }
+  }
+
+  private void readFrameDimension(int b) {
+    if (segmentOffset == SOF_HEIGHT_OFFSET) {
+      height = b << 8;
+    } else if (segmentOffset == SOF_HEIGHT_OFFSET + 1) {
+      height |= b;
+    } else if (segmentOffset == SOF_WIDTH_OFFSET) {
+      width = b << 8;
+    } else if (segmentOffset == SOF_WIDTH_OFFSET + 1) {
+      width |= b;
+    }
+  }
+
+  private boolean onScanDataMarker(int b) {
+    if (b == 0 || (b >= RST0 && b <= RST7)) {
+      // A stuffed 0xFF byte or a restart marker, both of which are part of the scan.
+      state = State.READ_SCAN_DATA;
+      return false;
+    } else if (b == MARKER_FIRST_BYTE) {
+      // Fill byte, the marker follows.
+      return false;
+    }
+    scanCount++;
+    onMarker(b);
+    return state != State.DONE;
+  }
+
+  private static boolean isStartOfFrame(int marker) {
+    return marker >= SOF0 && marker <= SOF15 && marker != DHT && marker != JPG && marker != DAC;
+  }
+}
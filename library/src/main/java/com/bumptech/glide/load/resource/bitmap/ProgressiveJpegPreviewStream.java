@@ -0,0 +1,166 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Passes through the bytes of a progressive JPEG and decodes low quality previews of the image as
+ * the scans that make it up are read.
+ *
+ * <p>A preview is decoded when a scan ends once the number of bytes read has at least doubled since
+ * the previous preview, so the total cost of decoding previews is at most about twice the cost of
+ * decoding the full image. Previews are decoded on the thread reading the stream, downsampled to
+ * the given target size where possible and use {@link Bitmap.Config#RGB_565}.
+ *
+ * <p>The bytes read are buffered in memory until the image turns out not to be a progressive JPEG,
+ * the image ends or {@link #MAX_BUFFER_SIZE_BYTES} are read.
+ */
+public final class ProgressiveJpegPreviewStream extends FilterInputStream {
+  private static final String TAG = "ProgressiveJpegStream";
+  @VisibleForTesting static final int MAX_BUFFER_SIZE_BYTES = 8 * 1024 * 1024;
+  private static final int INITIAL_BUFFER_SIZE_BYTES = 64 * 1024;
+  private static final int EOI = 0xD9;
+
+  /** Receives the previews decoded from a {@link ProgressiveJpegPreviewStream}. */
+  public interface PreviewListener {
+
+    /**
+     * Called on the thread reading the stream with each preview.
+     *
+     * <p>Previews are not pooled and must not be recycled.
+     */
+    void onPreviewReady(@NonNull Bitmap preview);
+  }
+
+  private final ProgressiveJpegParser parser = new ProgressiveJpegParser();
+  private final int targetWidth;
+  private final int targetHeight;
+  private final PreviewListener listener;
+  @Nullable private byte[] buffer = new byte[INITIAL_BUFFER_SIZE_BYTES];
+  private int count;
+  private int lastPreviewLength;
+
+  /**
+   * @param targetWidth The width previews should be downsampled towards, or {@link
+   *     com.bumptech.glide.request.target.Target#SIZE_ORIGINAL}.
+   * @param targetHeight The height previews should be downsampled towards, or {@link
+   *     com.bumptech.glide.request.target.Target#SIZE_ORIGINAL}.
+   */
+  public ProgressiveJpegPreviewStream(
+      @NonNull InputStream in, int targetWidth, int targetHeight, PreviewListener listener) {
+    super(in);
+    this.targetWidth = targetWidth;
+    this.targetHeight = targetHeight;
+    this.listener = listener;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int result = super.read();
+    if (result != -1 && buffer != null) {
+      observe(result);
+    }
+    return result;
+  }
+
+  @Override
+  public int read(@NonNull byte[] b, int off, int len) throws IOException {
+    int read = super.read(b, off, len);
+    for (int i = 0; i < read && buffer != null; i++) {
+      observe(b[off + i] & 0xFF);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long byteCount) throws IOException {
+    // Skipped bytes can't be observed, so stop decoding previews.
+    buffer = null;
+    return super.skip(byteCount);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer = null;
+    super.close();
+  }
+
+  private void observe(int b) {
+    if (count == buffer.length) {
+      if (count >= MAX_BUFFER_SIZE_BYTES) {
+        buffer = null;
+        return;
+      }
+      buffer = Arrays.copyOf(buffer, Math.min(count * 2, MAX_BUFFER_SIZE_BYTES));
+    }
+    buffer[count++] = (byte) b;
+
+    if (parser.parse(b)) {
+      onScanEnd();
+    } else if (parser.isDone() || !parser.isPotentiallyProgressive()) {
+      buffer = null;
+    }
+  }
+
+  private void onScanEnd() {
+    if (count < lastPreviewLength * 2) {
+      return;
+    }
+    lastPreviewLength = count;
+    // The last byte read is the second byte of the marker after the scan, replace it with the end
+    // of image marker so that the decoder sees a complete, if lower quality, image.
+    int last = count - 1;
+    byte marker = buffer[last];
+    buffer[last] = (byte) EOI;
+    Bitmap preview;
+    try {
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inSampleSize = getSampleSize();
+      options.inPreferredConfig = Bitmap.Config.RGB_565;
+      preview = BitmapFactory.decodeByteArray(buffer, 0, count, options);
+    } finally {
+      buffer[last] = marker;
+    }
+    if (preview != null) {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(
+            TAG,
+            "Decoded preview after scan "
+                + parser.getScanCount()
+                + " and "
+                + count
+                + " bytes, size: "
+                + preview.getWidth()
+                + "x"
+                + preview.getHeight());
+      }
+      listener.onPreviewReady(preview);
+    }
+  }
+
+  private int getSampleSize() {
+    int width = parser.getWidth();
+    int height = parser.getHeight();
+    if (targetWidth <= 0 || targetHeight <= 0 || width <= 0 || height <= 0) {
+      return 1;
+    }
+    int sampleSize = 1;
+    while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+}
@@ -18,6 +18,7 @@ import com.bumptech.glide.load.ResourceDecoder;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.DirectBufferPool;
 import com.bumptech.glide.load.resource.UnitTransformation;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Util;
@@ -51,13 +52,21 @@ public class ByteBufferWebpDecoder implements ResourceDecoder<ByteBuffer, WebpDr
   @SuppressWarnings("unused")
   public ByteBufferWebpDecoder(Context context) {
     this(context, Glide.get(context).getRegistry().getImageHeaderParsers(),
-        Glide.get(context).getBitmapPool(), Glide.get(context).getArrayPool());
+        Glide.get(context).getBitmapPool(), Glide.get(context).getArrayPool(),
+        Glide.get(context).getDirectBufferPool());
   }
 
   public ByteBufferWebpDecoder(
       Context context, List<ImageHeaderParser> parsers, BitmapPool bitmapPool,
       ArrayPool arrayPool) {
-    this(context, parsers, bitmapPool, arrayPool, PARSER_POOL, WEBP_DECODER_FACTORY);
+    this(context, parsers, bitmapPool, arrayPool, /*directBufferPool=*/ null);
+  }
+
+  public ByteBufferWebpDecoder(
+      Context context, List<ImageHeaderParser> parsers, BitmapPool bitmapPool,
+      ArrayPool arrayPool, @Nullable DirectBufferPool directBufferPool) {
+    this(context, parsers, bitmapPool, arrayPool, directBufferPool, PARSER_POOL,
+        WEBP_DECODER_FACTORY);
   }
 
   @VisibleForTesting
@@ -66,12 +75,13 @@ public class ByteBufferWebpDecoder implements ResourceDecoder<ByteBuffer, WebpDr
       List<ImageHeaderParser> parsers,
       BitmapPool bitmapPool,
       ArrayPool arrayPool,
+      @Nullable DirectBufferPool directBufferPool,
       WebpHeaderParserPool parserPool,
       WebpDecoderFactory webpDecoderFactory) {
     this.context = context.getApplicationContext();
     this.parsers = parsers;
     this.webpDecoderFactory = webpDecoderFactory;
-    this.provider = new WebpBitmapProvider(bitmapPool, arrayPool);
+    this.provider = new WebpBitmapProvider(bitmapPool, arrayPool, directBufferPool);
     this.parserPool = parserPool;
   }
 
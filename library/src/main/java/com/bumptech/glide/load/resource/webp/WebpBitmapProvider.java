@@ -8,18 +8,21 @@ import androidx.annotation.Nullable;
 import com.bumptech.glide.gifdecoder.GifDecoder;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.DirectBufferPool;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.webpdecoder.WebpDecoder;
 
 import java.nio.ByteBuffer;
 
 /**
- * Implements {@link WebpDecoder.BitmapProvider} by wrapping Glide's
- * {@link BitmapPool}.
+ * Implements {@link WebpDecoder.BitmapProvider} and {@link WebpDecoder.DirectBufferProvider} by
+ * wrapping Glide's {@link BitmapPool}, {@link ArrayPool} and {@link DirectBufferPool}.
  */
-public final class WebpBitmapProvider implements WebpDecoder.BitmapProvider {
+public final class WebpBitmapProvider
+    implements WebpDecoder.BitmapProvider, WebpDecoder.DirectBufferProvider {
   private final BitmapPool bitmapPool;
   @Nullable private final ArrayPool arrayPool;
+  @Nullable private final DirectBufferPool directBufferPool;
 
   /**
    * Constructs an instance without a shared byte array pool. Byte arrays will be always constructed
@@ -36,8 +39,22 @@ public final class WebpBitmapProvider implements WebpDecoder.BitmapProvider {
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public WebpBitmapProvider(BitmapPool bitmapPool, @Nullable ArrayPool arrayPool) {
+    this(bitmapPool, arrayPool, /*directBufferPool=*/ null);
+  }
+
+  /**
+   * Constructs an instance with a shared array pool and a shared direct buffer pool. Arrays and
+   * direct buffers will be reused where possible.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public WebpBitmapProvider(
+      BitmapPool bitmapPool,
+      @Nullable ArrayPool arrayPool,
+      @Nullable DirectBufferPool directBufferPool) {
     this.bitmapPool = bitmapPool;
     this.arrayPool = arrayPool;
+    this.directBufferPool = directBufferPool;
   }
 
   @NonNull
@@ -90,4 +107,21 @@ public final class WebpBitmapProvider implements WebpDecoder.BitmapProvider {
     }
     arrayPool.put(array);
   }
+
+  @NonNull
+  @Override
+  public ByteBuffer obtainDirectBuffer(int size) {
+    if (directBufferPool == null) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    return directBufferPool.get(size);
+  }
+
+  @Override
+  public void release(@NonNull ByteBuffer buffer) {
+    if (directBufferPool == null) {
+      return;
+    }
+    directBufferPool.put(buffer);
+  }
 }
@@ -1,13 +1,15 @@
 package com.bumptech.glide.request;
 
 import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.bumptech.glide.Priority;
 
 /**
  * Runs a single primary {@link Request} until it completes and then a fallback error request only
  * if the single primary request fails.
  */
-public final class ErrorRequestCoordinator implements RequestCoordinator, Request {
+public final class ErrorRequestCoordinator implements RequestCoordinator, Request, Reprioritizable {
 
   private final Object requestLock;
   @Nullable private final RequestCoordinator parent;
@@ -148,6 +150,16 @@ public final class ErrorRequestCoordinator implements RequestCoordinator, Reques
     }
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    if (primary instanceof Reprioritizable) {
+      ((Reprioritizable) primary).setPriority(priority);
+    }
+    if (error instanceof Reprioritizable) {
+      ((Reprioritizable) error).setPriority(priority);
+    }
+  }
+
   @Override
   public void onRequestSuccess(Request request) {
     synchronized (requestLock) {
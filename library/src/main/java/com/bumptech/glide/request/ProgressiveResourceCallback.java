@@ -0,0 +1,21 @@
+package com.bumptech.glide.request;
+
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+
+/**
+ * A {@link ResourceCallback} that can also receive low quality previews of the resource while it's
+ * loaded, see {@link com.bumptech.glide.request.target.ProgressiveTarget}.
+ */
+public interface ProgressiveResourceCallback extends ResourceCallback {
+
+  /** Returns {@code true} if this callback wants to receive previews. */
+  boolean isPreviewRequested();
+
+  /**
+   * Called with each preview decoded before the resource is ready.
+   *
+   * @param preview A {@link Bitmap} that isn't pooled and must not be recycled.
+   */
+  void onPreviewReady(@NonNull Bitmap preview);
+}
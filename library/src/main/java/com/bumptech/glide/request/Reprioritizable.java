@@ -0,0 +1,22 @@
+package com.bumptech.glide.request;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Priority;
+
+/**
+ * A {@link Request} whose {@link Priority} can be changed after it has started, for example when
+ * its {@link com.bumptech.glide.request.target.Target} scrolls on or off screen.
+ *
+ * @see com.bumptech.glide.RequestManager#setPriority(com.bumptech.glide.request.target.Target,
+ *     Priority)
+ */
+public interface Reprioritizable {
+
+  /**
+   * Changes the {@link Priority} of any load the request has started but that hasn't finished.
+   *
+   * <p>Loads that haven't started running yet are re-ordered in their executor's queue. Loads that
+   * are shared with other requests for the same resource are only ever promoted.
+   */
+  void setPriority(@NonNull Priority priority);
+}
@@ -2,6 +2,7 @@ package com.bumptech.glide.request;
 
 import android.content.Context;
 import android.content.res.Resources.Theme;
+import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 import androidx.annotation.DrawableRes;
@@ -15,6 +16,7 @@ import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.resource.drawable.DrawableDecoderCompat;
+import com.bumptech.glide.request.target.ProgressiveTarget;
 import com.bumptech.glide.request.target.SizeReadyCallback;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.transition.Transition;
@@ -31,7 +33,8 @@ import java.util.concurrent.Executor;
  *
  * @param <R> The type of the resource that will be transcoded from the loaded resource.
  */
-public final class SingleRequest<R> implements Request, SizeReadyCallback, ResourceCallback {
+public final class SingleRequest<R>
+    implements Request, Reprioritizable, SizeReadyCallback, ProgressiveResourceCallback {
   /** Tag for logging internal events, not generally suitable for public use. */
   private static final String TAG = "Request";
   /** Tag for logging externally useful events (request completion, timing etc). */
@@ -364,6 +367,31 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
     }
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    synchronized (requestLock) {
+      if (status == Status.RUNNING && loadStatus != null) {
+        loadStatus.setPriority(priority);
+      }
+    }
+  }
+
+  @Override
+  public boolean isPreviewRequested() {
+    return target instanceof ProgressiveTarget;
+  }
+
+  /** A callback method that should never be invoked directly. */
+  @Override
+  public void onPreviewReady(@NonNull Bitmap preview) {
+    stateVerifier.throwIfRecycled();
+    synchronized (requestLock) {
+      if (status == Status.RUNNING) {
+        ((ProgressiveTarget) target).onPreviewReady(preview);
+      }
+    }
+  }
+
   @GuardedBy("requestLock")
   private Drawable getErrorDrawable() {
     if (errorDrawable == null) {
@@ -1,13 +1,15 @@
 package com.bumptech.glide.request;
 
 import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.bumptech.glide.Priority;
 
 /**
  * A coordinator that coordinates two individual {@link Request}s that load a small thumbnail
  * version of an image and the full size version of the image at the same time.
  */
-public class ThumbnailRequestCoordinator implements RequestCoordinator, Request {
+public class ThumbnailRequestCoordinator implements RequestCoordinator, Request, Reprioritizable {
   @Nullable private final RequestCoordinator parent;
   private final Object requestLock;
 
@@ -88,6 +90,16 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator, Request
     }
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    if (full instanceof Reprioritizable) {
+      ((Reprioritizable) full).setPriority(priority);
+    }
+    if (thumb instanceof Reprioritizable) {
+      ((Reprioritizable) thumb).setPriority(priority);
+    }
+  }
+
   @Override
   public void onRequestSuccess(Request request) {
     synchronized (requestLock) {
@@ -0,0 +1,26 @@
+package com.bumptech.glide.request.target;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+import androidx.annotation.NonNull;
+
+/**
+ * A {@link DrawableImageViewTarget} that displays low quality previews of progressive JPEGs in the
+ * {@link ImageView} until the full image is loaded.
+ *
+ * <p>Use with {@link com.bumptech.glide.RequestBuilder#into(Target)}.
+ */
+// Public API.
+@SuppressWarnings("unused")
+public class ProgressiveDrawableImageViewTarget extends DrawableImageViewTarget
+    implements ProgressiveTarget {
+
+  public ProgressiveDrawableImageViewTarget(ImageView view) {
+    super(view);
+  }
+
+  @Override
+  public void onPreviewReady(@NonNull Bitmap preview) {
+    view.setImageBitmap(preview);
+  }
+}
@@ -0,0 +1,25 @@
+package com.bumptech.glide.request.target;
+
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+
+/**
+ * An interface that {@link Target Targets} can implement to display low quality previews of
+ * progressive JPEGs while they're downloaded.
+ *
+ * <p>Previews are only decoded for data fetched from a remote source and are neither transformed
+ * nor transcoded, they have the dimensions of the original image downsampled towards the size of
+ * the target. Previews are delivered on the same thread as the resource, but only while the
+ * request is running, no preview is delivered after {@link Target#onResourceReady(Object,
+ * com.bumptech.glide.request.transition.Transition)} or {@link Target#onLoadFailed} is called.
+ */
+public interface ProgressiveTarget {
+
+  /**
+   * Called with each preview decoded before the resource is ready.
+   *
+   * @param preview A {@link Bitmap} that isn't pooled and must not be recycled. Targets can keep
+   *     displaying it until the resource is ready.
+   */
+  void onPreviewReady(@NonNull Bitmap preview);
+}
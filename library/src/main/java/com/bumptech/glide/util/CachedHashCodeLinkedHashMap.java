@@ -9,12 +9,13 @@ import java.util.Map;
 /**
  * An {@link LinkedHashMap} that caches its hashCode to support efficient lookup.
  *
+ * <p>The cached hashCode is kept when an empty map is filled with {@link #putAll(Map)} from
+ * another {@link CachedHashCodeLinkedHashMap}, which is how options are copied each time they're
+ * cloned for a request, so the hashCode is usually only calculated once for all of the copies.
+ *
  * @param <K> the key type.
  * @param <V> the value type.
  */
-// We're overriding hashcode, but not in a way that changes the output, so we don't need to
-// override equals.
-@SuppressWarnings("PMD.OverrideBothEqualsAndHashcode")
 public final class CachedHashCodeLinkedHashMap<K, V> extends LinkedHashMap<K, V> {
   private static final long serialVersionUID = 6811721733252226365L;
 
@@ -34,8 +35,13 @@ public final class CachedHashCodeLinkedHashMap<K, V> extends LinkedHashMap<K, V>
 
   @Override
   public void putAll(@NonNull Map<? extends K, ? extends V> m) {
-    hashCode = 0;
+    boolean wasEmpty = isEmpty();
     super.putAll(m);
+    // Some versions of Android implement putAll using put, so the hashCode is set afterwards.
+    hashCode =
+        wasEmpty && m instanceof CachedHashCodeLinkedHashMap
+            ? ((CachedHashCodeLinkedHashMap<?, ?>) m).hashCode
+            : 0;
   }
 
   @Nullable
@@ -45,6 +51,15 @@ public final class CachedHashCodeLinkedHashMap<K, V> extends LinkedHashMap<K, V>
     return super.remove(key);
   }
 
+  @Override
+  public boolean equals(Object o) {
+    // Maps with different hashCodes can't be equal, which is cheaper to check than every entry.
+    if (o instanceof CachedHashCodeLinkedHashMap && hashCode() != o.hashCode()) {
+      return false;
+    }
+    return super.equals(o);
+  }
+
   @Override
   public int hashCode() {
     if (hashCode == 0) {
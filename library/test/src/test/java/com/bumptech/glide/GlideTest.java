@@ -13,6 +13,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.notNull;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -196,6 +197,20 @@ public class GlideTest {
     verify(bitmapPool).setSizeMultiplier(eq(newMemoryCategory.getMultiplier()));
   }
 
+  @Test
+  public void setMemoryCategory_withGrownBudget_doesNotExceedHighMultiplier() {
+    Glide glide =
+        new GlideBuilder().setBitmapPool(bitmapPool).setMemoryCache(memoryCache).build(context);
+    glide.setBudgetMultiplier(1.5f);
+
+    glide.setMemoryCategory(MemoryCategory.HIGH);
+
+    verify(memoryCache, never()).setSizeMultiplier(eq(2.25f));
+    verify(bitmapPool, never()).setSizeMultiplier(eq(2.25f));
+    verify(memoryCache, times(2)).setSizeMultiplier(eq(MemoryCategory.HIGH.getMultiplier()));
+    verify(bitmapPool, times(2)).setSizeMultiplier(eq(MemoryCategory.HIGH.getMultiplier()));
+  }
+
   @Test
   public void testCanDecreaseMemoryCategory() {
     MemoryCategory memoryCategory = MemoryCategory.NORMAL;
@@ -384,6 +384,33 @@ public class ListPreloaderTest {
     assertThat(loadedObjects).containsAtLeastElementsIn(objects);
   }
 
+  @Test
+  public void testPreloadsAreLoweredToLowPriority() {
+    ListPreloaderAdapter preloaderAdapter =
+        new ListPreloaderAdapter() {
+          @NonNull
+          @Override
+          public List<Object> getPreloadItems(int position) {
+            return Collections.singletonList(new Object());
+          }
+
+          @Nullable
+          @Override
+          public RequestBuilder<Object> getPreloadRequestBuilder(@NonNull Object item) {
+            return request;
+          }
+        };
+    ListPreloader<Object> preloader =
+        new ListPreloader<>(requestManager, preloaderAdapter, preloaderAdapter, 1);
+
+    preloader.onScroll(null, 1, 10, 30);
+
+    ArgumentCaptor<Target<Object>> targetArgumentCaptor =
+        cast(ArgumentCaptor.forClass(Target.class));
+    verify(request).into(targetArgumentCaptor.capture());
+    verify(requestManager).setPriority(targetArgumentCaptor.getValue(), Priority.LOW);
+  }
+
   private static class ListPreloaderAdapter
       implements ListPreloader.PreloadModelProvider<Object>,
           ListPreloader.PreloadSizeProvider<Object> {
@@ -7,9 +7,11 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.HttpException;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.Headers;
 import com.bumptech.glide.testutil.TestUtil;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -28,6 +30,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 /**
@@ -40,12 +43,18 @@ import org.robolectric.annotation.Config;
 public class HttpUrlFetcherServerTest {
   private static final String DEFAULT_PATH = "/fakepath";
   private static final int TIMEOUT_TIME_MS = 300;
+  private static final String RESUMABLE_BODY = "0123456789";
+  private static final String ETAG = "\"v1\"";
+  private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
 
   @Mock private DataFetcher.DataCallback<InputStream> callback;
 
   private MockWebServer mockWebServer;
   private boolean defaultFollowRedirects;
   private ArgumentCaptor<InputStream> streamCaptor;
+  private File partialDownloadDir;
+  private File revalidationCacheDir;
+  private HttpRevalidationCache revalidationCache;
 
   @Before
   public void setUp() throws IOException {
@@ -56,12 +65,27 @@ public class HttpUrlFetcherServerTest {
     mockWebServer.start();
 
     streamCaptor = ArgumentCaptor.forClass(InputStream.class);
+    partialDownloadDir = new File(RuntimeEnvironment.application.getCacheDir(), "partial");
+    revalidationCacheDir = new File(RuntimeEnvironment.application.getCacheDir(), "http");
+    revalidationCache = new HttpRevalidationCache(revalidationCacheDir, /*maxSizeBytes=*/ 1024);
   }
 
   @After
   public void tearDown() throws IOException {
     HttpURLConnection.setFollowRedirects(defaultFollowRedirects);
     mockWebServer.shutdown();
+    deleteFiles(partialDownloadDir);
+    deleteFiles(revalidationCacheDir);
+  }
+
+  private static void deleteFiles(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+      }
+    }
   }
 
   @Test
@@ -253,6 +277,224 @@ public class HttpUrlFetcherServerTest {
     assertThat(mockWebServer.takeRequest().getHeader(headerField)).isEqualTo(headerValue);
   }
 
+  @Test
+  public void loadData_withPartialDownload_resumesWithRangeRequest() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getResumableFetcher(), /*byteCount=*/ 4);
+    mockWebServer.enqueue(
+        new MockResponse()
+            .setResponseCode(206)
+            .setHeader("ETag", ETAG)
+            .setHeader("Content-Range", "bytes 4-9/10")
+            .setBody(RESUMABLE_BODY.substring(4)));
+
+    getResumableFetcher().loadData(Priority.HIGH, callback);
+
+    verify(callback).onDataReady(streamCaptor.capture());
+    TestUtil.assertStreamOf(RESUMABLE_BODY, streamCaptor.getValue());
+    assertThat(mockWebServer.takeRequest().getHeader("Range")).isNull();
+    RecordedRequest resumed = mockWebServer.takeRequest();
+    assertThat(resumed.getHeader("Range")).isEqualTo("bytes=4-");
+    assertThat(resumed.getHeader("If-Range")).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void loadData_withPartialDownloadOfChangedResource_returnsNewBody() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getResumableFetcher(), /*byteCount=*/ 4);
+    String expected = "abcdefghij";
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", "\"v2\"").setBody(expected));
+
+    getResumableFetcher().loadData(Priority.HIGH, callback);
+
+    verify(callback).onDataReady(streamCaptor.capture());
+    TestUtil.assertStreamOf(expected, streamCaptor.getValue());
+  }
+
+  @Test
+  public void loadData_afterCompleteDownload_doesNotSendRangeRequest() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getResumableFetcher(), RESUMABLE_BODY.length() + 1);
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+
+    getResumableFetcher().loadData(Priority.HIGH, callback);
+
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("Range")).isNull();
+  }
+
+  @Test
+  public void loadData_withoutValidator_doesNotSendRangeRequest() throws Exception {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(RESUMABLE_BODY));
+    readAndCleanup(getResumableFetcher(), /*byteCount=*/ 4);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(RESUMABLE_BODY));
+
+    getResumableFetcher().loadData(Priority.HIGH, callback);
+
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("Range")).isNull();
+  }
+
+  @Test
+  public void loadData_withRangeNotSatisfiable_failsAndDeletesPartialDownload()
+      throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getResumableFetcher(), /*byteCount=*/ 4);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(416));
+
+    getResumableFetcher().loadData(Priority.HIGH, callback);
+
+    ArgumentCaptor<Exception> exceptionCaptor = ArgumentCaptor.forClass(Exception.class);
+    verify(callback).onLoadFailed(exceptionCaptor.capture());
+    assertThat(((HttpException) exceptionCaptor.getValue()).getStatusCode()).isEqualTo(416);
+
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    getResumableFetcher().loadData(Priority.HIGH, callback);
+
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("Range")).isEqualTo("bytes=4-");
+    assertThat(mockWebServer.takeRequest().getHeader("Range")).isNull();
+  }
+
+  @Test
+  public void loadData_withCachedResponse_sendsConditionalRequest() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse()
+            .setResponseCode(200)
+            .setHeader("ETag", ETAG)
+            .setHeader("Last-Modified", LAST_MODIFIED)
+            .setBody(RESUMABLE_BODY));
+    readAndCleanup(getRevalidatingFetcher(), RESUMABLE_BODY.length() + 1);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+    getRevalidatingFetcher().loadData(Priority.HIGH, callback);
+
+    assertThat(mockWebServer.takeRequest().getHeader("If-None-Match")).isNull();
+    RecordedRequest conditional = mockWebServer.takeRequest();
+    assertThat(conditional.getHeader("If-None-Match")).isEqualTo(ETAG);
+    assertThat(conditional.getHeader("If-Modified-Since")).isEqualTo(LAST_MODIFIED);
+  }
+
+  @Test
+  public void loadData_withNotModifiedResponse_returnsCachedBody() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getRevalidatingFetcher(), RESUMABLE_BODY.length() + 1);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+    getRevalidatingFetcher().loadData(Priority.HIGH, callback);
+
+    verify(callback).onDataReady(streamCaptor.capture());
+    TestUtil.assertStreamOf(RESUMABLE_BODY, streamCaptor.getValue());
+  }
+
+  @Test
+  public void loadData_withModifiedResponse_returnsAndCachesNewBody() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getRevalidatingFetcher(), RESUMABLE_BODY.length() + 1);
+    String expected = "abcdefghij";
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", "\"v2\"").setBody(expected));
+    readAndCleanup(getRevalidatingFetcher(), expected.length() + 1);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+    getRevalidatingFetcher().loadData(Priority.HIGH, callback);
+
+    verify(callback).onDataReady(streamCaptor.capture());
+    TestUtil.assertStreamOf(expected, streamCaptor.getValue());
+    mockWebServer.takeRequest();
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v2\"");
+  }
+
+  @Test
+  public void loadData_withBodyReadToContentLengthButNotToEnd_sendsConditionalRequest()
+      throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getRevalidatingFetcher(), RESUMABLE_BODY.length());
+    mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+    getRevalidatingFetcher().loadData(Priority.HIGH, callback);
+
+    verify(callback).onDataReady(streamCaptor.capture());
+    TestUtil.assertStreamOf(RESUMABLE_BODY, streamCaptor.getValue());
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("If-None-Match")).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void loadData_withIncompleteCachedResponse_doesNotSendConditionalRequest()
+      throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getRevalidatingFetcher(), /*byteCount=*/ 4);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(RESUMABLE_BODY));
+
+    getRevalidatingFetcher().loadData(Priority.HIGH, callback);
+
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("If-None-Match")).isNull();
+  }
+
+  @Test
+  public void loadData_withNotFoundResponse_removesCachedResponse() throws Exception {
+    mockWebServer.enqueue(
+        new MockResponse().setResponseCode(200).setHeader("ETag", ETAG).setBody(RESUMABLE_BODY));
+    readAndCleanup(getRevalidatingFetcher(), RESUMABLE_BODY.length() + 1);
+    GlideUrl url = new GlideUrl(mockWebServer.url(DEFAULT_PATH).url(), Headers.DEFAULT);
+    HttpRevalidationCache.CachedResponse cached = revalidationCache.get(url);
+    assertThat(cached).isNotNull();
+    cached.close();
+    mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+
+    getRevalidatingFetcher().loadData(Priority.HIGH, callback);
+
+    verify(callback).onLoadFailed(isA(HttpException.class));
+    mockWebServer.takeRequest();
+    assertThat(mockWebServer.takeRequest().getHeader("If-None-Match")).isEqualTo(ETAG);
+    assertThat(revalidationCache.get(url)).isNull();
+  }
+
+  private void readAndCleanup(HttpUrlFetcher fetcher, int byteCount) throws IOException {
+    @SuppressWarnings("unchecked")
+    DataFetcher.DataCallback<InputStream> firstCallback = mock(DataFetcher.DataCallback.class);
+    fetcher.loadData(Priority.HIGH, firstCallback);
+    verify(firstCallback).onDataReady(streamCaptor.capture());
+    InputStream stream = streamCaptor.getValue();
+    for (int i = 0; i < byteCount && stream.read() != -1; i++) {
+      // Read only the given number of bytes.
+    }
+    fetcher.cleanup();
+  }
+
+  private HttpUrlFetcher getResumableFetcher() {
+    URL url = mockWebServer.url(DEFAULT_PATH).url();
+    return new HttpUrlFetcher(
+        new GlideUrl(url, Headers.DEFAULT),
+        TIMEOUT_TIME_MS,
+        HttpUrlFetcher.DEFAULT_CONNECTION_FACTORY,
+        new PartialDownloadStore(partialDownloadDir, /*maxSizeBytes=*/ 1024));
+  }
+
+  private HttpUrlFetcher getRevalidatingFetcher() {
+    URL url = mockWebServer.url(DEFAULT_PATH).url();
+    return new HttpUrlFetcher(
+        new GlideUrl(url, Headers.DEFAULT),
+        TIMEOUT_TIME_MS,
+        HttpUrlFetcher.DEFAULT_CONNECTION_FACTORY,
+        /*partialDownloadStore=*/ null,
+        revalidationCache);
+  }
+
   private HttpUrlFetcher getFetcher() {
     return getFetcher(Headers.DEFAULT);
   }
@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import android.os.Looper;
@@ -331,6 +332,75 @@ public class ActiveResourcesTest {
     }
   }
 
+  @Test
+  public void queueIdle_afterReactivatedThenOldReferenceQueued_keepsNewReference() {
+    EngineResource<Object> first = newCacheableEngineResource();
+    resources.activate(key, first);
+    ResourceWeakReference firstRef = resources.activeEngineResources.get(key);
+
+    EngineResource<Object> second = newCacheableEngineResource();
+    resources.activate(key, second);
+    ResourceWeakReference secondRef = resources.activeEngineResources.get(key);
+
+    enqueueAndWaitForRef(firstRef);
+
+    assertThat(resources.activeEngineResources.get(key)).isEqualTo(secondRef);
+    assertThat(resources.get(key)).isEqualTo(second);
+    verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
+  }
+
+  @Test
+  public void queueIdle_withReferenceAlreadyCleanedUpByGet_notifiesListenerOnce() {
+    EngineResource<Object> engineResource = newCacheableEngineResource();
+    resources.activate(key, engineResource);
+    ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
+    weakRef.clear();
+    resources.get(key);
+
+    enqueueAndWaitForRef(weakRef);
+
+    verify(listener, times(1)).onResourceReleased(eq(key), any(EngineResource.class));
+  }
+
+  @Test
+  public void cleanupActiveReference_fromManyThreads_notifiesListenerOnce()
+      throws InterruptedException {
+    EngineResource<Object> engineResource = newCacheableEngineResource();
+    resources.activate(key, engineResource);
+    final ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
+    weakRef.clear();
+
+    int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      for (int i = 0; i < threadCount; i++) {
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  start.await();
+                  resources.cleanupActiveReference(weakRef);
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                } finally {
+                  done.countDown();
+                }
+              }
+            });
+      }
+      start.countDown();
+      assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      com.bumptech.glide.util.Executors.shutdownAndAwaitTermination(executor);
+    }
+
+    verify(listener, times(1)).onResourceReleased(eq(key), any(EngineResource.class));
+    assertThat(resources.activeEngineResources.get(key)).isNull();
+  }
+
   @Test
   public void activate_withNonCacheableResource_doesNotSaveResource() {
     EngineResource<Object> engineResource = newNonCacheableEngineResource();
@@ -19,6 +19,7 @@ import static org.mockito.Mockito.when;
 import android.os.Handler;
 import android.os.Looper;
 import androidx.core.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
@@ -28,6 +29,9 @@ import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Executors;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -482,6 +486,130 @@ public class EngineJobTest {
     verify(harness.decodeJob).run();
   }
 
+  @Test
+  public void rescheduleSourceFetch_withSourceFetchService_submitsDecodeJobToSourceFetchService() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+    harness.sourceService.shutdownNow();
+
+    assertTrue(job.rescheduleSourceFetch(harness.decodeJob));
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void rescheduleSourceFetch_withoutSourceFetchService_doesNotSubmitDecodeJob() {
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.rescheduleSourceFetch(harness.decodeJob));
+    verify(harness.decodeJob, never()).run();
+  }
+
+  @Test
+  public void rescheduleSourceFetch_withUnlimitedSourceGeneratorPool_doesNotSubmitDecodeJob() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    harness.useUnlimitedSourceGeneratorPool = true;
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.rescheduleSourceFetch(harness.decodeJob));
+    verify(harness.decodeJob, never()).run();
+  }
+
+  @Test
+  public void setPriority_withSingleCallback_changesDecodeJobPriority() {
+    harness.sourceService = newQueueingExecutor();
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+
+    job.setPriority(Priority.LOW);
+
+    verify(harness.decodeJob).setPriority(Priority.LOW);
+  }
+
+  @Test
+  public void setPriority_whileDecodeJobIsRunning_doesNotChangeDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+
+    job.setPriority(Priority.LOW);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+  }
+
+  @Test
+  public void reschedule_afterSetPriorityWhileRunning_changesDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+    job.setPriority(Priority.LOW);
+
+    job.reschedule(harness.decodeJob);
+
+    verify(harness.decodeJob).setPriority(Priority.LOW);
+  }
+
+  @Test
+  public void rescheduleSourceFetch_afterSetPriorityWhileRunning_changesDecodeJobPriority() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+    job.setPriority(Priority.LOW);
+
+    job.rescheduleSourceFetch(harness.decodeJob);
+
+    verify(harness.decodeJob).setPriority(Priority.LOW);
+  }
+
+  @Test
+  public void setPriority_withMultipleCallbacks_doesNotDemoteDecodeJob() {
+    EngineJob<Object> job = harness.getJob();
+    job.addCallback(mockResourceCallback(), Executors.directExecutor());
+    job.start(harness.decodeJob);
+    when(harness.decodeJob.isLowerPriorityThan(Priority.LOW)).thenReturn(false);
+
+    job.setPriority(Priority.LOW);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+  }
+
+  @Test
+  public void setPriority_withMultipleCallbacks_promotesDecodeJob() {
+    harness.sourceService = newQueueingExecutor();
+    EngineJob<Object> job = harness.getJob();
+    job.addCallback(mockResourceCallback(), Executors.directExecutor());
+    job.start(harness.decodeJob);
+    when(harness.decodeJob.isLowerPriorityThan(Priority.IMMEDIATE)).thenReturn(true);
+
+    job.setPriority(Priority.IMMEDIATE);
+
+    verify(harness.decodeJob).setPriority(Priority.IMMEDIATE);
+  }
+
+  @Test
+  public void setPriority_afterCancel_doesNotChangeDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+    job.cancel();
+
+    job.setPriority(Priority.LOW);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+  }
+
+  /** Returns an executor that queues jobs without running them, so they can be removed. */
+  private static GlideExecutor newQueueingExecutor() {
+    return MockGlideExecutor.newTestExecutor(
+        new ThreadPoolExecutor(
+            /*corePoolSize=*/ 1,
+            /*maximumPoolSize=*/ 1,
+            /*keepAliveTime=*/ 0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>()) {
+          @Override
+          public void execute(Runnable command) {
+            getQueue().add(command);
+          }
+        });
+  }
+
   private static ResourceCallback mockResourceCallback() {
     ResourceCallback result = mock(ResourceCallback.class);
     when(result.getLock()).thenReturn(result);
@@ -519,6 +647,7 @@ public class EngineJobTest {
               sourceService,
               sourceUnlimitedService,
               animationService,
+              /*sourceFetchExecutor=*/ null,
               engineJobListener,
               resourceListener,
               pool,
@@ -549,9 +678,10 @@ public class EngineJobTest {
     final EngineJobListener engineJobListener = mock(EngineJobListener.class);
     final ResourceListener resourceListener = mock(ResourceListener.class);
     final GlideExecutor diskCacheService = MockGlideExecutor.newMainThreadExecutor();
-    final GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
+    GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor sourceUnlimitedService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor animationService = MockGlideExecutor.newMainThreadExecutor();
+    GlideExecutor sourceFetchService = null;
     boolean isCacheable = true;
     boolean useUnlimitedSourceGeneratorPool = false;
     final boolean useAnimationPool = false;
@@ -568,6 +698,7 @@ public class EngineJobTest {
               sourceService,
               sourceUnlimitedService,
               animationService,
+              sourceFetchService,
               engineJobListener,
               resourceListener,
               pool,
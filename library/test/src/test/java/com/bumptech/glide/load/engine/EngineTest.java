@@ -12,18 +12,22 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import androidx.core.util.Pools;
 import com.bumptech.glide.GlideContext;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
@@ -39,6 +43,7 @@ import java.util.concurrent.Executor;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
@@ -639,6 +644,113 @@ public class EngineTest {
     verify(harness.job, never()).start(anyDecodeJobOrNull());
   }
 
+  @Test
+  public void load_inBatch_startsNewJobWhenBatchEnds() {
+    harness.getEngine().beginBatch();
+    harness.doLoad();
+
+    verify(harness.job, never()).start(anyDecodeJobOrNull());
+    verify(harness.job).prepare((DecodeJob) harness.decodeJob);
+
+    harness.getEngine().endBatch();
+
+    verify(harness.job).start((DecodeJob) harness.decodeJob);
+  }
+
+  @Test
+  public void load_inNestedBatch_startsNewJobWhenOutermostBatchEnds() {
+    harness.getEngine().beginBatch();
+    harness.getEngine().beginBatch();
+    harness.doLoad();
+    harness.getEngine().endBatch();
+
+    verify(harness.job, never()).start(anyDecodeJobOrNull());
+
+    harness.getEngine().endBatch();
+
+    verify(harness.job).start((DecodeJob) harness.decodeJob);
+  }
+
+  @Test
+  public void load_inBatch_withExistingLoad_addsCallbackToExistingJob() {
+    harness.doLoad();
+    harness.getEngine().beginBatch();
+    ResourceCallback newCallback = mock(ResourceCallback.class);
+    harness.cb = newCallback;
+    harness.doLoad();
+    harness.getEngine().endBatch();
+
+    verify(harness.job).addCallback(eq(newCallback), any(Executor.class));
+    verify(harness.job, times(1)).start(anyDecodeJobOrNull());
+  }
+
+  @Test
+  public void load_inBatch_withResourceInMemory_returnsResourceImmediately() {
+    when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
+
+    harness.getEngine().beginBatch();
+    harness.doLoad();
+
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    harness.getEngine().endBatch();
+  }
+
+  @Test
+  public void endBatch_startsJobsThatDecodeFromCacheFirst() {
+    EngineJob<?> sourceJob = mock(EngineJob.class);
+    harness.getEngine().beginBatch();
+    harness.job = sourceJob;
+    harness.doLoad();
+    harness.getEngine().onEngineJobCancelled(sourceJob, harness.cacheKey);
+
+    EngineJob<?> cacheJob = mock(EngineJob.class);
+    harness.job = cacheJob;
+    when(harness.decodeJob.willDecodeFromCache()).thenReturn(false, true);
+    harness.doLoad();
+    harness.getEngine().endBatch();
+
+    InOrder inOrder = inOrder(sourceJob, cacheJob);
+    inOrder.verify(cacheJob).start(anyDecodeJobOrNull());
+    inOrder.verify(sourceJob).start(anyDecodeJobOrNull());
+  }
+
+  @Test
+  public void load_inBatch_withPriorityChangedBeforeBatchEnds_startsJobWithNewPriority() {
+    EngineJob<Object> engineJob =
+        new EngineJob<>(
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            /*sourceFetchExecutor=*/ null,
+            mock(EngineJobListener.class),
+            mock(ResourceListener.class),
+            new Pools.SimplePool<EngineJob<?>>(1));
+    engineJob.init(
+        harness.cacheKey,
+        /*isCacheable=*/ true,
+        /*useUnlimitedSourceGeneratorPool=*/ false,
+        /*useAnimationPool=*/ false,
+        /*onlyRetrieveFromCache=*/ false);
+    harness.job = spy(engineJob);
+
+    harness.getEngine().beginBatch();
+    harness.doLoad().setPriority(Priority.LOW);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+
+    harness.getEngine().endBatch();
+
+    InOrder inOrder = inOrder(harness.decodeJob);
+    inOrder.verify(harness.decodeJob).setPriority(Priority.LOW);
+    inOrder.verify(harness.decodeJob).run();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void endBatch_withoutBeginBatch_throws() {
+    harness.getEngine().endBatch();
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   private static DecodeJob anyDecodeJobOrNull() {
     return any();
@@ -662,6 +774,7 @@ public class EngineTest {
     final Object model = new Object();
     MemoryCache cache = mock(MemoryCache.class);
     EngineJob<?> job;
+    final DecodeJob<?> decodeJob = mock(DecodeJob.class);
     private Engine engine;
     final Engine.EngineJobFactory engineJobFactory = mock(Engine.EngineJobFactory.class);
     final Engine.DecodeJobFactory decodeJobFactory = mock(Engine.DecodeJobFactory.class);
@@ -688,6 +801,25 @@ public class EngineTest {
           .thenReturn(cacheKey);
       when(resource.getResource()).thenReturn(mock(Resource.class));
 
+      when(decodeJobFactory.build(
+              eq(glideContext),
+              eq(model),
+              eq(cacheKey),
+              eq(signature),
+              anyInt(),
+              anyInt(),
+              eq(Object.class),
+              eq(Object.class),
+              any(Priority.class),
+              any(DiskCacheStrategy.class),
+              eq(transformations),
+              anyBoolean(),
+              anyBoolean(),
+              anyBoolean(),
+              eq(options),
+              any(DecodeJob.Callback.class)))
+          .thenReturn((DecodeJob<Object>) decodeJob);
+
       job = mock(EngineJob.class);
     }
 
@@ -733,6 +865,7 @@ public class EngineTest {
                 MockGlideExecutor.newMainThreadExecutor(),
                 MockGlideExecutor.newMainThreadExecutor(),
                 MockGlideExecutor.newMainThreadExecutor(),
+                /*sourceFetchExecutor=*/ null,
                 jobs,
                 keyFactory,
                 activeResources,
@@ -0,0 +1,170 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.tests.TearDownGlide;
+import com.bumptech.glide.tests.Util;
+import com.google.common.util.concurrent.ForwardingExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18)
+@SuppressWarnings("unchecked")
+public class SourceFetchExecutorTest {
+  private static final String DISK_CACHE_EXECUTOR = "diskCache";
+  private static final String SOURCE_EXECUTOR = "source";
+  private static final String SOURCE_FETCH_EXECUTOR = "sourceFetch";
+
+  @Rule public final TearDownGlide tearDownGlide = new TearDownGlide();
+
+  private final List<String> fetchExecutors = new ArrayList<>();
+  private final List<String> diskCacheWriteExecutors = new ArrayList<>();
+  private Context context;
+
+  @Before
+  public void setUp() throws Exception {
+    context = RuntimeEnvironment.application;
+    DiskCache diskCache = mock(DiskCache.class);
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                diskCacheWriteExecutors.add(LabeledExecutorService.getCurrentLabel());
+                return null;
+              }
+            })
+        .when(diskCache)
+        .put(any(Key.class), any(DiskCache.Writer.class));
+    DiskCache.Factory diskCacheFactory = mock(DiskCache.Factory.class);
+    when(diskCacheFactory.build()).thenReturn(diskCache);
+
+    Glide.init(
+        context,
+        new GlideBuilder()
+            .setDiskCache(diskCacheFactory)
+            .setDiskCacheExecutor(newLabeledExecutor(DISK_CACHE_EXECUTOR))
+            .setSourceExecutor(newLabeledExecutor(SOURCE_EXECUTOR))
+            .setSourceFetchExecutor(newLabeledExecutor(SOURCE_FETCH_EXECUTOR)));
+    registerRemoteModelLoader();
+  }
+
+  @Test
+  public void load_withCacheableRemoteData_writesDiskCacheOnSourceFetchExecutor() {
+    Glide.with(context)
+        .load(new GlideUrl("http://fake.com/image"))
+        .apply(RequestOptions.diskCacheStrategyOf(DiskCacheStrategy.DATA))
+        .submit(100, 100);
+
+    assertThat(fetchExecutors).containsExactly(SOURCE_FETCH_EXECUTOR);
+    assertThat(diskCacheWriteExecutors).containsExactly(SOURCE_FETCH_EXECUTOR);
+  }
+
+  private void registerRemoteModelLoader() throws Exception {
+    DataFetcher<InputStream> fetcher = mock(DataFetcher.class);
+    when(fetcher.getDataClass()).thenReturn(InputStream.class);
+    when(fetcher.getDataSource()).thenReturn(DataSource.REMOTE);
+    final Answer<Void> callDataReady =
+        new Util.CallDataReady<InputStream>(new ByteArrayInputStream(new byte[10]));
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) throws Throwable {
+                fetchExecutors.add(LabeledExecutorService.getCurrentLabel());
+                return callDataReady.answer(invocation);
+              }
+            })
+        .when(fetcher)
+        .loadData(isA(Priority.class), isA(DataFetcher.DataCallback.class));
+
+    ModelLoader<GlideUrl, InputStream> modelLoader = mock(ModelLoader.class);
+    when(modelLoader.buildLoadData(isA(GlideUrl.class), anyInt(), anyInt(), isA(Options.class)))
+        .thenReturn(new ModelLoader.LoadData<>(mock(Key.class), fetcher));
+    when(modelLoader.handles(isA(GlideUrl.class))).thenReturn(true);
+    ModelLoaderFactory<GlideUrl, InputStream> factory = mock(ModelLoaderFactory.class);
+    when(factory.build(isA(MultiModelLoaderFactory.class))).thenReturn(modelLoader);
+
+    Glide.get(context).getRegistry().replace(GlideUrl.class, InputStream.class, factory);
+  }
+
+  private static GlideExecutor newLabeledExecutor(String label) {
+    return MockGlideExecutor.newTestExecutor(new LabeledExecutorService(label));
+  }
+
+  /**
+   * Runs tasks on the calling thread, like {@link MockGlideExecutor#newMainThreadExecutor()}, but
+   * records which executor each task is running on.
+   */
+  private static final class LabeledExecutorService extends ForwardingExecutorService {
+    private static final ThreadLocal<String> CURRENT_LABEL = new ThreadLocal<>();
+
+    private final ExecutorService delegate = MoreExecutors.newDirectExecutorService();
+    private final String label;
+
+    LabeledExecutorService(String label) {
+      this.label = label;
+    }
+
+    static String getCurrentLabel() {
+      return CURRENT_LABEL.get();
+    }
+
+    @Override
+    protected ExecutorService delegate() {
+      return delegate;
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+      delegate.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              String previous = CURRENT_LABEL.get();
+              CURRENT_LABEL.set(label);
+              try {
+                command.run();
+              } finally {
+                CURRENT_LABEL.set(previous);
+              }
+            }
+          });
+    }
+  }
+}
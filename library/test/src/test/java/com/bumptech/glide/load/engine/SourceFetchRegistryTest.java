@@ -0,0 +1,90 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SourceFetchRegistryTest {
+  private final SourceFetchRegistry registry = new SourceFetchRegistry();
+  private final Key key = new ObjectKey("key");
+
+  @Test
+  public void waitOrStart_withNoFetchInProgress_returnsFalse() {
+    assertThat(registry.waitOrStart(key, new CountingWaiter())).isFalse();
+  }
+
+  @Test
+  public void waitOrStart_withFetchInProgress_returnsTrue() {
+    registry.waitOrStart(key, new CountingWaiter());
+
+    assertThat(registry.waitOrStart(key, new CountingWaiter())).isTrue();
+  }
+
+  @Test
+  public void waitOrStart_withFetchInProgressForDifferentKey_returnsFalse() {
+    registry.waitOrStart(new ObjectKey("other"), new CountingWaiter());
+
+    assertThat(registry.waitOrStart(key, new CountingWaiter())).isFalse();
+  }
+
+  @Test
+  public void finish_notifiesWaitersOnce() {
+    CountingWaiter fetcher = new CountingWaiter();
+    CountingWaiter first = new CountingWaiter();
+    CountingWaiter second = new CountingWaiter();
+    registry.waitOrStart(key, fetcher);
+    registry.waitOrStart(key, first);
+    registry.waitOrStart(key, second);
+
+    registry.finish(key);
+    registry.finish(key);
+
+    assertThat(fetcher.finishedCount).isEqualTo(0);
+    assertThat(first.finishedCount).isEqualTo(1);
+    assertThat(second.finishedCount).isEqualTo(1);
+  }
+
+  @Test
+  public void finish_allowsNewFetchToStart() {
+    registry.waitOrStart(key, new CountingWaiter());
+    registry.finish(key);
+
+    assertThat(registry.waitOrStart(key, new CountingWaiter())).isFalse();
+  }
+
+  @Test
+  public void stopWaiting_withWaiter_removesWaiter() {
+    CountingWaiter waiter = new CountingWaiter();
+    registry.waitOrStart(key, new CountingWaiter());
+    registry.waitOrStart(key, waiter);
+
+    assertThat(registry.stopWaiting(key, waiter)).isTrue();
+    registry.finish(key);
+
+    assertThat(waiter.finishedCount).isEqualTo(0);
+  }
+
+  @Test
+  public void stopWaiting_afterFinish_returnsFalse() {
+    CountingWaiter waiter = new CountingWaiter();
+    registry.waitOrStart(key, new CountingWaiter());
+    registry.waitOrStart(key, waiter);
+    registry.finish(key);
+
+    assertThat(registry.stopWaiting(key, waiter)).isFalse();
+  }
+
+  private static final class CountingWaiter implements SourceFetchRegistry.Waiter {
+    int finishedCount;
+
+    @Override
+    public void onSourceFetchFinished() {
+      finishedCount++;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18)
+public class ConcurrentArrayPoolTest {
+  private static final int MAX_SIZE = 4 * 1024 * 1024;
+  private ConcurrentArrayPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ConcurrentArrayPool(MAX_SIZE);
+  }
+
+  @Test
+  public void get_afterPutOnSameThread_returnsArrayFromMagazine() {
+    byte[] array = new byte[ArrayPool.STANDARD_BUFFER_SIZE_BYTES];
+    pool.put(array);
+
+    assertSame(array, pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class));
+    assertEquals(0, pool.getCurrentSize());
+  }
+
+  @Test
+  public void get_withDifferentArrayClass_doesNotReturnArray() {
+    pool.put(new byte[100]);
+
+    assertEquals(100, pool.get(100, int[].class).length);
+  }
+
+  @Test
+  public void getExact_withLargerArrayInMagazine_returnsNewArray() {
+    byte[] array = new byte[200];
+    pool.put(array);
+
+    byte[] result = pool.getExact(100, byte[].class);
+
+    assertNotSame(array, result);
+    assertEquals(100, result.length);
+  }
+
+  @Test
+  public void put_withFullMagazine_putsArrayInStripe() {
+    for (int i = 0; i < ConcurrentArrayPool.MAGAZINE_SIZE; i++) {
+      pool.put(new byte[100]);
+    }
+    byte[] array = new byte[100];
+
+    pool.put(array);
+
+    assertEquals(100, pool.getCurrentSize());
+  }
+
+  @Test
+  public void put_withArrayLargerThanStandardBuffer_putsArrayInStripe() {
+    int[] array = new int[ArrayPool.STANDARD_BUFFER_SIZE_BYTES];
+
+    pool.put(array);
+
+    assertEquals(ArrayPool.STANDARD_BUFFER_SIZE_BYTES * 4, pool.getCurrentSize());
+    assertSame(array, pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, int[].class));
+  }
+
+  @Test
+  public void get_withLargerArrayInNextSizeClass_returnsArrayFromOtherStripe() {
+    int[] array = new int[ArrayPool.STANDARD_BUFFER_SIZE_BYTES / 2];
+    pool.put(array);
+
+    assertSame(array, pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES / 4 - 1, int[].class));
+    assertEquals(0, pool.getCurrentSize());
+  }
+
+  @Test
+  public void get_withArrayMoreThanMaxOverSizeMultipleLarger_returnsNewArray() {
+    int[] array = new int[ArrayPool.STANDARD_BUFFER_SIZE_BYTES / 2];
+    pool.put(array);
+    int size = array.length / LruArrayPool.MAX_OVER_SIZE_MULTIPLE - 1;
+
+    int[] result = pool.get(size, int[].class);
+
+    assertNotSame(array, result);
+    assertEquals(size, result.length);
+  }
+
+  @Test
+  public void get_onOtherThread_doesNotReturnArrayFromMagazine() throws InterruptedException {
+    final byte[] array = new byte[100];
+    pool.put(array);
+
+    final AtomicReference<byte[]> result = new AtomicReference<>();
+    Thread thread =
+        new Thread() {
+          @Override
+          public void run() {
+            result.set(pool.get(100, byte[].class));
+          }
+        };
+    thread.start();
+    thread.join();
+
+    assertNotSame(array, result.get());
+  }
+
+  @Test
+  public void clearMemory_removesArraysFromMagazinesAndStripes() {
+    byte[] small = new byte[100];
+    int[] large = new int[ArrayPool.STANDARD_BUFFER_SIZE_BYTES];
+    pool.put(small);
+    pool.put(large);
+
+    pool.clearMemory();
+
+    assertEquals(0, pool.getCurrentSize());
+    assertNotSame(small, pool.get(100, byte[].class));
+  }
+
+  @Test
+  public void trimMemory_uiHidden_removesArraysFromMagazines() {
+    byte[] array = new byte[100];
+    pool.put(array);
+
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertNotSame(array, pool.get(100, byte[].class));
+  }
+
+  @Test
+  public void trimMemory_background_removesArraysFromStripes() {
+    pool.put(new int[ArrayPool.STANDARD_BUFFER_SIZE_BYTES]);
+
+    pool.trimMemory(TRIM_MEMORY_BACKGROUND);
+
+    assertEquals(0, pool.getCurrentSize());
+  }
+
+  @Test
+  public void setSizeMultiplier_movesArraysFromMagazinesIntoStripes() {
+    byte[] array = new byte[100];
+    pool.put(array);
+
+    pool.setSizeMultiplier(1f);
+
+    assertEquals(100, pool.getCurrentSize());
+    assertSame(array, pool.get(100, byte[].class));
+  }
+
+  @Test
+  public void setSizeMultiplier_withZero_evictsArraysFromMagazines() {
+    byte[] array = new byte[100];
+    pool.put(array);
+
+    pool.setSizeMultiplier(0f);
+
+    assertEquals(0, pool.getCurrentSize());
+    assertNotSame(array, pool.get(100, byte[].class));
+  }
+
+  @Test
+  public void getAndPut_fromManyThreads_neverReturnsTheSameArrayTwice()
+      throws InterruptedException {
+    final Set<Object> inUse =
+        Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      final int size = 1024 * (i % 3 + 1);
+      threads[i] =
+          new Thread() {
+            @Override
+            public void run() {
+              try {
+                start.await();
+                for (int j = 0; j < 1000; j++) {
+                  byte[] array = pool.get(size, byte[].class);
+                  if (!inUse.add(array)) {
+                    throw new AssertionError("Array returned while in use");
+                  }
+                  inUse.remove(array);
+                  pool.put(array);
+                }
+              } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+              }
+            }
+          };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(failure.get()).isNull();
+    assertTrue(pool.getCurrentSize() <= MAX_SIZE);
+  }
+}
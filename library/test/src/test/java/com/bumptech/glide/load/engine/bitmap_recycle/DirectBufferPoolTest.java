@@ -0,0 +1,100 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DirectBufferPoolTest {
+  private static final int MAX_SIZE = 100;
+  private DirectBufferPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new DirectBufferPool(MAX_SIZE);
+  }
+
+  @Test
+  public void get_withEmptyPool_returnsNewDirectBuffer() {
+    ByteBuffer result = pool.get(10);
+
+    assertTrue(result.isDirect());
+    assertThat(result.capacity()).isEqualTo(10);
+  }
+
+  @Test
+  public void get_withPooledBuffer_returnsClearedPooledBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(10);
+    buffer.put((byte) 1).flip();
+    pool.put(buffer);
+
+    ByteBuffer result = pool.get(10);
+
+    assertSame(buffer, result);
+    assertThat(result.position()).isEqualTo(0);
+    assertThat(result.limit()).isEqualTo(10);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_withPooledBufferTooMuchLarger_returnsNewBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(30);
+    pool.put(buffer);
+
+    assertNotSame(buffer, pool.get(10));
+    assertThat(pool.getCurrentSize()).isEqualTo(30);
+  }
+
+  @Test
+  public void put_withHeapBuffer_doesNotPoolBuffer() {
+    pool.put(ByteBuffer.allocate(10));
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withBufferLargerThanHalfMaxSize_doesNotPoolBuffer() {
+    pool.put(ByteBuffer.allocateDirect(MAX_SIZE / 2 + 1));
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsLargestBuffers() {
+    ByteBuffer small = ByteBuffer.allocateDirect(20);
+    pool.put(small);
+    pool.put(ByteBuffer.allocateDirect(50));
+    pool.put(ByteBuffer.allocateDirect(40));
+
+    assertThat(pool.getCurrentSize()).isEqualTo(60);
+    assertSame(small, pool.get(20));
+  }
+
+  @Test
+  public void trimMemory_uiHidden_evictsToHalfMaxSize() {
+    pool.put(ByteBuffer.allocateDirect(40));
+    pool.put(ByteBuffer.allocateDirect(30));
+
+    pool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(30);
+  }
+
+  @Test
+  public void clearMemory_evictsAllBuffers() {
+    pool.put(ByteBuffer.allocateDirect(40));
+    pool.put(ByteBuffer.allocateDirect(30));
+
+    pool.clearMemory();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,174 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.util.Util;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ShardedBitmapPoolTest {
+  private static final Set<Bitmap.Config> ALLOWED_CONFIGS =
+      new HashSet<>(Arrays.asList(Bitmap.Config.ARGB_8888, Bitmap.Config.RGB_565));
+  private static final int BITMAP_SIZE = 100 * 100 * 4;
+
+  private ShardedBitmapPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ShardedBitmapPool(BITMAP_SIZE * 4, /*shardCount=*/ 4, ALLOWED_CONFIGS);
+  }
+
+  @Test
+  public void get_afterPut_returnsBitmap() {
+    Bitmap bitmap = createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertSame(bitmap, pool.get(100, 100, Bitmap.Config.ARGB_8888));
+    assertEquals(0, pool.getCurrentSize());
+    assertEquals(1, pool.hitCount());
+  }
+
+  @Test
+  public void getDirty_withSmallerSize_returnsLargerBitmapFromLargerSizeClass() {
+    Bitmap bitmap = createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertSame(bitmap, pool.getDirty(40, 40, Bitmap.Config.ARGB_8888));
+  }
+
+  @Test
+  public void get_withDifferentConfig_returnsNewBitmap() {
+    Bitmap bitmap = createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertNotSame(bitmap, pool.get(100, 100, Bitmap.Config.RGB_565));
+    assertEquals(1, pool.missCount());
+    assertEquals(BITMAP_SIZE, pool.getCurrentSize());
+  }
+
+  @Test
+  public void put_withDisallowedConfig_recyclesBitmap() {
+    Bitmap bitmap = createBitmap(100, 100, Bitmap.Config.ALPHA_8);
+
+    pool.put(bitmap);
+
+    assertTrue(bitmap.isRecycled());
+    assertEquals(0, pool.getCurrentSize());
+  }
+
+  @Test
+  public void put_withImmutableBitmap_recyclesBitmap() {
+    Bitmap bitmap = createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    Shadows.shadowOf(bitmap).setMutable(false);
+
+    pool.put(bitmap);
+
+    assertTrue(bitmap.isRecycled());
+  }
+
+  @Test
+  public void put_overMaxSize_evictsFromLeastRecentlyUsedShard() {
+    Bitmap small = createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    pool.put(small);
+    Bitmap[] large = new Bitmap[4];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+      pool.put(large[i]);
+    }
+
+    assertTrue(small.isRecycled());
+    assertEquals(BITMAP_SIZE * 4, pool.getCurrentSize());
+    assertEquals(1, pool.evictionCount());
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsUntilWithinNewSize() {
+    pool.put(createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+    pool.put(createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+    pool.setSizeMultiplier(0.25f);
+
+    assertEquals(BITMAP_SIZE, pool.getMaxSize());
+    assertEquals(BITMAP_SIZE, pool.getCurrentSize());
+  }
+
+  @Test
+  public void trimMemory_background_evictsAllBitmaps() {
+    Bitmap first = createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    Bitmap second = createBitmap(50, 50, Bitmap.Config.RGB_565);
+    pool.put(first);
+    pool.put(second);
+
+    pool.trimMemory(TRIM_MEMORY_BACKGROUND);
+
+    assertTrue(first.isRecycled());
+    assertTrue(second.isRecycled());
+    assertEquals(0, pool.getCurrentSize());
+  }
+
+  @Test
+  public void getAndPut_fromManyThreads_neverReturnsTheSameBitmapTwice()
+      throws InterruptedException {
+    final Set<Bitmap> inUse =
+        Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<Bitmap, Boolean>()));
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      final int dimension = 10 * (i % 4 + 1);
+      threads[i] =
+          new Thread() {
+            @Override
+            public void run() {
+              try {
+                start.await();
+                for (int j = 0; j < 200; j++) {
+                  Bitmap bitmap = pool.getDirty(dimension, dimension, Bitmap.Config.ARGB_8888);
+                  if (!inUse.add(bitmap)) {
+                    throw new AssertionError("Bitmap returned while in use");
+                  }
+                  inUse.remove(bitmap);
+                  pool.put(bitmap);
+                }
+              } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+              }
+            }
+          };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(failure.get()).isNull();
+    assertTrue(pool.getCurrentSize() <= pool.getMaxSize());
+  }
+
+  private static Bitmap createBitmap(int width, int height, Bitmap.Config config) {
+    Bitmap result = Bitmap.createBitmap(width, height, config);
+    assertEquals(Util.getBitmapByteSize(width, height, config), Util.getBitmapByteSize(result));
+    return result;
+  }
+}
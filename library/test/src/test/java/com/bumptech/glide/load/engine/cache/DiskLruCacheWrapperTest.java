@@ -1,7 +1,11 @@
 package com.bumptech.glide.load.engine.cache;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
@@ -12,6 +16,10 @@ import com.bumptech.glide.signature.ObjectKey;
 import com.bumptech.glide.tests.Util;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +50,10 @@ public class DiskLruCacheWrapperTest {
       cache.clear();
     } finally {
       deleteRecursive(dir);
+      File pendingDir = new File(dir.getPath() + "-pending");
+      if (pendingDir.exists()) {
+        deleteRecursive(pendingDir);
+      }
     }
   }
 
@@ -149,6 +161,206 @@ public class DiskLruCacheWrapperTest {
     assertArrayEquals(data, received);
   }
 
+  @Test
+  public void binaryJournal_canInsertAndGet() throws IOException {
+    cache = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024, /*useBinaryJournal=*/ true);
+    cache.put(key, new DataWriter(data));
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+    assertTrue(new File(dir, "journal.bin").exists());
+  }
+
+  @Test
+  public void admissionFilter_canInsertAndGet() throws IOException {
+    cache =
+        DiskLruCacheWrapper.create(
+            dir,
+            10 * 1024 * 1024,
+            /*useBinaryJournal=*/ false,
+            /*openInBackground=*/ false,
+            /*useAdmissionFilter=*/ true);
+    cache.put(key, new DataWriter(data));
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void getBuffer_afterPut_returnsReadOnlyMappedData() {
+    cache.put(key, new DataWriter(data));
+
+    ByteBuffer buffer = ((DiskLruCacheWrapper) cache).getBuffer(key);
+
+    assertNotNull(buffer);
+    assertTrue(buffer.isDirect());
+    assertTrue(buffer.isReadOnly());
+    byte[] received = new byte[buffer.remaining()];
+    buffer.get(received);
+    assertArrayEquals(data, received);
+  }
+
+  @Test
+  public void getBuffer_withMissingKey_returnsNull() {
+    assertNull(((DiskLruCacheWrapper) cache).getBuffer(key));
+  }
+
+  @Test
+  public void openInBackground_get_beforeOpen_returnsNullAndStartsOpen() {
+    cache.put(key, new DataWriter(data));
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+
+    assertNull(backgroundCache.get(key));
+    assertEquals(1, executor.commands.size());
+
+    executor.runAll();
+    assertNotNull(backgroundCache.get(key));
+  }
+
+  @Test
+  public void openInBackground_put_beforeOpen_isReadableBeforeAndAfterOpen() throws IOException {
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+
+    backgroundCache.put(key, new DataWriter(data));
+    assertArrayEquals(data, Util.readFile(backgroundCache.get(key), data.length));
+
+    executor.runAll();
+    File file = backgroundCache.get(key);
+    assertEquals(dir, file.getParentFile());
+    assertArrayEquals(data, Util.readFile(file, data.length));
+  }
+
+  @Test
+  public void openInBackground_put_beforeOpen_writerReturnsFalse_doesNotCommit() {
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+
+    backgroundCache.put(
+        key,
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            return false;
+          }
+        });
+    executor.runAll();
+
+    assertNull(backgroundCache.get(key));
+  }
+
+  @Test
+  public void openInBackground_delete_beforeOpen_removesStagedWrite() {
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+
+    backgroundCache.put(key, new DataWriter(data));
+    backgroundCache.delete(key);
+    assertNull(backgroundCache.get(key));
+
+    executor.runAll();
+    assertNull(backgroundCache.get(key));
+  }
+
+  @Test
+  public void openInBackground_delete_beforeOpen_removesEntryAfterOpen() {
+    cache.put(key, new DataWriter(data));
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+
+    backgroundCache.delete(key);
+    // The delete is queued rather than opening the cache synchronously.
+    assertEquals(1, executor.commands.size());
+
+    executor.runAll();
+    assertNull(backgroundCache.get(key));
+  }
+
+  @Test
+  public void openInBackground_clear_beforeOpen_clearsCacheAfterOpen() {
+    cache.put(key, new DataWriter(data));
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+
+    backgroundCache.clear();
+    assertEquals(1, executor.commands.size());
+
+    executor.runAll();
+    assertNull(backgroundCache.get(key));
+  }
+
+  @Test
+  public void openInBackground_stagedFileReturnedBeforeOpen_isReadableAfterOpen()
+      throws IOException {
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+    backgroundCache.put(key, new DataWriter(data));
+    File staged = backgroundCache.get(key);
+
+    executor.runAll();
+
+    assertArrayEquals(data, Util.readFile(staged, data.length));
+  }
+
+  @Test
+  public void openInBackground_afterOpen_removesStaleStagedWrites() throws IOException {
+    File pendingDir = new File(dir.getPath() + "-pending");
+    assertTrue(pendingDir.mkdirs() || pendingDir.isDirectory());
+    File stale = new File(pendingDir, "stale");
+    Util.writeFile(stale, data);
+
+    QueueingExecutor executor = new QueueingExecutor();
+    DiskCache backgroundCache = newBackgroundCache(executor);
+    backgroundCache.get(key);
+    executor.runAll();
+
+    assertFalse(stale.exists());
+  }
+
+  private DiskCache newBackgroundCache(Executor executor) {
+    cache =
+        new DiskLruCacheWrapper(
+            dir,
+            10 * 1024 * 1024,
+            /*useBinaryJournal=*/ false,
+            /*useAdmissionFilter=*/ false,
+            executor);
+    return cache;
+  }
+
+  private static final class DataWriter implements DiskCache.Writer {
+    private final byte[] data;
+
+    DataWriter(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+
+  private static final class QueueingExecutor implements Executor {
+    private final List<Runnable> commands = new ArrayList<>();
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+      commands.add(command);
+    }
+
+    void runAll() {
+      for (Runnable command : commands) {
+        command.run();
+      }
+      commands.clear();
+    }
+  }
+
   // Tests #2465.
   @Test
   public void clearDiskCache_afterOpeningDiskCache_andDeleteDirectoryOutsideGlide_doesNotThrow() {
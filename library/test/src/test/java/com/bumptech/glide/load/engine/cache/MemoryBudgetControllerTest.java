@@ -0,0 +1,141 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+import android.os.Looper;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController.Listener;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController.MemorySampler;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class MemoryBudgetControllerTest {
+  private static final float HIGH = MemoryBudgetController.SHRINK_PRESSURE;
+  private static final float LOW = MemoryBudgetController.GROW_PRESSURE;
+  private static final float MEDIUM = (HIGH + LOW) / 2;
+
+  private MemoryBudgetController controller;
+  private Listener listener;
+
+  @Before
+  public void setUp() {
+    controller =
+        new MemoryBudgetController(
+            mock(MemorySampler.class), mock(Executor.class), new Handler(Looper.getMainLooper()));
+    listener = mock(Listener.class);
+    controller.start(listener);
+  }
+
+  @Test
+  public void onSample_withHighPressure_shrinksImmediately() {
+    controller.onSample(HIGH);
+
+    float expected = MemoryBudgetController.SHRINK_FACTOR;
+    assertThat(controller.getSizeMultiplier()).isEqualTo(expected);
+    verify(listener).onSizeMultiplierChanged(expected);
+  }
+
+  @Test
+  public void onSample_withLowPressure_growsAfterConsecutiveSamples() {
+    for (int i = 0; i < MemoryBudgetController.SAMPLES_TO_GROW - 1; i++) {
+      controller.onSample(LOW);
+    }
+    assertThat(controller.getSizeMultiplier()).isEqualTo(1f);
+
+    controller.onSample(LOW);
+
+    float expected = 1f + MemoryBudgetController.GROW_STEP;
+    assertThat(controller.getSizeMultiplier()).isEqualTo(expected);
+    verify(listener).onSizeMultiplierChanged(expected);
+  }
+
+  @Test
+  public void onSample_withMediumPressure_resetsLowPressureSamples() {
+    for (int i = 0; i < MemoryBudgetController.SAMPLES_TO_GROW - 1; i++) {
+      controller.onSample(LOW);
+    }
+    controller.onSample(MEDIUM);
+    controller.onSample(LOW);
+
+    assertThat(controller.getSizeMultiplier()).isEqualTo(1f);
+    verify(listener, never()).onSizeMultiplierChanged(anyFloat());
+  }
+
+  @Test
+  public void onSample_withRepeatedPressure_staysWithinBounds() {
+    for (int i = 0; i < 100; i++) {
+      controller.onSample(HIGH);
+    }
+    assertThat(controller.getSizeMultiplier()).isEqualTo(MemoryBudgetController.MIN_MULTIPLIER);
+
+    for (int i = 0; i < 100; i++) {
+      controller.onSample(0f);
+    }
+    assertThat(controller.getSizeMultiplier()).isEqualTo(MemoryBudgetController.MAX_MULTIPLIER);
+  }
+
+  @Test
+  public void onSample_afterStop_doesNotChangeMultiplier() {
+    controller.stop();
+
+    controller.onSample(HIGH);
+
+    assertThat(controller.getSizeMultiplier()).isEqualTo(1f);
+    verify(listener, never()).onSizeMultiplierChanged(anyFloat());
+  }
+
+  @Test
+  public void onTrimMemory_runningLow_shrinks() {
+    controller.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+    verify(listener).onSizeMultiplierChanged(MemoryBudgetController.SHRINK_FACTOR);
+  }
+
+  @Test
+  public void onTrimMemory_uiHidden_doesNotShrink() {
+    controller.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(controller.getSizeMultiplier()).isEqualTo(1f);
+  }
+
+  @Test
+  public void onTrimMemory_uiHidden_pausesSampling() {
+    controller.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(controller.isPaused()).isTrue();
+    controller.onSample(HIGH);
+    assertThat(controller.getSizeMultiplier()).isEqualTo(1f);
+  }
+
+  @Test
+  public void onForeground_afterPause_resumesSampling() {
+    controller.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    controller.onForeground();
+
+    assertThat(controller.isPaused()).isFalse();
+    controller.onSample(HIGH);
+    verify(listener).onSizeMultiplierChanged(MemoryBudgetController.SHRINK_FACTOR);
+  }
+
+  @Test
+  public void onForeground_afterStop_doesNotResumeSampling() {
+    controller.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+    controller.stop();
+
+    controller.onForeground();
+
+    assertThat(controller.isPaused()).isTrue();
+  }
+}
@@ -146,10 +146,57 @@ public class MemorySizeCalculatorTest {
     assertThat(byteArrayPoolSize).isEqualTo(harness.byteArrayPoolSizeBytes / 2);
   }
 
+  @Test
+  public void testDirectBufferPoolSize_withLargeScreen_keepsScreenSizedBuffers() {
+    harness.pixelSize = 1080;
+    Shadows.shadowOf(harness.activityManager).setMemoryClass(getLargeEnoughMemoryClass());
+
+    int directBufferPoolSize = harness.getCalculator().getDirectBufferPoolSizeInBytes();
+
+    assertThat(directBufferPoolSize).isAtLeast(2 * harness.getScreenSize());
+  }
+
+  @Test
+  public void testDirectBufferPoolSize_withSmallScreen_isDefaultSize() {
+    Shadows.shadowOf(harness.activityManager).setMemoryClass(getLargeEnoughMemoryClass());
+
+    int directBufferPoolSize = harness.getCalculator().getDirectBufferPoolSizeInBytes();
+
+    assertThat(directBufferPoolSize)
+        .isEqualTo(MemorySizeCalculator.Builder.DIRECT_BUFFER_POOL_SIZE_BYTES);
+  }
+
+  @Test
+  public void testCumulativeSizes_withDirectBufferPool_areLimitedByMemoryClass() {
+    harness.pixelSize = 1080;
+    final int memoryClassBytes =
+        Math.round(
+            harness.getScreenSize()
+                * (harness.bitmapPoolScreens + harness.memoryCacheScreens)
+                * harness.sizeMultiplier);
+    Shadows.shadowOf(harness.activityManager).setMemoryClass(memoryClassBytes / (1024 * 1024));
+
+    MemorySizeCalculator calculator = harness.getCalculator();
+
+    assertThat(calculator.getDirectBufferPoolSizeInBytes()).isGreaterThan(0);
+    assertThat(
+            (float) calculator.getMemoryCacheSize()
+                + calculator.getBitmapPoolSize()
+                + calculator.getArrayPoolSizeInBytes()
+                + calculator.getDirectBufferPoolSizeInBytes())
+        .isIn(Range.atMost(memoryClassBytes * harness.sizeMultiplier));
+  }
+
   private int getLargeEnoughMemoryClass() {
     float totalScreenBytes =
         harness.getScreenSize() * (harness.bitmapPoolScreens + harness.memoryCacheScreens);
-    float totalBytes = totalScreenBytes + harness.byteArrayPoolSizeBytes;
+    int directBufferPoolScreenBytes =
+        harness.getScreenSize() * MemorySizeCalculator.Builder.DIRECT_BUFFER_POOL_TARGET_SCREENS;
+    float directBufferPoolBytes =
+        Math.max(
+            MemorySizeCalculator.Builder.DIRECT_BUFFER_POOL_SIZE_BYTES,
+            directBufferPoolScreenBytes);
+    float totalBytes = totalScreenBytes + harness.byteArrayPoolSizeBytes + directBufferPoolBytes;
     // Memory class is in mb, not bytes!
     float totalMb = totalBytes / (1024 * 1024);
     float memoryClassMb = totalMb / harness.sizeMultiplier;
@@ -157,7 +204,7 @@ public class MemorySizeCalculatorTest {
   }
 
   private static class MemorySizeHarness {
-    final int pixelSize = 500;
+    int pixelSize = 500;
     final int bytesPerPixel = MemorySizeCalculator.BYTES_PER_ARGB_8888_PIXEL;
     float memoryCacheScreens = MemorySizeCalculator.Builder.MEMORY_CACHE_TARGET_SCREENS;
     float bitmapPoolScreens = MemorySizeCalculator.Builder.BITMAP_POOL_TARGET_SCREENS;
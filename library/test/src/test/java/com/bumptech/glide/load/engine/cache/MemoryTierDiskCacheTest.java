@@ -0,0 +1,181 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import android.content.ComponentCallbacks2;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18)
+public class MemoryTierDiskCacheTest {
+  private static final int MAX_SIZE = 250;
+  private static final int MAX_ENTRY_SIZE = 100;
+
+  private DiskCache diskCache;
+  private MemoryTierDiskCache cache;
+
+  @Before
+  public void setUp() {
+    File dir = new File(RuntimeEnvironment.application.getCacheDir(), "memory_tier");
+    diskCache = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024);
+    cache = new MemoryTierDiskCache(diskCache, MAX_SIZE, MAX_ENTRY_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+  }
+
+  @Test
+  public void getBuffer_afterRead_returnsDataFromMemory() {
+    byte[] data = data(50, /*value=*/ 1);
+    cache.put(new ObjectKey("key"), new DataWriter(data));
+    assertArrayEquals(data, toBytes(cache.getBuffer(new ObjectKey("key"))));
+
+    diskCache.delete(new ObjectKey("key"));
+
+    assertArrayEquals(data, toBytes(cache.getBuffer(new ObjectKey("key"))));
+    assertEquals(data.length, cache.getMemorySize());
+  }
+
+  @Test
+  public void getBuffer_withMissingKey_returnsNull() {
+    assertNull(cache.getBuffer(new ObjectKey("key")));
+    assertEquals(0, cache.getMemorySize());
+  }
+
+  @Test
+  public void getBuffer_withLargeEntry_returnsDataWithoutHoldingItInMemory() {
+    byte[] data = data(MAX_ENTRY_SIZE + 1, /*value=*/ 2);
+    cache.put(new ObjectKey("key"), new DataWriter(data));
+
+    assertArrayEquals(data, toBytes(cache.getBuffer(new ObjectKey("key"))));
+
+    assertEquals(0, cache.getMemorySize());
+  }
+
+  @Test
+  public void put_replacesDataHeldInMemory() {
+    cache.put(new ObjectKey("key"), new DataWriter(data(50, /*value=*/ 1)));
+    assertNotNull(cache.getBuffer(new ObjectKey("key")));
+    diskCache.delete(new ObjectKey("key"));
+    byte[] replacement = data(20, /*value=*/ 3);
+
+    cache.put(new ObjectKey("key"), new DataWriter(replacement));
+
+    assertArrayEquals(replacement, toBytes(cache.getBuffer(new ObjectKey("key"))));
+  }
+
+  @Test
+  public void delete_removesDataFromMemoryAndDisk() {
+    cache.put(new ObjectKey("key"), new DataWriter(data(50, /*value=*/ 1)));
+    assertNotNull(cache.getBuffer(new ObjectKey("key")));
+
+    cache.delete(new ObjectKey("key"));
+
+    assertNull(cache.getBuffer(new ObjectKey("key")));
+    assertNull(cache.get(new ObjectKey("key")));
+    assertEquals(0, cache.getMemorySize());
+  }
+
+  @Test
+  public void getBuffer_overMaxSize_evictsLeastRecentlyReadData() {
+    for (String key : new String[] {"first", "second", "third"}) {
+      cache.put(new ObjectKey(key), new DataWriter(data(100, /*value=*/ 1)));
+    }
+    assertNotNull(cache.getBuffer(new ObjectKey("first")));
+    assertNotNull(cache.getBuffer(new ObjectKey("second")));
+    assertNotNull(cache.getBuffer(new ObjectKey("first")));
+
+    assertNotNull(cache.getBuffer(new ObjectKey("third")));
+
+    assertEquals(200, cache.getMemorySize());
+    diskCache.clear();
+    assertNotNull(cache.getBuffer(new ObjectKey("first")));
+    assertNull(cache.getBuffer(new ObjectKey("second")));
+    assertNotNull(cache.getBuffer(new ObjectKey("third")));
+  }
+
+  @Test
+  public void clearMemory_removesDataFromMemoryButNotDisk() {
+    byte[] data = data(50, /*value=*/ 1);
+    cache.put(new ObjectKey("key"), new DataWriter(data));
+    assertNotNull(cache.getBuffer(new ObjectKey("key")));
+
+    cache.clearMemory();
+
+    assertEquals(0, cache.getMemorySize());
+    assertArrayEquals(data, toBytes(cache.getBuffer(new ObjectKey("key"))));
+  }
+
+  @Test
+  public void trimMemory_withUiHidden_trimsToHalfMaxSize() {
+    for (String key : new String[] {"first", "second"}) {
+      cache.put(new ObjectKey(key), new DataWriter(data(100, /*value=*/ 1)));
+      assertNotNull(cache.getBuffer(new ObjectKey(key)));
+    }
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertEquals(100, cache.getMemorySize());
+  }
+
+  @Test
+  public void trimMemory_withBackground_removesAllDataFromMemory() {
+    cache.put(new ObjectKey("key"), new DataWriter(data(50, /*value=*/ 1)));
+    assertNotNull(cache.getBuffer(new ObjectKey("key")));
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertEquals(0, cache.getMemorySize());
+  }
+
+  private static byte[] data(int length, int value) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte) (value + i);
+    }
+    return result;
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    assertNotNull(buffer);
+    byte[] result = new byte[buffer.remaining()];
+    buffer.get(result);
+    return result;
+  }
+
+  private static final class DataWriter implements DiskCache.Writer {
+    private final byte[] data;
+
+    DataWriter(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,322 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18)
+public class PackedDiskCacheTest {
+  private static final int MAX_ENTRY_SIZE = 100;
+  private static final int SEGMENT_SIZE = 1000;
+
+  private File dir;
+  private File largeDir;
+  private DiskCache largeEntryCache;
+  private PackedDiskCache cache;
+
+  @Before
+  public void setUp() {
+    File cacheDir = RuntimeEnvironment.application.getCacheDir();
+    dir = new File(cacheDir, "packed");
+    largeDir = new File(cacheDir, "large");
+    largeEntryCache = DiskLruCacheWrapper.create(largeDir, 10 * 1024 * 1024);
+    cache = newCache(/*maxSize=*/ 10 * 1024 * 1024);
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      deleteRecursive(dir);
+      deleteRecursive(largeDir);
+    }
+  }
+
+  @Test
+  public void getBuffer_afterPut_returnsData() {
+    byte[] data = data(10, /*value=*/ 1);
+    cache.put(new ObjectKey("key"), new DataWriter(data));
+
+    assertArrayEquals(data, toBytes(cache.getBuffer(new ObjectKey("key"))));
+  }
+
+  @Test
+  public void get_afterPut_returnsFileWithData() throws IOException {
+    byte[] data = data(10, /*value=*/ 1);
+    cache.put(new ObjectKey("key"), new DataWriter(data));
+
+    File file = cache.get(new ObjectKey("key"));
+    assertNotNull(file);
+    assertArrayEquals(data, Util.readFile(file, data.length));
+  }
+
+  @Test
+  public void getBuffer_withMissingKey_returnsNull() {
+    assertNull(cache.getBuffer(new ObjectKey("key")));
+    assertNull(cache.get(new ObjectKey("key")));
+  }
+
+  @Test
+  public void put_whenWriterReturnsFalse_doesNotCommit() {
+    cache.put(
+        new ObjectKey("key"),
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            return false;
+          }
+        });
+
+    assertNull(cache.getBuffer(new ObjectKey("key")));
+  }
+
+  @Test
+  public void put_withLargeEntry_storesEntryInLargeEntryCache() throws IOException {
+    byte[] data = data(MAX_ENTRY_SIZE + 1, /*value=*/ 2);
+    cache.put(new ObjectKey("key"), new DataWriter(data));
+
+    assertEquals(0, cache.getSize());
+    assertArrayEquals(data, toBytes(cache.getBuffer(new ObjectKey("key"))));
+    assertArrayEquals(data, Util.readFile(cache.get(new ObjectKey("key")), data.length));
+    assertNotNull(largeEntryCache.get(new ObjectKey("key")));
+  }
+
+  @Test
+  public void delete_removesEntry() {
+    cache.put(new ObjectKey("key"), new DataWriter(data(10, /*value=*/ 1)));
+
+    cache.delete(new ObjectKey("key"));
+
+    assertNull(cache.getBuffer(new ObjectKey("key")));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void put_overMaxSize_evictsLeastRecentlyUsedEntries() {
+    cache.clear();
+    // Leaves room for the tombstone written when an entry is evicted.
+    cache = newCache(/*maxSize=*/ 290);
+    cache.put(new ObjectKey("first"), new DataWriter(data(100, /*value=*/ 1)));
+    cache.put(new ObjectKey("second"), new DataWriter(data(100, /*value=*/ 2)));
+    assertNotNull(cache.getBuffer(new ObjectKey("first")));
+
+    cache.put(new ObjectKey("third"), new DataWriter(data(100, /*value=*/ 3)));
+
+    assertNotNull(cache.getBuffer(new ObjectKey("first")));
+    assertNull(cache.getBuffer(new ObjectKey("second")));
+    assertNotNull(cache.getBuffer(new ObjectKey("third")));
+    assertEquals(200, cache.getSize());
+  }
+
+  @Test
+  public void reopen_restoresEntriesAndTombstones() {
+    byte[] data = data(50, /*value=*/ 3);
+    cache.put(new ObjectKey("kept"), new DataWriter(data));
+    cache.put(new ObjectKey("deleted"), new DataWriter(data(50, /*value=*/ 4)));
+    cache.delete(new ObjectKey("deleted"));
+
+    PackedDiskCache reopened = newCache(/*maxSize=*/ 10 * 1024 * 1024);
+
+    assertArrayEquals(data, toBytes(reopened.getBuffer(new ObjectKey("kept"))));
+    assertNull(reopened.getBuffer(new ObjectKey("deleted")));
+    assertEquals(data.length, reopened.getSize());
+  }
+
+  @Test
+  public void reopen_withPartiallyWrittenRecord_dropsOnlyThatRecord() throws IOException {
+    byte[] data = data(50, /*value=*/ 5);
+    cache.put(new ObjectKey("complete"), new DataWriter(data));
+    cache.put(new ObjectKey("partial"), new DataWriter(data(50, /*value=*/ 6)));
+    File segment = new File(dir, "segment.0");
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      file.setLength(file.length() - 10);
+    } finally {
+      file.close();
+    }
+
+    PackedDiskCache reopened = newCache(/*maxSize=*/ 10 * 1024 * 1024);
+
+    assertArrayEquals(data, toBytes(reopened.getBuffer(new ObjectKey("complete"))));
+    assertNull(reopened.getBuffer(new ObjectKey("partial")));
+
+    byte[] replacement = data(20, /*value=*/ 7);
+    reopened.put(new ObjectKey("partial"), new DataWriter(replacement));
+    assertArrayEquals(replacement, toBytes(reopened.getBuffer(new ObjectKey("partial"))));
+  }
+
+  @Test
+  public void put_afterEntriesAreRemoved_compactsOldestSegment() {
+    for (int i = 0; i < 30; i++) {
+      cache.put(new ObjectKey("key" + i), new DataWriter(data(90, /*value=*/ i)));
+    }
+    assertTrue(cache.getSegmentCount() > 2);
+    for (int i = 0; i < 25; i++) {
+      cache.delete(new ObjectKey("key" + i));
+    }
+    int segmentCount = cache.getSegmentCount();
+    cache.put(new ObjectKey("trigger"), new DataWriter(data(90, /*value=*/ 100)));
+
+    assertTrue(cache.getSegmentCount() < segmentCount);
+    for (int i = 25; i < 30; i++) {
+      assertArrayEquals(
+          data(90, /*value=*/ i), toBytes(cache.getBuffer(new ObjectKey("key" + i))));
+    }
+  }
+
+  @Test
+  public void reopen_afterCompaction_restoresRemainingEntries() {
+    for (int i = 0; i < 30; i++) {
+      cache.put(new ObjectKey("key" + i), new DataWriter(data(90, /*value=*/ i)));
+    }
+    for (int i = 0; i < 25; i++) {
+      cache.delete(new ObjectKey("key" + i));
+    }
+    cache.put(new ObjectKey("trigger"), new DataWriter(data(90, /*value=*/ 100)));
+
+    PackedDiskCache reopened = newCache(/*maxSize=*/ 10 * 1024 * 1024);
+
+    for (int i = 0; i < 25; i++) {
+      assertNull(reopened.getBuffer(new ObjectKey("key" + i)));
+    }
+    for (int i = 25; i < 30; i++) {
+      assertArrayEquals(
+          data(90, /*value=*/ i), toBytes(reopened.getBuffer(new ObjectKey("key" + i))));
+    }
+    assertEquals(6 * 90, reopened.getSize());
+  }
+
+  @Test
+  public void reopen_afterCrashWhileReplacingSegments_doesNotRestoreRemovedEntries() {
+    cache.clear();
+    cache =
+        new PackedDiskCache(
+            dir, /*maxSize=*/ 10 * 1024 * 1024, MAX_ENTRY_SIZE, SEGMENT_SIZE, largeEntryCache) {
+          @Override
+          void onOlderSegmentsDeleted() {
+            throw new SimulatedCrashException();
+          }
+        };
+    // Six entries fill each segment.
+    for (int i = 0; i < 18; i++) {
+      cache.put(new ObjectKey("key" + i), new DataWriter(data(90, /*value=*/ i)));
+    }
+    // Fills the fourth segment with tombstones for entries in the first three.
+    for (int i = 1; i < 15; i++) {
+      cache.delete(new ObjectKey("key" + i));
+    }
+    try {
+      cache.put(new ObjectKey("trigger"), new DataWriter(data(90, /*value=*/ 100)));
+      fail("Expected compaction to replace the oldest segments");
+    } catch (SimulatedCrashException e) {
+      // Expected.
+    }
+
+    PackedDiskCache reopened = newCache(/*maxSize=*/ 10 * 1024 * 1024);
+
+    for (int i = 1; i < 15; i++) {
+      assertNull(reopened.getBuffer(new ObjectKey("key" + i)));
+    }
+    assertNotNull(reopened.getBuffer(new ObjectKey("trigger")));
+  }
+
+  @Test
+  public void put_withTombstonesOverMaxSize_evictsEntries() {
+    cache.clear();
+    cache = newCache(/*maxSize=*/ 250);
+    cache.put(new ObjectKey("first"), new DataWriter(data(100, /*value=*/ 1)));
+    cache.put(new ObjectKey("second"), new DataWriter(data(100, /*value=*/ 2)));
+    cache.delete(new ObjectKey("first"));
+    assertTrue(cache.getTombstoneSize() > 0);
+
+    cache.put(new ObjectKey("third"), new DataWriter(data(100, /*value=*/ 3)));
+
+    assertNull(cache.getBuffer(new ObjectKey("second")));
+    assertNotNull(cache.getBuffer(new ObjectKey("third")));
+    assertTrue(cache.getSize() + cache.getTombstoneSize() <= 250);
+  }
+
+  @Test
+  public void clear_removesAllEntries() {
+    cache.put(new ObjectKey("small"), new DataWriter(data(10, /*value=*/ 1)));
+    cache.put(new ObjectKey("large"), new DataWriter(data(MAX_ENTRY_SIZE * 2, /*value=*/ 2)));
+
+    cache.clear();
+
+    assertNull(cache.getBuffer(new ObjectKey("small")));
+    assertNull(cache.get(new ObjectKey("large")));
+  }
+
+  private PackedDiskCache newCache(long maxSize) {
+    return new PackedDiskCache(dir, maxSize, MAX_ENTRY_SIZE, SEGMENT_SIZE, largeEntryCache);
+  }
+
+  private static byte[] data(int length, int value) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte) (value + i);
+    }
+    return result;
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    assertNotNull(buffer);
+    byte[] result = new byte[buffer.remaining()];
+    buffer.get(result);
+    return result;
+  }
+
+  private static void deleteRecursive(File file) {
+    if (file.isDirectory()) {
+      File[] files = file.listFiles();
+      if (files != null) {
+        for (File f : files) {
+          deleteRecursive(f);
+        }
+      }
+    }
+    if (!file.delete() && file.exists()) {
+      throw new RuntimeException("Failed to delete: " + file);
+    }
+  }
+
+  private static final class SimulatedCrashException extends RuntimeException {}
+
+  private static final class DataWriter implements DiskCache.Writer {
+    private final byte[] data;
+
+    DataWriter(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SegmentedLruResourceCacheTest {
+  private SegmentedLruResourceCache cache;
+  private ResourceRemovedListener listener;
+
+  @Before
+  public void setUp() {
+    cache = new SegmentedLruResourceCache(100, /*segmentCount=*/ 4);
+    listener = mock(ResourceRemovedListener.class);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeAndEvictsExistingItem() {
+    Key key = new MockKey();
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(40);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void put_withItemLargerThanCache_evictsItem() {
+    Resource<?> resource = getResource(200);
+
+    cache.put(new MockKey(), resource);
+
+    verify(listener).onResourceRemoved(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsLeastRecentlyPutAcrossSegments() {
+    // Enough keys that they're spread across every segment.
+    MockKey[] keys = new MockKey[10];
+    Resource<?>[] resources = new Resource<?>[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new MockKey();
+      resources[i] = getResource(10);
+      cache.put(keys[i], resources[i]);
+    }
+
+    cache.put(new MockKey(), getResource(30));
+
+    assertThat(cache.getCurrentSize()).isEqualTo(100);
+    for (int i = 0; i < 3; i++) {
+      assertFalse(cache.contains(keys[i]));
+      verify(listener).onResourceRemoved(resources[i]);
+    }
+    for (int i = 3; i < keys.length; i++) {
+      assertTrue(cache.contains(keys[i]));
+    }
+  }
+
+  @Test
+  public void remove_returnsItemWithoutNotifyingListener() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(50);
+    cache.put(key, resource);
+
+    assertThat(cache.remove(key)).isEqualTo(resource);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    assertThat(cache.remove(key)).isNull();
+    verify(listener, never()).onResourceRemoved(resource);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsUntilWithinNewSize() {
+    Resource<?> first = getResource(40);
+    Resource<?> second = getResource(40);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.setSizeMultiplier(0.5f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(50);
+    assertThat(cache.getCurrentSize()).isEqualTo(40);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void trimMemory_background_evictsAllItems() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(50);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_evictsOldestHalf() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(50);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void trimMemory_withListenerThatPutsEvictedItem_keepsOnlyThatItem() {
+    final Resource<?> first = getResource(30);
+    final Key firstKey = new MockKey();
+    cache.put(firstKey, first);
+    Key secondKey = new MockKey();
+    cache.put(secondKey, getResource(30));
+    Key thirdKey = new MockKey();
+    cache.put(thirdKey, getResource(30));
+    cache.setResourceRemovedListener(
+        new ResourceRemovedListener() {
+          @Override
+          public void onResourceRemoved(@NonNull Resource<?> removed) {
+            if (removed == first) {
+              cache.put(firstKey, first);
+            }
+          }
+        });
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertTrue(cache.contains(firstKey));
+    assertFalse(cache.contains(secondKey));
+    assertFalse(cache.contains(thirdKey));
+  }
+
+  private static Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static class MockKey implements Key {
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(toString().getBytes(CHARSET));
+    }
+  }
+}
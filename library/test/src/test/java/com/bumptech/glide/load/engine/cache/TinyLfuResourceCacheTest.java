@@ -0,0 +1,217 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuResourceCacheTest {
+  private TinyLfuResourceCache cache;
+  private ResourceRemovedListener listener;
+
+  @Before
+  public void setUp() {
+    cache = new TinyLfuResourceCache(100);
+    listener = mock(ResourceRemovedListener.class);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeAndEvictsExistingItem() {
+    Key key = new MockKey();
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(40);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void put_withItemLargerThanCache_evictsItem() {
+    Resource<?> resource = getResource(200);
+
+    cache.put(new MockKey(), resource);
+
+    verify(listener).onResourceRemoved(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_overMaxSize_withoutRepeatedLoads_keepsNewItemInWindow() {
+    MockKey[] keys = new MockKey[10];
+    Resource<?> previous = null;
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new MockKey();
+      previous = getResource(10);
+      cache.put(keys[i], previous);
+    }
+    Key newKey = new MockKey();
+    Resource<?> newResource = getResource(10);
+
+    cache.put(newKey, newResource);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(100);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertTrue(cache.contains(newKey));
+    // The previous new item left the window and wasn't loaded more often than the oldest item.
+    assertFalse(cache.contains(keys[keys.length - 1]));
+    verify(listener).onResourceRemoved(previous);
+    verify(listener, never()).onResourceRemoved(newResource);
+  }
+
+  @Test
+  public void put_withLargeNewItem_keepsNewItemInWindow() {
+    MockKey[] keys = new MockKey[5];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new MockKey();
+      cache.put(keys[i], getResource(10));
+      cache.remove(keys[i]);
+      cache.put(keys[i], getResource(10));
+    }
+    Key newKey = new MockKey();
+    Resource<?> newResource = getResource(60);
+
+    cache.put(newKey, newResource);
+
+    assertTrue(cache.contains(newKey));
+    verify(listener, never()).onResourceRemoved(newResource);
+  }
+
+  @Test
+  public void put_overMaxSize_withNewItemLoadedBefore_evictsLeastRecentlyPut() {
+    MockKey[] keys = new MockKey[10];
+    Resource<?> first = getResource(10);
+    keys[0] = new MockKey();
+    cache.put(keys[0], first);
+    for (int i = 1; i < keys.length; i++) {
+      keys[i] = new MockKey();
+      cache.put(keys[i], getResource(10));
+    }
+    Key newKey = new MockKey();
+    cache.remove(newKey);
+    cache.put(newKey, getResource(10));
+
+    // Moves the new item out of the window.
+    cache.put(new MockKey(), getResource(10));
+
+    assertTrue(cache.contains(newKey));
+    assertFalse(cache.contains(keys[0]));
+    verify(listener).onResourceRemoved(first);
+  }
+
+  @Test
+  public void put_withScanOfNewItems_keepsFrequentlyLoadedItem() {
+    Key frequent = new MockKey();
+    Resource<?> frequentResource = getResource(10);
+    cache.put(frequent, frequentResource);
+    // Each load removes the resource from the cache while it's in use and puts it back after.
+    for (int i = 0; i < 5; i++) {
+      assertThat(cache.remove(frequent)).isEqualTo(frequentResource);
+      cache.put(frequent, frequentResource);
+    }
+
+    for (int i = 0; i < 50; i++) {
+      Key key = new MockKey();
+      cache.remove(key);
+      cache.put(key, getResource(10));
+    }
+
+    assertTrue(cache.contains(frequent));
+    verify(listener, never()).onResourceRemoved(frequentResource);
+    assertThat(cache.getCurrentSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void remove_countsHitsAndMisses() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(50);
+    assertThat(cache.getHitRate()).isEqualTo(0d);
+
+    assertThat(cache.remove(key)).isNull();
+    cache.put(key, resource);
+    assertThat(cache.remove(key)).isEqualTo(resource);
+    assertThat(cache.remove(new MockKey())).isNull();
+    assertThat(cache.remove(key)).isNull();
+
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(3);
+    assertThat(cache.getHitRate()).isEqualTo(0.25d);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    verify(listener, never()).onResourceRemoved(resource);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsUntilWithinNewSize() {
+    Resource<?> first = getResource(40);
+    Resource<?> second = getResource(40);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.setSizeMultiplier(0.5f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(50);
+    assertThat(cache.getCurrentSize()).isEqualTo(40);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void trimMemory_background_evictsAllItems() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_evictsOldestHalf() {
+    Resource<?> first = getResource(40);
+    Resource<?> second = getResource(40);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  private static Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static class MockKey implements Key {
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(toString().getBytes(CHARSET));
+    }
+  }
+}
@@ -6,6 +6,7 @@ import androidx.annotation.NonNull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -40,6 +41,166 @@ public class GlideExecutorTest {
     assertThat(resultPriorities).containsExactly(5, 1, 2, 3, 4).inOrder();
   }
 
+  @Test
+  public void remove_withQueuedTask_preventsTaskFromRunning() throws InterruptedException {
+    final CountDownLatch blockingStarted = new CountDownLatch(1);
+    final CountDownLatch unblock = new CountDownLatch(1);
+    final List<Integer> resultPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+    MockRunnable.OnRun onRun =
+        new MockRunnable.OnRun() {
+          @Override
+          public void onRun(int priority) {
+            if (priority == 0) {
+              blockingStarted.countDown();
+              try {
+                unblock.await();
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              }
+            }
+            resultPriorities.add(priority);
+          }
+        };
+    GlideExecutor executor = GlideExecutor.newDiskCacheExecutor();
+    executor.execute(new MockRunnable(0, onRun));
+    blockingStarted.await();
+    MockRunnable toRemove = new MockRunnable(1, onRun);
+    executor.execute(toRemove);
+    executor.execute(new MockRunnable(2, onRun));
+
+    assertThat(executor.remove(toRemove)).isTrue();
+    unblock.countDown();
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(resultPriorities).containsExactly(0, 2).inOrder();
+  }
+
+  @Test
+  public void testLoadsWithSamePriorityAreExecutedNewestFirstWhenLastInFirstOut()
+      throws InterruptedException {
+    final List<Integer> resultOrders = Collections.synchronizedList(new ArrayList<Integer>());
+    GlideExecutor executor =
+        GlideExecutor.newDiskCacheBuilder().setLastInFirstOut(true).build();
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 0, resultOrders));
+    executor.execute(new MockOrderedTask(/*priority=*/ 1, /*order=*/ 1, resultOrders));
+    executor.execute(new MockOrderedTask(/*priority=*/ 1, /*order=*/ 2, resultOrders));
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 3, resultOrders));
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 4, resultOrders));
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    // The first task runs immediately, then higher priorities run first and newer tasks run before
+    // older tasks with the same priority.
+    assertThat(resultOrders).containsExactly(0, 4, 3, 2, 1).inOrder();
+  }
+
+  @Test
+  public void testOldestLoadsAreDroppedWhenQueueIsFull() throws InterruptedException {
+    final List<Integer> resultOrders = Collections.synchronizedList(new ArrayList<Integer>());
+    GlideExecutor executor =
+        GlideExecutor.newDiskCacheBuilder().setLastInFirstOut(true).setMaxQueueSize(2).build();
+    MockOrderedTask first = new MockOrderedTask(/*priority=*/ 0, /*order=*/ 0, resultOrders);
+    MockOrderedTask oldest = new MockOrderedTask(/*priority=*/ 0, /*order=*/ 1, resultOrders);
+    executor.execute(first);
+    executor.execute(oldest);
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 2, resultOrders));
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 3, resultOrders));
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(oldest.isDropped).isTrue();
+    assertThat(resultOrders).containsExactly(0, 3, 2).inOrder();
+  }
+
+  @Test
+  public void testStartedLoadsAreNotDroppedWhenQueueIsFull() throws InterruptedException {
+    final List<Integer> resultOrders = Collections.synchronizedList(new ArrayList<Integer>());
+    GlideExecutor executor =
+        GlideExecutor.newDiskCacheBuilder().setLastInFirstOut(true).setMaxQueueSize(1).build();
+    MockOrderedTask started = new MockOrderedTask(/*priority=*/ 0, /*order=*/ 1, resultOrders);
+    started.isStarted = true;
+    MockOrderedTask notStarted = new MockOrderedTask(/*priority=*/ 0, /*order=*/ 2, resultOrders);
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 0, resultOrders));
+    executor.execute(started);
+    executor.execute(notStarted);
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(started.isDropped).isFalse();
+    assertThat(notStarted.isDropped).isTrue();
+    assertThat(resultOrders).containsExactly(0, 1).inOrder();
+  }
+
+  @Test
+  public void testStartedLoadsAreExecutedBeforeNewerLoadsWhenLastInFirstOut()
+      throws InterruptedException {
+    final List<Integer> resultOrders = Collections.synchronizedList(new ArrayList<Integer>());
+    GlideExecutor executor =
+        GlideExecutor.newDiskCacheBuilder().setLastInFirstOut(true).build();
+    MockOrderedTask started = new MockOrderedTask(/*priority=*/ 0, /*order=*/ 1, resultOrders);
+    started.isStarted = true;
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 0, resultOrders));
+    executor.execute(started);
+    executor.execute(new MockOrderedTask(/*priority=*/ 0, /*order=*/ 2, resultOrders));
+    executor.execute(new MockOrderedTask(/*priority=*/ 1, /*order=*/ 3, resultOrders));
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(resultOrders).containsExactly(0, 1, 2, 3).inOrder();
+  }
+
+  /** Blocks its executor's only thread until the rest of the tasks in a test are queued. */
+  private static final class MockOrderedTask implements GlideExecutor.OrderedTask {
+    private final int priority;
+    private final int order;
+    private final List<Integer> resultOrders;
+    volatile boolean isStarted;
+    volatile boolean isDropped;
+
+    MockOrderedTask(int priority, int order, List<Integer> resultOrders) {
+      this.priority = priority;
+      this.order = order;
+      this.resultOrders = resultOrders;
+    }
+
+    @Override
+    public int getPriority() {
+      return priority;
+    }
+
+    @Override
+    public int getOrder() {
+      return order;
+    }
+
+    @Override
+    public boolean isStarted() {
+      return isStarted;
+    }
+
+    @Override
+    public void onDropped() {
+      isDropped = true;
+    }
+
+    @Override
+    public void run() {
+      if (order == 0) {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      resultOrders.add(order);
+    }
+  }
+
   private static final class MockRunnable implements Runnable, Comparable<MockRunnable> {
     private final int priority;
     private final OnRun onRun;
@@ -0,0 +1,104 @@
+package com.bumptech.glide.load.engine.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ThreadCountTunerTest {
+  private static final int MIN = 1;
+  private static final int MAX = 8;
+  private static final int CORES = 4;
+  private static final long WINDOW_MS = 1000;
+
+  @Test
+  public void onWindow_withWaitingIoBoundTasks_addsThread() {
+    ThreadCountTuner tuner = new ThreadCountTuner(MIN, MAX, CORES, /*threadCount=*/ 4);
+
+    assertThat(ioBoundWindow(tuner, /*completedTasks=*/ 10, /*queueSize=*/ 5)).isEqualTo(5);
+  }
+
+  @Test
+  public void onWindow_withWaitingCpuBoundTasksAndSpareCores_addsThread() {
+    ThreadCountTuner tuner = new ThreadCountTuner(MIN, MAX, CORES, /*threadCount=*/ 2);
+
+    assertThat(cpuBoundWindow(tuner, /*completedTasks=*/ 10, /*queueSize=*/ 5)).isEqualTo(3);
+  }
+
+  @Test
+  public void onWindow_withWaitingCpuBoundTasksAndNoSpareCores_keepsThreadCount() {
+    ThreadCountTuner tuner = new ThreadCountTuner(MIN, MAX, CORES, /*threadCount=*/ 4);
+
+    assertThat(cpuBoundWindow(tuner, /*completedTasks=*/ 10, /*queueSize=*/ 5)).isEqualTo(4);
+  }
+
+  @Test
+  public void onWindow_withIdleThreads_removesThread() {
+    ThreadCountTuner tuner = new ThreadCountTuner(MIN, MAX, CORES, /*threadCount=*/ 4);
+
+    int result =
+        tuner.onWindow(
+            /*completedTasks=*/ 2,
+            WINDOW_MS,
+            /*taskCpuMs=*/ 100,
+            /*taskWallMs=*/ 100,
+            /*queueSize=*/ 0,
+            /*activeCount=*/ 1);
+
+    assertThat(result).isEqualTo(3);
+  }
+
+  @Test
+  public void onWindow_withLowerThroughputAfterAddingThread_removesThreadAndHolds() {
+    ThreadCountTuner tuner = new ThreadCountTuner(MIN, MAX, CORES, /*threadCount=*/ 4);
+    ioBoundWindow(tuner, /*completedTasks=*/ 10, /*queueSize=*/ 5);
+
+    assertThat(ioBoundWindow(tuner, /*completedTasks=*/ 5, /*queueSize=*/ 5)).isEqualTo(4);
+    for (int i = 0; i < ThreadCountTuner.WINDOWS_TO_HOLD - 1; i++) {
+      assertThat(ioBoundWindow(tuner, /*completedTasks=*/ 5, /*queueSize=*/ 5)).isEqualTo(4);
+    }
+    assertThat(ioBoundWindow(tuner, /*completedTasks=*/ 5, /*queueSize=*/ 5)).isEqualTo(5);
+  }
+
+  @Test
+  public void onWindow_staysWithinBounds() {
+    ThreadCountTuner tuner = new ThreadCountTuner(MIN, /*maxThreadCount=*/ 5, CORES, 4);
+    for (int i = 0; i < 10; i++) {
+      ioBoundWindow(tuner, /*completedTasks=*/ 10 + i, /*queueSize=*/ 5);
+    }
+    assertThat(tuner.getThreadCount()).isEqualTo(5);
+
+    for (int i = 0; i < 10; i++) {
+      tuner.onWindow(
+          /*completedTasks=*/ 0,
+          WINDOW_MS,
+          /*taskCpuMs=*/ 0,
+          /*taskWallMs=*/ 0,
+          /*queueSize=*/ 0,
+          /*activeCount=*/ 0);
+    }
+    assertThat(tuner.getThreadCount()).isEqualTo(MIN);
+  }
+
+  private static int ioBoundWindow(ThreadCountTuner tuner, int completedTasks, int queueSize) {
+    return tuner.onWindow(
+        completedTasks,
+        WINDOW_MS,
+        /*taskCpuMs=*/ 100,
+        /*taskWallMs=*/ 1000,
+        queueSize,
+        tuner.getThreadCount());
+  }
+
+  private static int cpuBoundWindow(ThreadCountTuner tuner, int completedTasks, int queueSize) {
+    return tuner.onWindow(
+        completedTasks,
+        WINDOW_MS,
+        /*taskCpuMs=*/ 900,
+        /*taskWallMs=*/ 1000,
+        queueSize,
+        tuner.getThreadCount());
+  }
+}
@@ -0,0 +1,137 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 18)
+public class BitmapSizeHistogramTest {
+  private BitmapSizeHistogram histogram;
+
+  @Before
+  public void setUp() {
+    histogram = new BitmapSizeHistogram();
+  }
+
+  @Test
+  public void record_countsEachSizeAndConfig() {
+    histogram.record(100, 200, Bitmap.Config.ARGB_8888);
+    histogram.record(100, 200, Bitmap.Config.ARGB_8888);
+    histogram.record(100, 200, Bitmap.Config.RGB_565);
+
+    assertThat(histogram.getCount(100, 200, Bitmap.Config.ARGB_8888)).isEqualTo(2);
+    assertThat(histogram.getCount(100, 200, Bitmap.Config.RGB_565)).isEqualTo(1);
+    assertThat(histogram.getCount(200, 100, Bitmap.Config.ARGB_8888)).isEqualTo(0);
+  }
+
+  @Test
+  public void record_withInvalidSize_isIgnored() {
+    histogram.record(0, 200, Bitmap.Config.ARGB_8888);
+
+    assertThat(histogram.getMostCommon(/*maxTypes=*/ 10, /*minCount=*/ 1)).isEmpty();
+  }
+
+  @Test
+  public void record_withFullHistogram_replacesLeastCommonType() {
+    record(1, 1, 3);
+    record(2, 2, 1);
+    for (int i = 3; i <= BitmapSizeHistogram.MAX_TYPES; i++) {
+      record(i, i, 2);
+    }
+    // Merges the recorded counts so that the new type is added to a full histogram.
+    assertThat(histogram.getCount(1, 1, Bitmap.Config.ARGB_8888)).isEqualTo(3);
+
+    histogram.record(1000, 1000, Bitmap.Config.ARGB_8888);
+
+    assertThat(histogram.getCount(1, 1, Bitmap.Config.ARGB_8888)).isEqualTo(3);
+    assertThat(histogram.getCount(2, 2, Bitmap.Config.ARGB_8888)).isEqualTo(0);
+    assertThat(histogram.getCount(3, 3, Bitmap.Config.ARGB_8888)).isEqualTo(2);
+    assertThat(histogram.getCount(1000, 1000, Bitmap.Config.ARGB_8888)).isEqualTo(2);
+  }
+
+  @Test
+  public void record_fromManyThreads_countsEveryRequest() throws InterruptedException {
+    int threadCount = 8;
+    final int recordsPerThread = 1000;
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      threads[i] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int j = 0; j < recordsPerThread; j++) {
+                    histogram.record(100, 100, Bitmap.Config.ARGB_8888);
+                  }
+                }
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(histogram.getCount(100, 100, Bitmap.Config.ARGB_8888))
+        .isEqualTo(threadCount * recordsPerThread);
+  }
+
+  @Test
+  public void getMostCommon_returnsTypesAtLeastMinCountInOrder() {
+    record(10, 10, 1);
+    record(20, 20, 5);
+    record(30, 30, 3);
+    record(40, 40, 4);
+
+    List<PreFillType.Builder> result = histogram.getMostCommon(/*maxTypes=*/ 2, /*minCount=*/ 2);
+
+    assertThat(result).hasSize(2);
+    assertThat(result.get(0).build())
+        .isEqualTo(new PreFillType(20, 20, Bitmap.Config.ARGB_8888, /*weight=*/ 5));
+    assertThat(result.get(1).build())
+        .isEqualTo(new PreFillType(40, 40, Bitmap.Config.ARGB_8888, /*weight=*/ 4));
+  }
+
+  @Test
+  public void readFrom_addsHalfOfWrittenCounts() throws IOException {
+    record(10, 10, 6);
+    histogram.record(20, 20, null);
+    histogram.record(20, 20, null);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    histogram.writeTo(os);
+
+    BitmapSizeHistogram other = new BitmapSizeHistogram();
+    other.record(10, 10, Bitmap.Config.ARGB_8888);
+    other.readFrom(new ByteArrayInputStream(os.toByteArray()));
+
+    assertThat(other.getCount(10, 10, Bitmap.Config.ARGB_8888)).isEqualTo(4);
+    assertThat(other.getCount(20, 20, null)).isEqualTo(1);
+  }
+
+  @Test
+  public void readFrom_withSingleCount_forgetsType() throws IOException {
+    record(10, 10, 1);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    histogram.writeTo(os);
+
+    BitmapSizeHistogram other = new BitmapSizeHistogram();
+    other.readFrom(new ByteArrayInputStream(os.toByteArray()));
+
+    assertThat(other.getMostCommon(/*maxTypes=*/ 10, /*minCount=*/ 1)).isEmpty();
+  }
+
+  private void record(int width, int height, int times) {
+    for (int i = 0; i < times; i++) {
+      histogram.record(width, height, Bitmap.Config.ARGB_8888);
+    }
+  }
+}
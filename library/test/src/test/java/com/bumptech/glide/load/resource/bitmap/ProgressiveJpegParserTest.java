@@ -0,0 +1,170 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ProgressiveJpegParserTest {
+  private static final int SOI = 0xD8;
+  private static final int EOI = 0xD9;
+  private static final int SOS = 0xDA;
+  private static final int DHT = 0xC4;
+  private static final int APP0 = 0xE0;
+  private static final int SOF0 = 0xC0;
+  private static final int SOF2 = 0xC2;
+
+  private final ProgressiveJpegParser parser = new ProgressiveJpegParser();
+
+  @Test
+  public void parse_withProgressiveJpeg_returnsTrueAtEndOfEachScanFollowedByAnother() {
+    JpegBuilder builder =
+        new JpegBuilder()
+            .segment(APP0, 16)
+            .frame(SOF2, /*width=*/ 640, /*height=*/ 480)
+            .scan(new int[] {0x12, 0x34});
+    int firstScanEnd = builder.size() + 2;
+    builder.scan(new int[] {0x56});
+    int secondScanEnd = builder.size() + 2;
+    builder.segment(DHT, 4).scan(new int[] {0x78}).end();
+
+    List<Integer> scanEnds = parseAll(builder.build());
+
+    assertThat(scanEnds).isEqualTo(Arrays.asList(firstScanEnd, secondScanEnd));
+    assertThat(parser.getScanCount()).isEqualTo(3);
+    assertThat(parser.isDone()).isTrue();
+  }
+
+  @Test
+  public void parse_withProgressiveJpeg_readsDimensions() {
+    parseAll(
+        new JpegBuilder()
+            .frame(SOF2, /*width=*/ 640, /*height=*/ 480)
+            .scan(new int[] {0x12})
+            .end()
+            .build());
+
+    assertThat(parser.getWidth()).isEqualTo(640);
+    assertThat(parser.getHeight()).isEqualTo(480);
+    assertThat(parser.isPotentiallyProgressive()).isTrue();
+  }
+
+  @Test
+  public void parse_withBaselineJpeg_isNotProgressive() {
+    parseAll(new JpegBuilder().segment(APP0, 16).frame(SOF0, 10, 10).build());
+
+    assertThat(parser.isPotentiallyProgressive()).isFalse();
+  }
+
+  @Test
+  public void parse_withNonJpeg_isDone() {
+    parseAll(new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+
+    assertThat(parser.isDone()).isTrue();
+    assertThat(parser.isPotentiallyProgressive()).isFalse();
+  }
+
+  @Test
+  public void parse_withStuffedBytesAndRestartMarkers_doesNotEndScan() {
+    List<Integer> scanEnds =
+        parseAll(
+            new JpegBuilder()
+                .frame(SOF2, 10, 10)
+                .scan(new int[] {0xFF, 0x00, 0x12, 0xFF, 0xD0, 0x34, 0xFF, 0xD7})
+                .end()
+                .build());
+
+    assertThat(scanEnds).isEmpty();
+    assertThat(parser.getScanCount()).isEqualTo(1);
+    assertThat(parser.isDone()).isTrue();
+  }
+
+  @Test
+  public void parse_withFillBytesBeforeMarker_returnsTrueAtMarker() {
+    JpegBuilder builder = new JpegBuilder().frame(SOF2, 10, 10).scan(new int[] {0x12});
+    // Fill bytes before the next marker.
+    builder.raw(0xFF, 0xFF);
+    int scanEnd = builder.size() + 2;
+    builder.scan(new int[] {0x34}).end();
+
+    List<Integer> scanEnds = parseAll(builder.build());
+
+    assertThat(scanEnds).isEqualTo(Collections.singletonList(scanEnd));
+  }
+
+  /** Returns the number of bytes parsed each time parse returned true. */
+  private List<Integer> parseAll(byte[] data) {
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < data.length; i++) {
+      if (parser.parse(data[i] & 0xFF)) {
+        result.add(i + 1);
+      }
+    }
+    return result;
+  }
+
+  private static final class JpegBuilder {
+    private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    JpegBuilder() {
+      raw(0xFF, SOI);
+    }
+
+    JpegBuilder raw(int... bytes) {
+      for (int b : bytes) {
+        os.write(b);
+      }
+      return this;
+    }
+
+    JpegBuilder segment(int marker, int length) {
+      raw(0xFF, marker, (length + 2) >> 8, (length + 2) & 0xFF);
+      for (int i = 0; i < length; i++) {
+        os.write(i);
+      }
+      return this;
+    }
+
+    JpegBuilder frame(int marker, int width, int height) {
+      // Precision, height, width and a single component.
+      return raw(
+          0xFF,
+          marker,
+          0,
+          11,
+          8,
+          height >> 8,
+          height & 0xFF,
+          width >> 8,
+          width & 0xFF,
+          1,
+          1,
+          0x11,
+          0);
+    }
+
+    JpegBuilder scan(int[] data) {
+      segment(SOS, 8);
+      return raw(data);
+    }
+
+    JpegBuilder end() {
+      return raw(0xFF, EOI);
+    }
+
+    int size() {
+      return os.size();
+    }
+
+    byte[] build() {
+      return os.toByteArray();
+    }
+  }
+}
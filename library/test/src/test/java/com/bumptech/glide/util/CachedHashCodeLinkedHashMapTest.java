@@ -0,0 +1,109 @@
+package com.bumptech.glide.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CachedHashCodeLinkedHashMapTest {
+
+  @Test
+  public void putAll_intoEmptyMap_keepsCachedHashCode() {
+    CachedHashCodeLinkedHashMap<Object, Object> original = new CachedHashCodeLinkedHashMap<>();
+    CountingKey key = new CountingKey(1);
+    original.put(key, "value");
+    int hashCode = original.hashCode();
+
+    CachedHashCodeLinkedHashMap<Object, Object> copy = new CachedHashCodeLinkedHashMap<>();
+    copy.putAll(original);
+    int hashCodeCalls = key.hashCodeCalls;
+
+    assertThat(copy.hashCode()).isEqualTo(hashCode);
+    assertThat(key.hashCodeCalls).isEqualTo(hashCodeCalls);
+  }
+
+  @Test
+  public void putAll_intoNonEmptyMap_recalculatesHashCode() {
+    CachedHashCodeLinkedHashMap<Object, Object> original = new CachedHashCodeLinkedHashMap<>();
+    original.put("first", "value");
+    original.hashCode();
+    CachedHashCodeLinkedHashMap<Object, Object> other = new CachedHashCodeLinkedHashMap<>();
+    other.put("second", "value");
+
+    other.putAll(original);
+
+    Map<Object, Object> expected = new HashMap<>();
+    expected.put("first", "value");
+    expected.put("second", "value");
+    assertThat(other.hashCode()).isEqualTo(expected.hashCode());
+  }
+
+  @Test
+  public void put_afterPutAll_recalculatesHashCode() {
+    CachedHashCodeLinkedHashMap<Object, Object> original = new CachedHashCodeLinkedHashMap<>();
+    original.put("first", "value");
+    original.hashCode();
+    CachedHashCodeLinkedHashMap<Object, Object> copy = new CachedHashCodeLinkedHashMap<>();
+    copy.putAll(original);
+
+    copy.put("second", "value");
+
+    Map<Object, Object> expected = new HashMap<>();
+    expected.put("first", "value");
+    expected.put("second", "value");
+    assertThat(copy.hashCode()).isEqualTo(expected.hashCode());
+  }
+
+  @Test
+  public void equals_withDifferentHashCodes_returnsFalseWithoutComparingEntries() {
+    CachedHashCodeLinkedHashMap<Object, Object> first = new CachedHashCodeLinkedHashMap<>();
+    first.put(new CountingKey(1), "value");
+    CachedHashCodeLinkedHashMap<Object, Object> second = new CachedHashCodeLinkedHashMap<>();
+    CountingKey otherKey = new CountingKey(2);
+    second.put(otherKey, "value");
+
+    assertFalse(first.equals(second));
+    assertThat(otherKey.equalsCalls).isEqualTo(0);
+  }
+
+  @Test
+  public void equals_withEqualEntries_returnsTrue() {
+    CachedHashCodeLinkedHashMap<Object, Object> first = new CachedHashCodeLinkedHashMap<>();
+    first.put("key", "value");
+    Map<Object, Object> second = new HashMap<>();
+    second.put("key", "value");
+    CachedHashCodeLinkedHashMap<Object, Object> third = new CachedHashCodeLinkedHashMap<>();
+    third.put("key", "value");
+
+    assertTrue(first.equals(second));
+    assertTrue(first.equals(third));
+  }
+
+  private static final class CountingKey {
+    private final int value;
+    int hashCodeCalls;
+    int equalsCalls;
+
+    CountingKey(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      equalsCalls++;
+      return o instanceof CountingKey && ((CountingKey) o).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      hashCodeCalls++;
+      return value;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.bumptech.glide.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrequencySketchTest {
+
+  @Test
+  public void frequency_countsIncrements() {
+    FrequencySketch sketch = new FrequencySketch(/*expectedEntries=*/ 0);
+    sketch.increment("a");
+    sketch.increment("a");
+    sketch.increment("b");
+
+    assertEquals(2, sketch.frequency("a"));
+    assertEquals(1, sketch.frequency("b"));
+    assertEquals(0, sketch.frequency("c"));
+  }
+
+  @Test
+  public void frequency_saturatesAtFifteen() {
+    FrequencySketch sketch = new FrequencySketch(/*expectedEntries=*/ 0);
+    for (int i = 0; i < 20; i++) {
+      sketch.increment("a");
+    }
+
+    assertEquals(15, sketch.frequency("a"));
+  }
+
+  @Test
+  public void ensureCapacity_whenGrowing_keepsFrequencies() {
+    FrequencySketch sketch = new FrequencySketch(/*expectedEntries=*/ 0);
+    for (int i = 0; i < 100; i++) {
+      String key = "key" + i;
+      for (int j = 0; j < i % 4; j++) {
+        sketch.increment(key);
+      }
+    }
+
+    sketch.ensureCapacity(/*expectedEntries=*/ 100000);
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i % 4, sketch.frequency("key" + i));
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package com.bumptech.glide.disklrucache;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes the compact binary form of the cache journal.
+ *
+ * <p>The binary journal replaces the line based text journal for caches whose keys are hex
+ * encoded 256 bit hashes, which is what Glide's {@code SafeKeyGenerator} produces. A typical
+ * binary journal looks like this:
+ * <pre>
+ *     header:  int magic | int version | int appVersion | int valueCount
+ *     record:  byte op | byte[32] key hash | long[valueCount] lengths
+ *     record:  ...
+ * </pre>
+ *
+ * <p>Every record has the same size, so the journal can be memory mapped and replayed in a single
+ * pass without any line scanning, string splitting or number parsing. Lengths are only
+ * meaningful for {@link #OP_CLEAN} records and are zero otherwise. The records written right
+ * after the header when the journal is rebuilt form a checkpoint of the cache: one
+ * {@link #OP_CLEAN} or {@link #OP_DIRTY} record per entry in LRU order. Subsequent operations
+ * are appended until enough of them are redundant that a new checkpoint is written.
+ *
+ * <p>A record that was only partially written when the process died is detected by the file
+ * length not being a multiple of the record size, in which case the journal is rebuilt.
+ */
+final class BinaryJournal {
+  static final int MAGIC = 0x474c444a;
+  static final int VERSION_1 = 1;
+  static final int HEADER_SIZE = 4 * 4;
+  /** The number of bytes in a hashed key, 64 hex characters. */
+  static final int KEY_SIZE = 32;
+
+  static final byte OP_CLEAN = 1;
+  static final byte OP_DIRTY = 2;
+  static final byte OP_REMOVE = 3;
+  static final byte OP_READ = 4;
+
+  private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+  /** Receives each record of a binary journal in the order it was written. */
+  interface RecordVisitor {
+    /**
+     * Called once per record. {@code lengths} is reused between records and must be copied
+     * if it is retained.
+     */
+    void visitRecord(byte op, String key, long[] lengths) throws IOException;
+  }
+
+  private BinaryJournal() {
+    // Utility class.
+  }
+
+  static int recordSize(int valueCount) {
+    return 1 + KEY_SIZE + 8 * valueCount;
+  }
+
+  /**
+   * Returns true if {@code key} can be stored in a binary journal, which requires exactly
+   * {@code 2 * KEY_SIZE} lower case hex characters.
+   */
+  static boolean isSupportedKey(String key) {
+    if (key.length() != 2 * KEY_SIZE) {
+      return false;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      if (hexValue(key.charAt(i)) == -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Memory maps {@code file} and passes every complete record to {@code visitor}.
+   *
+   * @return true if the journal ends with a truncated record and should be rebuilt.
+   * @throws IOException if the file can't be read or its header doesn't match.
+   */
+  static boolean read(File file, int appVersion, int valueCount, RecordVisitor visitor)
+      throws IOException {
+    FileInputStream is = new FileInputStream(file);
+    try {
+      FileChannel channel = is.getChannel();
+      long fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        throw new IOException("truncated journal header: " + fileSize);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+      buffer.order(ByteOrder.BIG_ENDIAN);
+      int magic = buffer.getInt();
+      int version = buffer.getInt();
+      int journalAppVersion = buffer.getInt();
+      int journalValueCount = buffer.getInt();
+      if (magic != MAGIC
+          || version != VERSION_1
+          || journalAppVersion != appVersion
+          || journalValueCount != valueCount) {
+        throw new IOException("unexpected journal header: [" + magic + ", " + version + ", "
+            + journalAppVersion + ", " + journalValueCount + "]");
+      }
+
+      int recordSize = recordSize(valueCount);
+      byte[] keyBytes = new byte[KEY_SIZE];
+      char[] keyChars = new char[2 * KEY_SIZE];
+      long[] lengths = new long[valueCount];
+      while (buffer.remaining() >= recordSize) {
+        byte op = buffer.get();
+        buffer.get(keyBytes);
+        for (int i = 0; i < valueCount; i++) {
+          lengths[i] = buffer.getLong();
+        }
+        if (op < OP_CLEAN || op > OP_READ) {
+          throw new IOException("unexpected journal record: " + op);
+        }
+        visitor.visitRecord(op, decodeKey(keyBytes, keyChars), lengths);
+      }
+      return buffer.hasRemaining();
+    } finally {
+      Util.closeQuietly(is);
+    }
+  }
+
+  private static String decodeKey(byte[] keyBytes, char[] keyChars) {
+    for (int i = 0; i < KEY_SIZE; i++) {
+      int value = keyBytes[i] & 0xFF;
+      keyChars[2 * i] = HEX_CHARS[value >>> 4];
+      keyChars[2 * i + 1] = HEX_CHARS[value & 0x0F];
+    }
+    return new String(keyChars);
+  }
+
+  private static void encodeKey(String key, byte[] record, int offset) {
+    if (!isSupportedKey(key)) {
+      throw new IllegalArgumentException("key is not a 64 character hex string: " + key);
+    }
+    for (int i = 0; i < KEY_SIZE; i++) {
+      record[offset + i] =
+          (byte) ((hexValue(key.charAt(2 * i)) << 4) | hexValue(key.charAt(2 * i + 1)));
+    }
+  }
+
+  private static int hexValue(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    } else if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    }
+    return -1;
+  }
+
+  /** Appends fixed size records to a binary journal. */
+  static final class Writer implements JournalWriter {
+    private final OutputStream os;
+    private final int valueCount;
+    private final byte[] record;
+    private final ByteBuffer recordBuffer;
+
+    /**
+     * Opens {@code file} for writing. If {@code append} is false the file is truncated and a new
+     * header is written.
+     */
+    Writer(File file, boolean append, int appVersion, int valueCount) throws IOException {
+      this.valueCount = valueCount;
+      record = new byte[recordSize(valueCount)];
+      recordBuffer = ByteBuffer.wrap(record);
+      os = new BufferedOutputStream(new FileOutputStream(file, append));
+      if (!append) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION_1);
+        header.putInt(appVersion);
+        header.putInt(valueCount);
+        os.write(header.array());
+      }
+    }
+
+    @Override
+    public void writeClean(String key, long[] lengths) throws IOException {
+      write(OP_CLEAN, key, lengths);
+    }
+
+    @Override
+    public void writeDirty(String key) throws IOException {
+      write(OP_DIRTY, key, null);
+    }
+
+    @Override
+    public void writeRemove(String key) throws IOException {
+      write(OP_REMOVE, key, null);
+    }
+
+    @Override
+    public void writeRead(String key) throws IOException {
+      write(OP_READ, key, null);
+    }
+
+    private void write(byte op, String key, long[] lengths) throws IOException {
+      record[0] = op;
+      encodeKey(key, record, 1);
+      recordBuffer.position(1 + KEY_SIZE);
+      for (int i = 0; i < valueCount; i++) {
+        recordBuffer.putLong(lengths != null ? lengths[i] : 0);
+      }
+      os.write(record);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      os.close();
+    }
+  }
+}
@@ -91,9 +91,14 @@ public final class DiskLruCache implements Closeable {
   static final String JOURNAL_FILE = "journal";
   static final String JOURNAL_FILE_TEMP = "journal.tmp";
   static final String JOURNAL_FILE_BACKUP = "journal.bkp";
+  static final String JOURNAL_FILE_BINARY = "journal.bin";
+  static final String JOURNAL_FILE_BINARY_TEMP = "journal.bin.tmp";
+  static final String JOURNAL_FILE_BINARY_BACKUP = "journal.bin.bkp";
   static final String MAGIC = "libcore.io.DiskLruCache";
   static final String VERSION_1 = "1";
   static final long ANY_SEQUENCE_NUMBER = -1;
+  /** The share of the cache's max size reserved for new entries with the admission filter. */
+  static final int ADMISSION_WINDOW_PERCENT = 1;
   private static final String CLEAN = "CLEAN";
   private static final String DIRTY = "DIRTY";
   private static final String REMOVE = "REMOVE";
@@ -137,6 +142,10 @@ public final class DiskLruCache implements Closeable {
      * occasionally be compacted by dropping redundant lines. A temporary file named
      * "journal.tmp" will be used during compaction; that file should be deleted if
      * it exists when the cache is opened.
+     *
+     * Caches opened with a binary journal use "journal.bin" instead, see
+     * BinaryJournal for its format. Either journal is migrated to the other
+     * format when the cache is opened, so the two never exist side by side.
      */
 
   private final File directory;
@@ -146,12 +155,23 @@ public final class DiskLruCache implements Closeable {
   private final int appVersion;
   private long maxSize;
   private final int valueCount;
+  private final boolean binaryJournal;
   private long size = 0;
-  private Writer journalWriter;
+  private JournalWriter journalWriter;
   private final LinkedHashMap<String, Entry> lruEntries =
       new LinkedHashMap<String, Entry>(0, 0.75f, true);
   private int redundantOpCount;
 
+  /** Null unless the admission filter is enabled, see {@link #setAdmissionFilterEnabled}. */
+  private FrequencySketch sketch;
+  /**
+   * Recently added entries that haven't yet been admitted to the rest of the cache by the
+   * admission filter, in LRU order.
+   */
+  private final LinkedHashMap<String, Entry> windowEntries =
+      new LinkedHashMap<String, Entry>(0, 0.75f, true);
+  private long windowSize;
+
   /**
    * To differentiate between old and current snapshots, each entry is given
    * a sequence number each time an edit is committed. A snapshot is stale if
@@ -179,12 +199,20 @@ public final class DiskLruCache implements Closeable {
     }
   };
 
-  private DiskLruCache(File directory, int appVersion, int valueCount, long maxSize) {
+  private DiskLruCache(
+      File directory, int appVersion, int valueCount, long maxSize, boolean binaryJournal) {
     this.directory = directory;
     this.appVersion = appVersion;
-    this.journalFile = new File(directory, JOURNAL_FILE);
-    this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
-    this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+    this.binaryJournal = binaryJournal;
+    if (binaryJournal) {
+      this.journalFile = new File(directory, JOURNAL_FILE_BINARY);
+      this.journalFileTmp = new File(directory, JOURNAL_FILE_BINARY_TEMP);
+      this.journalFileBackup = new File(directory, JOURNAL_FILE_BINARY_BACKUP);
+    } else {
+      this.journalFile = new File(directory, JOURNAL_FILE);
+      this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
+      this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+    }
     this.valueCount = valueCount;
     this.maxSize = maxSize;
   }
@@ -200,6 +228,29 @@ public final class DiskLruCache implements Closeable {
    */
   public static DiskLruCache open(File directory, int appVersion, int valueCount, long maxSize)
       throws IOException {
+    return open(directory, appVersion, valueCount, maxSize, /*binaryJournal=*/ false);
+  }
+
+  /**
+   * Opens the cache in {@code directory}, creating a cache if none exists
+   * there.
+   *
+   * <p>If {@code binaryJournal} is true, the cache keeps its journal in a
+   * compact binary format that is much faster to replay when the cache is
+   * opened. Binary journals require every key to be a 64 character lower case
+   * hex string, like the SHA-256 keys Glide uses. An existing journal in the
+   * other format is migrated when the cache is opened. Entries whose keys
+   * can't be represented in a binary journal are dropped during migration.
+   *
+   * @param directory a writable directory
+   * @param valueCount the number of values per cache entry. Must be positive.
+   * @param maxSize the maximum number of bytes this cache should use to store
+   * @param binaryJournal true to store the journal in the binary format.
+   * @throws IOException if reading or writing the cache directory fails
+   */
+  public static DiskLruCache open(
+      File directory, int appVersion, int valueCount, long maxSize, boolean binaryJournal)
+      throws IOException {
     if (maxSize <= 0) {
       throw new IllegalArgumentException("maxSize <= 0");
     }
@@ -207,24 +258,29 @@ public final class DiskLruCache implements Closeable {
       throw new IllegalArgumentException("valueCount <= 0");
     }
 
-    // If a bkp file exists, use it instead.
-    File backupFile = new File(directory, JOURNAL_FILE_BACKUP);
-    if (backupFile.exists()) {
-      File journalFile = new File(directory, JOURNAL_FILE);
-      // If journal file also exists just delete backup file.
-      if (journalFile.exists()) {
-        backupFile.delete();
-      } else {
-        renameTo(backupFile, journalFile, false);
-      }
-    }
+    restoreBackup(directory, JOURNAL_FILE, JOURNAL_FILE_BACKUP);
+    restoreBackup(directory, JOURNAL_FILE_BINARY, JOURNAL_FILE_BINARY_BACKUP);
 
-    // Prefer to pick up where we left off.
-    DiskLruCache cache = new DiskLruCache(directory, appVersion, valueCount, maxSize);
-    if (cache.journalFile.exists()) {
+    // Prefer to pick up where we left off, migrating from the other journal format if necessary.
+    DiskLruCache cache =
+        new DiskLruCache(directory, appVersion, valueCount, maxSize, binaryJournal);
+    boolean existingIsBinary = cache.journalFile.exists() == binaryJournal;
+    File existingJournalFile =
+        new File(directory, existingIsBinary ? JOURNAL_FILE_BINARY : JOURNAL_FILE);
+    if (existingJournalFile.exists()) {
       try {
-        cache.readJournal();
+        boolean rebuildRequired = existingIsBinary
+            ? cache.readBinaryJournal(existingJournalFile)
+            : cache.readJournal(existingJournalFile);
         cache.processJournal();
+        if (existingIsBinary != binaryJournal) {
+          cache.migrateJournal(existingJournalFile);
+        } else if (rebuildRequired) {
+          // If we ended on a truncated record, rebuild the journal before appending to it.
+          cache.rebuildJournal();
+        } else {
+          cache.journalWriter = cache.newJournalWriter(cache.journalFile, /*append=*/ true);
+        }
         return cache;
       } catch (IOException journalIsCorrupt) {
         System.out
@@ -239,13 +295,32 @@ public final class DiskLruCache implements Closeable {
 
     // Create a new empty cache.
     directory.mkdirs();
-    cache = new DiskLruCache(directory, appVersion, valueCount, maxSize);
+    cache = new DiskLruCache(directory, appVersion, valueCount, maxSize, binaryJournal);
     cache.rebuildJournal();
     return cache;
   }
 
-  private void readJournal() throws IOException {
-    StrictLineReader reader = new StrictLineReader(new FileInputStream(journalFile), Util.US_ASCII);
+  private static void restoreBackup(File directory, String journalName, String backupName)
+      throws IOException {
+    // If a bkp file exists, use it instead.
+    File backupFile = new File(directory, backupName);
+    if (backupFile.exists()) {
+      File journalFile = new File(directory, journalName);
+      // If journal file also exists just delete backup file.
+      if (journalFile.exists()) {
+        backupFile.delete();
+      } else {
+        renameTo(backupFile, journalFile, false);
+      }
+    }
+  }
+
+  /**
+   * Reads the text journal in {@code journal} and returns true if it ended on a truncated line
+   * and must be rebuilt before it is appended to.
+   */
+  private boolean readJournal(File journal) throws IOException {
+    StrictLineReader reader = new StrictLineReader(new FileInputStream(journal), Util.US_ASCII);
     try {
       String magic = reader.readLine();
       String version = reader.readLine();
@@ -271,19 +346,70 @@ public final class DiskLruCache implements Closeable {
         }
       }
       redundantOpCount = lineCount - lruEntries.size();
-
-      // If we ended on a truncated line, rebuild the journal before appending to it.
-      if (reader.hasUnterminatedLine()) {
-        rebuildJournal();
-      } else {
-        journalWriter = new BufferedWriter(new OutputStreamWriter(
-            new FileOutputStream(journalFile, true), Util.US_ASCII));
-      }
+      return reader.hasUnterminatedLine();
     } finally {
       Util.closeQuietly(reader);
     }
   }
 
+  /**
+   * Replays the binary journal in {@code journal} in a single pass over a memory mapped buffer
+   * and returns true if it ended on a truncated record and must be rebuilt before it is appended
+   * to.
+   */
+  private boolean readBinaryJournal(File journal) throws IOException {
+    final int[] recordCount = new int[1];
+    boolean truncated = BinaryJournal.read(journal, appVersion, valueCount,
+        new BinaryJournal.RecordVisitor() {
+          @Override
+          public void visitRecord(byte op, String key, long[] lengths) {
+            recordCount[0]++;
+            if (op == BinaryJournal.OP_REMOVE) {
+              lruEntries.remove(key);
+              return;
+            }
+
+            Entry entry = lruEntries.get(key);
+            if (entry == null) {
+              entry = new Entry(key);
+              lruEntries.put(key, entry);
+            }
+
+            if (op == BinaryJournal.OP_CLEAN) {
+              entry.readable = true;
+              entry.currentEditor = null;
+              System.arraycopy(lengths, 0, entry.lengths, 0, valueCount);
+            } else if (op == BinaryJournal.OP_DIRTY) {
+              entry.currentEditor = new Editor(entry);
+            }
+            // OP_READ: This work was already done by calling lruEntries.get().
+          }
+        });
+    redundantOpCount = recordCount[0] - lruEntries.size();
+    return truncated;
+  }
+
+  /**
+   * Writes a journal in this cache's format from the entries read from {@code previousJournal}
+   * and then deletes {@code previousJournal}, which is in the other format.
+   */
+  private void migrateJournal(File previousJournal) throws IOException {
+    if (binaryJournal) {
+      for (Iterator<Entry> i = lruEntries.values().iterator(); i.hasNext(); ) {
+        Entry entry = i.next();
+        if (!BinaryJournal.isSupportedKey(entry.key)) {
+          for (int t = 0; t < valueCount; t++) {
+            deleteIfExists(entry.getCleanFile(t));
+            size -= entry.lengths[t];
+          }
+          i.remove();
+        }
+      }
+    }
+    rebuildJournal();
+    deleteIfExists(previousJournal);
+  }
+
   private void readJournalLine(String line) throws IOException {
     int firstSpace = line.indexOf(' ');
     if (firstSpace == -1) {
@@ -355,24 +481,13 @@ public final class DiskLruCache implements Closeable {
       closeWriter(journalWriter);
     }
 
-    Writer writer = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(journalFileTmp), Util.US_ASCII));
+    JournalWriter writer = newJournalWriter(journalFileTmp, /*append=*/ false);
     try {
-      writer.write(MAGIC);
-      writer.write("\n");
-      writer.write(VERSION_1);
-      writer.write("\n");
-      writer.write(Integer.toString(appVersion));
-      writer.write("\n");
-      writer.write(Integer.toString(valueCount));
-      writer.write("\n");
-      writer.write("\n");
-
       for (Entry entry : lruEntries.values()) {
         if (entry.currentEditor != null) {
-          writer.write(DIRTY + ' ' + entry.key + '\n');
+          writer.writeDirty(entry.key);
         } else {
-          writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+          writer.writeClean(entry.key, entry.lengths);
         }
       }
     } finally {
@@ -385,8 +500,31 @@ public final class DiskLruCache implements Closeable {
     renameTo(journalFileTmp, journalFile, false);
     journalFileBackup.delete();
 
-    journalWriter = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(journalFile, true), Util.US_ASCII));
+    journalWriter = newJournalWriter(journalFile, /*append=*/ true);
+  }
+
+  /**
+   * Opens a writer for this cache's journal format. If {@code append} is false, {@code file} is
+   * truncated and the journal header is written.
+   */
+  private JournalWriter newJournalWriter(File file, boolean append) throws IOException {
+    if (binaryJournal) {
+      return new BinaryJournal.Writer(file, append, appVersion, valueCount);
+    }
+    Writer writer = new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file, append), Util.US_ASCII));
+    if (!append) {
+      writer.write(MAGIC);
+      writer.write("\n");
+      writer.write(VERSION_1);
+      writer.write("\n");
+      writer.write(Integer.toString(appVersion));
+      writer.write("\n");
+      writer.write(Integer.toString(valueCount));
+      writer.write("\n");
+      writer.write("\n");
+    }
+    return new TextJournalWriter(writer);
   }
 
   private static void deleteIfExists(File file) throws IOException {
@@ -404,6 +542,25 @@ public final class DiskLruCache implements Closeable {
     }
   }
 
+  /**
+   * Returns true if the entry named {@code key} exists and is readable. Unlike
+   * {@link #get}, this doesn't count as a request for the entry for the
+   * admission filter and isn't recorded in the journal.
+   */
+  public synchronized boolean contains(String key) throws IOException {
+    checkNotClosed();
+    Entry entry = lruEntries.get(key);
+    if (entry == null || !entry.readable) {
+      return false;
+    }
+    for (File file : entry.cleanFiles) {
+      if (!file.exists()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Returns a snapshot of the entry named {@code key}, or null if it doesn't
    * exist is not currently readable. If a value is returned, it is moved to
@@ -411,10 +568,17 @@ public final class DiskLruCache implements Closeable {
    */
   public synchronized Value get(String key) throws IOException {
     checkNotClosed();
+    if (sketch != null) {
+      // Misses count too, they're how a new entry shows that it's likely to be used again.
+      sketch.increment(key);
+    }
     Entry entry = lruEntries.get(key);
     if (entry == null) {
       return null;
     }
+    if (entry.inWindow) {
+      windowEntries.get(key);
+    }
 
     if (!entry.readable) {
       return null;
@@ -428,10 +592,7 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
-    journalWriter.append(READ);
-    journalWriter.append(' ');
-    journalWriter.append(key);
-    journalWriter.append('\n');
+    journalWriter.writeRead(key);
     if (journalRebuildRequired()) {
       executorService.submit(cleanupCallable);
     }
@@ -449,6 +610,10 @@ public final class DiskLruCache implements Closeable {
 
   private synchronized Editor edit(String key, long expectedSequenceNumber) throws IOException {
     checkNotClosed();
+    if (binaryJournal && !BinaryJournal.isSupportedKey(key)) {
+      throw new IllegalArgumentException(
+          "keys must be 64 character hex strings with a binary journal: " + key);
+    }
     Entry entry = lruEntries.get(key);
     if (expectedSequenceNumber != ANY_SEQUENCE_NUMBER && (entry == null
         || entry.sequenceNumber != expectedSequenceNumber)) {
@@ -465,10 +630,7 @@ public final class DiskLruCache implements Closeable {
     entry.currentEditor = editor;
 
     // Flush the journal before creating files to prevent file leaks.
-    journalWriter.append(DIRTY);
-    journalWriter.append(' ');
-    journalWriter.append(key);
-    journalWriter.append('\n');
+    journalWriter.writeDirty(key);
     flushWriter(journalWriter);
     return editor;
   }
@@ -495,6 +657,36 @@ public final class DiskLruCache implements Closeable {
     executorService.submit(cleanupCallable);
   }
 
+  /**
+   * Enables or disables the cache's admission filter.
+   *
+   * <p>Without the filter the least recently used entries are evicted
+   * whenever the cache is full, so adding many entries that are never read
+   * again, like the images in a long scrolling list, evicts every entry the
+   * app uses frequently. With the filter, new entries first go in to a small
+   * window that holds {@value #ADMISSION_WINDOW_PERCENT}% of the cache. When
+   * an entry falls out of the window it's only admitted to the rest of the
+   * cache if its key was requested from {@link #get} more often than the
+   * least recently used entry it would replace, otherwise the new entry is
+   * evicted instead. This is the W-TinyLFU policy described in "TinyLFU: A
+   * Highly Efficient Cache Admission Policy" by Einziger, Friedman and Manes.
+   *
+   * <p>Request frequencies aren't persisted, so entries from a previous
+   * session all start with the same frequency.
+   */
+  public synchronized void setAdmissionFilterEnabled(boolean enabled) {
+    if (enabled && sketch == null) {
+      sketch = new FrequencySketch(lruEntries.size());
+    } else if (!enabled && sketch != null) {
+      sketch = null;
+      for (Entry entry : windowEntries.values()) {
+        entry.inWindow = false;
+      }
+      windowEntries.clear();
+      windowSize = 0;
+    }
+  }
+
   /**
    * Returns the number of bytes currently being used to store the values in
    * this cache. This may be greater than the max size if a background
@@ -524,6 +716,7 @@ public final class DiskLruCache implements Closeable {
       }
     }
 
+    long sizeBefore = size;
     for (int i = 0; i < valueCount; i++) {
       File dirty = entry.getDirtyFile(i);
       if (success) {
@@ -539,26 +732,28 @@ public final class DiskLruCache implements Closeable {
         deleteIfExists(dirty);
       }
     }
+    if (entry.inWindow) {
+      windowSize += size - sizeBefore;
+    }
 
     redundantOpCount++;
     entry.currentEditor = null;
     if (entry.readable | success) {
+      if (!entry.readable && sketch != null) {
+        sketch.ensureCapacity(lruEntries.size());
+        entry.inWindow = true;
+        windowEntries.put(entry.key, entry);
+        windowSize += entry.getSize();
+      }
       entry.readable = true;
-      journalWriter.append(CLEAN);
-      journalWriter.append(' ');
-      journalWriter.append(entry.key);
-      journalWriter.append(entry.getLengths());
-      journalWriter.append('\n');
+      journalWriter.writeClean(entry.key, entry.lengths);
 
       if (success) {
         entry.sequenceNumber = nextSequenceNumber++;
       }
     } else {
       lruEntries.remove(entry.key);
-      journalWriter.append(REMOVE);
-      journalWriter.append(' ');
-      journalWriter.append(entry.key);
-      journalWriter.append('\n');
+      journalWriter.writeRemove(entry.key);
     }
     flushWriter(journalWriter);
 
@@ -590,6 +785,11 @@ public final class DiskLruCache implements Closeable {
       return false;
     }
 
+    if (entry.inWindow) {
+      entry.inWindow = false;
+      windowEntries.remove(key);
+      windowSize -= entry.getSize();
+    }
     for (int i = 0; i < valueCount; i++) {
       File file = entry.getCleanFile(i);
       if (file.exists() && !file.delete()) {
@@ -600,10 +800,7 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
-    journalWriter.append(REMOVE);
-    journalWriter.append(' ');
-    journalWriter.append(key);
-    journalWriter.append('\n');
+    journalWriter.writeRemove(key);
 
     lruEntries.remove(key);
 
@@ -648,12 +845,55 @@ public final class DiskLruCache implements Closeable {
   }
 
   private void trimToSize() throws IOException {
+    if (sketch != null) {
+      trimWindowToSize();
+    }
     while (size > maxSize) {
       Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
       remove(toEvict.getKey());
     }
   }
 
+  /**
+   * Moves the least recently used entries out of the admission window until
+   * the window is within its size, evicting either each entry or the entries
+   * it displaces from the rest of the cache based on their frequencies.
+   */
+  private void trimWindowToSize() throws IOException {
+    long maxWindowSize = maxSize * ADMISSION_WINDOW_PERCENT / 100;
+    while (windowSize > maxWindowSize) {
+      Entry candidate = windowEntries.values().iterator().next();
+      candidate.inWindow = false;
+      windowEntries.remove(candidate.key);
+      windowSize -= candidate.getSize();
+
+      int candidateFrequency = sketch.frequency(candidate.key);
+      while (size > maxSize) {
+        Entry victim = getAdmissionVictim(candidate);
+        if (victim == null || sketch.frequency(victim.key) >= candidateFrequency) {
+          // If the candidate can't be removed because it's being edited, it's admitted.
+          remove(candidate.key);
+          break;
+        }
+        remove(victim.key);
+      }
+    }
+  }
+
+  /**
+   * Returns the least recently used entry outside of the admission window,
+   * other than {@code candidate}, that can be removed, or null if there is
+   * none.
+   */
+  private Entry getAdmissionVictim(Entry candidate) {
+    for (Entry entry : lruEntries.values()) {
+      if (entry != candidate && !entry.inWindow && entry.readable && entry.currentEditor == null) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
   /**
    * Closes the cache and deletes all of its stored values. This will delete
    * all files in the cache directory including files that weren't created by
@@ -674,7 +914,7 @@ public final class DiskLruCache implements Closeable {
    * <p>Analogous to b/71520172.
    */
   @TargetApi(VERSION_CODES.O)
-  private static void closeWriter(Writer writer) throws IOException {
+  private static void closeWriter(JournalWriter writer) throws IOException {
     // If API is less than 26, we don't need to whitelist with StrictMode.
     if (VERSION.SDK_INT < VERSION_CODES.O) {
       writer.close();
@@ -698,7 +938,7 @@ public final class DiskLruCache implements Closeable {
    * <p>See b/71520172.
    */
   @TargetApi(VERSION_CODES.O)
-  private static void flushWriter(Writer writer) throws IOException {
+  private static void flushWriter(JournalWriter writer) throws IOException {
     // If API is less than 26, we don't need to whitelist with StrictMode.
     if (VERSION.SDK_INT < VERSION_CODES.O) {
       writer.flush();
@@ -873,6 +1113,9 @@ public final class DiskLruCache implements Closeable {
     /** The sequence number of the most recently committed edit to this entry. */
     private long sequenceNumber;
 
+    /** True if this entry is in the admission window, see {@link #setAdmissionFilterEnabled}. */
+    private boolean inWindow;
+
     private Entry(String key) {
       this.key = key;
       this.lengths = new long[valueCount];
@@ -891,12 +1134,12 @@ public final class DiskLruCache implements Closeable {
       }
     }
 
-    public String getLengths() throws IOException {
-      StringBuilder result = new StringBuilder();
-      for (long size : lengths) {
-        result.append(' ').append(size);
+    private long getSize() {
+      long result = 0;
+      for (long length : lengths) {
+        result += length;
       }
-      return result.toString();
+      return result;
     }
 
     /** Set lengths using decimal numbers like "10123". */
@@ -927,6 +1170,59 @@ public final class DiskLruCache implements Closeable {
     }
   }
 
+  /** Appends operations to the line based text journal. */
+  private static final class TextJournalWriter implements JournalWriter {
+    private final Writer writer;
+
+    TextJournalWriter(Writer writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public void writeClean(String key, long[] lengths) throws IOException {
+      writer.append(CLEAN);
+      writer.append(' ');
+      writer.append(key);
+      for (long length : lengths) {
+        writer.append(' ');
+        writer.append(Long.toString(length));
+      }
+      writer.append('\n');
+    }
+
+    @Override
+    public void writeDirty(String key) throws IOException {
+      writeOp(DIRTY, key);
+    }
+
+    @Override
+    public void writeRemove(String key) throws IOException {
+      writeOp(REMOVE, key);
+    }
+
+    @Override
+    public void writeRead(String key) throws IOException {
+      writeOp(READ, key);
+    }
+
+    private void writeOp(String op, String key) throws IOException {
+      writer.append(op);
+      writer.append(' ');
+      writer.append(key);
+      writer.append('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+      writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+
   /**
    * A {@link java.util.concurrent.ThreadFactory} that builds a thread with a specific thread name
    * and with minimum priority.
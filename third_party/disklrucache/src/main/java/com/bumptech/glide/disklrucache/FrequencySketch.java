@@ -0,0 +1,136 @@
+package com.bumptech.glide.disklrucache;
+
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Estimates how often each key has been used recently, for caches with frequency based admission
+ * or eviction.
+ *
+ * <p>This is a count-min sketch with four bit counters, as described in "TinyLFU: A Highly
+ * Efficient Cache Admission Policy" by Einziger, Friedman and Manes. Each key is mapped to four
+ * counters and its frequency is the smallest of them, so estimates may be too high when keys
+ * collide but are never too low. Counters saturate at 15. Once the number of increments reaches
+ * ten times the number of counter groups, every counter is halved so that keys that were popular a
+ * long time ago don't stay in the cache forever.
+ *
+ * <p>Adapted from the {@code FrequencySketch} in Caffeine, https://github.com/ben-manes/caffeine.
+ *
+ * <p>This class is not thread safe.
+ */
+final class FrequencySketch {
+  private static final int MIN_CAPACITY = 1024;
+  private static final int MAX_CAPACITY = 1 << 24;
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private long[] table;
+  private int tableMask;
+  private int sampleSize;
+  private int size;
+
+  FrequencySketch(int expectedEntries) {
+    ensureCapacity(expectedEntries);
+  }
+
+  /**
+   * Grows the sketch so that it can accurately track {@code expectedEntries} keys.
+   *
+   * <p>Each key's counters in the grown table are at an index whose low bits are the key's index in
+   * the current table, so the current table is repeated to fill the grown table and every key keeps
+   * its estimate.
+   */
+  void ensureCapacity(int expectedEntries) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < expectedEntries && capacity < MAX_CAPACITY) {
+      capacity <<= 1;
+    }
+    if (table != null && table.length >= capacity) {
+      return;
+    }
+    long[] grown = new long[capacity];
+    if (table != null) {
+      for (int i = 0; i < capacity; i += table.length) {
+        System.arraycopy(table, 0, grown, i, table.length);
+      }
+    }
+    table = grown;
+    tableMask = capacity - 1;
+    sampleSize = 10 * capacity;
+  }
+
+  /** Returns the estimated number of recent uses of {@code key}, between 0 and 15. */
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /** Records a use of {@code key}. */
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  /** Increments counter {@code j} of the sixteen counters in {@code table[i]} unless it's full. */
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = 0xfL << offset;
+    if ((table[i] & mask) != mask) {
+      table[i] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /** Halves every counter, accounting for the truncation of odd counts. */
+  private void reset() {
+    int oddCounts = 0;
+    for (int i = 0; i < table.length; i++) {
+      oddCounts += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (oddCounts >>> 2);
+  }
+
+  private int indexOf(int hash, int i) {
+    long result = (hash + SEEDS[i]) * SEEDS[i];
+    result += result >>> 32;
+    return ((int) result) & tableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
@@ -0,0 +1,23 @@
+package com.bumptech.glide.disklrucache;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Appends cache operations to a journal, independent of the on disk format of the journal.
+ */
+interface JournalWriter extends Closeable, Flushable {
+
+  /** Records that the entry for {@code key} was published with the given value lengths. */
+  void writeClean(String key, long[] lengths) throws IOException;
+
+  /** Records that the entry for {@code key} is being created or updated. */
+  void writeDirty(String key) throws IOException;
+
+  /** Records that the entry for {@code key} was deleted. */
+  void writeRemove(String key) throws IOException;
+
+  /** Records an access of the entry for {@code key} for LRU. */
+  void writeRead(String key) throws IOException;
+}
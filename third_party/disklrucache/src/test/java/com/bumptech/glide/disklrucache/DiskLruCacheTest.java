@@ -18,6 +18,7 @@ package com.bumptech.glide.disklrucache;
 
 import static com.bumptech.glide.disklrucache.DiskLruCache.JOURNAL_FILE;
 import static com.bumptech.glide.disklrucache.DiskLruCache.JOURNAL_FILE_BACKUP;
+import static com.bumptech.glide.disklrucache.DiskLruCache.JOURNAL_FILE_BINARY;
 import static com.bumptech.glide.disklrucache.DiskLruCache.MAGIC;
 import static com.bumptech.glide.disklrucache.DiskLruCache.VERSION_1;
 import static com.google.common.truth.Fact.simpleFact;
@@ -33,6 +34,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -58,6 +60,7 @@ public final class DiskLruCacheTest {
   private File cacheDir;
   private File journalFile;
   private File journalBkpFile;
+  private File binaryJournalFile;
   private DiskLruCache cache;
 
   @Rule public TemporaryFolder tempDir = new TemporaryFolder();
@@ -71,6 +74,7 @@ public final class DiskLruCacheTest {
     cacheDir = tempDir.newFolder("DiskLruCacheTest");
     journalFile = new File(cacheDir, JOURNAL_FILE);
     journalBkpFile = new File(cacheDir, JOURNAL_FILE_BACKUP);
+    binaryJournalFile = new File(cacheDir, JOURNAL_FILE_BINARY);
     for (File file : cacheDir.listFiles()) {
       file.delete();
     }
@@ -419,6 +423,88 @@ public final class DiskLruCacheTest {
     assertValue("e", "eeee", "eeee");
   }
 
+  @Test public void admissionFilterEvictsNewEntryUsedLessOftenThanVictim() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, 10);
+    cache.setAdmissionFilterEnabled(true);
+    set("a", "a", "aaaa"); // size 5
+    set("b", "b", "bbbb"); // size 5
+    cache.flush();
+    cache.get("a");
+    cache.get("b");
+
+    // 'c' has only been requested once, when it missed, so it's evicted instead of 'a'.
+    assertThat(cache.get("c")).isNull();
+    set("c", "c", "cccc");
+    cache.flush();
+    assertThat(cache.size()).isEqualTo(10);
+    assertValue("a", "a", "aaaa");
+    assertValue("b", "b", "bbbb");
+    assertAbsent("c");
+  }
+
+  @Test public void admissionFilterEvictsVictimUsedLessOftenThanNewEntry() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, 10);
+    cache.setAdmissionFilterEnabled(true);
+    set("a", "a", "aaaa"); // size 5
+    set("b", "b", "bbbb"); // size 5
+    cache.flush();
+    cache.get("a");
+    cache.get("b");
+
+    assertThat(cache.get("c")).isNull();
+    assertThat(cache.get("c")).isNull();
+    set("c", "c", "cccc");
+    cache.flush();
+    assertThat(cache.size()).isEqualTo(10);
+    assertAbsent("a");
+    assertValue("b", "b", "bbbb");
+    assertValue("c", "c", "cccc");
+  }
+
+  @Test public void admissionFilterIgnoresContains() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, 10);
+    cache.setAdmissionFilterEnabled(true);
+    set("a", "a", "aaaa"); // size 5
+    set("b", "b", "bbbb"); // size 5
+    cache.flush();
+    cache.get("a");
+    cache.get("b");
+
+    assertThat(cache.contains("a")).isTrue();
+    assertThat(cache.contains("c")).isFalse();
+    assertThat(cache.contains("c")).isFalse();
+    assertThat(cache.get("c")).isNull();
+    set("c", "c", "cccc");
+    cache.flush();
+    assertThat(cache.size()).isEqualTo(10);
+    assertValue("a", "a", "aaaa");
+    assertValue("b", "b", "bbbb");
+    assertAbsent("c");
+  }
+
+  @Test public void admissionFilterDisabledEvictsLeastRecentlyUsed() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, 10);
+    cache.setAdmissionFilterEnabled(true);
+    set("a", "a", "aaaa"); // size 5
+    set("b", "b", "bbbb"); // size 5
+    cache.flush();
+    cache.get("a");
+    cache.get("a");
+    cache.get("b");
+
+    cache.setAdmissionFilterEnabled(false);
+    set("c", "c", "cccc");
+    cache.flush();
+    assertThat(cache.size()).isEqualTo(10);
+    assertAbsent("a");
+    assertValue("b", "b", "bbbb");
+    assertValue("c", "c", "cccc");
+  }
+
   @Test public void evictOnUpdate() throws Exception {
     cache.close();
     cache = DiskLruCache.open(cacheDir, appVersion, 2, 10);
@@ -772,6 +858,89 @@ public final class DiskLruCacheTest {
     assertThat(cache.get("a")).isNull();
   }
 
+  @Test public void binaryJournalReadAndWriteEntryAcrossCacheOpenAndClose() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    String key = hashKey('a');
+    set(key, "A", "B");
+    cache.close();
+
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    assertValue(key, "A", "B");
+    assertThat(cache.size()).isEqualTo(2);
+    FileSubject.assertThat(journalFile).doesNotExist();
+    FileSubject.assertThat(binaryJournalFile).exists();
+  }
+
+  @Test public void binaryJournalHasFixedSizeRecords() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    set(hashKey('a'), "A", "B");
+    cache.get(hashKey('a'));
+    cache.remove(hashKey('a'));
+    cache.close();
+
+    // DIRTY, CLEAN, READ and REMOVE records after the header.
+    assertThat(binaryJournalFile.length())
+        .isEqualTo(BinaryJournal.HEADER_SIZE + 4 * BinaryJournal.recordSize(2));
+  }
+
+  @Test public void binaryJournalMigratesFromTextJournal() throws Exception {
+    String key = hashKey('b');
+    set(key, "A", "B");
+    set("k1", "C", "D");
+    cache.close();
+
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    assertValue(key, "A", "B");
+    // Keys that aren't hashes can't be written to a binary journal and are dropped.
+    assertAbsent("k1");
+    assertThat(cache.size()).isEqualTo(2);
+    FileSubject.assertThat(journalFile).doesNotExist();
+    FileSubject.assertThat(binaryJournalFile).exists();
+  }
+
+  @Test public void textJournalMigratesFromBinaryJournal() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    String key = hashKey('c');
+    set(key, "A", "B");
+    cache.close();
+
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE);
+    assertValue(key, "A", "B");
+    cache.close();
+    FileSubject.assertThat(binaryJournalFile).doesNotExist();
+    assertJournalEquals("CLEAN " + key + " 1 1", "READ " + key);
+  }
+
+  @Test public void binaryJournalWithTruncatedRecordIsRebuilt() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    String key = hashKey('d');
+    set(key, "A", "B");
+    cache.close();
+
+    RandomAccessFile file = new RandomAccessFile(binaryJournalFile, "rw");
+    file.setLength(file.length() + 3);
+    file.close();
+
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    assertValue(key, "A", "B");
+    assertThat((binaryJournalFile.length() - BinaryJournal.HEADER_SIZE)
+        % BinaryJournal.recordSize(2)).isEqualTo(0);
+  }
+
+  @Test public void binaryJournalRejectsKeysThatAreNotHashes() throws Exception {
+    cache.close();
+    cache = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE, true);
+    try {
+      cache.edit("k1");
+      Assert.fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   private void assertJournalEquals(String... expectedBodyLines) throws Exception {
     List<String> expectedLines = new ArrayList<String>();
     expectedLines.add(MAGIC);
@@ -813,6 +982,13 @@ public final class DiskLruCacheTest {
     return result;
   }
 
+  /** Returns a key in the format produced by hashing, as required by binary journals. */
+  private static String hashKey(char c) {
+    char[] key = new char[2 * BinaryJournal.KEY_SIZE];
+    Arrays.fill(key, c);
+    return new String(key);
+  }
+
   private File getCleanFile(String key, int index) {
     return new File(cacheDir, key + "." + index);
   }
@@ -34,8 +34,6 @@ public class StandardWebpDecoder implements WebpDecoder {
 
   private static final int INITIAL_FRAME_POINTER = -1;
 
-  private static final int BYTES_PER_INTEGER = Integer.SIZE / 8;
-
   @ColorInt
   private static final int COLOR_TRANSPARENT_BLACK = 0x00000000;
 
@@ -46,9 +44,9 @@ public class StandardWebpDecoder implements WebpDecoder {
    */
   private ByteBuffer rawData;
   /**
-   * Bitmap main pixels array
+   * Direct buffer used to copy the pixels of {@link #scratchBitmap} to each frame.
    */
-  private int[] scratchPixels;
+  private ByteBuffer scratchBuffer;
   /**
    * Base frames Bitmap
    */
@@ -183,7 +181,7 @@ public class StandardWebpDecoder implements WebpDecoder {
   public int getByteSize() {
     if (null != scratchBitmap) {
       return rawData.limit() + bitmapProvider.getSize(scratchBitmap) +
-              (scratchPixels.length * BYTES_PER_INTEGER);
+              scratchBuffer.capacity();
     } else {
       return rawData.limit();
     }
@@ -217,10 +215,10 @@ public class StandardWebpDecoder implements WebpDecoder {
 
   @Override
   public void clear() {
-    if (null != scratchPixels) {
-      bitmapProvider.release(scratchPixels);
+    if (null != scratchBuffer && bitmapProvider instanceof DirectBufferProvider) {
+      ((DirectBufferProvider) bitmapProvider).release(scratchBuffer);
     }
-    scratchPixels = null;
+    scratchBuffer = null;
     if (scratchBitmap != null) {
       bitmapProvider.release(scratchBitmap);
     }
@@ -268,8 +266,8 @@ public class StandardWebpDecoder implements WebpDecoder {
     downsampledWidth = header.getWidth() / this.sampleSize;
     downsampledHeight = header.getHeight() / this.sampleSize;
     if (savePrevious) {
-      scratchPixels = bitmapProvider.obtainIntArray(downsampledWidth * downsampledHeight);
       scratchBitmap = getNextBitmap();
+      scratchBuffer = obtainDirectBuffer(scratchBitmap.getByteCount());
       scratchCanvas = new Canvas(scratchBitmap);
     }
   }
@@ -336,10 +334,11 @@ public class StandardWebpDecoder implements WebpDecoder {
             (currentFrame.offsetX + currentFrame.width) / sampleSize,
             (currentFrame.offsetY + currentFrame.height) / sampleSize);
     scratchCanvas.drawBitmap(result, src, dst, paint);
-    scratchBitmap.getPixels(scratchPixels, 0, downsampledWidth,
-            0, 0, downsampledWidth, downsampledHeight);
-    result.setPixels(scratchPixels, 0, downsampledWidth,
-            0, 0, downsampledWidth, downsampledHeight);
+    // Both Bitmaps have the same size and config, so the raw pixels can be copied as is.
+    scratchBuffer.clear();
+    scratchBitmap.copyPixelsToBuffer(scratchBuffer);
+    scratchBuffer.flip();
+    result.copyPixelsFromBuffer(scratchBuffer);
     scratchCanvas.restore();
     return result;
   }
@@ -351,6 +350,13 @@ public class StandardWebpDecoder implements WebpDecoder {
     return result;
   }
 
+  private ByteBuffer obtainDirectBuffer(int size) {
+    if (bitmapProvider instanceof DirectBufferProvider) {
+      return ((DirectBufferProvider) bitmapProvider).obtainDirectBuffer(size);
+    }
+    return ByteBuffer.allocateDirect(size);
+  }
+
   private void loge(String msg) {
     if (Log.isLoggable(TAG, Log.ERROR)) {
       Log.e(TAG, msg);
@@ -96,6 +96,26 @@ public interface WebpDecoder {
     void release(@NonNull int[] array);
   }
 
+  /**
+   * An optional interface for {@link BitmapProvider}s that can also provide reused direct
+   * buffers, used to copy composited pixels without allocating a new buffer for each decoder.
+   * Decoders allocate a new buffer if their {@link BitmapProvider} doesn't implement it.
+   */
+  interface DirectBufferProvider {
+    /**
+     * Returns a direct buffer with at least the given number of bytes remaining.
+     *
+     * @param size the minimum size in bytes of the buffer to obtain
+     */
+    @NonNull
+    ByteBuffer obtainDirectBuffer(int size);
+
+    /**
+     * Releases the given direct buffer back to the pool.
+     */
+    void release(@NonNull ByteBuffer buffer);
+  }
+
   int getWidth();
 
   int getHeight();